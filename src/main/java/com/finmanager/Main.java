@@ -3,6 +3,22 @@ package com.finmanager;
 import com.finmanager.util.Logger;
 import com.finmanager.db.DatabaseManager;
 import com.finmanager.server.EmbeddedServer;
+import com.finmanager.importer.CsvColumnMapping;
+import com.finmanager.importer.ExpenseCsvImporter;
+import com.finmanager.importer.ImportResult;
+import com.finmanager.service.ExpenseSearchService;
+import com.finmanager.service.MonthlyCategoryTotalsService;
+import com.finmanager.util.DataGenerator;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Main {
     public static void main(String[] args) {
@@ -11,9 +27,17 @@ public class Main {
         // Initialize database
         DatabaseManager.getInstance();
         Logger.info(Main.class, "Database initialized");
+
+        if (args.length > 0) {
+            System.exit(runCommand(args));
+        }
         
         // Start server
         EmbeddedServer server = new EmbeddedServer();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            DatabaseManager.getInstance().shutdown();
+        }));
         try {
             server.start();
             Logger.info(Main.class, "fin-manager API server running on http://localhost:8080");
@@ -22,4 +46,91 @@ public class Main {
             Logger.error(Main.class, "Failed to start server: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Runs a one-off maintenance command instead of starting the server.
+     * @return Process exit code
+     */
+    private static int runCommand(String[] args) {
+        String command = args[0];
+        try {
+            switch (command) {
+                case "rebuild-totals" -> {
+                    int rows = MonthlyCategoryTotalsService.getInstance().rebuild();
+                    Logger.info(Main.class, "Rebuilt monthly_category_totals: " + rows + " rows");
+                    return 0;
+                }
+                case "check-totals" -> {
+                    List<String> mismatches = MonthlyCategoryTotalsService.getInstance().checkConsistency();
+                    mismatches.forEach(m -> Logger.warn(Main.class, "Mismatch: " + m));
+                    Logger.info(Main.class, "monthly_category_totals check: " + mismatches.size() + " mismatches");
+                    return mismatches.isEmpty() ? 0 : 1;
+                }
+                case "rebuild-search" -> {
+                    int rows = ExpenseSearchService.getInstance().rebuild();
+                    Logger.info(Main.class, "Rebuilt expenses_fts: " + rows + " expenses indexed");
+                    return 0;
+                }
+                case "check-search" -> {
+                    String problem = ExpenseSearchService.getInstance().checkIntegrity();
+                    Logger.info(Main.class, "expenses_fts check: " + (problem == null ? "ok" : problem));
+                    return problem == null ? 0 : 1;
+                }
+                case "import-csv" -> {
+                    if (args.length < 2) {
+                        Logger.error(Main.class, "Usage: import-csv <file.csv> [key=value ...]");
+                        return 2;
+                    }
+                    return importCsv(Path.of(args[1]), Arrays.copyOfRange(args, 2, args.length));
+                }
+                case "generate-data" -> {
+                    Map<String, String> settings = parseSettings(Arrays.copyOfRange(args, 1, args.length));
+                    long seed = Long.parseLong(settings.getOrDefault("seed", "42"));
+                    new DataGenerator(seed, DataGenerator.Scale.fromSettings(settings)).generate();
+                    return 0;
+                }
+                default -> {
+                    Logger.error(Main.class, "Unknown command: " + command + " (expected rebuild-totals, check-totals, rebuild-search, check-search, import-csv or generate-data)");
+                    return 2;
+                }
+            }
+        } catch (Exception e) {
+            Logger.error(Main.class, "Command failed: " + command, e);
+            return 1;
+        }
+    }
+
+    /**
+     * Imports a CSV file; trailing key=value arguments override the import.csv.* mapping.
+     * Rejected rows are written next to the input as {@code <file>.rejected.csv}.
+     */
+    private static int importCsv(Path file, String[] settings) throws Exception {
+        Map<String, String> overrides = parseSettings(settings);
+        Path rejectsFile = Path.of(file + ".rejected.csv");
+        ImportResult result;
+        try (Reader input = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             Writer rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            result = new ExpenseCsvImporter(CsvColumnMapping.fromConfig(overrides)).importCsv(input, rejects,
+                progress -> Logger.info(Main.class, String.format("%,d rows read, %,d imported, %,d rejected (%d ms)",
+                    progress.rowsRead, progress.imported, progress.rejected, progress.elapsedMs)));
+        }
+        if (result.rejected == 0) {
+            Files.deleteIfExists(rejectsFile);
+        } else {
+            Logger.warn(Main.class, "Rejected rows written to " + rejectsFile);
+        }
+        return result.rejected == 0 ? 0 : 1;
+    }
+
+    /** Parses trailing {@code key=value} command arguments. */
+    private static Map<String, String> parseSettings(String[] settings) {
+        Map<String, String> parsed = new HashMap<>();
+        for (String setting : settings) {
+            int eq = setting.indexOf('=');
+            if (eq > 0) {
+                parsed.put(setting.substring(0, eq), setting.substring(eq + 1));
+            }
+        }
+        return parsed;
+    }
 }
@@ -1,14 +1,28 @@
 package com.finmanager.api;
 
 import com.finmanager.model.Expense;
+import com.finmanager.service.ExpenseSearchService;
 import com.finmanager.service.ExpenseService;
+import com.finmanager.util.AppConfig;
 import com.finmanager.util.Logger;
 import com.finmanager.util.GsonUtil;
+import com.finmanager.util.ValidationUtil;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class ExpenseAPI {
     private final ExpenseService expenseService;
@@ -20,27 +34,77 @@ public class ExpenseAPI {
     }
 
     public String getExpensesByMonth(String yearMonth) {
-        Logger.debug(ExpenseAPI.class, "getExpensesByMonth() called with: " + yearMonth);
         try {
-            YearMonth ym = YearMonth.parse(yearMonth);
-            List<Expense> expenses = expenseService.getExpensesByMonth(ym);
-            Logger.debug(ExpenseAPI.class, "  → Found " + expenses.size() + " expenses for " + yearMonth);
-            return gson.toJson(expenses);
+            return streamExpensesByMonth(yearMonth).toJson();
+        } catch (SQLException e) {
+            return gson.toJson(new CategoryAPI.ApiError("Failed to fetch expenses: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * The month's expenses as a JSON array, read a page at a time as it is written. The month is
+     * validated and the first page read up front, so a bad request or a database error still gets
+     * a complete error body.
+     * @throws SQLException if the first page cannot be read
+     */
+    public JsonResponse streamExpensesByMonth(String yearMonth) throws SQLException {
+        Logger.debug(ExpenseAPI.class, "streamExpensesByMonth() called with: " + yearMonth);
+        YearMonth ym;
+        try {
+            ym = YearMonth.parse(yearMonth);
         } catch (Exception e) {
             Logger.error(ExpenseAPI.class, "Error fetching expenses for month " + yearMonth, e);
-            return gson.toJson(new CategoryAPI.ApiError("Invalid month format: " + yearMonth));
+            return JsonResponse.of(new CategoryAPI.ApiError("Invalid month format: " + yearMonth));
         }
+        return streamRange(ym.atDay(1), ym.atEndOfMonth());
     }
 
     public String getExpensesByDateRange(String startDate, String endDate) {
         try {
-            LocalDate start = LocalDate.parse(startDate);
-            LocalDate end = LocalDate.parse(endDate);
-            List<Expense> expenses = expenseService.getExpensesByDateRange(start, end);
-            return gson.toJson(expenses);
+            return streamExpensesByDateRange(startDate, endDate).toJson();
+        } catch (SQLException e) {
+            return gson.toJson(new CategoryAPI.ApiError("Failed to fetch expenses: " + e.getMessage()));
+        }
+    }
+
+    public JsonResponse streamExpensesByDateRange(String startDate, String endDate) throws SQLException {
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(startDate);
+            end = LocalDate.parse(endDate);
         } catch (Exception e) {
-            return gson.toJson(new CategoryAPI.ApiError("Invalid date format"));
+            return JsonResponse.of(new CategoryAPI.ApiError("Invalid date format"));
         }
+        return streamRange(start, end);
+    }
+
+    /**
+     * Reads api.stream.pageRows rows per query and writes them out with no connection borrowed, so
+     * a slow client holds neither a pooled connection nor a read transaction open.
+     */
+    private JsonResponse streamRange(LocalDate start, LocalDate end) throws SQLException {
+        int pageRows = Math.max(1, AppConfig.getInstance().getIntProperty("api.stream.pageRows", 1000));
+        List<Expense> first = expenseService.getExpensesPage(start, end, null, null, pageRows);
+        return writer -> {
+            writer.beginArray();
+            List<Expense> page = first;
+            while (true) {
+                for (Expense expense : page) {
+                    gson.toJson(expense, Expense.class, writer);
+                }
+                if (page.size() < pageRows) {
+                    break;
+                }
+                Expense last = page.get(page.size() - 1);
+                try {
+                    page = expenseService.getExpensesPage(start, end, last.getDate(), last.getId(), pageRows);
+                } catch (SQLException e) {
+                    throw new IOException("Failed to read expenses from " + start + " to " + end, e);
+                }
+            }
+            writer.endArray();
+        };
     }
 
     public String createExpense(String json) {
@@ -57,6 +121,61 @@ public class ExpenseAPI {
         }
     }
 
+    /**
+     * Creates every expense of a JSON array in one transaction.
+     * The array is parsed element by element straight from the request stream.
+     */
+    public String createExpenses(Reader body) {
+        Logger.debug(ExpenseAPI.class, "createExpenses() called");
+        List<Expense> expenses = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(body)) {
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                return gson.toJson(new CategoryAPI.ApiError("Expected a JSON array of expenses"));
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Expense expense = gson.fromJson(reader, Expense.class);
+                String error = validate(expense);
+                if (error != null) {
+                    return gson.toJson(new CategoryAPI.ApiError("Invalid expense at index " + expenses.size() + ": " + error));
+                }
+                expenses.add(expense);
+            }
+            reader.endArray();
+        } catch (Exception e) {
+            Logger.error(ExpenseAPI.class, "Error parsing expense batch", e);
+            return gson.toJson(new CategoryAPI.ApiError("Invalid expense batch: " + e.getMessage()));
+        }
+
+        try {
+            List<Long> ids = expenseService.createExpenses(expenses);
+            Logger.debug(ExpenseAPI.class, "  → Created " + ids.size() + " expenses");
+            return gson.toJson(new BatchResponse(ids));
+        } catch (Exception e) {
+            Logger.error(ExpenseAPI.class, "Error creating expense batch", e);
+            return gson.toJson(new CategoryAPI.ApiError("Failed to create expenses: " + e.getMessage()));
+        }
+    }
+
+    private String validate(Expense expense) {
+        if (expense == null) {
+            return "expense is null";
+        }
+        if (expense.getDate() == null) {
+            return "date is required";
+        }
+        if (!ValidationUtil.isValidAmountCents(expense.getAmountCents())) {
+            return "amount must be positive";
+        }
+        if (expense.getCategoryId() == null) {
+            return "categoryId is required";
+        }
+        if (!ValidationUtil.isValidDescription(expense.getDescription())) {
+            return "description is too long";
+        }
+        return null;
+    }
+
     public String updateExpense(String json) {
         try {
             Expense expense = gson.fromJson(json, Expense.class);
@@ -76,6 +195,132 @@ public class ExpenseAPI {
         }
     }
 
+    /**
+     * A page of the month's expenses; {@code cursor} and {@code limit} may be null.
+     * @throws SQLException if the page cannot be read; invalid parameters are returned as an error body
+     */
+    public String getExpensesPageByMonth(String yearMonth, String cursor, String limit) throws SQLException {
+        YearMonth ym;
+        try {
+            ym = YearMonth.parse(yearMonth);
+        } catch (Exception e) {
+            return gson.toJson(new CategoryAPI.ApiError("Invalid month format: " + yearMonth));
+        }
+        return page(ym.atDay(1), ym.atEndOfMonth(), cursor, limit, "/api/expenses?month=" + ym);
+    }
+
+    /** A page of expenses between two dates, inclusive; {@code cursor} and {@code limit} may be null. */
+    public String getExpensesPageByDateRange(String startDate, String endDate, String cursor, String limit) throws SQLException {
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(startDate);
+            end = LocalDate.parse(endDate);
+        } catch (Exception e) {
+            return gson.toJson(new CategoryAPI.ApiError("Invalid date format"));
+        }
+        if (end.isBefore(start)) {
+            return gson.toJson(new CategoryAPI.ApiError("end must not be before start"));
+        }
+        return page(start, end, cursor, limit, "/api/expenses/range?start=" + start + "&end=" + end);
+    }
+
+    private String page(LocalDate start, LocalDate end, String cursorParam, String limitParam, String link) throws SQLException {
+        int limit = pageLimit(limitParam);
+        if (limit < 1) {
+            return gson.toJson(new CategoryAPI.ApiError("limit must be a positive integer"));
+        }
+
+        Cursor after = null;
+        if (cursorParam != null) {
+            after = Cursor.decode(cursorParam);
+            if (after == null) {
+                return gson.toJson(new CategoryAPI.ApiError("Invalid cursor"));
+            }
+        }
+
+        // One row more than the page tells us whether there is a next page without a COUNT
+        List<Expense> rows = expenseService.getExpensesPage(start, end,
+            after == null ? null : after.date(), after == null ? null : after.id(), limit + 1);
+        PageResponse page = new PageResponse();
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            Expense last = rows.get(limit - 1);
+            page.nextCursor = new Cursor(last.getDate(), last.getId()).encode();
+            page.next = link + "&limit=" + limit + "&cursor=" + page.nextCursor;
+        }
+        page.items = rows;
+        return gson.toJson(page);
+    }
+
+    /** The requested page size capped at api.page.maxLimit, the default when absent, or 0 if invalid. */
+    private int pageLimit(String limitParam) {
+        AppConfig config = AppConfig.getInstance();
+        if (limitParam == null) {
+            return config.getIntProperty("api.page.defaultLimit", 100);
+        }
+        try {
+            return Math.max(0, Math.min(Integer.parseInt(limitParam), config.getIntProperty("api.page.maxLimit", 1000)));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Ranked search over descriptions. {@code q} is required; start, end (yyyy-MM-dd), categoryId,
+     * minAmount, maxAmount, limit and cursor are optional. Same response shape as the paged listings.
+     */
+    public String searchExpenses(Map<String, String> params) {
+        String match = ExpenseSearchService.toMatchQuery(params.get("q"));
+        if (match == null) {
+            return gson.toJson(new CategoryAPI.ApiError("q parameter required"));
+        }
+        int limit = pageLimit(params.get("limit"));
+        if (limit < 1) {
+            return gson.toJson(new CategoryAPI.ApiError("limit must be a positive integer"));
+        }
+
+        ExpenseSearchService.Filter filter;
+        try {
+            filter = new ExpenseSearchService.Filter(
+                params.containsKey("start") ? LocalDate.parse(params.get("start")) : null,
+                params.containsKey("end") ? LocalDate.parse(params.get("end")) : null,
+                params.containsKey("categoryId") ? Long.valueOf(params.get("categoryId")) : null,
+                params.containsKey("minAmount") ? Double.valueOf(params.get("minAmount")) : null,
+                params.containsKey("maxAmount") ? Double.valueOf(params.get("maxAmount")) : null);
+        } catch (RuntimeException e) {
+            return gson.toJson(new CategoryAPI.ApiError("Invalid search filter: " + e.getMessage()));
+        }
+
+        SearchCursor after = null;
+        if (params.containsKey("cursor")) {
+            after = SearchCursor.decode(params.get("cursor"));
+            if (after == null) {
+                return gson.toJson(new CategoryAPI.ApiError("Invalid cursor"));
+            }
+        }
+
+        ExpenseSearchService.Results results = after == null
+            ? ExpenseSearchService.getInstance().search(match, filter, null, limit + 1, null)
+            : ExpenseSearchService.getInstance().search(match, filter, after.after(), limit + 1, after.ranked());
+        List<Expense> rows = results.expenses();
+        PageResponse page = new PageResponse();
+        page.ranked = results.ranked();
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            page.nextCursor = new SearchCursor(results.after(limit - 1), results.ranked()).encode();
+            StringBuilder link = new StringBuilder("/api/expenses/search?");
+            for (Map.Entry<String, String> param : new TreeMap<>(params).entrySet()) {
+                if (!param.getKey().equals("cursor") && !param.getKey().equals("limit")) {
+                    link.append(param.getKey()).append('=').append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8)).append('&');
+                }
+            }
+            page.next = link + "limit=" + limit + "&cursor=" + page.nextCursor;
+        }
+        page.items = rows;
+        return gson.toJson(page);
+    }
+
     public String getTotalExpensesByMonth(String yearMonth) {
         try {
             YearMonth ym = YearMonth.parse(yearMonth);
@@ -86,6 +331,81 @@ public class ExpenseAPI {
         }
     }
 
+    public static class BatchResponse {
+        public int count;
+        public List<Long> ids;
+
+        public BatchResponse(List<Long> ids) {
+            this.count = ids.size();
+            this.ids = ids;
+        }
+    }
+
+    public static class PageResponse {
+        public List<Expense> items;
+        /** Absent on the last page. */
+        public String nextCursor;
+        public String next;
+        /** Search only: false when there were too many matches to rank and items are newest first. */
+        public Boolean ranked;
+    }
+
+    /**
+     * Position of the last row of a page. Clients see it as opaque base64url text; it only has to
+     * survive a round trip through a query string.
+     */
+    record Cursor(LocalDate date, long id) {
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString((date + ":" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @return null if the text is not a cursor this API produced */
+        static Cursor decode(String text) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(text), StandardCharsets.UTF_8);
+                int colon = decoded.indexOf(':');
+                return new Cursor(LocalDate.parse(decoded.substring(0, colon)), Long.parseLong(decoded.substring(colon + 1)));
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Position of the last row of a search page and the order its first page was served in, so
+     * later pages keep that order: bm25 score, day and id when ranked, only the id when not.
+     */
+    record SearchCursor(ExpenseSearchService.After after, boolean ranked) {
+
+        String encode() {
+            String text = ranked
+                ? "ranked:" + after.score() + ":" + after.epochDay() + ":" + after.id()
+                : "recent:" + after.id();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** @return null if the text is not a cursor this API produced */
+        static SearchCursor decode(String text) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(text), StandardCharsets.UTF_8).split(":");
+                if (parts.length == 4 && parts[0].equals("ranked")) {
+                    double score = Double.parseDouble(parts[1]);
+                    if (!Double.isFinite(score)) {
+                        return null;
+                    }
+                    return new SearchCursor(new ExpenseSearchService.After(score, Long.parseLong(parts[2]), Long.parseLong(parts[3])), true);
+                }
+                if (parts.length == 2 && parts[0].equals("recent")) {
+                    return new SearchCursor(new ExpenseSearchService.After(0, 0, Long.parseLong(parts[1])), false);
+                }
+                return null;
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
     public static class TotalResponse {
         public Double total;
 
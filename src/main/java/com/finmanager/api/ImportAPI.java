@@ -0,0 +1,68 @@
+package com.finmanager.api;
+
+import com.finmanager.importer.CsvColumnMapping;
+import com.finmanager.importer.ExpenseCsvImporter;
+import com.finmanager.importer.ImportResult;
+import com.finmanager.util.AppConfig;
+import com.finmanager.util.GsonUtil;
+import com.finmanager.util.Logger;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+public class ImportAPI {
+    private final Gson gson;
+
+    public ImportAPI() {
+        this.gson = GsonUtil.getInstance();
+    }
+
+    /**
+     * Imports a CSV body; query parameters override the configured column mapping.
+     * Rejected rows are kept in {@code import.rejectDir} and the file name is returned in the result.
+     */
+    public String importExpenses(Reader body, Map<String, String> params) {
+        Logger.debug(ImportAPI.class, "importExpenses() called with " + params);
+        Path rejectsFile = null;
+        try {
+            CsvColumnMapping mapping = CsvColumnMapping.fromConfig(params);
+            File rejectDir = new File(AppConfig.getInstance().getProperty("import.rejectDir", "imports"));
+            Files.createDirectories(rejectDir.toPath());
+            rejectsFile = Files.createTempFile(rejectDir.toPath(), "rejected-", ".csv");
+
+            ImportResult result;
+            try (Writer rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+                result = new ExpenseCsvImporter(mapping).importCsv(body, rejects, progress ->
+                    Logger.info(ImportAPI.class, "CSV import: " + progress.rowsRead + " rows read, "
+                        + progress.imported + " imported, " + progress.rejected + " rejected"));
+            }
+            if (result.rejected > 0) {
+                result.rejectedFile = rejectsFile.toString();
+            } else {
+                Files.deleteIfExists(rejectsFile);
+            }
+            return gson.toJson(result);
+        } catch (Exception e) {
+            Logger.error(ImportAPI.class, "CSV import failed", e);
+            deleteQuietly(rejectsFile);
+            return gson.toJson(new CategoryAPI.ApiError("Import failed: " + e.getMessage()));
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                Logger.warn(ImportAPI.class, "Could not delete " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -2,10 +2,13 @@ package com.finmanager.api;
 
 import com.finmanager.model.InvestmentEntry;
 import com.finmanager.service.InvestmentService;
+import com.finmanager.util.AppConfig;
 import com.finmanager.util.Logger;
 import com.finmanager.util.GsonUtil;
 import com.google.gson.Gson;
 
+import java.io.IOException;
+import java.sql.SQLException;
 import java.time.Year;
 import java.util.List;
 
@@ -28,6 +31,36 @@ public class InvestmentAPI {
         return gson.toJson(entries);
     }
 
+    /**
+     * Entries for {@code year}, or all entries when it is null, read api.stream.pageRows at a time
+     * as they are written, with no connection borrowed while the client reads.
+     * @throws SQLException if the first page cannot be read
+     */
+    public JsonResponse streamInvestments(Integer year) throws SQLException {
+        Year filter = year == null ? null : Year.of(year);
+        int pageRows = Math.max(1, AppConfig.getInstance().getIntProperty("api.stream.pageRows", 1000));
+        List<InvestmentEntry> first = investmentService.getInvestmentsPage(filter, null, null, pageRows);
+        return writer -> {
+            writer.beginArray();
+            List<InvestmentEntry> page = first;
+            while (true) {
+                for (InvestmentEntry entry : page) {
+                    gson.toJson(entry, InvestmentEntry.class, writer);
+                }
+                if (page.size() < pageRows) {
+                    break;
+                }
+                InvestmentEntry last = page.get(page.size() - 1);
+                try {
+                    page = investmentService.getInvestmentsPage(filter, last.getDate(), last.getId(), pageRows);
+                } catch (SQLException e) {
+                    throw new IOException("Failed to read investments", e);
+                }
+            }
+            writer.endArray();
+        };
+    }
+
     public String createInvestmentEntry(String json) {
         try {
             InvestmentEntry entry = gson.fromJson(json, InvestmentEntry.class);
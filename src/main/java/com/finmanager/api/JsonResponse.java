@@ -0,0 +1,38 @@
+package com.finmanager.api;
+
+import com.finmanager.util.GsonUtil;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * A JSON body that writes itself to a {@link JsonWriter}. The server points the writer at the
+ * response stream with chunked transfer encoding, so a large result can go from the database to
+ * the client without ever being held as one String or byte array.
+ *
+ * The writer should come from {@code Gson.newJsonWriter} so the output matches
+ * {@code gson.toJson(...)} exactly.
+ */
+@FunctionalInterface
+public interface JsonResponse {
+
+    void writeTo(JsonWriter writer) throws IOException;
+
+    /** Wraps a value that is already in memory (small results, errors). */
+    static JsonResponse of(Object value) {
+        return writer -> GsonUtil.getInstance().toJson(value, value.getClass(), writer);
+    }
+
+    /** Renders the whole body as a String, for callers that need the old String contract. */
+    default String toJson() {
+        StringWriter out = new StringWriter();
+        try {
+            writeTo(GsonUtil.getInstance().newJsonWriter(out));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
@@ -94,11 +94,15 @@ public class RecurringExpenseAPI {
     public String generateAll() {
         Logger.debug(RecurringExpenseAPI.class, "generateAll() called");
         try {
-            int generated = generator.generateAllRecurring(LocalDate.now());
+            RecurringExpenseGenerator.Report report = generator.generateAll(LocalDate.now());
+            int generated = report.total;
             Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
+            response.put("success", report.failed.isEmpty());
             response.put("message", "Generated " + generated + " expense instances");
             response.put("count", generated);
+            response.put("perDefinition", report.perDefinition);
+            response.put("failed", report.failed);
+            response.put("elapsedMs", report.elapsedMs);
             response.put("timestamp", LocalDate.now().toString());
             Logger.debug(RecurringExpenseAPI.class, "  → Generated " + generated + " instances total");
             return gson.toJson(response);
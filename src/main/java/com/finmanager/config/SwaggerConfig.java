@@ -39,6 +39,9 @@ public class SwaggerConfig {
         paths.set("/api/expenses", createExpenseListEndpoint());
         paths.set("/api/expense", createExpenseEndpoint());
         paths.set("/api/expenses/total", createExpenseTotalEndpoint());
+        paths.set("/api/expenses/batch", createExpenseBatchEndpoint());
+        paths.set("/api/expenses/range", createExpenseRangeEndpoint());
+        paths.set("/api/expenses/search", createExpenseSearchEndpoint());
 
         // Recurring expense endpoints
         paths.set("/api/recurring", createRecurringExpenseEndpoint());
@@ -49,6 +52,9 @@ public class SwaggerConfig {
         paths.set("/api/investments/cagr", createCAGREndpoint());
         paths.set("/api/investments/projection", createProjectionEndpoint());
 
+        // Import endpoints
+        paths.set("/api/import/expenses", createExpenseImportEndpoint());
+
         // Analytics endpoints
         paths.set("/api/analytics/breakdown", createBreakdownEndpoint());
         paths.set("/api/analytics/monthly-total", createMonthlyTotalEndpoint());
@@ -136,7 +142,8 @@ public class SwaggerConfig {
         ObjectNode endpoint = objectMapper.createObjectNode();
         ObjectNode get = objectMapper.createObjectNode();
         get.put("summary", "Get all expenses");
-        get.put("description", "Retrieve all expenses with optional pagination");
+        get.put("description", "Retrieve the expenses of a month (month=yyyy-MM) as an array. With limit and/or cursor "
+            + "the month is paged instead, with the same response shape as /api/expenses/range");
         ObjectNode responses = objectMapper.createObjectNode();
         responses.set("200", objectMapper.createObjectNode().put("description", "Successful response"));
         get.set("responses", responses);
@@ -190,6 +197,65 @@ public class SwaggerConfig {
         return endpoint;
     }
 
+    private static ObjectNode createExpenseBatchEndpoint() {
+        ObjectNode endpoint = objectMapper.createObjectNode();
+        ObjectNode post = objectMapper.createObjectNode();
+        post.put("summary", "Create expenses in bulk");
+        post.put("description", "Create every expense of a JSON array in one transaction; returns the generated ids in order");
+        ObjectNode responses = objectMapper.createObjectNode();
+        responses.set("201", objectMapper.createObjectNode().put("description", "Expenses created"));
+        responses.set("400", objectMapper.createObjectNode().put("description", "Invalid expense; nothing was created"));
+        post.set("responses", responses);
+        endpoint.set("post", post);
+        return endpoint;
+    }
+
+    private static ObjectNode createExpenseRangeEndpoint() {
+        ObjectNode endpoint = objectMapper.createObjectNode();
+        ObjectNode get = objectMapper.createObjectNode();
+        get.put("summary", "Get expenses between two dates");
+        get.put("description", "Newest first, one page at a time. Query parameters: start and end (yyyy-MM-dd, inclusive), "
+            + "limit (default 100, capped at 1000) and cursor (the nextCursor of the previous page). The response has "
+            + "items, plus nextCursor and a next link unless this is the last page");
+        ObjectNode responses = objectMapper.createObjectNode();
+        responses.set("200", objectMapper.createObjectNode().put("description", "One page of expenses"));
+        responses.set("400", objectMapper.createObjectNode().put("description", "Invalid dates, limit or cursor"));
+        get.set("responses", responses);
+        endpoint.set("get", get);
+        return endpoint;
+    }
+
+    private static ObjectNode createExpenseSearchEndpoint() {
+        ObjectNode endpoint = objectMapper.createObjectNode();
+        ObjectNode get = objectMapper.createObjectNode();
+        get.put("summary", "Search expenses by description");
+        get.put("description", "Full-text search, best match first. q is required; every word must match and words of "
+            + "two or more characters match as prefixes. Optional filters: start, end, categoryId, minAmount, maxAmount. "
+            + "Paged with limit and cursor like /api/expenses/range. ranked is false when there were more than "
+            + "search.maxRankedMatches matches and the page is newest first instead");
+        ObjectNode responses = objectMapper.createObjectNode();
+        responses.set("200", objectMapper.createObjectNode().put("description", "One page of matching expenses"));
+        responses.set("400", objectMapper.createObjectNode().put("description", "Missing q or invalid filter, limit or cursor"));
+        get.set("responses", responses);
+        endpoint.set("get", get);
+        return endpoint;
+    }
+
+    private static ObjectNode createExpenseImportEndpoint() {
+        ObjectNode endpoint = objectMapper.createObjectNode();
+        ObjectNode post = objectMapper.createObjectNode();
+        post.put("summary", "Import expenses from CSV");
+        post.put("description", "Stream a CSV bank export into expenses. Query parameters (dateColumn, amountColumn, "
+            + "categoryColumn, descriptionColumn, dateFormat, delimiter, header, decimalComma, negativeIsExpense, "
+            + "defaultCategory) override the configured column mapping");
+        ObjectNode responses = objectMapper.createObjectNode();
+        responses.set("200", objectMapper.createObjectNode().put("description", "Import summary, including the rejected-rows file if any"));
+        responses.set("400", objectMapper.createObjectNode().put("description", "Import could not run"));
+        post.set("responses", responses);
+        endpoint.set("post", post);
+        return endpoint;
+    }
+
     private static ObjectNode createRecurringExpenseEndpoint() {
         ObjectNode endpoint = objectMapper.createObjectNode();
         
@@ -0,0 +1,292 @@
+package com.finmanager.db;
+
+import com.finmanager.util.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded JDBC connection pool.
+ *
+ * Idle connections are reused most-recently-used first. A background housekeeper evicts
+ * connections idle longer than the idle timeout (down to the minimum size) and reports
+ * connections held longer than the leak detection threshold, with the thread that borrowed them.
+ * The borrowing stack is captured only when asked for, since filling it in costs every borrow.
+ * Closing a borrowed connection returns it to the pool.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /** Opens a new physical connection. */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdNanos;
+    private final boolean captureBorrowStacks;
+    private final boolean validateOnBorrow;
+    private final int validationTimeoutSeconds;
+
+    private final Semaphore permits;
+    private final Deque<PhysicalConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final PoolStats stats = new PoolStats();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long idleTimeoutMillis,
+                          long borrowTimeoutMillis, long leakThresholdMillis, boolean captureBorrowStacks,
+                          boolean validateOnBorrow, int validationTimeoutSeconds, long housekeepingIntervalMillis) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+        this.captureBorrowStacks = captureBorrowStacks;
+        this.validateOnBorrow = validateOnBorrow;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+            housekeepingIntervalMillis, housekeepingIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout when the pool is exhausted.
+     * The caller must close it to hand it back.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                stats.recordTimeout();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection " +
+                    "(active=" + leases.size() + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long acquired = System.nanoTime();
+
+        try {
+            PhysicalConnection physical = takeIdleOrCreate();
+            Lease lease = new Lease(physical, leakThresholdNanos > 0 && captureBorrowStacks
+                ? new Exception("Connection borrowed here") : null);
+            leases.add(lease);
+
+            long end = System.nanoTime();
+            stats.recordBorrow(acquired - start, end - start);
+            return lease.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PhysicalConnection takeIdleOrCreate() throws SQLException {
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            if (!validateOnBorrow || isUsable(physical)) {
+                return physical;
+            }
+            stats.recordValidationFailure();
+            destroy(physical);
+        }
+        return create();
+    }
+
+    private boolean isUsable(PhysicalConnection physical) {
+        try {
+            return physical.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PhysicalConnection create() throws SQLException {
+        Connection connection = factory.create();
+        totalConnections.incrementAndGet();
+        stats.recordCreated();
+        return new PhysicalConnection(connection);
+    }
+
+    private void destroy(PhysicalConnection physical) {
+        totalConnections.decrementAndGet();
+        stats.recordDestroyed();
+        try {
+            physical.connection.close();
+        } catch (SQLException e) {
+            Logger.warn(ConnectionPool.class, "Failed to close pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void release(Lease lease) {
+        leases.remove(lease);
+        PhysicalConnection physical = lease.physical;
+        try {
+            if (closed || physical.connection.isClosed()) {
+                destroy(physical);
+                return;
+            }
+            // Never hand out a connection with a half-finished transaction
+            if (!physical.connection.getAutoCommit()) {
+                physical.connection.rollback();
+                physical.connection.setAutoCommit(true);
+            }
+            physical.lastUsedNanos = System.nanoTime();
+            idle.offerFirst(physical);
+        } catch (SQLException e) {
+            destroy(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.nanoTime();
+
+            // Evict from the cold end of the deque while above the minimum size
+            PhysicalConnection oldest;
+            while (totalConnections.get() > minSize
+                    && (oldest = idle.peekLast()) != null
+                    && now - oldest.lastUsedNanos > idleTimeoutNanos) {
+                if (!idle.removeLastOccurrence(oldest)) {
+                    continue;
+                }
+                if (now - oldest.lastUsedNanos > idleTimeoutNanos) {
+                    stats.recordEvicted();
+                    destroy(oldest);
+                } else {
+                    // Borrowed and returned while we looked at it; it is warm again
+                    idle.offerFirst(oldest);
+                    break;
+                }
+            }
+
+            while (!closed && totalConnections.get() < minSize) {
+                idle.offerLast(create());
+            }
+
+            if (leakThresholdNanos > 0) {
+                for (Lease lease : leases) {
+                    if (!lease.leakReported && now - lease.borrowedAtNanos > leakThresholdNanos) {
+                        lease.leakReported = true;
+                        stats.recordLeak();
+                        String message = "Possible connection leak: connection held for "
+                            + TimeUnit.NANOSECONDS.toMillis(now - lease.borrowedAtNanos) + " ms by thread " + lease.borrowerThread;
+                        if (lease.borrowSite != null) {
+                            Logger.warn(ConnectionPool.class, message, lease.borrowSite);
+                        } else {
+                            Logger.warn(ConnectionPool.class, message + " (set db.pool.leakDetectionStackTraces=true for its stack)");
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Logger.error(ConnectionPool.class, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    public PoolStats.Snapshot getStats() {
+        return stats.snapshot(leases.size(), idle.size(), totalConnections.get(), maxSize,
+            permits.getQueueLength());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            destroy(physical);
+        }
+    }
+
+    private static class PhysicalConnection {
+        final Connection connection;
+        volatile long lastUsedNanos = System.nanoTime();
+
+        PhysicalConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * One checkout of a physical connection. Each borrow gets a fresh proxy so a late
+     * second close() cannot return a connection that has since been handed to someone else.
+     */
+    private class Lease implements InvocationHandler {
+        final PhysicalConnection physical;
+        final Exception borrowSite;
+        final String borrowerThread = Thread.currentThread().getName();
+        final long borrowedAtNanos = System.nanoTime();
+        final AtomicBoolean returned = new AtomicBoolean();
+        final Connection proxy;
+        volatile boolean leakReported;
+
+        Lease(PhysicalConnection physical, Exception borrowSite) {
+            this.physical = physical;
+            this.borrowSite = borrowSite;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || physical.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical.connection + "]";
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -1,17 +1,107 @@
 package com.finmanager.db;
 
+import com.finmanager.util.AppConfig;
+import com.finmanager.util.Logger;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class DatabaseManager {
     private static final String DB_URL = System.getProperty("db.url", "jdbc:sqlite:fin-manager.db");
     private static DatabaseManager instance;
 
+    /** The yyyy-MM month of an epoch-day column, as the rollup keys it. */
+    public static String monthOf(String epochDayColumn) {
+        return "strftime('%Y-%m', " + epochDayColumn + " * 86400, 'unixepoch')";
+    }
+
+    /** Migrations that convert the REAL amounts and the TEXT dates of expenses in a backfill. */
+    private static final int AMOUNTS_VERSION = 3;
+    private static final int DATES_VERSION = 4;
+
+    /** Small tables whose REAL amount column V3 converts in place. */
+    private static final String[] CONVERTED_TABLES = {"recurring_expenses", "investment_entries"};
+
+    /** Small tables' old TEXT date columns and their INTEGER epoch-day replacements, converted in place by V4. */
+    private static final String[][] CONVERTED_DATE_COLUMNS = {
+        {"recurring_expenses", "start_date", "start_epoch_day"},
+        {"recurring_expenses", "end_date", "end_epoch_day"},
+        {"recurring_expenses", "last_generated_date", "last_generated_epoch_day"},
+        {"investment_entries", "date", "epoch_day"}
+    };
+
+    private static final String FTS_INSERT_TRIGGER = "trg_expenses_fts_insert";
+    private static final String TOTALS_INSERT_TRIGGER = "trg_expenses_totals_insert";
+
+    /** Re-indexes every expense description into expenses_fts. */
+    public static final String REBUILD_SEARCH_INDEX_SQL =
+        "INSERT INTO expenses_fts(expenses_fts) VALUES ('rebuild')";
+
+    private final ConnectionPool pool;
+    private final SchemaMigrator migrator;
+    private final DatabaseWriter writer;
+    /** True while the backfill of expenses' amounts or dates has rows left; see {@link #expenseDay}. */
+    private volatile boolean convertingAmounts;
+    private volatile boolean convertingDates;
+
     private DatabaseManager() {
+        this.pool = createPool();
+        this.migrator = new SchemaMigrator(migrations(), AppConfig.getInstance().getIntProperty("db.migration.backfillChunkRows", 5000));
         initializeDatabase();
+        this.writer = createWriter();
+        readConversionState();
+        startBackfills();
+    }
+
+    private static ConnectionPool createPool() {
+        AppConfig config = AppConfig.getInstance();
+        return new ConnectionPool(
+            DatabaseManager::openConnection,
+            config.getIntProperty("db.pool.minSize", 2),
+            config.getIntProperty("db.pool.maxSize", 10),
+            config.getIntProperty("db.pool.idleTimeoutMs", 300_000),
+            config.getIntProperty("db.pool.borrowTimeoutMs", 30_000),
+            config.getIntProperty("db.pool.leakDetectionThresholdMs", 60_000),
+            config.getBooleanProperty("db.pool.leakDetectionStackTraces", false),
+            config.getBooleanProperty("db.pool.validateOnBorrow", true),
+            config.getIntProperty("db.pool.validationTimeoutSec", 2),
+            config.getIntProperty("db.pool.housekeepingIntervalMs", 30_000)
+        );
+    }
+
+    private static DatabaseWriter createWriter() {
+        AppConfig config = AppConfig.getInstance();
+        return new DatabaseWriter(
+            DatabaseManager::openConnection,
+            config.getIntProperty("db.writer.commitIntervalMs", 0),
+            config.getIntProperty("db.writer.maxBatchSize", 256),
+            config.getIntProperty("db.writer.queueCapacity", 10_000)
+        );
+    }
+
+    private static Connection openConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(DB_URL);
+        if (DB_URL.startsWith("jdbc:sqlite:")) {
+            try {
+                SqlitePragmaProfile.fromConfig().apply(conn);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+        }
+        // Wrapping the physical connection once covers both the pool and the writer
+        return AppConfig.getInstance().getBooleanProperty("metrics.enabled", true) ? TimedConnection.wrap(conn) : conn;
     }
 
     public static DatabaseManager getInstance() {
@@ -21,13 +111,210 @@ public class DatabaseManager {
         return instance;
     }
 
+    /**
+     * Borrows a pooled connection; closing it returns it to the pool.
+     */
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        return pool.borrow();
+    }
+
+    /**
+     * The single writer all mutations go through.
+     */
+    public DatabaseWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * Reads a consistent snapshot of the database, for in-memory copies that follow the writer's
+     * {@link DatabaseWriter#afterCommit} callbacks. {@code pinned} runs on the writer thread at the
+     * point in commit order where the snapshot was taken: callbacks that ran before it describe
+     * changes the snapshot contains, callbacks after it changes it does not.
+     *
+     * In WAL mode the read runs on a pooled connection while writes carry on. Under a rollback
+     * journal an open reader would stall the writer's commits, so the read runs as a writer task.
+     */
+    public <T> T readSnapshot(Runnable pinned, DatabaseWriter.WriteTask<T> read) throws SQLException {
+        try (Connection conn = getConnection()) {
+            if (!isWal(conn)) {
+                return writer.execute(writerConn -> {
+                    T result = read.execute(writerConn);
+                    writer.afterCommit(pinned);
+                    return result;
+                });
+            }
+            conn.setAutoCommit(false);
+            try {
+                SQLException[] failure = new SQLException[1];
+                writer.execute(writerConn -> {
+                    // The snapshot holds the whole batch, so it goes after the callbacks of every task in it
+                    writer.afterBatch(() -> {
+                        // The first read of a transaction fixes its snapshot; no commit can land in between
+                        try (Statement stmt = conn.createStatement();
+                             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master")) {
+                            rs.next();
+                            pinned.run();
+                        } catch (SQLException e) {
+                            failure[0] = e;
+                        }
+                    });
+                    return null;
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                return read.execute(conn);
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static boolean isWal(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+            return rs.next() && "wal".equalsIgnoreCase(rs.getString(1));
+        }
+    }
+
+    public PoolStats.Snapshot getPoolStats() {
+        return pool.getStats();
+    }
+
+    public DatabaseWriter.Stats getWriterStats() {
+        return writer.getStats();
+    }
+
+    /**
+     * The epoch day of an expenses row as SQL, with {@code row} prefixing the columns ("" or "e.").
+     * On a database upgraded from TEXT dates, rows the V4 backfill has not reached yet have no
+     * epoch_day, so until it is done this reads their old date instead. Such reads cannot seek on
+     * the epoch_day indexes; once the backfill finishes this is the plain column again.
+     */
+    public String expenseDay(String row) {
+        return convertingDates ? dayOrLegacy(row) : row + "epoch_day";
+    }
+
+    /** The amount in cents of an expenses row as SQL, reading the old REAL amount like {@link #expenseDay}. */
+    public String expenseCents(String row) {
+        return convertingAmounts ? centsOrLegacy(row) : row + "amount_cents";
+    }
+
+    /** Every column of expenses under its own name, with the day and amount read as above. */
+    public String expenseColumns(String row) {
+        return row + "id, " + expenseDay(row) + " AS epoch_day, " + expenseCents(row) + " AS amount_cents, " +
+            row + "category_id, " + row + "description, " + row + "recurring_id, " + row + "is_recurring_instance";
+    }
+
+    /** Repopulates monthly_category_totals from the expenses table. */
+    public String rebuildMonthlyTotalsSql() {
+        return "INSERT INTO monthly_category_totals(month, category_id, total_cents, expense_count) " +
+            "SELECT " + monthOf(expenseDay("")) + ", category_id, SUM(" + expenseCents("") + "), COUNT(*) " +
+            "FROM expenses GROUP BY 1, category_id";
+    }
+
+    /**
+     * Drops the per-row insert triggers that keep expenses_fts and monthly_category_totals in step,
+     * for a bulk insert whose per-row trigger work would cost more than the insert itself. Returns
+     * the statements that recreate them, by trigger name; hand them to {@link #resumeInsertTriggers}
+     * in the same transaction, so the drop never commits on its own.
+     */
+    public Map<String, String> suspendInsertTriggers(Connection conn) throws SQLException {
+        Map<String, String> triggers = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT name, sql FROM sqlite_schema WHERE type = 'trigger' AND name IN (?, ?)")) {
+            pstmt.setString(1, FTS_INSERT_TRIGGER);
+            pstmt.setString(2, TOTALS_INSERT_TRIGGER);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    triggers.put(rs.getString("name"), rs.getString("sql"));
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (String name : triggers.keySet()) {
+                stmt.execute("DROP TRIGGER " + name);
+            }
+        }
+        return triggers;
+    }
+
+    /**
+     * Adds the expenses with ids {@code firstId} to {@code lastId} to the tables the suspended
+     * triggers maintain, one set-based statement per table, then recreates the triggers.
+     */
+    public void resumeInsertTriggers(Connection conn, Map<String, String> triggers, long firstId, long lastId) throws SQLException {
+        List<String> catchUp = new ArrayList<>();
+        if (triggers.containsKey(FTS_INSERT_TRIGGER)) {
+            catchUp.add("INSERT INTO expenses_fts(rowid, description) SELECT id, description FROM expenses WHERE id BETWEEN ? AND ?");
+        }
+        if (triggers.containsKey(TOTALS_INSERT_TRIGGER)) {
+            catchUp.add("INSERT INTO monthly_category_totals(month, category_id, total_cents, expense_count) " +
+                "SELECT " + monthOf(expenseDay("")) + ", category_id, SUM(" + expenseCents("") + "), COUNT(*) " +
+                "FROM expenses WHERE id BETWEEN ? AND ? GROUP BY 1, category_id " +
+                "ON CONFLICT(month, category_id) DO UPDATE SET total_cents = total_cents + excluded.total_cents, " +
+                "expense_count = expense_count + excluded.expense_count");
+        }
+        for (String sql : catchUp) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setLong(1, firstId);
+                pstmt.setLong(2, lastId);
+                pstmt.executeUpdate();
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : triggers.values()) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    static String dayOrLegacy(String row) {
+        return "COALESCE(" + row + "epoch_day, " + epochDayOf(row + "date") + ")";
+    }
+
+    static String centsOrLegacy(String row) {
+        return "COALESCE(" + row + "amount_cents, " + centsOf(row + "amount") + ")";
+    }
+
+    public SchemaMigrator.Status getSchemaStatus() throws SQLException {
+        try (Connection conn = getConnection()) {
+            return migrator.getStatus(conn);
+        }
+    }
+
+    public void shutdown() {
+        writer.close();
+        pool.close();
     }
 
     private void initializeDatabase() {
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
-            stmt.execute(
+        try (Connection conn = getConnection()) {
+            migrator.migrate(conn);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * The schema, one migration per change, oldest first. Append new changes; never edit or
+     * reorder one that has shipped, or databases that already applied it refuse to start.
+     *
+     * Databases created before schema_version existed run every migration once. The early ones
+     * are written to be no-ops on whatever part of the schema such a database already has.
+     *
+     * V3 and V4 convert the REAL amount and TEXT date columns of such databases. The small tables
+     * are converted in place. expenses can hold millions of rows, so it gets the new columns next to
+     * the old ones, which stop being NOT NULL, and a backfill fills them in chunks after startup.
+     * Until a row is reached, reads go through {@link #expenseDay} and {@link #expenseCents}, and
+     * the rollup triggers V6 creates on such a database read the old columns the same way. Dropping
+     * the old columns rewrites the whole table, so it is left to a later release, as a migration
+     * that runs once every database has finished the backfills.
+     */
+    static List<SchemaMigrator.Migration> migrations() {
+        return List.of(
+            SchemaMigrator.Migration.sql(1, "Create categories, expenses, recurring expenses and investments",
                 """
                 CREATE TABLE IF NOT EXISTS categories (
                   id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -36,15 +323,12 @@ public class DatabaseManager {
                   color TEXT,
                   active BOOLEAN DEFAULT 1
                 )
-                """
-            );
-
-            stmt.execute(
+                """,
                 """
                 CREATE TABLE IF NOT EXISTS expenses (
                   id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  date DATE NOT NULL,
-                  amount REAL NOT NULL,
+                  epoch_day INTEGER NOT NULL,
+                  amount_cents INTEGER NOT NULL,
                   category_id INTEGER NOT NULL,
                   description TEXT,
                   recurring_id INTEGER,
@@ -52,66 +336,345 @@ public class DatabaseManager {
                   FOREIGN KEY(category_id) REFERENCES categories(id),
                   FOREIGN KEY(recurring_id) REFERENCES recurring_expenses(id)
                 )
-                """
-            );
-
-            stmt.execute(
+                """,
                 """
                 CREATE TABLE IF NOT EXISTS recurring_expenses (
                   id INTEGER PRIMARY KEY AUTOINCREMENT,
                   category_id INTEGER NOT NULL,
-                  amount REAL NOT NULL,
+                  amount_cents INTEGER NOT NULL,
                   description TEXT,
                   frequency TEXT NOT NULL,
-                  start_date DATE NOT NULL,
-                  end_date DATE,
-                  last_generated_date DATE,
+                  start_epoch_day INTEGER NOT NULL,
+                  end_epoch_day INTEGER,
+                  last_generated_epoch_day INTEGER,
                   active BOOLEAN DEFAULT 1,
                   FOREIGN KEY(category_id) REFERENCES categories(id)
                 )
-                """
-            );
-
-            stmt.execute(
+                """,
                 """
                 CREATE TABLE IF NOT EXISTS investment_entries (
                   id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  date DATE NOT NULL,
-                  amount REAL NOT NULL,
+                  epoch_day INTEGER NOT NULL,
+                  amount_cents INTEGER NOT NULL,
                   currency TEXT DEFAULT 'USD',
                   exchange_rate REAL DEFAULT 1.0,
                   description TEXT,
                   is_recurring BOOLEAN DEFAULT 0
                 )
+                """),
+
+            // Early releases created recurring_expenses without the generation bookmark
+            SchemaMigrator.Migration.code(2, "Add recurring_expenses.last_generated_date", 1, conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    if (!columnExists(stmt, "recurring_expenses", "last_generated_date")
+                            && !columnExists(stmt, "recurring_expenses", "last_generated_epoch_day")) {
+                        stmt.execute("ALTER TABLE recurring_expenses ADD COLUMN last_generated_date DATE");
+                    }
+                }
+            }),
+
+            // Rows the application wrote or updated since already have the new column; the backfill keeps them
+            SchemaMigrator.Migration.code(AMOUNTS_VERSION, "Add integer cents amount columns", 2, DatabaseManager::addAmountCentsColumns)
+                .withConversion("expenses", "amount", "amount_cents = " + centsOrLegacy("")),
+
+            SchemaMigrator.Migration.code(DATES_VERSION, "Add integer epoch-day date columns", 2, DatabaseManager::addEpochDayColumns)
+                .withConversion("expenses", "date", "epoch_day = " + dayOrLegacy("")),
+
+            SchemaMigrator.Migration.sql(5, "Covering indexes for date and category ranges",
+                // Covering indexes, so range totals overall and per category are answered from the index alone.
+                // The first also serves every date-range lookup, so a separate index on the day only slows inserts down.
+                "CREATE INDEX IF NOT EXISTS idx_expenses_day_category_amount ON expenses(epoch_day, category_id, amount_cents)",
+                "CREATE INDEX IF NOT EXISTS idx_expenses_category_day_amount ON expenses(category_id, epoch_day, amount_cents)",
+                // The second also serves lookups by category alone, which had an index of their own
+                "DROP INDEX IF EXISTS idx_expenses_category",
+                "DROP INDEX IF EXISTS idx_expenses_date",
+                // Keyset pagination order: (epoch_day, id) descending, so any page is a seek plus LIMIT rows
+                "CREATE INDEX IF NOT EXISTS idx_expenses_day_id ON expenses(epoch_day, id)",
+                // One instance per recurring definition and day; generation relies on it to skip existing rows
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_expenses_recurring_day ON expenses(recurring_id, epoch_day) " +
+                    "WHERE recurring_id IS NOT NULL",
+                "CREATE INDEX IF NOT EXISTS idx_recurring_category ON recurring_expenses(category_id)",
+                "CREATE INDEX IF NOT EXISTS idx_investments_day_amount ON investment_entries(epoch_day, amount_cents, exchange_rate)"),
+
+            // Per-month, per-category rollup of expenses, kept current by triggers on every write,
+            // and seeded from the expenses already on disk
+            SchemaMigrator.Migration.code(6, "Monthly category totals rollup", 1, DatabaseManager::createMonthlyTotals),
+
+            // Full-text index over expense descriptions. External content: the text lives only in
+            // expenses, the FTS table holds just the index. prefix='2 3' makes short prefix queries cheap.
+            SchemaMigrator.Migration.sql(7, "Full-text search over expense descriptions",
                 """
-            );
+                CREATE VIRTUAL TABLE IF NOT EXISTS expenses_fts USING fts5(
+                  description, content='expenses', content_rowid='id',
+                  tokenize='unicode61 remove_diacritics 2', prefix='2 3'
+                )
+                """,
+                """
+                CREATE TRIGGER IF NOT EXISTS trg_expenses_fts_insert AFTER INSERT ON expenses
+                BEGIN
+                  INSERT INTO expenses_fts(rowid, description) VALUES (NEW.id, NEW.description);
+                END
+                """,
+                """
+                CREATE TRIGGER IF NOT EXISTS trg_expenses_fts_delete AFTER DELETE ON expenses
+                BEGIN
+                  INSERT INTO expenses_fts(expenses_fts, rowid, description) VALUES ('delete', OLD.id, OLD.description);
+                END
+                """,
+                """
+                CREATE TRIGGER IF NOT EXISTS trg_expenses_fts_update AFTER UPDATE OF description ON expenses
+                BEGIN
+                  INSERT INTO expenses_fts(expenses_fts, rowid, description) VALUES ('delete', OLD.id, OLD.description);
+                  INSERT INTO expenses_fts(rowid, description) VALUES (NEW.id, NEW.description);
+                END
+                """,
+                "INSERT INTO expenses_fts(expenses_fts) VALUES ('rebuild')")
+        );
+    }
 
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_expenses_date ON expenses(date)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_expenses_category ON expenses(category_id)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_recurring_category ON recurring_expenses(category_id)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_investments_date ON investment_entries(date)");
+    /** Reads which backfills of expenses are still running, which decides how {@link #expenseDay} reads. */
+    private void readConversionState() {
+        try (Connection conn = getConnection()) {
+            convertingAmounts = migrator.isBackfillPending(conn, AMOUNTS_VERSION, "expenses");
+            convertingDates = migrator.isBackfillPending(conn, DATES_VERSION, "expenses");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 
-            // Migration: Add last_generated_date column if it doesn't exist
+    /** Starts a background thread for backfills left pending by migrations, so startup does not wait for them. */
+    private void startBackfills() {
+        try (Connection conn = getConnection()) {
+            if (!migrator.hasPendingBackfills(conn)) {
+                return;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+        long pauseMs = AppConfig.getInstance().getIntProperty("db.migration.backfillPauseMs", 10);
+        Thread thread = new Thread(() -> {
             try {
-                stmt.execute("SELECT last_generated_date FROM recurring_expenses LIMIT 1");
+                migrator.runBackfills(writer, pauseMs);
+                readConversionState();
             } catch (SQLException e) {
-                // Column doesn't exist, add it
-                stmt.execute("ALTER TABLE recurring_expenses ADD COLUMN last_generated_date DATE");
+                Logger.error(DatabaseManager.class, "Backfill stopped; it resumes on the next start", e);
             }
+        }, "schema-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+    /**
+     * Replaces the REAL amount columns in currency units with INTEGER amount_cents. The small tables
+     * are converted in place; expenses gets the new column, filled by the migration's backfill, and
+     * its old one stops being NOT NULL so new rows can leave it empty. The rollup is dropped so a
+     * later migration rebuilds it from the converted amounts, and the triggers and the covering index
+     * that name the old column are dropped so later migrations recreate them. Does nothing on a
+     * database that is already converted.
+     */
+    static void addAmountCentsColumns(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            boolean pending = columnExists(stmt, "expenses", "amount");
+            for (String table : CONVERTED_TABLES) {
+                pending |= columnExists(stmt, table, "amount");
+            }
+            if (!pending) {
+                return;
+            }
+
+            stmt.execute("DROP TRIGGER IF EXISTS trg_expenses_totals_insert");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_expenses_totals_delete");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_expenses_totals_update");
+            stmt.execute("DROP INDEX IF EXISTS idx_expenses_date_category_amount");
+            stmt.execute("DROP TABLE IF EXISTS monthly_category_totals");
+            for (String table : CONVERTED_TABLES) {
+                convertInPlace(stmt, table, "amount", "amount_cents", centsOf("amount"));
+            }
+            if (columnExists(stmt, "expenses", "amount")) {
+                if (!columnExists(stmt, "expenses", "amount_cents")) {
+                    stmt.execute("ALTER TABLE expenses ADD COLUMN amount_cents INTEGER");
+                }
+                dropNotNull(conn, "expenses", "amount");
+            }
+        }
+    }
+
+    /**
+     * Replaces the ISO yyyy-MM-dd TEXT date columns with INTEGER epoch days, the same way
+     * {@link #addAmountCentsColumns} replaces the amounts. The triggers and indexes that name the old
+     * columns are dropped so later migrations recreate them; the rollup keeps its month keys, which
+     * do not change. Does nothing on a database that is already converted.
+     */
+    static void addEpochDayColumns(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            boolean pending = columnExists(stmt, "expenses", "date");
+            for (String[] column : CONVERTED_DATE_COLUMNS) {
+                pending |= columnExists(stmt, column[0], column[1]);
+            }
+            if (!pending) {
+                return;
+            }
+
+            stmt.execute("DROP TRIGGER IF EXISTS trg_expenses_totals_insert");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_expenses_totals_delete");
+            stmt.execute("DROP TRIGGER IF EXISTS trg_expenses_totals_update");
+            stmt.execute("DROP INDEX IF EXISTS idx_expenses_date");
+            stmt.execute("DROP INDEX IF EXISTS idx_expenses_date_category_amount");
+            stmt.execute("DROP INDEX IF EXISTS idx_expenses_date_id");
+            stmt.execute("DROP INDEX IF EXISTS idx_expenses_recurring_date");
+            stmt.execute("DROP INDEX IF EXISTS idx_investments_date");
+            for (String[] column : CONVERTED_DATE_COLUMNS) {
+                convertInPlace(stmt, column[0], column[1], column[2], epochDayOf(column[1]));
+            }
+            if (columnExists(stmt, "expenses", "date")) {
+                if (!columnExists(stmt, "expenses", "epoch_day")) {
+                    stmt.execute("ALTER TABLE expenses ADD COLUMN epoch_day INTEGER");
+                }
+                dropNotNull(conn, "expenses", "date");
+            }
+        }
+    }
+
+    /** Adds {@code to}, fills it from {@code from} with {@code conversion} and drops {@code from}, if it is still there. */
+    private static void convertInPlace(Statement stmt, String table, String from, String to, String conversion)
+            throws SQLException {
+        if (!columnExists(stmt, table, from)) {
+            return;
+        }
+        if (!columnExists(stmt, table, to)) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + to + " INTEGER");
+        }
+        stmt.execute("UPDATE " + table + " SET " + to + " = " + conversion);
+        stmt.execute("ALTER TABLE " + table + " DROP COLUMN " + from);
+    }
+
+    /**
+     * Removes the NOT NULL constraint of {@code column} without rewriting the table. SQLite has no
+     * ALTER TABLE for this, so it edits the CREATE TABLE text in sqlite_schema and bumps the schema
+     * version: the procedure the SQLite ALTER TABLE documentation gives for dropping constraints
+     * that do not change how rows are stored.
+     */
+    static void dropNotNull(Connection conn, String table, String column) throws SQLException {
+        String sql;
+        int schemaVersion;
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT sql FROM sqlite_schema WHERE type = 'table' AND name = ?")) {
+            pstmt.setString(1, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("No table " + table);
+                }
+                sql = rs.getString(1);
+            }
+        }
+        Matcher matcher = Pattern.compile("(\\b" + Pattern.quote(column) + "\\s+\\w+)\\s+NOT\\s+NULL\\b",
+            Pattern.CASE_INSENSITIVE).matcher(sql);
+        if (!matcher.find()) {
+            return;
+        }
+        String relaxed = sql.substring(0, matcher.end(1)) + sql.substring(matcher.end());
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA schema_version")) {
+                rs.next();
+                schemaVersion = rs.getInt(1);
+            }
+            stmt.execute("PRAGMA writable_schema = ON");
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE sqlite_schema SET sql = ? WHERE type = 'table' AND name = ?")) {
+                pstmt.setString(1, relaxed);
+                pstmt.setString(2, table);
+                pstmt.executeUpdate();
+            } finally {
+                stmt.execute("PRAGMA writable_schema = OFF");
+            }
+            // Makes every connection, this one included, re-read the schema
+            stmt.execute("PRAGMA schema_version = " + (schemaVersion + 1));
+        }
+    }
+
+    /**
+     * Creates the monthly_category_totals rollup and its triggers, and seeds it. On a database whose
+     * expenses backfills are still running, the triggers and the seed read the old column of rows
+     * the backfill has not reached. A backfill's UPDATE leaves a row's total as it was, so the
+     * update trigger skips it.
+     */
+    static void createMonthlyTotals(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            boolean legacyDates = columnExists(stmt, "expenses", "date");
+            boolean legacyAmounts = columnExists(stmt, "expenses", "amount");
+            String newDay = legacyDates ? dayOrLegacy("NEW.") : "NEW.epoch_day";
+            String oldDay = legacyDates ? dayOrLegacy("OLD.") : "OLD.epoch_day";
+            String newCents = legacyAmounts ? centsOrLegacy("NEW.") : "NEW.amount_cents";
+            String oldCents = legacyAmounts ? centsOrLegacy("OLD.") : "OLD.amount_cents";
+            String add =
+                "  INSERT INTO monthly_category_totals(month, category_id, total_cents, expense_count)\n" +
+                "  VALUES (" + monthOf(newDay) + ", NEW.category_id, " + newCents + ", 1)\n" +
+                "  ON CONFLICT(month, category_id)\n" +
+                "  DO UPDATE SET total_cents = total_cents + excluded.total_cents, expense_count = expense_count + 1;\n";
+            String subtract =
+                "  UPDATE monthly_category_totals\n" +
+                "  SET total_cents = total_cents - " + oldCents + ", expense_count = expense_count - 1\n" +
+                "  WHERE month = " + monthOf(oldDay) + " AND category_id = OLD.category_id;\n" +
+                "  DELETE FROM monthly_category_totals\n" +
+                "  WHERE month = " + monthOf(oldDay) + " AND category_id = OLD.category_id AND expense_count <= 0;\n";
+
+            stmt.execute(
+                """
+                CREATE TABLE IF NOT EXISTS monthly_category_totals (
+                  month TEXT NOT NULL,
+                  category_id INTEGER NOT NULL,
+                  total_cents INTEGER NOT NULL DEFAULT 0,
+                  expense_count INTEGER NOT NULL DEFAULT 0,
+                  PRIMARY KEY (month, category_id)
+                ) WITHOUT ROWID
+                """
+            );
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_expenses_totals_insert AFTER INSERT ON expenses\nBEGIN\n" + add + "END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_expenses_totals_delete AFTER DELETE ON expenses\nBEGIN\n" + subtract + "END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_expenses_totals_update\n" +
+                "AFTER UPDATE OF epoch_day, amount_cents, category_id ON expenses\n" +
+                "WHEN OLD.category_id IS NOT NEW.category_id OR " + oldDay + " IS NOT " + newDay +
+                " OR " + oldCents + " IS NOT " + newCents + "\n" +
+                "BEGIN\n" + subtract + add + "END");
+            stmt.execute("DELETE FROM monthly_category_totals");
+            stmt.execute("INSERT INTO monthly_category_totals(month, category_id, total_cents, expense_count) " +
+                "SELECT " + monthOf(legacyDates ? dayOrLegacy("") : "epoch_day") + ", category_id, " +
+                "SUM(" + (legacyAmounts ? centsOrLegacy("") : "amount_cents") + "), COUNT(*) FROM expenses GROUP BY 1, category_id");
+        }
+    }
+
+    /** The epoch day of an ISO date column. */
+    private static String epochDayOf(String dateColumn) {
+        // julianday() of a bare date is the Julian day at midnight; 2440587.5 is 1970-01-01
+        return "CAST(julianday(" + dateColumn + ") - 2440587.5 AS INTEGER)";
+    }
+
+    /** Cents of a REAL amount column in currency units. */
+    private static String centsOf(String amountColumn) {
+        return "CAST(ROUND(" + amountColumn + " * 100) AS INTEGER)";
+    }
+
+    private static boolean columnExists(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
     public void cleanupOldData() {
         LocalDate threeYearsAgo = LocalDate.now().minusYears(3);
-        String sql = "DELETE FROM expenses WHERE date < ?";
+        String sql = "DELETE FROM expenses WHERE " + expenseDay("") + " < ?";
         
-        try (Connection conn = getConnection(); 
-             var pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, threeYearsAgo.toString());
-            pstmt.executeUpdate();
+        try {
+            writer.execute(conn -> {
+                try (var pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, threeYearsAgo.toEpochDay());
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,410 @@
+package com.finmanager.db;
+
+import com.finmanager.util.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single writer thread for all mutations.
+ *
+ * SQLite allows one writer at a time, so instead of every service racing for the database lock
+ * on its own connection, write tasks are queued here and executed by one thread on one connection.
+ * Tasks that arrive while a transaction is running are grouped into the next transaction (group
+ * commit), so a burst of writes pays for one commit. Each task runs inside its own savepoint, so a
+ * failing task is rolled back and reported without affecting the rest of its batch. Bulk writes go
+ * through {@link #submitExclusive}: they get a transaction of their own and no savepoint, so they
+ * never build a savepoint journal as large as the rows they write.
+ *
+ * Tasks can register {@link #afterCommit} callbacks. They run on the writer thread in commit order,
+ * before the futures of their batch complete, so anything that mirrors a table in memory sees its
+ * changes in the order the database applied them.
+ */
+public class DatabaseWriter implements AutoCloseable {
+
+    /** Unit of work executed on the writer connection inside the current batch transaction. */
+    @FunctionalInterface
+    public interface WriteTask<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    private record Pending<T>(WriteTask<T> task, CompletableFuture<T> future, boolean exclusive) {
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+
+    private final ConnectionPool.ConnectionFactory factory;
+    private final long commitIntervalNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<Pending<?>> queue;
+    private final Thread thread;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private volatile int largestBatch;
+    private volatile boolean running = true;
+    private Connection connection;
+    /** Callbacks registered by the task running now, and by the tasks of this batch that succeeded. */
+    private final List<Runnable> taskCallbacks = new ArrayList<>();
+    private final List<Runnable> taskBatchEndCallbacks = new ArrayList<>();
+    private final List<Runnable> batchCallbacks = new ArrayList<>();
+    private final List<Runnable> batchEndCallbacks = new ArrayList<>();
+
+    public DatabaseWriter(ConnectionPool.ConnectionFactory factory, long commitIntervalMillis,
+                          int maxBatchSize, int queueCapacity) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.factory = factory;
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(commitIntervalMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.thread = new Thread(this::run, "db-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a write; the future completes once the transaction containing it has committed.
+     */
+    public <T> CompletableFuture<T> submit(WriteTask<T> task) {
+        return enqueue(task, false);
+    }
+
+    /**
+     * Like {@link #submit}, but the task runs in a transaction of its own, in queue order, without a
+     * savepoint. Meant for bulk writes, whose savepoint journal would hold every page they touch.
+     */
+    public <T> CompletableFuture<T> submitExclusive(WriteTask<T> task) {
+        return enqueue(task, true);
+    }
+
+    private <T> CompletableFuture<T> enqueue(WriteTask<T> task, boolean exclusive) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new SQLException("Database writer is stopped"));
+            return future;
+        }
+        if (Thread.currentThread() == thread) {
+            // Nested write from inside a task: join the transaction already in progress, behind a
+            // savepoint of its own so a failure undoes only what this write did
+            int callbacks = taskCallbacks.size();
+            int batchEndCallbacks = taskBatchEndCallbacks.size();
+            Savepoint savepoint = null;
+            try {
+                savepoint = connection.setSavepoint();
+                T result = task.execute(connection);
+                connection.releaseSavepoint(savepoint);
+                future.complete(result);
+            } catch (SQLException | RuntimeException e) {
+                if (savepoint != null) {
+                    try {
+                        connection.rollback(savepoint);
+                    } catch (SQLException rollbackFailure) {
+                        e.addSuppressed(rollbackFailure);
+                    }
+                }
+                taskCallbacks.subList(callbacks, taskCallbacks.size()).clear();
+                taskBatchEndCallbacks.subList(batchEndCallbacks, taskBatchEndCallbacks.size()).clear();
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        try {
+            queue.put(new Pending<>(task, future, exclusive));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new SQLException("Interrupted while queueing write", e));
+        }
+        return future;
+    }
+
+    /**
+     * Runs {@code callback} on the writer thread once the transaction of the current task has
+     * committed: after the callbacks of everything committed before it, and before the task's future
+     * completes. It is dropped if the task fails or its transaction rolls back. Callbacks must be
+     * quick and must not write. Only callable from inside a write task.
+     */
+    public void afterCommit(Runnable callback) {
+        checkWriterThread();
+        taskCallbacks.add(callback);
+    }
+
+    /**
+     * Like {@link #afterCommit}, but runs after the after-commit callbacks of every task in the batch,
+     * so at a point where the committed database holds exactly the changes whose callbacks have run.
+     */
+    public void afterBatch(Runnable callback) {
+        checkWriterThread();
+        taskBatchEndCallbacks.add(callback);
+    }
+
+    private void checkWriterThread() {
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException("Commit callbacks can only be registered from a write task");
+        }
+    }
+
+    /**
+     * Queues a write and waits for it to commit.
+     */
+    public <T> T execute(WriteTask<T> task) throws SQLException {
+        return await(submit(task));
+    }
+
+    /**
+     * Queues a bulk write as in {@link #submitExclusive} and waits for it to commit.
+     */
+    public <T> T executeExclusive(WriteTask<T> task) throws SQLException {
+        return await(submitExclusive(task));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    private void run() {
+        List<Pending<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                executeInOrder(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (RuntimeException e) {
+                Logger.error(DatabaseWriter.class, "Unexpected failure in database writer", e);
+            } finally {
+                batch.clear();
+                clearTaskCallbacks();
+                clearBatchCallbacks();
+            }
+        }
+        closeConnection();
+    }
+
+    private void collect(List<Pending<?>> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        if (commitIntervalNanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + commitIntervalNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Pending<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    /** Runs the collected tasks in queue order, giving each exclusive task a transaction of its own. */
+    private void executeInOrder(List<Pending<?>> batch) {
+        int start = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i).exclusive()) {
+                if (start < i) {
+                    executeBatch(batch.subList(start, i));
+                }
+                executeBatch(batch.subList(i, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < batch.size()) {
+            executeBatch(batch.subList(start, batch.size()));
+        }
+    }
+
+    private void executeBatch(List<Pending<?>> batch) {
+        Object[] results = new Object[batch.size()];
+        Throwable[] failures = new Throwable[batch.size()];
+        try {
+            Connection conn = connection();
+            conn.setAutoCommit(false);
+            try {
+                if (batch.size() == 1) {
+                    // A lone task owns the whole transaction, so it needs no savepoint of its own
+                    try {
+                        results[0] = batch.get(0).task().execute(conn);
+                        keepTaskCallbacks();
+                    } catch (SQLException | RuntimeException e) {
+                        conn.rollback();
+                        failures[0] = e;
+                    } finally {
+                        clearTaskCallbacks();
+                    }
+                } else {
+                    for (int i = 0; i < batch.size(); i++) {
+                        Savepoint savepoint = conn.setSavepoint();
+                        try {
+                            results[i] = batch.get(i).task().execute(conn);
+                            conn.releaseSavepoint(savepoint);
+                            keepTaskCallbacks();
+                        } catch (SQLException | RuntimeException e) {
+                            conn.rollback(savepoint);
+                            failures[i] = e;
+                        } finally {
+                            clearTaskCallbacks();
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                rollbackQuietly(conn);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // The transaction itself failed: nothing in this batch was committed
+            clearBatchCallbacks();
+            closeConnection();
+            failBatch(batch, e);
+            return;
+        }
+        runCallbacks();
+
+        batches.increment();
+        tasks.add(batch.size());
+        if (batch.size() > largestBatch) {
+            largestBatch = batch.size();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (failures[i] != null) {
+                failedTasks.increment();
+                batch.get(i).future().completeExceptionally(failures[i]);
+            } else {
+                batch.get(i).complete(results[i]);
+            }
+        }
+    }
+
+    private void keepTaskCallbacks() {
+        batchCallbacks.addAll(taskCallbacks);
+        batchEndCallbacks.addAll(taskBatchEndCallbacks);
+    }
+
+    private void clearTaskCallbacks() {
+        taskCallbacks.clear();
+        taskBatchEndCallbacks.clear();
+    }
+
+    private void clearBatchCallbacks() {
+        batchCallbacks.clear();
+        batchEndCallbacks.clear();
+    }
+
+    private void runCallbacks() {
+        batchCallbacks.addAll(batchEndCallbacks);
+        for (Runnable callback : batchCallbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                Logger.error(DatabaseWriter.class, "After-commit callback failed", e);
+            }
+        }
+        clearBatchCallbacks();
+    }
+
+    private void failBatch(List<Pending<?>> batch, SQLException e) {
+        Logger.error(DatabaseWriter.class, "Write batch of " + batch.size() + " failed", e);
+        failedTasks.add(batch.size());
+        for (Pending<?> pending : batch) {
+            pending.future().completeExceptionally(e);
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = factory.create();
+        }
+        return connection;
+    }
+
+    private void rollbackQuietly(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            Logger.warn(DatabaseWriter.class, "Rollback failed: " + e.getMessage());
+        }
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                Logger.warn(DatabaseWriter.class, "Failed to close writer connection: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    public Stats getStats() {
+        Stats s = new Stats();
+        s.queued = queue.size();
+        s.batches = batches.sum();
+        s.tasks = tasks.sum();
+        s.failedTasks = failedTasks.sum();
+        s.largestBatch = largestBatch;
+        s.avgBatchSize = s.batches == 0 ? 0 : s.tasks / (double) s.batches;
+        s.maxBatchSize = maxBatchSize;
+        s.commitIntervalMs = TimeUnit.NANOSECONDS.toMillis(commitIntervalNanos);
+        return s;
+    }
+
+    /**
+     * Stops accepting writes, drains what is already queued and closes the writer connection.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Writer throughput figures, serialized as-is by the health endpoint. */
+    public static class Stats {
+        public int queued;
+        public long batches;
+        public long tasks;
+        public long failedTasks;
+        public int largestBatch;
+        public double avgBatchSize;
+        public int maxBatchSize;
+        public long commitIntervalMs;
+    }
+}
@@ -0,0 +1,110 @@
+package com.finmanager.db;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for {@link ConnectionPool}.
+ * All recording is lock-free; {@link #snapshot} gives a consistent-enough view for reporting.
+ */
+public class PoolStats {
+    /** Histogram bucket upper bounds in microseconds; the last bucket is unbounded. */
+    private static final long[] BUCKET_BOUNDS_MICROS = {10, 50, 100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000};
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalBorrowNanos = new LongAdder();
+    private final LongAdder[] waitBuckets = newBuckets();
+    private final LongAdder[] borrowBuckets = newBuckets();
+
+    private static LongAdder[] newBuckets() {
+        LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+        return buckets;
+    }
+
+    void recordBorrow(long waitNanos, long borrowNanos) {
+        borrows.increment();
+        totalWaitNanos.add(waitNanos);
+        totalBorrowNanos.add(borrowNanos);
+        waitBuckets[bucketFor(waitNanos)].increment();
+        borrowBuckets[bucketFor(borrowNanos)].increment();
+    }
+
+    void recordTimeout() { timeouts.increment(); }
+    void recordCreated() { created.increment(); }
+    void recordDestroyed() { destroyed.increment(); }
+    void recordEvicted() { evicted.increment(); }
+    void recordValidationFailure() { validationFailures.increment(); }
+    void recordLeak() { leaks.increment(); }
+
+    private static int bucketFor(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+            if (micros <= BUCKET_BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MICROS.length;
+    }
+
+    private static Map<String, Long> toHistogram(LongAdder[] buckets) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+            histogram.put("le_" + BUCKET_BOUNDS_MICROS[i] + "us", buckets[i].sum());
+        }
+        histogram.put("le_inf", buckets[BUCKET_BOUNDS_MICROS.length].sum());
+        return histogram;
+    }
+
+    Snapshot snapshot(int active, int idle, int total, int max, int waiting) {
+        Snapshot s = new Snapshot();
+        s.active = active;
+        s.idle = idle;
+        s.total = total;
+        s.max = max;
+        s.waiting = waiting;
+        s.borrows = borrows.sum();
+        s.timeouts = timeouts.sum();
+        s.created = created.sum();
+        s.destroyed = destroyed.sum();
+        s.evicted = evicted.sum();
+        s.validationFailures = validationFailures.sum();
+        s.leaksDetected = leaks.sum();
+        s.avgWaitMicros = s.borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.sum()) / (double) s.borrows;
+        s.avgBorrowMicros = s.borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalBorrowNanos.sum()) / (double) s.borrows;
+        s.waitHistogram = toHistogram(waitBuckets);
+        s.borrowHistogram = toHistogram(borrowBuckets);
+        return s;
+    }
+
+    /** Point-in-time pool figures, serialized as-is by the health endpoint. */
+    public static class Snapshot {
+        public int active;
+        public int idle;
+        public int total;
+        public int max;
+        public int waiting;
+        public long borrows;
+        public long timeouts;
+        public long created;
+        public long destroyed;
+        public long evicted;
+        public long validationFailures;
+        public long leaksDetected;
+        public double avgWaitMicros;
+        public double avgBorrowMicros;
+        public Map<String, Long> waitHistogram;
+        public Map<String, Long> borrowHistogram;
+    }
+}
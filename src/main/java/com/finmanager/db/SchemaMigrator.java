@@ -0,0 +1,427 @@
+package com.finmanager.db;
+
+import com.finmanager.util.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Applies numbered schema migrations in order and records each one in schema_version.
+ *
+ * Every migration runs in its own transaction together with its schema_version row, so it is
+ * either applied and recorded or not applied at all. The checksum of an applied migration is
+ * compared on every start; a migration that was edited after it shipped stops startup instead of
+ * leaving databases that disagree about what version N means. Change the schema by adding a
+ * migration, never by editing one.
+ *
+ * A migration may carry backfills: UPDATEs over existing tables that run in rowid chunks after
+ * startup, on the database writer, so they interleave with ordinary writes instead of holding the
+ * database for the whole table. Progress is committed with each chunk in schema_backfill, so a
+ * restart resumes where it stopped. Readers must cope with rows a backfill has not reached yet;
+ * a change they cannot cope with belongs in the migration's own transaction instead. Later
+ * migrations do not wait for a backfill either, so they must cope with those rows too. A column is
+ * changed by adding the new one with a backfill, and dropping the old one only in a later release.
+ */
+public class SchemaMigrator {
+
+    /** Schema change run on the migration connection, inside the migration's transaction. */
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Sets {@code assignments} on every row of {@code table} that existed when the migration was
+     * applied, then runs {@code finish} (say, an index on the filled column) in the last chunk.
+     * With a {@code sourceColumn}, the backfill is only scheduled when the table has that column.
+     */
+    public record Backfill(String table, String assignments, String sourceColumn, List<String> finish) {}
+
+    public record Migration(int version, String description, String checksum, Step step, List<Backfill> backfills) {
+
+        /** A migration made of SQL statements, checksummed over their text. */
+        public static Migration sql(int version, String description, String... statements) {
+            List<String> sql = List.of(statements);
+            return new Migration(version, description, sha256(description + "\n" + String.join(";\n", sql)),
+                conn -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        for (String statement : sql) {
+                            stmt.execute(statement);
+                        }
+                    }
+                }, List.of());
+        }
+
+        /**
+         * A migration written in Java, for changes that depend on what the database already holds.
+         * Code cannot be checksummed, so the checksum covers the description and {@code revision}:
+         * bump the revision with every change to what the step does, and a database that applied
+         * an earlier one stops startup just as it does for an edited SQL migration.
+         */
+        public static Migration code(int version, String description, int revision, Step step) {
+            return new Migration(version, description, sha256(description + "\nrevision " + revision), step, List.of());
+        }
+
+        public Migration withBackfill(String table, String assignments, String... finish) {
+            return with(new Backfill(table, assignments, null, List.of(finish)));
+        }
+
+        /**
+         * A backfill that fills new columns of {@code table} from {@code sourceColumn}. It is only
+         * scheduled where the table still has that column, so databases created with the new
+         * columns have nothing to convert.
+         */
+        public Migration withConversion(String table, String sourceColumn, String assignments) {
+            return with(new Backfill(table, assignments, sourceColumn, List.of()));
+        }
+
+        private Migration with(Backfill backfill) {
+            if (backfills.stream().anyMatch(b -> b.table().equalsIgnoreCase(backfill.table()))) {
+                throw new IllegalArgumentException("V" + version + " already backfills " + backfill.table());
+            }
+            List<Backfill> all = new ArrayList<>(backfills);
+            all.add(backfill);
+            String text = "backfill " + backfill.table() + " SET " + backfill.assignments()
+                + (backfill.sourceColumn() != null ? " FROM " + backfill.sourceColumn() : "")
+                + "\n" + String.join(";\n", backfill.finish());
+            return new Migration(version, description, sha256(checksum + "\n" + text), step, List.copyOf(all));
+        }
+    }
+
+    /** The oldest unfinished backfill. */
+    private record Pending(int version, String table) {}
+
+    private final List<Migration> migrations;
+    private final int chunkRows;
+
+    public SchemaMigrator(List<Migration> migrations, int chunkRows) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("chunkRows must be positive: " + chunkRows);
+        }
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).version() == sorted.get(i - 1).version()) {
+                throw new IllegalArgumentException("Duplicate migration version " + sorted.get(i).version());
+            }
+        }
+        this.migrations = List.copyOf(sorted);
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Checks the applied migrations against this release, then applies the pending ones in order.
+     * @return Number of migrations applied
+     * @throws SQLException if an applied migration has a different checksum, or a migration fails;
+     *         the failed migration is rolled back and the ones after it are not attempted
+     */
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(
+                """
+                CREATE TABLE IF NOT EXISTS schema_version (
+                  version INTEGER PRIMARY KEY,
+                  description TEXT NOT NULL,
+                  checksum TEXT NOT NULL,
+                  applied_at TEXT NOT NULL,
+                  execution_ms INTEGER NOT NULL
+                )
+                """
+            );
+            stmt.execute(
+                """
+                CREATE TABLE IF NOT EXISTS schema_backfill (
+                  version INTEGER NOT NULL,
+                  table_name TEXT NOT NULL,
+                  last_rowid INTEGER NOT NULL,
+                  max_rowid INTEGER NOT NULL,
+                  rows_updated INTEGER NOT NULL DEFAULT 0,
+                  completed_at TEXT,
+                  PRIMARY KEY (version, table_name)
+                )
+                """
+            );
+        }
+
+        Map<Integer, String> applied = appliedChecksums(conn);
+        Set<Integer> unknown = new TreeSet<>(applied.keySet());
+        for (Migration migration : migrations) {
+            unknown.remove(migration.version());
+            String checksum = applied.get(migration.version());
+            if (checksum != null && !checksum.equals(migration.checksum())) {
+                throw new SQLException(String.format("Migration V%d (%s) changed after it was applied: checksum %s, expected %s",
+                    migration.version(), migration.description(), migration.checksum(), checksum));
+            }
+        }
+        for (Integer version : unknown) {
+            Logger.warn(SchemaMigrator.class, "Database has migration V" + version + ", which this release does not know; " +
+                "it was probably applied by a newer release");
+        }
+
+        int count = 0;
+        for (Migration migration : migrations) {
+            if (applied.containsKey(migration.version())) {
+                continue;
+            }
+            apply(conn, migration);
+            count++;
+        }
+        return count;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        List<String> scheduled = new ArrayList<>();
+        inTransaction(conn, c -> {
+            scheduled.clear();
+            migration.step().apply(conn);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO schema_version(version, description, checksum, applied_at, execution_ms) VALUES(?, ?, ?, ?, ?)")) {
+                pstmt.setInt(1, migration.version());
+                pstmt.setString(2, migration.description());
+                pstmt.setString(3, migration.checksum());
+                pstmt.setString(4, Instant.now().toString());
+                pstmt.setLong(5, elapsedMs);
+                pstmt.executeUpdate();
+            }
+            for (Backfill backfill : migration.backfills()) {
+                if (backfill.sourceColumn() != null && !columnExists(conn, backfill.table(), backfill.sourceColumn())) {
+                    continue;
+                }
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(rowid), 0) FROM " + backfill.table());
+                     PreparedStatement pstmt = conn.prepareStatement(
+                         "INSERT INTO schema_backfill(version, table_name, last_rowid, max_rowid) VALUES(?, ?, 0, ?)")) {
+                    rs.next();
+                    pstmt.setInt(1, migration.version());
+                    pstmt.setString(2, backfill.table());
+                    // Rows added from here on are written by code that already knows the new schema
+                    pstmt.setLong(3, rs.getLong(1));
+                    pstmt.executeUpdate();
+                }
+                scheduled.add(backfill.table());
+            }
+        }, "Migration V" + migration.version() + " (" + migration.description() + ") failed");
+        Logger.info(SchemaMigrator.class, String.format("Applied migration V%d (%s) in %d ms%s",
+            migration.version(), migration.description(), (System.nanoTime() - start) / 1_000_000,
+            scheduled.isEmpty() ? "" : ", backfill of " + String.join(", ", scheduled) + " pending"));
+    }
+
+    /** True while some backfill is unfinished. */
+    public boolean hasPendingBackfills(Connection conn) throws SQLException {
+        return nextBackfill(conn) != null;
+    }
+
+    /** True while the backfill of {@code table} for migration {@code version} is scheduled and unfinished. */
+    public boolean isBackfillPending(Connection conn, int version, String table) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM schema_backfill WHERE version = ? AND table_name = ? AND completed_at IS NULL")) {
+            pstmt.setInt(1, version);
+            pstmt.setString(2, table);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Runs every unfinished backfill to completion, one chunk per writer task. Each chunk commits
+     * with its progress; {@code pauseMillis} between chunks leaves room for other writes.
+     */
+    public void runBackfills(DatabaseWriter writer, long pauseMillis) throws SQLException {
+        while (writer.execute(this::runNextChunk)) {
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the next chunk of the oldest unfinished backfill, or finishes it once all its rows are
+     * done, in the caller's transaction.
+     * @return false when no backfill is left
+     */
+    boolean runNextChunk(Connection conn) throws SQLException {
+        Pending pending = nextBackfill(conn);
+        if (pending == null) {
+            return false;
+        }
+        int version = pending.version();
+        Migration migration = migrations.stream().filter(m -> m.version() == version).findFirst().orElse(null);
+        Backfill backfill = migration == null ? null : migration.backfills().stream()
+            .filter(b -> b.table().equalsIgnoreCase(pending.table())).findFirst().orElse(null);
+        if (backfill == null) {
+            throw new SQLException("Backfill of " + pending.table() + " for V" + version + " is pending but this release has no such backfill");
+        }
+
+        long last;
+        long max;
+        long updated;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT last_rowid, max_rowid, rows_updated FROM schema_backfill WHERE version = ? AND table_name = ?")) {
+            pstmt.setInt(1, version);
+            pstmt.setString(2, pending.table());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                last = rs.getLong(1);
+                max = rs.getLong(2);
+                updated = rs.getLong(3);
+            }
+        }
+
+        if (last >= max) {
+            try (Statement stmt = conn.createStatement()) {
+                for (String statement : backfill.finish()) {
+                    stmt.execute(statement);
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE schema_backfill SET completed_at = ? WHERE version = ? AND table_name = ?")) {
+                pstmt.setString(1, Instant.now().toString());
+                pstmt.setInt(2, version);
+                pstmt.setString(3, pending.table());
+                pstmt.executeUpdate();
+            }
+            Logger.info(SchemaMigrator.class, String.format("Backfill of %s for V%d (%s) complete, %d rows updated",
+                backfill.table(), version, migration.description(), updated));
+            return true;
+        }
+
+        long through = Math.min(last + chunkRows, max);
+        int changed;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE " + backfill.table() + " SET " + backfill.assignments() + " WHERE rowid > ? AND rowid <= ?")) {
+            pstmt.setLong(1, last);
+            pstmt.setLong(2, through);
+            changed = pstmt.executeUpdate();
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE schema_backfill SET last_rowid = ?, rows_updated = rows_updated + ? WHERE version = ? AND table_name = ?")) {
+            pstmt.setLong(1, through);
+            pstmt.setLong(2, changed);
+            pstmt.setInt(3, version);
+            pstmt.setString(4, pending.table());
+            pstmt.executeUpdate();
+        }
+        // One line per tenth of the table
+        if (last * 10 / max != through * 10 / max) {
+            Logger.info(SchemaMigrator.class, String.format("Backfill of %s for V%d: %d%% (%d rows updated)",
+                backfill.table(), version, through * 100 / max, updated + changed));
+        }
+        return true;
+    }
+
+    private static Pending nextBackfill(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                 "SELECT version, table_name FROM schema_backfill WHERE completed_at IS NULL ORDER BY version, table_name LIMIT 1")) {
+            return rs.next() ? new Pending(rs.getInt(1), rs.getString(2)) : null;
+        }
+    }
+
+    private static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT COUNT(*) FROM pragma_table_info(?) WHERE name = ? COLLATE NOCASE")) {
+            pstmt.setString(1, table);
+            pstmt.setString(2, column);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new TreeMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void inTransaction(Connection conn, Step work, String failure) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            work.apply(conn);
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw new SQLException(failure + ": " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /** The highest applied version, and every backfill with its progress. */
+    public Status getStatus(Connection conn) throws SQLException {
+        Status status = new Status();
+        status.latestVersion = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version();
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+                rs.next();
+                status.version = rs.getInt(1);
+            }
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT version, table_name, last_rowid, max_rowid, rows_updated, completed_at FROM schema_backfill ORDER BY version, table_name")) {
+                while (rs.next()) {
+                    BackfillStatus backfill = new BackfillStatus();
+                    backfill.version = rs.getInt(1);
+                    backfill.table = rs.getString(2);
+                    long last = rs.getLong(3);
+                    long max = rs.getLong(4);
+                    backfill.rowsUpdated = rs.getLong(5);
+                    backfill.completedAt = rs.getString(6);
+                    backfill.percentDone = max == 0 ? 100.0 : Math.min(100.0, last * 100.0 / max);
+                    status.backfills.add(backfill);
+                }
+            }
+        }
+        return status;
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static class Status {
+        public int version;
+        public int latestVersion;
+        public List<BackfillStatus> backfills = new ArrayList<>();
+    }
+
+    public static class BackfillStatus {
+        public int version;
+        public String table;
+        public long rowsUpdated;
+        public double percentDone;
+        public String completedAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.finmanager.db;
+
+import com.finmanager.util.AppConfig;
+import com.finmanager.util.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SQLite PRAGMA sets applied to every new pooled connection, selected with {@code db.profile}.
+ *
+ * <ul>
+ *   <li>{@code performance} (default): WAL journal so readers never wait on the writer,
+ *       synchronous=NORMAL (fsync at checkpoints only), memory-mapped reads, a large page cache
+ *       and in-memory temp tables.</li>
+ *   <li>{@code durable}: WAL journal with synchronous=FULL, so every commit is fsynced.</li>
+ *   <li>{@code default}: SQLite's stock rollback journal with synchronous=FULL.</li>
+ * </ul>
+ */
+public enum SqlitePragmaProfile {
+    PERFORMANCE("WAL", "NORMAL", true),
+    DURABLE("WAL", "FULL", false),
+    DEFAULT("DELETE", "FULL", false);
+
+    private final String journalMode;
+    private final String synchronous;
+    private final boolean memoryTuning;
+
+    SqlitePragmaProfile(String journalMode, String synchronous, boolean memoryTuning) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.memoryTuning = memoryTuning;
+    }
+
+    public static SqlitePragmaProfile fromConfig() {
+        String name = AppConfig.getInstance().getProperty("db.profile", "performance");
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Logger.warn(SqlitePragmaProfile.class, "Unknown db.profile '" + name + "', using performance");
+            return PERFORMANCE;
+        }
+    }
+
+    public List<String> pragmas() {
+        AppConfig config = AppConfig.getInstance();
+        List<String> pragmas = new ArrayList<>();
+        pragmas.add("PRAGMA journal_mode=" + journalMode);
+        pragmas.add("PRAGMA synchronous=" + synchronous);
+        pragmas.add("PRAGMA busy_timeout=" + config.getIntProperty("db.sqlite.busyTimeoutMs", 5_000));
+        if (memoryTuning) {
+            pragmas.add("PRAGMA mmap_size=" + config.getIntProperty("db.sqlite.mmapSizeBytes", 268_435_456));
+            // Negative cache_size is in KiB rather than pages
+            pragmas.add("PRAGMA cache_size=-" + config.getIntProperty("db.sqlite.cacheSizeKb", 65_536));
+            // Also keeps savepoint journals in memory; bulk writes stay bounded by running without
+            // a savepoint (DatabaseWriter.submitExclusive)
+            pragmas.add("PRAGMA temp_store=MEMORY");
+        }
+        return pragmas;
+    }
+
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String pragma : pragmas()) {
+                stmt.execute(pragma);
+            }
+        }
+    }
+}
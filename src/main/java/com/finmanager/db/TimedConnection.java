@@ -0,0 +1,152 @@
+package com.finmanager.db;
+
+import com.finmanager.metrics.Histogram;
+import com.finmanager.metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Wraps a physical connection so every statement it runs is timed into
+ * {@code db_query_duration_seconds{operation, table}}.
+ *
+ * Updates and batches are timed around the execute call. A query is timed from executeQuery until
+ * its statement is closed or executed again, so the figure includes stepping through the rows,
+ * which is where SQLite does most of the work. Result sets are not wrapped, so reading a row costs
+ * nothing extra. The labels come from the SQL text: the leading keyword and the first table named
+ * after FROM, INTO or UPDATE. That keeps the series count down to the handful of tables.
+ */
+final class TimedConnection implements InvocationHandler {
+    private static final Pattern TABLE = Pattern.compile("(?i)\\b(?:from|into|update)\\s+([A-Za-z_][A-Za-z0-9_]*)");
+    private static final int MAX_CACHED_STATEMENTS = 1024;
+    private static final Map<String, Histogram> BY_SQL = new ConcurrentHashMap<>();
+
+    private final Connection connection;
+
+    private TimedConnection(Connection connection) {
+        this.connection = connection;
+    }
+
+    static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(TimedConnection.class.getClassLoader(),
+            new Class<?>[]{Connection.class}, new TimedConnection(connection));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Object result = forward(connection, method, args);
+        return switch (method.getName()) {
+            case "prepareStatement" -> proxy(PreparedStatement.class, (Statement) result, histogramFor((String) args[0]));
+            case "createStatement" -> proxy(Statement.class, (Statement) result, null);
+            default -> result;
+        };
+    }
+
+    private static <T extends Statement> Object proxy(Class<T> type, Statement statement, Histogram histogram) {
+        return Proxy.newProxyInstance(TimedConnection.class.getClassLoader(), new Class<?>[]{type},
+            new TimedStatement(statement, histogram));
+    }
+
+    static Histogram histogramFor(String sql) {
+        Histogram histogram = BY_SQL.get(sql);
+        if (histogram != null) {
+            return histogram;
+        }
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String operation = switch (trimmed.substring(0, end).toLowerCase(Locale.ROOT)) {
+            case "select", "with" -> "select";
+            case "insert", "replace" -> "insert";
+            case "update" -> "update";
+            case "delete" -> "delete";
+            default -> "other";
+        };
+        // DDL and pragmas run at startup only; "AFTER UPDATE OF" in a trigger is not a table
+        Matcher matcher = TABLE.matcher(trimmed);
+        String table = !operation.equals("other") && matcher.find() ? matcher.group(1).toLowerCase(Locale.ROOT) : "none";
+
+        histogram = MetricsRegistry.getInstance()
+            .histogram("db_query_duration_seconds", "JDBC statement time by operation and table", "operation", "table")
+            .labels(operation, table);
+        // Ad hoc SQL must not grow the cache without bound; the histogram itself is shared anyway
+        if (BY_SQL.size() < MAX_CACHED_STATEMENTS) {
+            BY_SQL.put(sql, histogram);
+        }
+        return histogram;
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Times one statement. Prepared statements carry their histogram from prepare time; plain
+     * statements look it up from the SQL passed to each execute call.
+     */
+    private static final class TimedStatement implements InvocationHandler {
+        private final Statement statement;
+        private final Histogram prepared;
+        private Histogram openQuery;
+        private long openQueryStart;
+
+        TimedStatement(Statement statement, Histogram prepared) {
+            this.statement = statement;
+            this.prepared = prepared;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                finishQuery();
+                return forward(statement, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return forward(statement, method, args);
+            }
+
+            finishQuery();
+            Histogram histogram = prepared != null || args == null || args.length == 0 || !(args[0] instanceof String sql)
+                ? prepared
+                : histogramFor(sql);
+            long start = System.nanoTime();
+            if (name.equals("executeQuery")) {
+                Object resultSet = forward(statement, method, args);
+                openQuery = histogram;
+                openQueryStart = start;
+                return resultSet;
+            }
+            try {
+                return forward(statement, method, args);
+            } finally {
+                if (histogram != null) {
+                    histogram.recordSince(start);
+                }
+            }
+        }
+
+        private void finishQuery() {
+            if (openQuery != null) {
+                openQuery.recordSince(openQueryStart);
+                openQuery = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.finmanager.importer;
+
+import com.finmanager.model.Money;
+import com.finmanager.util.AppConfig;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Describes how the columns of a bank export map onto {@link com.finmanager.model.Expense} fields.
+ *
+ * Columns are given either by header name (case-insensitive) or by 0-based index. Defaults come
+ * from the {@code import.csv.*} properties and match the layout written by ExportUtil, so an
+ * exported file imports back unchanged.
+ */
+public class CsvColumnMapping {
+    private final char delimiter;
+    private final boolean header;
+    private final String dateColumn;
+    private final String amountColumn;
+    private final String categoryColumn;
+    private final String descriptionColumn;
+    private final DateTimeFormatter dateFormat;
+    private final boolean decimalComma;
+    private final boolean negativeIsExpense;
+    private final String defaultCategory;
+
+    private int dateIndex = -1;
+    private int amountIndex = -1;
+    private int categoryIndex = -1;
+    private int descriptionIndex = -1;
+
+    private CsvColumnMapping(Map<String, String> settings) {
+        String delimiterSetting = setting(settings, "delimiter", ",");
+        this.delimiter = "\\t".equals(delimiterSetting) ? '\t' : delimiterSetting.charAt(0);
+        this.header = Boolean.parseBoolean(setting(settings, "header", "true"));
+        this.dateColumn = setting(settings, "dateColumn", "Date");
+        this.amountColumn = setting(settings, "amountColumn", "Amount");
+        this.categoryColumn = setting(settings, "categoryColumn", "Category");
+        this.descriptionColumn = setting(settings, "descriptionColumn", "Description");
+        this.dateFormat = DateTimeFormatter.ofPattern(setting(settings, "dateFormat", "yyyy-MM-dd"), Locale.ROOT);
+        this.decimalComma = Boolean.parseBoolean(setting(settings, "decimalComma", "false"));
+        this.negativeIsExpense = Boolean.parseBoolean(setting(settings, "negativeIsExpense", "false"));
+        String fallback = setting(settings, "defaultCategory", "");
+        this.defaultCategory = fallback.isBlank() ? null : fallback.trim();
+    }
+
+    /**
+     * Mapping from {@code import.csv.*} configuration, with per-import overrides keyed by the
+     * short setting name (e.g. {@code dateColumn}, {@code dateFormat}, {@code delimiter}).
+     */
+    public static CsvColumnMapping fromConfig(Map<String, String> overrides) {
+        AppConfig config = AppConfig.getInstance();
+        Map<String, String> settings = new HashMap<>();
+        for (String key : new String[] {"delimiter", "header", "dateColumn", "amountColumn", "categoryColumn",
+                "descriptionColumn", "dateFormat", "decimalComma", "negativeIsExpense", "defaultCategory"}) {
+            String value = overrides.containsKey(key) ? overrides.get(key) : config.getProperty("import.csv." + key);
+            if (value != null) {
+                settings.put(key, value);
+            }
+        }
+        return new CsvColumnMapping(settings);
+    }
+
+    private static String setting(Map<String, String> settings, String key, String defaultValue) {
+        String value = settings.get(key);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * Resolves column names against the header row (or plain indexes when the file has none).
+     * @throws IllegalArgumentException if a required column cannot be found
+     */
+    public void resolve(List<String> headerRow) {
+        dateIndex = indexOf(dateColumn, headerRow, true);
+        amountIndex = indexOf(amountColumn, headerRow, true);
+        categoryIndex = indexOf(categoryColumn, headerRow, defaultCategory == null);
+        descriptionIndex = indexOf(descriptionColumn, headerRow, false);
+    }
+
+    private static int indexOf(String column, List<String> headerRow, boolean required) {
+        if (column.chars().allMatch(Character::isDigit)) {
+            return Integer.parseInt(column);
+        }
+        if (headerRow != null) {
+            for (int i = 0; i < headerRow.size(); i++) {
+                if (headerRow.get(i).trim().equalsIgnoreCase(column)) {
+                    return i;
+                }
+            }
+        }
+        if (required) {
+            throw new IllegalArgumentException("Column not found: " + column);
+        }
+        return -1;
+    }
+
+    public LocalDate parseDate(List<String> record) {
+        return LocalDate.parse(field(record, dateIndex), dateFormat);
+    }
+
+    /**
+     * Parses the amount of an expense in cents. With {@code negativeIsExpense}, debits are negative
+     * in the file and are returned as positive amounts; credits come back non-positive and get rejected.
+     */
+    public long parseAmountCents(List<String> record) {
+        String raw = field(record, amountIndex).replace(" ", "");
+        if (decimalComma) {
+            raw = raw.replace(".", "").replace(',', '.');
+        } else {
+            raw = raw.replace(",", "");
+        }
+        long cents = Money.parse(raw);
+        return negativeIsExpense ? -cents : cents;
+    }
+
+    public String categoryName(List<String> record) {
+        String name = field(record, categoryIndex);
+        return name.isBlank() ? defaultCategory : name.trim();
+    }
+
+    public String description(List<String> record) {
+        String description = field(record, descriptionIndex);
+        return description.isBlank() ? null : description.trim();
+    }
+
+    private static String field(List<String> record, int index) {
+        return index >= 0 && index < record.size() ? record.get(index) : "";
+    }
+
+    public char getDelimiter() { return delimiter; }
+    public boolean hasHeader() { return header; }
+}
@@ -0,0 +1,158 @@
+package com.finmanager.importer;
+
+import com.finmanager.model.Expense;
+import com.finmanager.model.Money;
+import com.finmanager.service.CategoryService;
+import com.finmanager.service.ExpenseService;
+import com.finmanager.util.AppConfig;
+import com.finmanager.util.CsvReader;
+import com.finmanager.util.ExportUtil;
+import com.finmanager.util.Logger;
+import com.finmanager.util.ValidationUtil;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams a CSV bank export into the expenses table.
+ *
+ * Rows are parsed one at a time, validated, and written through {@link ExpenseService#createExpenses}
+ * in batches of {@code import.batchSize}, so memory stays bounded by the batch size rather than the
+ * file size. Each batch commits on its own. Rows that cannot be imported are written to the
+ * rejected-rows writer with their line number and the reason.
+ */
+public class ExpenseCsvImporter {
+
+    /** Receives a snapshot every {@code import.progressInterval} rows and once at the end. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(ImportResult progress);
+    }
+
+    private final ExpenseService expenseService;
+    private final CategoryService categoryService;
+    private final CsvColumnMapping mapping;
+    private final int batchSize;
+    private final int progressInterval;
+
+    public ExpenseCsvImporter(CsvColumnMapping mapping) {
+        AppConfig config = AppConfig.getInstance();
+        this.expenseService = ExpenseService.getInstance();
+        this.categoryService = CategoryService.getInstance();
+        this.mapping = mapping;
+        this.batchSize = Math.max(1, config.getIntProperty("import.batchSize", 5_000));
+        this.progressInterval = Math.max(1, config.getIntProperty("import.progressInterval", 10_000));
+    }
+
+    public ImportResult importCsv(Reader input, Writer rejects, ProgressListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportResult result = new ImportResult();
+        Map<String, Long> categoryIds = categoryService.getCategoryIdsByName();
+        List<Expense> pending = new ArrayList<>(batchSize);
+        List<PendingRow> pendingRows = new ArrayList<>(batchSize);
+
+        rejects.write("line,reason\n");
+        try (CsvReader reader = new CsvReader(input, mapping.getDelimiter(), 1 << 20)) {
+            List<String> record = reader.readRecord();
+            if (record == null) {
+                result.finished = true;
+                return result;
+            }
+            mapping.resolve(mapping.hasHeader() ? record : null);
+            if (mapping.hasHeader()) {
+                record = reader.readRecord();
+            }
+
+            for (; record != null; record = reader.readRecord()) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                result.rowsRead++;
+                long line = reader.getRecordLine();
+                try {
+                    pending.add(toExpense(record, categoryIds));
+                    pendingRows.add(new PendingRow(line, record));
+                } catch (RuntimeException e) {
+                    reject(rejects, result, line, e.getMessage(), record);
+                }
+
+                if (pending.size() >= batchSize) {
+                    flush(pending, pendingRows, rejects, result);
+                }
+                if (listener != null && result.rowsRead % progressInterval == 0) {
+                    result.elapsedMs = System.currentTimeMillis() - start;
+                    listener.onProgress(result.copy());
+                }
+            }
+            flush(pending, pendingRows, rejects, result);
+        } finally {
+            rejects.flush();
+        }
+
+        result.elapsedMs = System.currentTimeMillis() - start;
+        result.finished = true;
+        if (listener != null) {
+            listener.onProgress(result.copy());
+        }
+        return result;
+    }
+
+    private Expense toExpense(List<String> record, Map<String, Long> categoryIds) {
+        LocalDate date = mapping.parseDate(record);
+        if (!ValidationUtil.isValidDate(date)) {
+            throw new IllegalArgumentException("date out of range: " + date);
+        }
+        long amountCents = mapping.parseAmountCents(record);
+        if (!ValidationUtil.isValidAmountCents(amountCents)) {
+            throw new IllegalArgumentException("amount must be positive: " + Money.format(amountCents));
+        }
+        String description = mapping.description(record);
+        if (!ValidationUtil.isValidDescription(description)) {
+            throw new IllegalArgumentException("description too long");
+        }
+        String categoryName = mapping.categoryName(record);
+        Long categoryId = categoryName == null ? null : categoryIds.get(categoryName);
+        if (categoryId == null) {
+            throw new IllegalArgumentException("unknown category: " + categoryName);
+        }
+        Expense expense = new Expense(date, 0, categoryId, description);
+        expense.setAmountCents(amountCents);
+        return expense;
+    }
+
+    private void flush(List<Expense> pending, List<PendingRow> pendingRows, Writer rejects, ImportResult result)
+            throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            result.imported += expenseService.createExpenses(pending).size();
+        } catch (SQLException | RuntimeException e) {
+            Logger.error(ExpenseCsvImporter.class, "Import batch of " + pending.size() + " rows failed", e);
+            for (PendingRow row : pendingRows) {
+                reject(rejects, result, row.line(), "insert failed: " + e.getMessage(), row.record());
+            }
+        }
+        pending.clear();
+        pendingRows.clear();
+    }
+
+    private static void reject(Writer rejects, ImportResult result, long line, String reason, List<String> record)
+            throws IOException {
+        result.rejected++;
+        StringBuilder sb = new StringBuilder();
+        sb.append(line).append(',').append(ExportUtil.escapeCsvValue(reason));
+        for (String field : record) {
+            sb.append(',').append(ExportUtil.escapeCsvValue(field));
+        }
+        rejects.write(sb.append('\n').toString());
+    }
+
+    private record PendingRow(long line, List<String> record) {}
+}
@@ -0,0 +1,24 @@
+package com.finmanager.importer;
+
+/**
+ * Running totals of an import; also passed to progress listeners while the import is in flight.
+ */
+public class ImportResult {
+    public long rowsRead;
+    public long imported;
+    public long rejected;
+    public long elapsedMs;
+    public String rejectedFile;
+    public boolean finished;
+
+    ImportResult copy() {
+        ImportResult copy = new ImportResult();
+        copy.rowsRead = rowsRead;
+        copy.imported = imported;
+        copy.rejected = rejected;
+        copy.elapsedMs = elapsedMs;
+        copy.rejectedFile = rejectedFile;
+        copy.finished = finished;
+        return copy;
+    }
+}
@@ -0,0 +1,107 @@
+package com.finmanager.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ *
+ * Every power of two from 1 us to ~18 minutes is split into 8 equal sub-buckets, so a recorded
+ * value lands in a bucket at most 12.5% wider than itself. Finding the bucket is a couple of shifts
+ * rather than a search, and each bucket is a {@link LongAdder} so concurrent requests do not
+ * contend on one cache line. Values below 1 us share the first bucket; larger values than the
+ * top bucket are clamped into it.
+ *
+ * Prometheus wants a fixed set of {@code le} bounds, so {@link #snapshot} folds the fine buckets
+ * into {@link #BOUNDS_SECONDS}. A fine bucket counts toward a bound only when its upper edge is
+ * at or below it, so a cumulative count can miss observations within 12.5% under the bound.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MIN_EXPONENT = 10;
+    private static final int MAX_EXPONENT = 39;
+    static final int BUCKET_COUNT = 1 + (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS;
+
+    /** Exposition bounds in seconds, matching the usual Prometheus client defaults plus finer low end. */
+    public static final double[] BOUNDS_SECONDS = {
+        0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    /** For each exposition bound, how many fine buckets lie entirely at or below it. */
+    private static final int[] BOUND_CUTOFFS = new int[BOUNDS_SECONDS.length];
+
+    static {
+        int bucket = 0;
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            long boundNanos = Math.round(BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+            while (bucket < BUCKET_COUNT && upperEdgeNanos(bucket) <= boundNanos) {
+                bucket++;
+            }
+            BOUND_CUTOFFS[i] = bucket;
+        }
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public Histogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        buckets[bucketFor(nanos)].increment();
+        sumNanos.add(Math.max(nanos, 0));
+    }
+
+    /** Records the time since {@code startNanos}, a value from {@link System#nanoTime()}. */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int bucketFor(long nanos) {
+        if (nanos < (1L << MIN_EXPONENT)) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /** Exclusive upper edge of a bucket in nanoseconds. */
+    static long upperEdgeNanos(int bucket) {
+        if (bucket == 0) {
+            return 1L << MIN_EXPONENT;
+        }
+        int exponent = MIN_EXPONENT + (bucket - 1) / SUB_BUCKETS;
+        int subBucket = (bucket - 1) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Cumulative counts at each of {@link #BOUNDS_SECONDS}. The total is taken from the same read
+     * of the buckets, so the +Inf bucket and the count always agree within one snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] cumulative = new long[BOUNDS_SECONDS.length];
+        long running = 0;
+        int bound = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            while (bound < BOUND_CUTOFFS.length && BOUND_CUTOFFS[bound] == i) {
+                cumulative[bound++] = running;
+            }
+            running += buckets[i].sum();
+        }
+        while (bound < BOUND_CUTOFFS.length) {
+            cumulative[bound++] = running;
+        }
+        return new Snapshot(cumulative, running, sumNanos.sum() / 1e9);
+    }
+
+    public record Snapshot(long[] cumulativeCounts, long count, double sumSeconds) {}
+}
@@ -0,0 +1,54 @@
+package com.finmanager.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Heap, GC and thread figures read from the platform MXBeans at scrape time.
+ */
+final class JvmMetrics {
+    private JvmMetrics() {
+    }
+
+    static void register(MetricsRegistry registry) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registerArea(registry, "jvm_memory_used_bytes", "Used bytes of a JVM memory area", memory, MemoryUsage::getUsed);
+        registerArea(registry, "jvm_memory_committed_bytes", "Committed bytes of a JVM memory area", memory, MemoryUsage::getCommitted);
+        registerArea(registry, "jvm_memory_max_bytes", "Max bytes of a JVM memory area (-1 when undefined)", memory, MemoryUsage::getMax);
+
+        MetricsRegistry.Family<DoubleSupplier> poolUsed = registry.callback(
+            "jvm_memory_pool_used_bytes", "Used bytes of a JVM memory pool", MetricsRegistry.Type.GAUGE, "pool");
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            poolUsed.register(() -> pool.getUsage().getUsed(), pool.getName());
+        }
+
+        MetricsRegistry.Family<DoubleSupplier> collections = registry.callback(
+            "jvm_gc_collections_total", "Collections run by a garbage collector", MetricsRegistry.Type.COUNTER, "gc");
+        MetricsRegistry.Family<DoubleSupplier> collectionTime = registry.callback(
+            "jvm_gc_collection_seconds_total", "Time spent in a garbage collector", MetricsRegistry.Type.COUNTER, "gc");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections.register(() -> Math.max(gc.getCollectionCount(), 0), gc.getName());
+            collectionTime.register(() -> Math.max(gc.getCollectionTime(), 0) / 1000.0, gc.getName());
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registry.callback("jvm_threads_live", "Live platform threads", MetricsRegistry.Type.GAUGE)
+            .register(threads::getThreadCount);
+        registry.callback("process_uptime_seconds", "Time since the JVM started", MetricsRegistry.Type.GAUGE)
+            .register(() -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    private static void registerArea(MetricsRegistry registry, String name, String help, MemoryMXBean memory,
+                                     ToLongFunction<MemoryUsage> field) {
+        MetricsRegistry.Family<DoubleSupplier> family =
+            registry.callback(name, help, MetricsRegistry.Type.GAUGE, "area");
+        family.register(() -> field.applyAsLong(memory.getHeapMemoryUsage()), "heap");
+        family.register(() -> field.applyAsLong(memory.getNonHeapMemoryUsage()), "nonheap");
+    }
+}
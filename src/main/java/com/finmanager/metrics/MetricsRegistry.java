@@ -0,0 +1,202 @@
+package com.finmanager.metrics;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide metrics, scraped in the Prometheus text exposition format.
+ *
+ * Metrics are grouped in families (one name, one help text, a fixed list of label names) whose
+ * children are created on first use for each combination of label values. Counters and gauges
+ * that are updated on a hot path are {@link LongAdder}s, latencies are {@link Histogram}s, and
+ * values that already live elsewhere (heap usage, GC counts) are read through a
+ * {@link DoubleSupplier} at scrape time. Nothing on the recording side takes a lock.
+ */
+public class MetricsRegistry {
+    private static MetricsRegistry instance;
+
+    private final Map<String, Family<?>> families = new ConcurrentSkipListMap<>();
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+            JvmMetrics.register(instance);
+        }
+        return instance;
+    }
+
+    public enum Type {
+        COUNTER, GAUGE, HISTOGRAM;
+
+        String exposition() {
+            return name().toLowerCase();
+        }
+    }
+
+    /** Monotonic counters such as request totals. */
+    public Family<LongAdder> counter(String name, String help, String... labelNames) {
+        return family(name, help, Type.COUNTER, LongAdder::new, labelNames);
+    }
+
+    /** Values that go up and down, such as requests in flight. */
+    public Family<LongAdder> gauge(String name, String help, String... labelNames) {
+        return family(name, help, Type.GAUGE, LongAdder::new, labelNames);
+    }
+
+    public Family<Histogram> histogram(String name, String help, String... labelNames) {
+        return family(name, help, Type.HISTOGRAM, Histogram::new, labelNames);
+    }
+
+    /** A counter or gauge whose children are registered with {@link Family#register}. */
+    public Family<DoubleSupplier> callback(String name, String help, Type type, String... labelNames) {
+        if (type == Type.HISTOGRAM) {
+            throw new IllegalArgumentException("Callback metrics must be counters or gauges: " + name);
+        }
+        return family(name, help, type, null, labelNames);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Family<T> family(String name, String help, Type type, Supplier<T> factory, String... labelNames) {
+        Family<?> family = families.computeIfAbsent(name, n -> new Family<>(n, help, type, factory, labelNames));
+        if (family.type != type || !Arrays.equals(family.labelNames, labelNames)
+                || (family.factory == null) != (factory == null)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered with a different type or labels");
+        }
+        return (Family<T>) family;
+    }
+
+    /** Renders every metric in the Prometheus text format (version 0.0.4). */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        for (Family<?> family : families.values()) {
+            family.writeTo(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * All children of one metric name.
+     */
+    public static class Family<T> {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final Supplier<T> factory;
+        private final String[] labelNames;
+        private final Map<List<String>, T> children = new ConcurrentHashMap<>();
+
+        Family(String name, String help, Type type, Supplier<T> factory, String[] labelNames) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.factory = factory;
+            this.labelNames = labelNames.clone();
+        }
+
+        /** The child for these label values, created on first use. */
+        public T labels(String... labelValues) {
+            if (factory == null) {
+                throw new IllegalStateException("Callback metric " + name + " has no created children");
+            }
+            List<String> key = key(labelValues);
+            T child = children.get(key);
+            return child != null ? child : children.computeIfAbsent(key, k -> factory.get());
+        }
+
+        /** Sets the function read at scrape time for these label values. */
+        public void register(DoubleSupplier value, String... labelValues) {
+            if (factory != null) {
+                throw new IllegalStateException("Metric " + name + " is not a callback metric");
+            }
+            @SuppressWarnings("unchecked")
+            T child = (T) value;
+            children.put(key(labelValues), child);
+        }
+
+        private List<String> key(String[] labelValues) {
+            if (labelValues.length != labelNames.length) {
+                throw new IllegalArgumentException("Metric " + name + " expects labels " + Arrays.toString(labelNames));
+            }
+            return List.of(labelValues);
+        }
+
+        void writeTo(StringBuilder out) {
+            if (children.isEmpty()) {
+                return;
+            }
+            out.append("# HELP ").append(name).append(' ').append(escapeHelp(help)).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type.exposition()).append('\n');
+
+            List<Map.Entry<List<String>, T>> sorted = new ArrayList<>(children.entrySet());
+            sorted.sort((a, b) -> String.join("\u0000", a.getKey()).compareTo(String.join("\u0000", b.getKey())));
+            for (Map.Entry<List<String>, T> entry : sorted) {
+                List<String> values = entry.getKey();
+                Object child = entry.getValue();
+                if (child instanceof Histogram histogram) {
+                    writeHistogram(out, values, histogram.snapshot());
+                } else if (child instanceof LongAdder adder) {
+                    writeSample(out, name, values, null, Long.toString(adder.sum()));
+                } else {
+                    writeSample(out, name, values, null, formatDouble(((DoubleSupplier) child).getAsDouble()));
+                }
+            }
+        }
+
+        private void writeHistogram(StringBuilder out, List<String> values, Histogram.Snapshot snapshot) {
+            long[] cumulative = snapshot.cumulativeCounts();
+            for (int i = 0; i < cumulative.length; i++) {
+                writeSample(out, name + "_bucket", values, formatDouble(Histogram.BOUNDS_SECONDS[i]), Long.toString(cumulative[i]));
+            }
+            writeSample(out, name + "_bucket", values, "+Inf", Long.toString(snapshot.count()));
+            writeSample(out, name + "_sum", values, null, formatDouble(snapshot.sumSeconds()));
+            writeSample(out, name + "_count", values, null, Long.toString(snapshot.count()));
+        }
+
+        private void writeSample(StringBuilder out, String sampleName, List<String> values, String le, String value) {
+            out.append(sampleName);
+            if (!values.isEmpty() || le != null) {
+                out.append('{');
+                for (int i = 0; i < values.size(); i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    out.append(labelNames[i]).append("=\"").append(escapeLabel(values.get(i))).append('"');
+                }
+                if (le != null) {
+                    out.append(values.isEmpty() ? "" : ",").append("le=\"").append(le).append('"');
+                }
+                out.append('}');
+            }
+            out.append(' ').append(value).append('\n');
+        }
+    }
+
+    static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -6,7 +6,7 @@ import java.util.Objects;
 public class Expense {
     private Long id;
     private LocalDate date;
-    private Double amount;
+    private long amountCents;
     private Long categoryId;
     private String description;
     private Long recurringId;
@@ -14,9 +14,9 @@ public class Expense {
 
     public Expense() {}
 
-    public Expense(LocalDate date, Double amount, Long categoryId, String description) {
+    public Expense(LocalDate date, double amount, Long categoryId, String description) {
         this.date = date;
-        this.amount = amount;
+        this.amountCents = Money.toCents(amount);
         this.categoryId = categoryId;
         this.description = description;
         this.isRecurringInstance = false;
@@ -28,8 +28,12 @@ public class Expense {
     public LocalDate getDate() { return date; }
     public void setDate(LocalDate date) { this.date = date; }
 
-    public Double getAmount() { return amount; }
-    public void setAmount(Double amount) { this.amount = amount; }
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
+
+    /** The amount in currency units; it is held in cents, see {@link Money}. */
+    public double getAmount() { return Money.toDouble(amountCents); }
+    public void setAmount(double amount) { this.amountCents = Money.toCents(amount); }
 
     public Long getCategoryId() { return categoryId; }
     public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
@@ -58,6 +62,6 @@ public class Expense {
 
     @Override
     public String toString() {
-        return String.format("Expense{date=%s, amount=%.2f, categoryId=%d}", date, amount, categoryId);
+        return String.format("Expense{date=%s, amount=%s, categoryId=%d}", date, Money.format(amountCents), categoryId);
     }
 }
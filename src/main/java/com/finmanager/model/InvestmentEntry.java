@@ -5,7 +5,7 @@ import java.time.LocalDate;
 public class InvestmentEntry {
     private Long id;
     private LocalDate date;
-    private Double amount;
+    private long amountCents;
     private String currency;
     private Double exchangeRate;
     private String description;
@@ -13,9 +13,9 @@ public class InvestmentEntry {
 
     public InvestmentEntry() {}
 
-    public InvestmentEntry(LocalDate date, Double amount, String currency, String description) {
+    public InvestmentEntry(LocalDate date, double amount, String currency, String description) {
         this.date = date;
-        this.amount = amount;
+        this.amountCents = Money.toCents(amount);
         this.currency = currency;
         this.exchangeRate = 1.0;
         this.description = description;
@@ -28,8 +28,12 @@ public class InvestmentEntry {
     public LocalDate getDate() { return date; }
     public void setDate(LocalDate date) { this.date = date; }
 
-    public Double getAmount() { return amount; }
-    public void setAmount(Double amount) { this.amount = amount; }
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
+
+    /** The amount in currency units; it is held in cents, see {@link Money}. */
+    public double getAmount() { return Money.toDouble(amountCents); }
+    public void setAmount(double amount) { this.amountCents = Money.toCents(amount); }
 
     public String getCurrency() { return currency; }
     public void setCurrency(String currency) { this.currency = currency; }
@@ -43,12 +47,17 @@ public class InvestmentEntry {
     public boolean isRecurring() { return isRecurring; }
     public void setRecurring(boolean recurring) { isRecurring = recurring; }
 
-    public Double getAmountInBaseCurrency() {
-        return amount * exchangeRate;
+    /** The amount converted at the entry's exchange rate, rounded to the nearest cent. */
+    public long getAmountInBaseCurrencyCents() {
+        return Money.multiply(amountCents, exchangeRate);
+    }
+
+    public double getAmountInBaseCurrency() {
+        return Money.toDouble(getAmountInBaseCurrencyCents());
     }
 
     @Override
     public String toString() {
-        return String.format("InvestmentEntry{date=%s, amount=%.2f, currency=%s}", date, amount, currency);
+        return String.format("InvestmentEntry{date=%s, amount=%s, currency=%s}", date, Money.format(amountCents), currency);
     }
 }
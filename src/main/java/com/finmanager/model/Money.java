@@ -0,0 +1,77 @@
+package com.finmanager.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a primitive {@code long} count of cents (hundredths of the currency unit).
+ *
+ * Amounts are stored, summed and compared in cents, so totals are exact however many rows they
+ * cover. Converting to {@code double} is for display and for the JSON API only. Every conversion
+ * from a fractional value rounds half away from zero, the same as SQLite's ROUND(), so Java and
+ * SQL agree on every row.
+ */
+public final class Money {
+    private static final int SCALE = 2;
+    /** Whole-unit digits that can fit in a {@code long} of cents. */
+    private static final int MAX_INTEGER_DIGITS = 17;
+    /** Enough fraction digits for any double printed in plain notation by a JSON client. */
+    private static final int MAX_FRACTION_DIGITS = 20;
+    private static final double CENTS_PER_UNIT = 100.0;
+
+    private Money() {}
+
+    /** The nearest number of cents to an amount in currency units. */
+    public static long toCents(double amount) {
+        return round(amount * CENTS_PER_UNIT);
+    }
+
+    /** An amount in cents as currency units, e.g. 1999 as 19.99. */
+    public static double toDouble(long cents) {
+        return cents / CENTS_PER_UNIT;
+    }
+
+    /**
+     * Parses a plain decimal such as "19.99" or "-5" without going through {@code double}.
+     * The digit counts are checked before rescaling: text is client input, and rescaling "1e99999999"
+     * would build a hundred-million-digit number.
+     * @throws NumberFormatException if the text is not a number, or has too many whole or fraction digits
+     * @throws ArithmeticException if the amount does not fit in a {@code long} of cents
+     */
+    public static long parse(String amount) {
+        BigDecimal value = new BigDecimal(amount.trim());
+        if (value.precision() - value.scale() > MAX_INTEGER_DIGITS
+                || value.scale() < -MAX_INTEGER_DIGITS - 1 || value.scale() > MAX_FRACTION_DIGITS) {
+            throw new NumberFormatException("Amount out of range: " + abbreviate(amount));
+        }
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= 32 ? text : text.substring(0, 32) + "...";
+    }
+
+    /** Formats cents as a plain decimal with two fraction digits, e.g. 1999 as "19.99" and -5 as "-0.05". */
+    public static String format(long cents) {
+        long units = cents / 100;
+        int fraction = (int) Math.abs(cents % 100);
+        StringBuilder sb = new StringBuilder(24);
+        if (cents < 0 && units == 0) {
+            sb.append('-');
+        }
+        sb.append(units).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+
+    /** Cents times a rate, such as an exchange rate, rounded to the nearest cent. */
+    public static long multiply(long cents, double factor) {
+        return round(cents * factor);
+    }
+
+    private static long round(double value) {
+        return value < 0 ? -Math.round(-value) : Math.round(value);
+    }
+}
@@ -9,7 +9,7 @@ public class RecurringExpense {
 
     private Long id;
     private Long categoryId;
-    private Double amount;
+    private long amountCents;
     private String description;
     private Frequency frequency;
     private LocalDate startDate;
@@ -19,10 +19,10 @@ public class RecurringExpense {
 
     public RecurringExpense() {}
 
-    public RecurringExpense(Long categoryId, Double amount, String description, 
+    public RecurringExpense(Long categoryId, double amount, String description, 
                           Frequency frequency, LocalDate startDate) {
         this.categoryId = categoryId;
-        this.amount = amount;
+        this.amountCents = Money.toCents(amount);
         this.description = description;
         this.frequency = frequency;
         this.startDate = startDate;
@@ -35,8 +35,12 @@ public class RecurringExpense {
     public Long getCategoryId() { return categoryId; }
     public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
 
-    public Double getAmount() { return amount; }
-    public void setAmount(Double amount) { this.amount = amount; }
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
+
+    /** The amount in currency units; it is held in cents, see {@link Money}. */
+    public double getAmount() { return Money.toDouble(amountCents); }
+    public void setAmount(double amount) { this.amountCents = Money.toCents(amount); }
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
@@ -58,7 +62,7 @@ public class RecurringExpense {
 
     @Override
     public String toString() {
-        return String.format("RecurringExpense{categoryId=%d, amount=%.2f, frequency=%s}", 
-                           categoryId, amount, frequency);
+        return String.format("RecurringExpense{categoryId=%d, amount=%s, frequency=%s}", 
+                           categoryId, Money.format(amountCents), frequency);
     }
 }
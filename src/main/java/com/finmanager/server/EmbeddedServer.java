@@ -2,80 +2,153 @@ package com.finmanager.server;
 
 import com.finmanager.api.*;
 import com.finmanager.config.SwaggerConfig;
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.metrics.MetricsRegistry;
+import com.finmanager.service.CategoryService;
+import com.finmanager.service.ColumnarExpenseStore;
+import com.finmanager.service.DailySpendIndex;
+import com.finmanager.service.ExpenseService;
+import com.finmanager.util.AppConfig;
 import com.finmanager.util.Logger;
 import com.finmanager.util.GsonUtil;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Supplier;
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 public class EmbeddedServer {
     private static final int PORT = 8080;
+    private final int port;
     private HttpServer server;
     private final CategoryAPI categoryAPI;
     private final ExpenseAPI expenseAPI;
     private final RecurringExpenseAPI recurringAPI;
     private final InvestmentAPI investmentAPI;
     private final AnalyticsAPI analyticsAPI;
+    private final ImportAPI importAPI;
+    private final ResponseCache responseCache;
+    private final Runnable categoryListener;
+    private final StaticAssetCache staticAssets;
+    private volatile PrecomputedResponse apiDocs;
+    private volatile PrecomputedResponse swaggerUi;
+    private MetricsRegistry metrics;
     private final Gson gson;
 
     public EmbeddedServer() {
+        this(PORT);
+    }
+
+    public EmbeddedServer(int port) {
+        this.port = port;
         this.categoryAPI = new CategoryAPI();
         this.expenseAPI = new ExpenseAPI();
         this.recurringAPI = new RecurringExpenseAPI();
         this.investmentAPI = new InvestmentAPI();
         this.analyticsAPI = new AnalyticsAPI();
+        this.importAPI = new ImportAPI();
+        this.responseCache = new ResponseCache(AppConfig.getInstance().getIntProperty("server.responseCache.maxEntries", 256));
+        // One instance, so stop() can remove exactly what start() added
+        this.categoryListener = responseCache::invalidateAll;
+        this.staticAssets = new StaticAssetCache(AppConfig.getInstance().getBooleanProperty("server.staticCache.offHeap", false));
         this.gson = GsonUtil.getInstance();
     }
 
     public void start() throws IOException {
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        // Expense writes evict the months they touch, once the in-memory stores hold them; category
+        // changes can rename any cached breakdown
+        ExpenseService.getInstance().addInvalidationListener(responseCache);
+        CategoryService.getInstance().addChangeListener(categoryListener);
+        if (AppConfig.getInstance().getBooleanProperty("expenses.dailyIndex.enabled", true)) {
+            // Pay for the initial load before the first dashboard asks for a total
+            DailySpendIndex.getInstance().rebuild();
+        }
+        if (AppConfig.getInstance().getBooleanProperty("analytics.columnar.enabled", true)) {
+            ColumnarExpenseStore.getInstance().rebuild();
+        }
+
+        metrics = AppConfig.getInstance().getBooleanProperty("metrics.enabled", true) ? MetricsRegistry.getInstance() : null;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
         
         // Category endpoints
-        server.createContext("/api/categories", exchange -> handleCategories(exchange));
-        server.createContext("/api/category", exchange -> handleCategory(exchange));
+        createContext("/api/categories", exchange -> handleCategories(exchange));
+        createContext("/api/category", exchange -> handleCategory(exchange));
         
         // Expense endpoints
-        server.createContext("/api/expenses", exchange -> handleExpenses(exchange));
-        server.createContext("/api/expense", exchange -> handleExpense(exchange));
-        server.createContext("/api/expenses/total", exchange -> handleExpenseTotal(exchange));
+        createContext("/api/expenses", exchange -> handleExpenses(exchange));
+        createContext("/api/expense", exchange -> handleExpense(exchange));
+        createContext("/api/expenses/total", exchange -> handleExpenseTotal(exchange));
+        createContext("/api/expenses/batch", exchange -> handleExpenseBatch(exchange));
+        createContext("/api/expenses/range", exchange -> handleExpenseRange(exchange));
+        createContext("/api/expenses/search", exchange -> handleExpenseSearch(exchange));
         
         // Recurring expense endpoints
-        server.createContext("/api/recurring", exchange -> handleRecurring(exchange));
+        createContext("/api/recurring", exchange -> handleRecurring(exchange));
         
         // Investment endpoints
-        server.createContext("/api/investments", exchange -> handleInvestments(exchange));
-        server.createContext("/api/investment", exchange -> handleInvestment(exchange));
-        server.createContext("/api/investments/cagr", exchange -> handleCAGR(exchange));
-        server.createContext("/api/investments/projection", exchange -> handleProjection(exchange));
+        createContext("/api/investments", exchange -> handleInvestments(exchange));
+        createContext("/api/investment", exchange -> handleInvestment(exchange));
+        createContext("/api/investments/cagr", exchange -> handleCAGR(exchange));
+        createContext("/api/investments/projection", exchange -> handleProjection(exchange));
         
         // Analytics endpoints
-        server.createContext("/api/analytics/breakdown", exchange -> handleAnalyticsBreakdown(exchange));
-        server.createContext("/api/analytics/trend", exchange -> handleAnalyticsTrend(exchange));
+        createContext("/api/analytics/breakdown", exchange -> handleAnalyticsBreakdown(exchange));
+        createContext("/api/analytics/trend", exchange -> handleAnalyticsTrend(exchange));
+        
+        // Import endpoints
+        createContext("/api/import/expenses", exchange -> handleExpenseImport(exchange));
         
         // Swagger/OpenAPI endpoints
-        server.createContext("/api-docs", exchange -> handleApiDocs(exchange));
-        server.createContext("/swagger-ui", exchange -> handleSwaggerUI(exchange));
+        createContext("/api-docs", exchange -> handleApiDocs(exchange));
+        createContext("/swagger-ui", exchange -> handleSwaggerUI(exchange));
         
         // Health check
-        server.createContext("/api/health", exchange -> handleHealth(exchange));
+        createContext("/api/health", exchange -> handleHealth(exchange));
+        createContext("/api/health/pool", exchange -> handlePoolHealth(exchange));
+        createContext("/api/health/writer", exchange -> handleWriterHealth(exchange));
+        createContext("/api/health/columnar", exchange -> handleColumnarHealth(exchange));
+        createContext("/api/health/schema", exchange -> handleSchemaHealth(exchange));
+        createContext("/api/metrics", exchange -> handleMetrics(exchange));
         
         // Static files and SPA fallback (must be last as it catches all)
-        server.createContext("/", exchange -> handleStatic(exchange));
+        createContext("/", exchange -> handleStatic(exchange));
+        if (AppConfig.getInstance().getBooleanProperty("server.staticCache.watch", false)) {
+            staticAssets.watch();
+        }
         
+        // Routes are fixed from here on, so the docs only need building once per start
+        precomputeDocs();
+
         // Use virtual threads for better scalability (Java 21 feature)
         server.setExecutor(java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor());
         server.start();
     }
 
+    /** Registers a context, counted and timed under its path when metrics are on. */
+    private void createContext(String path, HttpHandler handler) {
+        HttpContext context = server.createContext(path, handler);
+        if (metrics != null) {
+            context.getFilters().add(new HttpMetricsFilter(metrics, path));
+        }
+    }
+
     public void stop() {
         if (server != null) {
             server.stop(0);
         }
+        ExpenseService.getInstance().removeInvalidationListener(responseCache);
+        CategoryService.getInstance().removeChangeListener(categoryListener);
+        staticAssets.close();
     }
 
     private void handleStatic(HttpExchange exchange) throws IOException {
@@ -102,71 +175,12 @@ public class EmbeddedServer {
 
     private boolean serveFile(HttpExchange exchange, String path) throws IOException {
         try {
-            String filePath = "public" + (path.equals("/") ? "/index.html" : path);
-            
-            // First try loading from classpath (in JAR)
-            InputStream resourceStream = getClass().getClassLoader().getResourceAsStream(filePath);
-            if (resourceStream != null) {
-                String contentType = getContentType(filePath);
-                exchange.getResponseHeaders().set("Content-Type", contentType);
-                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                
-                byte[] content = resourceStream.readAllBytes();
-                resourceStream.close();
-                
-                exchange.sendResponseHeaders(200, content.length);
-                OutputStream os = exchange.getResponseBody();
-                os.write(content);
-                os.close();
-                
-                return true;
-            }
-            
-            // Fallback to filesystem (for development)
-            File file = new File(filePath);
-            if (!file.exists()) {
-                return false;
-            }
-
-            if (file.isDirectory()) {
-                file = new File(filePath + "/index.html");
-                if (!file.exists()) {
-                    return false;
-                }
-            }
-
-            String contentType = getContentType(file.getName());
-            exchange.getResponseHeaders().set("Content-Type", contentType);
-            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-
-            FileInputStream fis = new FileInputStream(file);
-            byte[] content = fis.readAllBytes();
-            fis.close();
-
-            exchange.sendResponseHeaders(200, content.length);
-            OutputStream os = exchange.getResponseBody();
-            os.write(content);
-            os.close();
-
-            return true;
+            return staticAssets.serve(exchange, path);
         } catch (IOException e) {
             return false;
         }
     }
 
-    private String getContentType(String filename) {
-        if (filename.endsWith(".html")) return "text/html";
-        if (filename.endsWith(".css")) return "text/css";
-        if (filename.endsWith(".js")) return "application/javascript";
-        if (filename.endsWith(".json")) return "application/json";
-        if (filename.endsWith(".png")) return "image/png";
-        if (filename.endsWith(".jpg") || filename.endsWith(".jpeg")) return "image/jpeg";
-        if (filename.endsWith(".gif")) return "image/gif";
-        if (filename.endsWith(".svg")) return "image/svg+xml";
-        if (filename.endsWith(".woff") || filename.endsWith(".woff2")) return "font/woff2";
-        return "application/octet-stream";
-    }
-
     private void handleRoot(HttpExchange exchange) throws IOException {
         String response = "{\"message\": \"fin-manager API v1.0\", \"endpoints\": \"/api/categories, /api/expenses, /api/investments, /api/analytics\"}";
         sendResponse(exchange, 200, response);
@@ -177,6 +191,47 @@ public class EmbeddedServer {
         sendResponse(exchange, 200, response);
     }
 
+    private void handlePoolHealth(HttpExchange exchange) throws IOException {
+        String response = gson.toJson(DatabaseManager.getInstance().getPoolStats());
+        sendResponse(exchange, 200, response);
+    }
+
+    private void handleWriterHealth(HttpExchange exchange) throws IOException {
+        String response = gson.toJson(DatabaseManager.getInstance().getWriterStats());
+        sendResponse(exchange, 200, response);
+    }
+
+    private void handleColumnarHealth(HttpExchange exchange) throws IOException {
+        if (!AppConfig.getInstance().getBooleanProperty("analytics.columnar.enabled", true)) {
+            sendResponse(exchange, 404, "{\"error\": \"Columnar analytics store is disabled\"}");
+            return;
+        }
+        String response = gson.toJson(ColumnarExpenseStore.getInstance().getStats());
+        sendResponse(exchange, 200, response);
+    }
+
+    private void handleSchemaHealth(HttpExchange exchange) throws IOException {
+        try {
+            sendResponse(exchange, 200, gson.toJson(DatabaseManager.getInstance().getSchemaStatus()));
+        } catch (SQLException e) {
+            Logger.error(EmbeddedServer.class, "Error reading schema status", e);
+            sendResponse(exchange, 500, "{\"error\": \"Could not read schema status\"}");
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (metrics == null) {
+            sendResponse(exchange, 404, "{\"error\": \"Metrics are disabled\"}");
+            return;
+        }
+        byte[] body = metrics.scrape().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
     private void handleCategories(HttpExchange exchange) throws IOException {
         Logger.debug(EmbeddedServer.class, "[GET /api/categories] Fetching all categories");
         if ("GET".equals(exchange.getRequestMethod())) {
@@ -213,16 +268,29 @@ public class EmbeddedServer {
         Logger.debug(EmbeddedServer.class, "[" + method + " /api/expenses] Query: " + query);
         
         if ("GET".equals(method)) {
-            String response;
-            if (query != null && query.contains("month")) {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (params.containsKey("month") && (params.containsKey("limit") || params.containsKey("cursor"))) {
+                // Paging is opt-in so existing clients keep getting the whole month as an array
+                try {
+                    String response = expenseAPI.getExpensesPageByMonth(params.get("month"), params.get("cursor"), params.get("limit"));
+                    sendResponse(exchange, response.startsWith("{\"error\"") ? 400 : 200, response);
+                } catch (SQLException e) {
+                    Logger.error(EmbeddedServer.class, "Error reading a page of expenses", e);
+                    sendResponse(exchange, 500, "{\"error\": \"Could not read expenses\"}");
+                }
+            } else if (query != null && query.contains("month")) {
                 String month = extractParam(query, "month");
                 Logger.debug(EmbeddedServer.class, "  → Fetching expenses for month: " + month);
-                response = expenseAPI.getExpensesByMonth(month);
+                try {
+                    sendJson(exchange, 200, expenseAPI.streamExpensesByMonth(month));
+                } catch (SQLException e) {
+                    Logger.error(EmbeddedServer.class, "Error reading expenses for month " + month, e);
+                    sendResponse(exchange, 500, "{\"error\": \"Could not read expenses\"}");
+                }
             } else {
                 Logger.warn(EmbeddedServer.class, "  → Missing month parameter");
-                response = "{\"error\": \"month parameter required\"}";
+                sendResponse(exchange, 200, "{\"error\": \"month parameter required\"}");
             }
-            sendResponse(exchange, 200, response);
         } else if ("POST".equals(method)) {
             Logger.debug(EmbeddedServer.class, "  → Creating new expense");
             String body = getRequestBody(exchange);
@@ -259,6 +327,59 @@ public class EmbeddedServer {
         }
     }
 
+    private void handleExpenseRange(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (params.get("start") == null || params.get("end") == null) {
+                sendResponse(exchange, 400, "{\"error\": \"start and end parameters required\"}");
+                return;
+            }
+            try {
+                String response = expenseAPI.getExpensesPageByDateRange(params.get("start"), params.get("end"),
+                    params.get("cursor"), params.get("limit"));
+                sendResponse(exchange, response.startsWith("{\"error\"") ? 400 : 200, response);
+            } catch (SQLException e) {
+                Logger.error(EmbeddedServer.class, "Error reading a page of expenses", e);
+                sendResponse(exchange, 500, "{\"error\": \"Could not read expenses\"}");
+            }
+        } else {
+            sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
+        }
+    }
+
+    private void handleExpenseSearch(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            String response = expenseAPI.searchExpenses(parseQuery(exchange.getRequestURI().getRawQuery()));
+            sendResponse(exchange, response.startsWith("{\"error\"") ? 400 : 200, response);
+        } else {
+            sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
+        }
+    }
+
+    private void handleExpenseBatch(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            Logger.debug(EmbeddedServer.class, "[POST /api/expenses/batch] Creating expense batch");
+            Reader body = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
+            String response = expenseAPI.createExpenses(body);
+            sendResponse(exchange, response.startsWith("{\"error\"") ? 400 : 201, response);
+        } else {
+            sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
+        }
+    }
+
+    private void handleExpenseImport(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            Logger.debug(EmbeddedServer.class, "[POST /api/import/expenses] Importing CSV with " + params);
+            // The body is streamed straight into the importer; chunked uploads are decoded by HttpServer
+            Reader body = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
+            String response = importAPI.importExpenses(body, params);
+            sendResponse(exchange, response.startsWith("{\"error\"") ? 400 : 200, response);
+        } else {
+            sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
+        }
+    }
+
     private void handleRecurring(HttpExchange exchange) throws IOException {
         String method = exchange.getRequestMethod();
         String path = exchange.getRequestURI().getPath();
@@ -308,14 +429,16 @@ public class EmbeddedServer {
     private void handleInvestments(HttpExchange exchange) throws IOException {
         if ("GET".equals(exchange.getRequestMethod())) {
             String query = exchange.getRequestURI().getQuery();
-            String response;
+            Integer year = null;
             if (query != null && query.contains("year")) {
-                int year = Integer.parseInt(extractParam(query, "year"));
-                response = investmentAPI.getInvestmentsByYear(year);
-            } else {
-                response = investmentAPI.getAllInvestments();
+                year = Integer.parseInt(extractParam(query, "year"));
+            }
+            try {
+                sendJson(exchange, 200, investmentAPI.streamInvestments(year));
+            } catch (SQLException e) {
+                Logger.error(EmbeddedServer.class, "Error reading investments", e);
+                sendResponse(exchange, 500, "{\"error\": \"Could not read investments\"}");
             }
-            sendResponse(exchange, 200, response);
         } else if ("POST".equals(exchange.getRequestMethod())) {
             String body = getRequestBody(exchange);
             String response = investmentAPI.createInvestmentEntry(body);
@@ -364,8 +487,12 @@ public class EmbeddedServer {
         if ("GET".equals(exchange.getRequestMethod())) {
             String query = exchange.getRequestURI().getQuery();
             String month = extractParam(query, "month");
-            String response = analyticsAPI.getCategoryBreakdown(month);
-            sendResponse(exchange, 200, response);
+            YearMonth yearMonth = parseMonth(month);
+            if (yearMonth == null) {
+                sendResponse(exchange, 200, analyticsAPI.getCategoryBreakdown(month));
+                return;
+            }
+            sendCached(exchange, "breakdown:" + yearMonth, Set.of(yearMonth), () -> analyticsAPI.getCategoryBreakdown(month));
         } else {
             sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
         }
@@ -375,13 +502,51 @@ public class EmbeddedServer {
         if ("GET".equals(exchange.getRequestMethod())) {
             String query = exchange.getRequestURI().getQuery();
             int year = Integer.parseInt(extractParam(query, "year"));
-            String response = analyticsAPI.getYearlyTrendByCategory(year);
-            sendResponse(exchange, 200, response);
+            Set<YearMonth> months = new HashSet<>();
+            for (int month = 1; month <= 12; month++) {
+                months.add(YearMonth.of(year, month));
+            }
+            sendCached(exchange, "trend:" + year, months, () -> analyticsAPI.getYearlyTrendByCategory(year));
         } else {
             sendResponse(exchange, 405, "{\"error\": \"Method not allowed\"}");
         }
     }
 
+    /**
+     * Serves a response from the response cache, computing and caching it on a miss. Answers 304
+     * without a body when If-None-Match carries the current ETag. Error responses are not cached.
+     */
+    private void sendCached(HttpExchange exchange, String key, Set<YearMonth> months, Supplier<String> compute) throws IOException {
+        ResponseCache.Entry entry = responseCache.get(key);
+        if (entry == null) {
+            long version = responseCache.version();
+            String response = compute.get();
+            if (response.startsWith("{\"error\"")) {
+                sendResponse(exchange, 200, response);
+                return;
+            }
+            entry = responseCache.put(key, response, months, version);
+        }
+
+        exchange.getResponseHeaders().set("ETag", entry.getEtag());
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (ResponseCache.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), entry.getEtag())) {
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        sendResponse(exchange, 200, entry.getBody());
+    }
+
+    private YearMonth parseMonth(String month) {
+        try {
+            return month == null ? null : YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
     private String getRequestBody(HttpExchange exchange) throws IOException {
         InputStream is = exchange.getRequestBody();
         BufferedReader reader = new BufferedReader(new InputStreamReader(is));
@@ -394,18 +559,43 @@ public class EmbeddedServer {
     }
 
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
-        
-        byte[] responseBytes = response.getBytes();
+        setJsonHeaders(exchange);
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
         OutputStream os = exchange.getResponseBody();
         os.write(responseBytes);
         os.close();
     }
 
+    /**
+     * Writes a JSON body straight to the response with chunked transfer encoding. Only an 8 KB
+     * buffer sits between the JsonWriter and the socket, so memory per request does not grow with
+     * the result size. The status goes out before the body, so a failure part-way through cannot
+     * become an error response; the body is cut short instead and the client sees invalid JSON.
+     */
+    private void sendJson(HttpExchange exchange, int statusCode, JsonResponse response) throws IOException {
+        setJsonHeaders(exchange);
+        exchange.sendResponseHeaders(statusCode, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 8192);
+        try {
+            JsonWriter writer = gson.newJsonWriter(out);
+            response.writeTo(writer);
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            Logger.error(EmbeddedServer.class, "Response aborted while streaming " + exchange.getRequestURI(), e);
+            out.flush();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void setJsonHeaders(HttpExchange exchange) {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
+    }
+
     private Long extractId(String query) {
         if (query != null && query.contains("id=")) {
             String[] parts = query.split("=");
@@ -441,18 +631,35 @@ public class EmbeddedServer {
         return null;
     }
 
+    private Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) return params;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                           URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Encodes the OpenAPI spec and Swagger UI page once; requests then just write the stored bytes.
+     */
+    private void precomputeDocs() {
+        apiDocs = PrecomputedResponse.of(SwaggerConfig.generateOpenAPIJson(), "application/json; charset=utf-8");
+        swaggerUi = PrecomputedResponse.of(generateSwaggerUI(), "text/html; charset=utf-8");
+        Logger.debug(EmbeddedServer.class, "OpenAPI spec precomputed: " + apiDocs.getLength() + " bytes, "
+            + apiDocs.getGzipLength() + " gzipped");
+    }
+
     private void handleApiDocs(HttpExchange exchange) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        String response = SwaggerConfig.generateOpenAPIJson();
-        sendResponse(exchange, 200, response);
+        apiDocs.send(exchange, "public, max-age=300");
     }
 
     private void handleSwaggerUI(HttpExchange exchange) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "text/html");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        String html = generateSwaggerUI();
-        sendResponse(exchange, 200, html);
+        swaggerUi.send(exchange, "public, max-age=300");
     }
 
     private String generateSwaggerUI() {
@@ -0,0 +1,59 @@
+package com.finmanager.server;
+
+import com.finmanager.metrics.Histogram;
+import com.finmanager.metrics.MetricsRegistry;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times every request to one context. The route label is the context path, not
+ * the request path, so ids and static file names cannot multiply the series.
+ */
+class HttpMetricsFilter extends Filter {
+    private final String route;
+    private final LongAdder inFlight;
+    private final MetricsRegistry.Family<LongAdder> requests;
+    private final MetricsRegistry.Family<Histogram> durations;
+
+    HttpMetricsFilter(MetricsRegistry registry, String route) {
+        this.route = route;
+        this.inFlight = registry.gauge("http_requests_in_flight", "Requests being handled", "route").labels(route);
+        this.requests = registry.counter("http_requests_total", "Requests handled", "route", "method", "status");
+        this.durations = registry.histogram("http_request_duration_seconds",
+            "Time from the start of a request until its handler returned", "route", "method");
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        inFlight.increment();
+        boolean failed = true;
+        try {
+            chain.doFilter(exchange);
+            failed = false;
+        } finally {
+            inFlight.decrement();
+            String method = normalizeMethod(exchange.getRequestMethod());
+            durations.labels(route, method).recordSince(start);
+            // A handler that threw before sending headers leaves the client with a dropped connection
+            int status = exchange.getResponseCode();
+            requests.labels(route, method, status > 0 ? Integer.toString(status) : failed ? "500" : "0").increment();
+        }
+    }
+
+    /** Clients choose the method string, so anything unusual is folded into one series. */
+    private static String normalizeMethod(String method) {
+        return switch (method) {
+            case "GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "PATCH" -> method;
+            default -> "other";
+        };
+    }
+
+    @Override
+    public String description() {
+        return "Request metrics for " + route;
+    }
+}
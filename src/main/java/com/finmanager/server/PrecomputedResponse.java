@@ -0,0 +1,133 @@
+package com.finmanager.server;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body encoded once and served many times: UTF-8 bytes, a gzip variant and a strong
+ * ETag. Sending it is a header lookup plus a buffer write, with 304 for a matching If-None-Match.
+ */
+public final class PrecomputedResponse {
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final String contentType;
+
+    private PrecomputedResponse(byte[] body, String contentType) {
+        this.body = body;
+        this.gzipBody = gzip(body);
+        this.etag = etag(body);
+        this.contentType = contentType;
+    }
+
+    public static PrecomputedResponse of(String body, String contentType) {
+        return new PrecomputedResponse(body.getBytes(StandardCharsets.UTF_8), contentType);
+    }
+
+    public static PrecomputedResponse of(byte[] body, String contentType) {
+        return new PrecomputedResponse(body.clone(), contentType);
+    }
+
+    public String getEtag() { return etag; }
+    public int getLength() { return body.length; }
+    public int getGzipLength() { return gzipBody.length; }
+
+    /**
+     * Writes the response, picking the gzip variant when the client accepts it and it is smaller.
+     */
+    public void send(HttpExchange exchange, String cacheControl) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+
+        if (ResponseCache.matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] payload = body;
+        if (gzipBody.length < body.length && acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            payload = gzipBody;
+        }
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(200, payload.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(payload);
+        }
+    }
+
+    /** Writes the body as a request would, without HTTP; used by benchmarks. */
+    public void writeTo(OutputStream out, boolean gzip) throws IOException {
+        out.write(gzip ? gzipBody : body);
+    }
+
+    /** True unless gzip is absent or explicitly refused with q=0. */
+    static boolean acceptsGzip(String acceptEncoding) {
+        return accepts(acceptEncoding, "gzip");
+    }
+
+    /** True if the Accept-Encoding header allows {@code contentCoding} (by name or "*") with a non-zero q. */
+    static boolean accepts(String acceptEncoding, String contentCoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (coding.equalsIgnoreCase(contentCoding) || coding.equals("*")) {
+                for (int i = 1; i < tokens.length; i++) {
+                    String param = tokens[i].trim();
+                    if (param.startsWith("q=") && isZero(param.substring(2))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZero(String qvalue) {
+        try {
+            return Double.parseDouble(qvalue) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static String etag(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
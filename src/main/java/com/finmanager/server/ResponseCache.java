@@ -0,0 +1,136 @@
+package com.finmanager.server;
+
+import com.finmanager.model.Expense;
+import com.finmanager.service.ExpenseChangeListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded LRU cache of rendered JSON responses, keyed by endpoint and parameters.
+ *
+ * Each entry records the months its data was computed from; an expense write evicts only entries
+ * covering the months it touched, so closed months stay cached across dashboard refreshes.
+ * Every entry carries a strong ETag derived from its body.
+ */
+public class ResponseCache implements ExpenseChangeListener {
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+    private long version;
+
+    /** A cached response body, its ETag and the months it depends on. */
+    public static final class Entry {
+        final String body;
+        final String etag;
+        final Set<YearMonth> months;
+
+        Entry(String body, Set<YearMonth> months) {
+            this.body = body;
+            this.etag = PrecomputedResponse.etag(body.getBytes(StandardCharsets.UTF_8));
+            this.months = months;
+        }
+
+        public String getBody() { return body; }
+        public String getEtag() { return etag; }
+    }
+
+    public ResponseCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Invalidation counter; read it before computing a response and pass it to {@link #put} so a
+     * response computed while a write was committing is never cached.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Caches the body unless an invalidation happened since {@code versionBeforeCompute}.
+     * @return The entry, cached or not, so the caller can send its ETag either way
+     */
+    public synchronized Entry put(String key, String body, Set<YearMonth> months, long versionBeforeCompute) {
+        Entry entry = new Entry(body, months);
+        if (versionBeforeCompute == version && maxEntries > 0) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    public synchronized void invalidate(YearMonth month) {
+        version++;
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (it.next().months.contains(month)) {
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void expenseCreated(Expense expense) {
+        invalidate(YearMonth.from(expense.getDate()));
+    }
+
+    @Override
+    public void expenseUpdated(Expense before, Expense after) {
+        invalidate(YearMonth.from(before.getDate()));
+        invalidate(YearMonth.from(after.getDate()));
+    }
+
+    @Override
+    public void expenseDeleted(Expense expense) {
+        invalidate(YearMonth.from(expense.getDate()));
+    }
+
+    @Override
+    public void expensesReloaded() {
+        invalidateAll();
+    }
+
+    /**
+     * True if an If-None-Match header matches the ETag. Uses the weak comparison RFC 9110 requires
+     * for If-None-Match, so a W/ prefix added by a proxy still matches.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,314 @@
+package com.finmanager.server;
+
+import com.finmanager.util.Logger;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-memory cache of the files under {@code public/}, each loaded once with gzip and deflate
+ * variants for text types, a strong ETag and a Last-Modified time.
+ *
+ * Files come from the classpath (the packaged frontend) or, failing that, the {@code public}
+ * directory on disk. In watch mode a WatchService evicts files from that directory as they change,
+ * so a dev build is picked up without a restart. Bodies can be kept off-heap in direct buffers.
+ */
+public class StaticAssetCache implements AutoCloseable {
+    private static final String ROOT = "public";
+    /** Build tools put a content hash in the name (main.3f2a1b9c.js, index-BxYz12_a.css). */
+    private static final Pattern HASHED_NAME = Pattern.compile(".+[.-](?=[0-9A-Za-z_]*\\d)[0-9A-Za-z_]{8,}(\\.chunk)?\\.[A-Za-z0-9]+$");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final boolean offHeap;
+    private volatile WatchService watcher;
+    private volatile Thread watchThread;
+
+    public StaticAssetCache(boolean offHeap) {
+        this(Paths.get(ROOT), offHeap);
+    }
+
+    StaticAssetCache(Path directory, boolean offHeap) {
+        this.directory = directory;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Serves {@code path} (e.g. {@code /static/js/main.js}) from the cache, loading it on first use.
+     * @return false if no such file exists
+     */
+    public boolean serve(HttpExchange exchange, String path) throws IOException {
+        String key = path.equals("/") ? "/index.html" : path;
+        if (key.contains("..") || key.contains("\\")) {
+            return false;
+        }
+        Asset asset = assets.get(key);
+        if (asset == null) {
+            asset = load(key);
+            if (asset == null) {
+                return false;
+            }
+            assets.put(key, asset);
+        }
+        asset.send(exchange);
+        return true;
+    }
+
+    public int size() {
+        return assets.size();
+    }
+
+    public void clear() {
+        assets.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                Logger.warn(StaticAssetCache.class, "Failed to close file watcher", e);
+            }
+            watcher = null;
+            watchThread = null;
+        }
+    }
+
+    private Asset load(String key) throws IOException {
+        URL url = getClass().getClassLoader().getResource(ROOT + key);
+        // An exploded classpath resolves directories too, and reading one yields a file listing
+        if (url != null && !(url.getProtocol().equals("file") && Files.isDirectory(Paths.get(URI.create(url.toString()))))) {
+            URLConnection connection = url.openConnection();
+            try (InputStream in = connection.getInputStream()) {
+                return new Asset(key, in.readAllBytes(), connection.getLastModified(), offHeap);
+            }
+        }
+
+        Path file = directory.resolve(key.substring(1));
+        if (Files.isDirectory(file)) {
+            file = file.resolve("index.html");
+        }
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        return new Asset(key, Files.readAllBytes(file), Files.getLastModifiedTime(file).toMillis(), offHeap);
+    }
+
+    /** Clears the cache whenever anything under the on-disk directory changes. */
+    public synchronized void watch() {
+        Path root = directory;
+        if (watcher != null) {
+            return;
+        }
+        if (!Files.isDirectory(root)) {
+            Logger.debug(StaticAssetCache.class, "No " + root + " directory to watch");
+            return;
+        }
+        WatchService service;
+        try {
+            service = root.getFileSystem().newWatchService();
+        } catch (IOException e) {
+            Logger.warn(StaticAssetCache.class, "Static asset watching disabled", e);
+            return;
+        }
+        try {
+            registerTree(service, root);
+        } catch (IOException e) {
+            try {
+                service.close();
+            } catch (IOException ignored) {
+                // Already failing
+            }
+            Logger.warn(StaticAssetCache.class, "Static asset watching disabled", e);
+            return;
+        }
+        watcher = service;
+        watchThread = Thread.ofPlatform().daemon().name("static-asset-watcher").start(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // Builds create new directories (static/js, assets/...) that need watching too
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && key.watchable() instanceof Path dir) {
+                            Path created = dir.resolve((Path) event.context());
+                            if (Files.isDirectory(created)) {
+                                registerTree(service, created);
+                            }
+                        }
+                    }
+                    key.reset();
+                    // Builds rewrite many files at once; dropping everything keeps index.html and its assets consistent
+                    assets.clear();
+                    Logger.debug(StaticAssetCache.class, "Static assets changed on disk, cache cleared");
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Shutting down
+            } catch (IOException e) {
+                Logger.warn(StaticAssetCache.class, "Static asset watcher stopped", e);
+            }
+        });
+    }
+
+    private static void registerTree(WatchService service, Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    static String contentType(String filename) {
+        if (filename.endsWith(".html")) return "text/html; charset=utf-8";
+        if (filename.endsWith(".css")) return "text/css; charset=utf-8";
+        if (filename.endsWith(".js")) return "application/javascript; charset=utf-8";
+        if (filename.endsWith(".json")) return "application/json; charset=utf-8";
+        if (filename.endsWith(".png")) return "image/png";
+        if (filename.endsWith(".jpg") || filename.endsWith(".jpeg")) return "image/jpeg";
+        if (filename.endsWith(".gif")) return "image/gif";
+        if (filename.endsWith(".svg")) return "image/svg+xml";
+        if (filename.endsWith(".woff") || filename.endsWith(".woff2")) return "font/woff2";
+        return "application/octet-stream";
+    }
+
+    static boolean isHashed(String path) {
+        return HASHED_NAME.matcher(path.substring(path.lastIndexOf('/') + 1)).matches();
+    }
+
+    /** One file with its encoded variants. */
+    static final class Asset {
+        private final ByteBuffer identity;
+        private final ByteBuffer gzip;
+        private final ByteBuffer deflate;
+        private final String contentType;
+        private final String etag;
+        private final String cacheControl;
+        private final long lastModified;
+
+        Asset(String path, byte[] body, long lastModifiedMillis, boolean offHeap) {
+            this.contentType = contentType(path);
+            this.etag = PrecomputedResponse.etag(body);
+            this.cacheControl = isHashed(path) ? IMMUTABLE : REVALIDATE;
+            // HTTP dates have second precision, so compare at that precision
+            this.lastModified = Instant.ofEpochMilli(lastModifiedMillis > 0 ? lastModifiedMillis : System.currentTimeMillis())
+                .truncatedTo(ChronoUnit.SECONDS).toEpochMilli();
+            this.identity = store(body, offHeap);
+
+            boolean compressible = contentType.startsWith("text/") || contentType.startsWith("application/javascript")
+                || contentType.startsWith("application/json") || contentType.startsWith("image/svg");
+            byte[] gzipped = compressible ? compress(body, false) : null;
+            byte[] deflated = compressible ? compress(body, true) : null;
+            this.gzip = gzipped != null && gzipped.length < body.length ? store(gzipped, offHeap) : null;
+            this.deflate = deflated != null && deflated.length < body.length ? store(deflated, offHeap) : null;
+        }
+
+        void send(HttpExchange exchange) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneOffset.UTC)));
+            exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+            if (gzip != null || deflate != null) {
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            }
+
+            if (notModified(exchange)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            ByteBuffer payload = identity;
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (gzip != null && PrecomputedResponse.accepts(acceptEncoding, "gzip")) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                payload = gzip;
+            } else if (deflate != null && PrecomputedResponse.accepts(acceptEncoding, "deflate")) {
+                exchange.getResponseHeaders().set("Content-Encoding", "deflate");
+                payload = deflate;
+            }
+
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, payload.remaining());
+            try (OutputStream os = exchange.getResponseBody()) {
+                // duplicate() gives this request its own position over the shared buffer
+                Channels.newChannel(os).write(payload.duplicate());
+            }
+        }
+
+        /** If-None-Match wins over If-Modified-Since, as RFC 9110 requires. */
+        private boolean notModified(HttpExchange exchange) {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (ifNoneMatch != null) {
+                return ResponseCache.matches(ifNoneMatch, etag);
+            }
+            String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+            if (ifModifiedSince != null) {
+                try {
+                    long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                    return lastModified <= since;
+                } catch (DateTimeParseException e) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private static ByteBuffer store(byte[] data, boolean offHeap) {
+            if (!offHeap) {
+                return ByteBuffer.wrap(data).asReadOnlyBuffer();
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+            buffer.put(data).flip();
+            return buffer.asReadOnlyBuffer();
+        }
+
+        private static byte[] compress(byte[] data, boolean deflate) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3 + 64);
+            try (OutputStream encoder = deflate
+                    ? new DeflaterOutputStream(out, new Deflater(Deflater.BEST_COMPRESSION))
+                    : new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+                encoder.write(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -2,18 +2,20 @@ package com.finmanager.service;
 
 import com.finmanager.model.Category;
 import com.finmanager.model.Expense;
+import com.finmanager.model.Money;
+import com.finmanager.util.AppConfig;
 
 import java.time.YearMonth;
 import java.util.*;
 
 public class AnalyticsService {
     private static AnalyticsService instance;
-    private final CategoryService categoryService;
     private final ExpenseService expenseService;
+    private final MonthlyCategoryTotalsService totalsService;
 
     private AnalyticsService() {
-        this.categoryService = CategoryService.getInstance();
         this.expenseService = ExpenseService.getInstance();
+        this.totalsService = MonthlyCategoryTotalsService.getInstance();
     }
 
     public static AnalyticsService getInstance() {
@@ -23,40 +25,44 @@ public class AnalyticsService {
         return instance;
     }
 
+    /**
+     * Whether totals come from the in-memory {@link ColumnarExpenseStore} instead of the SQL rollup;
+     * the rollup also answers while the store cannot load.
+     */
+    private static boolean useColumnarStore() {
+        return AppConfig.getInstance().getBooleanProperty("analytics.columnar.enabled", true)
+            && ColumnarExpenseStore.getInstance().ready();
+    }
+
     public Map<String, Double> getCategoryBreakdown(YearMonth yearMonth) {
-        Map<String, Double> breakdown = new LinkedHashMap<>();
-        
-        List<Category> categories = categoryService.getAllCategories();
-        for (Category category : categories) {
-            Double total = expenseService.getTotalExpensesByCategoryAndMonth(category.getId(), yearMonth);
-            if (total > 0) {
-                breakdown.put(category.getName(), total);
-            }
-        }
-        
-        return breakdown;
+        return getCategoryTotals(yearMonth, yearMonth);
     }
 
     public Map<String, Double> getYearlyTrendByCategory(int year) {
-        Map<String, Double> trend = new LinkedHashMap<>();
-        
-        List<Category> categories = categoryService.getAllCategories();
-        for (Category category : categories) {
-            Double yearTotal = 0.0;
-            for (int month = 1; month <= 12; month++) {
-                YearMonth ym = YearMonth.of(year, month);
-                yearTotal += expenseService.getTotalExpensesByCategoryAndMonth(category.getId(), ym);
-            }
-            if (yearTotal > 0) {
-                trend.put(category.getName(), yearTotal);
+        return getCategoryTotals(YearMonth.of(year, 1), YearMonth.of(year, 12));
+    }
+
+    /** Spend per active category with any spend in the range, ordered by category name. */
+    private Map<String, Double> getCategoryTotals(YearMonth from, YearMonth to) {
+        if (!useColumnarStore()) {
+            return totalsService.getCategoryTotals(from, to);
+        }
+        long[] cents = ColumnarExpenseStore.getInstance().totalsByCategory(from.atDay(1), to.atEndOfMonth());
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (Category category : CategoryService.getInstance().getAllCategories()) {
+            int id = Math.toIntExact(category.getId());
+            if (id < cents.length && cents[id] > 0) {
+                totals.put(category.getName(), Money.toDouble(cents[id]));
             }
         }
-        
-        return trend;
+        return totals;
     }
 
     public Double getTotalByCategory(Long categoryId, YearMonth yearMonth) {
-        return expenseService.getTotalExpensesByCategoryAndMonth(categoryId, yearMonth);
+        if (!useColumnarStore()) {
+            return totalsService.getCategoryTotal(categoryId, yearMonth);
+        }
+        return Money.toDouble(ColumnarExpenseStore.getInstance().total(yearMonth.atDay(1), yearMonth.atEndOfMonth(), categoryId, false));
     }
 
     public List<Expense> getExpensesByCategory(Long categoryId, YearMonth yearMonth) {
@@ -64,19 +70,21 @@ public class AnalyticsService {
     }
 
     public Double getMonthlyTotal(YearMonth yearMonth) {
-        return expenseService.getTotalExpensesByMonth(yearMonth);
+        if (!useColumnarStore()) {
+            return totalsService.getMonthlyTotal(yearMonth);
+        }
+        return Money.toDouble(ColumnarExpenseStore.getInstance().total(yearMonth.atDay(1), yearMonth.atEndOfMonth(), null, false));
     }
 
     public Map<Integer, Double> getMonthlyTrend(int year) {
-        Map<Integer, Double> trend = new LinkedHashMap<>();
-        
+        if (!useColumnarStore()) {
+            return totalsService.getMonthlyTotals(year);
+        }
+        Map<Integer, Double> totals = new LinkedHashMap<>();
         for (int month = 1; month <= 12; month++) {
-            YearMonth ym = YearMonth.of(year, month);
-            Double total = expenseService.getTotalExpensesByMonth(ym);
-            trend.put(month, total);
+            totals.put(month, getMonthlyTotal(YearMonth.of(year, month)));
         }
-        
-        return trend;
+        return totals;
     }
 
     public Map<Integer, Map<String, Double>> getYearlyComparison(int year1, int year2) {
@@ -2,12 +2,27 @@ package com.finmanager.service;
 
 import com.finmanager.model.Category;
 import com.finmanager.db.DatabaseManager;
+import com.finmanager.util.Logger;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Categories are read constantly (exports, imports, analytics) and change rarely, so reads are
+ * served from an immutable snapshot. Every write re-reads the row it changed inside its transaction,
+ * and once that commits, before the write returns, a snapshot with that row swapped in replaces the
+ * old one; readers never lock and never see a half-applied change.
+ */
 public class CategoryService {
+    /** How long a snapshot kept after a failed reload is served before the table is read again. */
+    private static final long RELOAD_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
     private static CategoryService instance;
+    private volatile Snapshot snapshot;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
     private CategoryService() {}
 
@@ -20,9 +35,56 @@ public class CategoryService {
 
     public List<Category> getAllCategories() {
         List<Category> categories = new ArrayList<>();
-        String sql = "SELECT * FROM categories WHERE active = 1 ORDER BY name";
+        for (Category category : snapshot().active) {
+            categories.add(copy(category));
+        }
+        return categories;
+    }
+
+    public Category getCategoryById(Long id) {
+        Category category = id == null ? null : snapshot().byId.get(id);
+        return category == null ? null : copy(category);
+    }
+
+    /**
+     * Active category ids keyed by name, case-insensitively, for callers that resolve many names.
+     * The map is read-only and shared by every caller until the next write.
+     */
+    public Map<String, Long> getCategoryIdsByName() {
+        return snapshot().idsByName;
+    }
+
+    /**
+     * Category with this name, case-insensitively, including inactive ones; null if there is none.
+     * Names stay unique after a soft delete, so callers about to insert should check here first.
+     */
+    public Category getCategoryByName(String name) {
+        Category category = snapshot().byName.get(name.trim());
+        return category == null ? null : copy(category);
+    }
+
+    /**
+     * Runs after every snapshot swap, i.e. after any category write is committed.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /** Removes a listener added with {@link #addChangeListener}; pass the same instance. */
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Re-reads the categories table. Only needed after writes that bypass this service. If the
+     * read fails, the previous snapshot stays in place and reads try again once it is a few seconds old.
+     */
+    public synchronized void reload() {
+        List<Category> categories = new ArrayList<>();
+        String sql = "SELECT * FROM categories ORDER BY name";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
+        DatabaseManager source = DatabaseManager.getInstance();
+        try (Connection conn = source.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -30,35 +92,76 @@ public class CategoryService {
                 categories.add(mapResultSetToCategory(rs));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Logger.error(CategoryService.class, "Could not load categories, keeping the previous snapshot", e);
+            Snapshot previous = snapshot == null || snapshot.source != source ? new Snapshot(source, List.of()) : snapshot;
+            snapshot = previous.retryingAt(System.nanoTime() + RELOAD_RETRY_NANOS);
+            return;
         }
-        return categories;
+        snapshot = new Snapshot(source, categories);
+        changeListeners.forEach(Runnable::run);
     }
 
-    public Category getCategoryById(Long id) {
-        String sql = "SELECT * FROM categories WHERE id = ?";
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    /**
+     * Current snapshot, loaded on first use, again if the DatabaseManager was replaced, and again
+     * once the retry delay of a failed reload has passed.
+     */
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null || current.source != DatabaseManager.getInstance()
+                || (current.retryAt != 0 && System.nanoTime() - current.retryAt >= 0)) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
 
+    /**
+     * Reads back the row the current write task changed and, once the task commits, swaps it into
+     * the snapshot and notifies the listeners.
+     */
+    private void publishAfterCommit(Connection conn, long id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM categories WHERE id = ?")) {
             pstmt.setLong(1, id);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return mapResultSetToCategory(rs);
+                    Category committed = mapResultSetToCategory(rs);
+                    DatabaseManager.getInstance().getWriter().afterCommit(() -> apply(committed));
                 }
             }
+        }
+    }
+
+    // Synchronized with reload(), so a reload that read the table before this commit cannot swap
+    // in its snapshot after this one
+    private synchronized void apply(Category committed) {
+        Snapshot current = snapshot;
+        // Without a current snapshot there is nothing to patch; the next read loads the row anyway
+        if (current != null && current.source == DatabaseManager.getInstance()) {
+            snapshot = current.with(committed);
+        }
+        changeListeners.forEach(Runnable::run);
+    }
+
+    public Long createCategory(Category category) {
+        try {
+            return DatabaseManager.getInstance().getWriter().execute(conn -> insertCategory(conn, category));
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return null;
     }
 
-    public Long createCategory(Category category) {
-        String sql = "INSERT INTO categories(name, type, color, active) VALUES(?, ?, ?, ?)";
+    /**
+     * Queues the insert on the database writer; completes with the generated id once committed.
+     */
+    public CompletableFuture<Long> createCategoryAsync(Category category) {
+        return DatabaseManager.getInstance().getWriter().submit(conn -> insertCategory(conn, category));
+    }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+    private Long insertCategory(Connection conn, Category category) throws SQLException {
+        String sql = "INSERT INTO categories(name, type, color, active) VALUES(?, ?, ?, ?)";
 
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, category.getName());
             pstmt.setString(2, category.getType());
             pstmt.setString(3, category.getColor());
@@ -67,11 +170,11 @@ public class CategoryService {
 
             try (ResultSet keys = pstmt.getGeneratedKeys()) {
                 if (keys.next()) {
-                    return keys.getLong(1);
+                    Long id = keys.getLong(1);
+                    publishAfterCommit(conn, id);
+                    return id;
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return null;
     }
@@ -79,41 +182,47 @@ public class CategoryService {
     public void updateCategory(Category category) {
         String sql = "UPDATE categories SET name = ?, type = ?, color = ?, active = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, category.getName());
-            pstmt.setString(2, category.getType());
-            pstmt.setString(3, category.getColor());
-            pstmt.setBoolean(4, category.isActive());
-            pstmt.setLong(5, category.getId());
-            pstmt.executeUpdate();
+        try {
+            DatabaseManager.getInstance().getWriter().execute(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, category.getName());
+                    pstmt.setString(2, category.getType());
+                    pstmt.setString(3, category.getColor());
+                    pstmt.setBoolean(4, category.isActive());
+                    pstmt.setLong(5, category.getId());
+                    int updated = pstmt.executeUpdate();
+                    publishAfterCommit(conn, category.getId());
+                    return updated;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     public void deleteCategory(Long id) throws SQLException {
-        // Check if expenses exist for this category
+        // Check and soft-delete in the same transaction so no expense can slip in between
         String checkSql = "SELECT COUNT(*) as cnt FROM expenses WHERE category_id = ?";
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-            
-            checkStmt.setLong(1, id);
-            try (ResultSet rs = checkStmt.executeQuery()) {
-                if (rs.next() && rs.getInt("cnt") > 0) {
-                    throw new SQLException("Cannot delete category with existing expenses. Move or delete expenses first.");
-                }
-            }
-        }
-
         String sql = "UPDATE categories SET active = 0 WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try {
+            DatabaseManager.getInstance().getWriter().execute(conn -> {
+                try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
+                    checkStmt.setLong(1, id);
+                    try (ResultSet rs = checkStmt.executeQuery()) {
+                        if (rs.next() && rs.getInt("cnt") > 0) {
+                            throw new SQLException("Cannot delete category with existing expenses. Move or delete expenses first.");
+                        }
+                    }
+                }
 
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, id);
+                    int updated = pstmt.executeUpdate();
+                    publishAfterCommit(conn, id);
+                    return updated;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             throw e;
@@ -129,4 +238,65 @@ public class CategoryService {
         category.setActive(rs.getBoolean("active"));
         return category;
     }
+
+    private static Category copy(Category source) {
+        Category category = new Category(source.getName(), source.getType(), source.getColor());
+        category.setId(source.getId());
+        category.setActive(source.isActive());
+        return category;
+    }
+
+    /**
+     * Immutable view of the categories table, sorted by name; replaced wholesale, never modified.
+     * A non-zero retryAt marks a snapshot kept after a failed reload, which reads replace once the
+     * nanoTime passes it.
+     */
+    private static final class Snapshot {
+        final DatabaseManager source;
+        final long retryAt;
+        final Map<Long, Category> byId;
+        final List<Category> active;
+        final Map<String, Long> idsByName;
+        final Map<String, Category> byName;
+
+        Snapshot(DatabaseManager source, List<Category> categories) {
+            this(source, 0, categories);
+        }
+
+        private Snapshot(DatabaseManager source, long retryAt, List<Category> categories) {
+            Map<Long, Category> byId = new LinkedHashMap<>();
+            List<Category> active = new ArrayList<>();
+            Map<String, Long> idsByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            Map<String, Category> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Category category : categories) {
+                byId.put(category.getId(), category);
+                byName.putIfAbsent(category.getName().trim(), category);
+                if (category.isActive()) {
+                    active.add(category);
+                    idsByName.put(category.getName().trim(), category.getId());
+                    // An active category wins over an inactive one of the same name
+                    byName.put(category.getName().trim(), category);
+                }
+            }
+            this.source = source;
+            this.retryAt = retryAt;
+            this.byId = Collections.unmodifiableMap(byId);
+            this.active = Collections.unmodifiableList(active);
+            this.idsByName = Collections.unmodifiableMap(idsByName);
+            this.byName = Collections.unmodifiableMap(byName);
+        }
+
+        /** This snapshot with {@code changed} added or replacing the row with its id. */
+        Snapshot with(Category changed) {
+            List<Category> categories = new ArrayList<>(byId.values());
+            categories.removeIf(category -> category.getId().equals(changed.getId()));
+            categories.add(changed);
+            categories.sort(Comparator.comparing(Category::getName));
+            return new Snapshot(source, retryAt, categories);
+        }
+
+        Snapshot retryingAt(long retryAt) {
+            return new Snapshot(source, retryAt, new ArrayList<>(byId.values()));
+        }
+    }
 }
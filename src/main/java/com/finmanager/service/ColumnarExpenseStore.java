@@ -0,0 +1,550 @@
+package com.finmanager.service;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Expense;
+import com.finmanager.util.AppConfig;
+import com.finmanager.util.Logger;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-optimized replica of the expenses table for analytics: one primitive array per column
+ * (epoch day, amount in cents, category id, recurring flag), about 16 bytes a row against
+ * several hundred for a list of {@link Expense} objects.
+ *
+ * Rows live in two segments. The main segment is sorted by day, so a date range is two binary
+ * searches and a straight loop. New rows are appended to a small unsorted delta segment.
+ * Deletes set a tombstone bit; an update is a delete plus an append. Compaction merges the live
+ * delta rows into a new sorted main segment and drops tombstoned rows. It runs on its own thread
+ * when the delta or the tombstones grow past a fraction of the main segment, and on a timer.
+ *
+ * Analytics never needs to know which expense a row was, only its values, so the store keeps no
+ * ids. A delete tombstones any live row with the same day, cents, category and flag, which leaves
+ * every aggregate exactly as if it had been the original row.
+ *
+ * Like {@link DailySpendIndex}, the store follows {@link ExpenseService} change notifications in
+ * commit order, loads from a snapshot while writes carry on and replays the changes committed
+ * after it, and rebuilds on the first query after {@link ExpenseChangeListener#expensesReloaded}.
+ */
+public class ColumnarExpenseStore implements ExpenseChangeListener {
+    private static ColumnarExpenseStore instance;
+
+    private static final int MIN_COMPACTION_DELTA = 16_384;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    /** Bumped by every reload notification, so a rebuild can tell whether another one is needed. */
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final ScheduledExecutorService compactor;
+    private Segment main = new Segment(0);
+    private Segment delta = new Segment(0);
+    /** Largest category id in the main segment, so a breakdown can size its array without a scan. */
+    private int mainMaxCategory;
+    private volatile boolean loaded;
+    private volatile boolean stale = true;
+    /** Changes committed after the snapshot a rebuild is reading; null when none is. Guarded by {@code lock}. */
+    private List<Change> pending;
+
+    /** A row to add ({@code before} null), remove ({@code after} null) or replace. */
+    private record Change(Expense before, Expense after) {}
+
+    private ColumnarExpenseStore(long compactIntervalMillis) {
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "columnar-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfDirty, compactIntervalMillis, compactIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized ColumnarExpenseStore getInstance() {
+        if (instance == null) {
+            instance = new ColumnarExpenseStore(AppConfig.getInstance().getIntProperty("analytics.columnar.compactIntervalMs", 60_000));
+            ExpenseService.getInstance().addChangeListener(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Columns for one segment. Rows at or beyond {@code size} are unused capacity.
+     */
+    private static final class Segment {
+        int[] days;
+        long[] cents;
+        int[] categories;
+        long[] recurring;
+        long[] deleted;
+        int size;
+        int deletedCount;
+
+        Segment(int capacity) {
+            days = new int[capacity];
+            cents = new long[capacity];
+            categories = new int[capacity];
+            recurring = new long[words(capacity)];
+            deleted = new long[words(capacity)];
+        }
+
+        static int words(int bits) {
+            return (bits + 63) >>> 6;
+        }
+
+        static boolean bit(long[] bits, int row) {
+            return (bits[row >>> 6] & (1L << row)) != 0;
+        }
+
+        static void setBit(long[] bits, int row) {
+            bits[row >>> 6] |= 1L << row;
+        }
+
+        void append(int day, long amount, int category, boolean isRecurring) {
+            if (size == days.length) {
+                int capacity = Math.max(1024, size * 2);
+                days = Arrays.copyOf(days, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+                recurring = Arrays.copyOf(recurring, words(capacity));
+                deleted = Arrays.copyOf(deleted, words(capacity));
+            }
+            days[size] = day;
+            cents[size] = amount;
+            categories[size] = category;
+            if (isRecurring) {
+                setBit(recurring, size);
+            }
+            size++;
+        }
+
+        boolean matches(int row, int day, long amount, int category, boolean isRecurring) {
+            return days[row] == day && cents[row] == amount && categories[row] == category
+                && bit(recurring, row) == isRecurring && !bit(deleted, row);
+        }
+
+        void tombstone(int row) {
+            setBit(deleted, row);
+            deletedCount++;
+        }
+
+        /** First row whose day is at least {@code day}; only meaningful on the sorted main segment. */
+        int lowerBound(int day) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (days[mid] < day) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        long bytes() {
+            return 4L * days.length + 8L * cents.length + 4L * categories.length + 8L * (recurring.length + deleted.length);
+        }
+    }
+
+    // ---- queries ----
+
+    /**
+     * Spend per category id over an inclusive date range, in cents; the array is indexed by
+     * category id and may be shorter than the largest id in use.
+     */
+    public long[] totalsByCategory(LocalDate startDate, LocalDate endDate) {
+        int from = toDay(startDate);
+        int to = toDay(endDate);
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            long[] totals = new long[maxCategory() + 1];
+            int first = main.lowerBound(from);
+            int last = main.lowerBound(to + 1);
+            int[] categories = main.categories;
+            long[] cents = main.cents;
+            if (main.deletedCount == 0) {
+                for (int row = first; row < last; row++) {
+                    totals[categories[row]] += cents[row];
+                }
+            } else {
+                long[] deleted = main.deleted;
+                for (int row = first; row < last; row++) {
+                    if ((deleted[row >>> 6] & (1L << row)) == 0) {
+                        totals[categories[row]] += cents[row];
+                    }
+                }
+            }
+            for (int row = 0; row < delta.size; row++) {
+                int day = delta.days[row];
+                if (day >= from && day <= to && !Segment.bit(delta.deleted, row)) {
+                    totals[delta.categories[row]] += delta.cents[row];
+                }
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Spend over an inclusive date range, in cents.
+     * @param categoryId Only this category, or null for all
+     * @param recurringOnly Only generated instances of recurring expenses
+     */
+    public long total(LocalDate startDate, LocalDate endDate, Long categoryId, boolean recurringOnly) {
+        int from = toDay(startDate);
+        int to = toDay(endDate);
+        int category = categoryId == null ? -1 : Math.toIntExact(categoryId);
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            long sum = 0;
+            int first = main.lowerBound(from);
+            int last = main.lowerBound(to + 1);
+            if (category < 0 && !recurringOnly && main.deletedCount == 0) {
+                long[] cents = main.cents;
+                for (int row = first; row < last; row++) {
+                    sum += cents[row];
+                }
+            } else {
+                sum += filteredSum(main, first, last, Integer.MIN_VALUE, Integer.MAX_VALUE, category, recurringOnly);
+            }
+            return sum + filteredSum(delta, 0, delta.size, from, to, category, recurringOnly);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long filteredSum(Segment segment, int first, int last, int from, int to, int category, boolean recurringOnly) {
+        long sum = 0;
+        for (int row = first; row < last; row++) {
+            int day = segment.days[row];
+            if (day >= from && day <= to
+                    && (category < 0 || segment.categories[row] == category)
+                    && (!recurringOnly || Segment.bit(segment.recurring, row))
+                    && !Segment.bit(segment.deleted, row)) {
+                sum += segment.cents[row];
+            }
+        }
+        return sum;
+    }
+
+    private int maxCategory() {
+        int max = 0;
+        for (int row = 0; row < delta.size; row++) {
+            max = Math.max(max, delta.categories[row]);
+        }
+        return Math.max(max, mainMaxCategory);
+    }
+
+    public Stats getStats() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Stats stats = new Stats();
+            stats.rows = main.size - main.deletedCount + delta.size - delta.deletedCount;
+            stats.mainRows = main.size;
+            stats.deltaRows = delta.size;
+            stats.tombstones = main.deletedCount + delta.deletedCount;
+            stats.bytes = main.bytes() + delta.bytes();
+            stats.bytesPerMillionRows = stats.rows == 0 ? 0 : stats.bytes * 1_000_000 / stats.rows;
+            stats.compactions = compactions.get();
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static class Stats {
+        public int rows;
+        public int mainRows;
+        public int deltaRows;
+        public int tombstones;
+        public long bytes;
+        public long bytesPerMillionRows;
+        public long compactions;
+    }
+
+    // ---- write path ----
+
+    @Override
+    public void expenseCreated(Expense expense) {
+        lock.writeLock().lock();
+        try {
+            apply(new Change(null, expense));
+            compactIfLarge();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void expenseUpdated(Expense before, Expense after) {
+        lock.writeLock().lock();
+        try {
+            apply(new Change(before, after));
+            compactIfLarge();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void expenseDeleted(Expense expense) {
+        lock.writeLock().lock();
+        try {
+            apply(new Change(expense, null));
+            compactIfLarge();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void expensesReloaded() {
+        reloads.incrementAndGet();
+        stale = true;
+    }
+
+    /** Caller holds the write lock. */
+    private void apply(Change change) {
+        if (pending != null) {
+            pending.add(change);
+        }
+        if (!loaded) {
+            // The first load reads the row from the table
+            return;
+        }
+        if (change.before() != null) {
+            remove(change.before());
+        }
+        if (change.after() != null) {
+            append(change.after());
+        }
+    }
+
+    private void append(Expense expense) {
+        if (expense.getDate() == null || expense.getCategoryId() == null) {
+            expensesReloaded();
+            return;
+        }
+        delta.append(toDay(expense.getDate()), expense.getAmountCents(),
+            Math.toIntExact(expense.getCategoryId()), expense.isRecurringInstance());
+    }
+
+    private void remove(Expense expense) {
+        if (expense.getDate() == null || expense.getCategoryId() == null) {
+            expensesReloaded();
+            return;
+        }
+        int day = toDay(expense.getDate());
+        long amount = expense.getAmountCents();
+        int category = Math.toIntExact(expense.getCategoryId());
+        boolean isRecurring = expense.isRecurringInstance();
+
+        // Newest rows first: an expense edited twice in a row is most likely still in the delta
+        for (int row = delta.size - 1; row >= 0; row--) {
+            if (delta.matches(row, day, amount, category, isRecurring)) {
+                delta.tombstone(row);
+                return;
+            }
+        }
+        for (int row = main.lowerBound(day); row < main.size && main.days[row] == day; row++) {
+            if (main.matches(row, day, amount, category, isRecurring)) {
+                main.tombstone(row);
+                return;
+            }
+        }
+        // The replica and the table disagree; start again from the table
+        expensesReloaded();
+    }
+
+    /** Queues a compaction on the compactor thread, so the writer thread that notified us is not held up. */
+    private void compactIfLarge() {
+        if ((delta.size > Math.max(MIN_COMPACTION_DELTA, main.size / 8)
+                || main.deletedCount > Math.max(MIN_COMPACTION_DELTA, main.size / 4))
+                && compactionQueued.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                compactionQueued.set(false);
+                compactIfDirty();
+            });
+        }
+    }
+
+    /** Folds the delta and tombstones into the main segment if there are any; runs on the compactor thread. */
+    void compactIfDirty() {
+        try {
+            lock.writeLock().lock();
+            try {
+                if (delta.size > 0 || main.deletedCount > 0) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            Logger.error(ColumnarExpenseStore.class, "Columnar store compaction failed", e);
+        }
+    }
+
+    /** Merges live delta rows into a new sorted main segment and drops tombstones. Caller holds the write lock. */
+    private void compact() {
+        install(merge(main, delta));
+        compactions.incrementAndGet();
+    }
+
+    /** Makes a sorted, fully merged segment the main one. Caller holds the write lock. */
+    private void install(Segment sorted) {
+        int max = 0;
+        for (int row = 0; row < sorted.size; row++) {
+            max = Math.max(max, sorted.categories[row]);
+        }
+        main = sorted;
+        mainMaxCategory = max;
+        delta = new Segment(0);
+    }
+
+    /** The live rows of a day-sorted segment and an unsorted one, as one day-sorted segment. */
+    private static Segment merge(Segment sorted, Segment unsorted) {
+        // Sort the unsorted rows through packed (day, row) keys so no boxing is needed
+        long[] keys = new long[unsorted.size - unsorted.deletedCount];
+        int live = 0;
+        for (int row = 0; row < unsorted.size; row++) {
+            if (!Segment.bit(unsorted.deleted, row)) {
+                keys[live++] = ((long) unsorted.days[row] << 32) | row;
+            }
+        }
+        Arrays.sort(keys);
+
+        Segment merged = new Segment(sorted.size - sorted.deletedCount + keys.length);
+        int row = 0;
+        for (long key : keys) {
+            int day = (int) (key >> 32);
+            for (; row < sorted.size && sorted.days[row] <= day; row++) {
+                copyRow(sorted, row, merged);
+            }
+            copyRow(unsorted, (int) key, merged);
+        }
+        for (; row < sorted.size; row++) {
+            copyRow(sorted, row, merged);
+        }
+        return merged;
+    }
+
+    private static void copyRow(Segment from, int row, Segment to) {
+        if (!Segment.bit(from.deleted, row)) {
+            to.append(from.days[row], from.cents[row], from.categories[row], Segment.bit(from.recurring, row));
+        }
+    }
+
+    // ---- loading ----
+
+    /** Whether a change could not be matched, or a reload was requested, since the last load. */
+    boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Loads the store if it is stale. False if it has never loaded, in which case callers answer
+     * from the rollup instead.
+     */
+    public boolean ready() {
+        ensureLoaded();
+        return loaded;
+    }
+
+    private void ensureLoaded() {
+        if (stale) {
+            synchronized (rebuildLock) {
+                if (stale) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reloads every column from a snapshot of the expenses table, then replays the changes
+     * committed since the snapshot. On failure the previous columns stay and the store stays stale.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long reloadsBefore = reloads.get();
+            long start = System.nanoTime();
+            Segment snapshot;
+            try {
+                snapshot = DatabaseManager.getInstance().readSnapshot(this::startQueueing, ColumnarExpenseStore::load);
+            } catch (SQLException | RuntimeException e) {
+                lock.writeLock().lock();
+                pending = null;
+                lock.writeLock().unlock();
+                Logger.error(ColumnarExpenseStore.class, "Failed to load expenses into columns", e);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                List<Change> missed = pending != null ? pending : List.of();
+                pending = null;
+                install(snapshot);
+                loaded = true;
+                missed.forEach(this::apply);
+                long perMillion = snapshot.size == 0 ? 0 : snapshot.bytes() * 1_000_000 / snapshot.size;
+                Logger.info(ColumnarExpenseStore.class, "Loaded " + snapshot.size + " expenses into columns in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, "
+                    + snapshot.bytes() / 1024 + " KB (" + perMillion / (1024 * 1024) + " MB per million rows), replayed "
+                    + missed.size() + " changes");
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // A reload requested while this one read may not be in the snapshot
+            stale = reloads.get() != reloadsBefore;
+        }
+    }
+
+    /** Runs on the writer thread at the snapshot: from here on, changes are also kept for replay. */
+    private void startQueueing() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Segment load(Connection conn) throws SQLException {
+        int count;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM expenses")) {
+            count = rs.next() ? rs.getInt(1) : 0;
+        }
+        Segment segment = new Segment(count);
+        // Table order and an in-memory sort beat walking the day index, which costs a row lookup per entry
+        DatabaseManager db = DatabaseManager.getInstance();
+        String sql = "SELECT " + db.expenseDay("") + ", " + db.expenseCents("") + ", category_id, is_recurring_instance FROM expenses";
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                segment.append(rs.getInt(1), rs.getLong(2),
+                    rs.getInt(3), rs.getBoolean(4));
+            }
+        }
+        return merge(new Segment(0), segment);
+    }
+
+    private static int toDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+}
@@ -0,0 +1,380 @@
+package com.finmanager.service;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Expense;
+import com.finmanager.model.Money;
+import com.finmanager.util.AppConfig;
+import com.finmanager.util.Logger;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory spend per day in cents, overall and per category, as Fenwick trees (binary indexed
+ * trees) keyed by epoch day.
+ *
+ * Any inclusive date range total is two prefix sums of ~log2(days) steps each, instead of a SUM
+ * over the matching rows, and an expense change is one update of the same cost. The trees cover a
+ * window of days that doubles when an expense falls outside it, up to
+ * {@code expenses.dailyIndex.maxDays} (default 65536, about 179 years). An expense the window
+ * cannot grow to reach is only counted; the next query rebuilds the window around the data, and
+ * while expenses remain outside it, a range reaching past the window is left to SQL.
+ *
+ * The index is built from the expenses table on first use and then follows {@link ExpenseService}
+ * change notifications, which arrive on the writer thread in commit order. A build reads a
+ * snapshot while writes carry on; changes committed after the snapshot are applied to the old
+ * trees and queued, then replayed onto the new ones, so every change is counted exactly once.
+ * {@link ExpenseChangeListener#expensesReloaded} marks the index stale and the next query rebuilds
+ * it, so code that writes expenses directly must call {@link ExpenseService#notifyExpensesReloaded},
+ * as it already must for the response cache.
+ *
+ * Updates take a write lock; queries use an optimistic read and only fall back to the read lock
+ * when an update overlapped them.
+ */
+public class DailySpendIndex implements ExpenseChangeListener {
+    private static DailySpendIndex instance;
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY_LIMIT = 1 << 30;
+
+    /** Largest window in days, a power of two. */
+    private final int maxCapacity;
+
+    private final StampedLock lock = new StampedLock();
+    private final Object rebuildLock = new Object();
+    /** Bumped by every reload notification, so a rebuild can tell whether another one is needed. */
+    private final AtomicLong reloads = new AtomicLong();
+    private volatile Layout layout;
+    private volatile boolean stale = true;
+    /** Changes committed after the snapshot a rebuild is reading; null when none is. Guarded by {@code lock}. */
+    private List<Change> pending;
+
+    private record Change(Expense expense, int sign) {}
+
+    /**
+     * One window of days. Trees are updated in place under the write lock; growing the window
+     * swaps in a new layout, so a reader always sees an origin that matches its arrays.
+     * {@code outside[0]} counts the expenses dated outside the window, which no tree holds.
+     */
+    private record Layout(long origin, int capacity, long[] total, Map<Long, long[]> byCategory, long[] outside) {
+        boolean contains(long day) {
+            return day >= origin && day - origin < capacity;
+        }
+    }
+
+    private DailySpendIndex() {
+        int configured = AppConfig.getInstance().getIntProperty("expenses.dailyIndex.maxDays", 1 << 16);
+        this.maxCapacity = Integer.highestOneBit(Math.min(Math.max(configured, MIN_CAPACITY), MAX_CAPACITY_LIMIT));
+    }
+
+    public static synchronized DailySpendIndex getInstance() {
+        if (instance == null) {
+            instance = new DailySpendIndex();
+            // Listen before the first build so no change can fall between the snapshot and the listener
+            ExpenseService.getInstance().addChangeListener(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Total spend over an inclusive date range; null if the range reaches past the window and some
+     * expense lies out there, in which case callers answer from the table instead.
+     */
+    public Double total(LocalDate startDate, LocalDate endDate) {
+        return query(null, startDate, endDate);
+    }
+
+    /** Total spend of one category over an inclusive date range; null as for {@link #total(LocalDate, LocalDate)}. */
+    public Double total(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        return query(categoryId, startDate, endDate);
+    }
+
+    /**
+     * Builds the index if it is stale. False if it has never loaded, in which case callers answer
+     * from the table instead.
+     */
+    public boolean ready() {
+        if (stale) {
+            synchronized (rebuildLock) {
+                if (stale) {
+                    rebuild();
+                }
+            }
+        }
+        return layout != null;
+    }
+
+    private Double query(Long categoryId, LocalDate startDate, LocalDate endDate) {
+        if (!ready()) {
+            throw new IllegalStateException("Daily spend index could not be loaded");
+        }
+        long from = startDate.toEpochDay();
+        long to = endDate.toEpochDay();
+        if (from > to) {
+            return 0.0;
+        }
+
+        long stamp = lock.tryOptimisticRead();
+        Long sum = rangeSum(layout, categoryId, from, to);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                sum = rangeSum(layout, categoryId, from, to);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return sum == null ? null : Money.toDouble(sum);
+    }
+
+    private static Long rangeSum(Layout layout, Long categoryId, long from, long to) {
+        if (layout.outside()[0] != 0 && !(layout.contains(from) && layout.contains(to))) {
+            return null;
+        }
+        long[] tree = categoryId == null ? layout.total() : layout.byCategory().get(categoryId);
+        if (tree == null) {
+            return 0L;
+        }
+        // Clamp to the window; nothing was spent outside it
+        long first = Math.max(from - layout.origin(), 0);
+        long last = Math.min(to - layout.origin(), layout.capacity() - 1);
+        if (first > last) {
+            return 0L;
+        }
+        return prefixSum(tree, (int) last + 1) - prefixSum(tree, (int) first);
+    }
+
+    /** Sum of the first {@code count} days of a tree. */
+    private static long prefixSum(long[] tree, int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private static void add(long[] tree, int day, long amount) {
+        for (int i = day + 1; i < tree.length; i += i & -i) {
+            tree[i] += amount;
+        }
+    }
+
+    /** Turns daily amounts at positions 1..n into a Fenwick tree in place, in linear time. */
+    private static long[] buildTree(long[] daily) {
+        for (int i = 1; i < daily.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < daily.length) {
+                daily[parent] += daily[i];
+            }
+        }
+        return daily;
+    }
+
+    @Override
+    public void expenseCreated(Expense expense) {
+        apply(expense, 1);
+    }
+
+    @Override
+    public void expenseUpdated(Expense before, Expense after) {
+        long stamp = lock.writeLock();
+        try {
+            applyLocked(before, -1);
+            applyLocked(after, 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void expenseDeleted(Expense expense) {
+        apply(expense, -1);
+    }
+
+    @Override
+    public void expensesReloaded() {
+        reloads.incrementAndGet();
+        stale = true;
+    }
+
+    private void apply(Expense expense, int sign) {
+        long stamp = lock.writeLock();
+        try {
+            applyLocked(expense, sign);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void applyLocked(Expense expense, int sign) {
+        if (pending != null) {
+            pending.add(new Change(expense, sign));
+        }
+        Layout current = layout;
+        if (current == null || expense.getDate() == null) {
+            // Not built yet: the first build reads the row from the table
+            return;
+        }
+        long day = expense.getDate().toEpochDay();
+        if (!current.contains(day)) {
+            Layout grown = current.outside()[0] == 0 ? grow(current, day, maxCapacity) : null;
+            if (grown == null) {
+                // Too far out, or growing would uncover days whose expenses were never added. A
+                // first escape may still fit a window placed around the data, so rebuild to find out
+                if (current.outside()[0] == 0) {
+                    reloads.incrementAndGet();
+                    stale = true;
+                }
+                current.outside()[0] += sign;
+                return;
+            }
+            current = grown;
+            layout = current;
+        }
+        int position = (int) (day - current.origin());
+        int size = current.capacity() + 1;
+        long amount = sign * expense.getAmountCents();
+        add(current.total(), position, amount);
+        if (expense.getCategoryId() != null) {
+            add(current.byCategory().computeIfAbsent(expense.getCategoryId(), id -> new long[size]), position, amount);
+        }
+    }
+
+    /**
+     * Doubles the window towards {@code day} until it fits, carrying every tree over; null if that
+     * would take more than {@code maxCapacity} days.
+     */
+    private static Layout grow(Layout current, long day, int maxCapacity) {
+        long end = current.origin() + current.capacity();
+        long needed = Math.max(end, day + 1) - Math.min(current.origin(), day);
+        if (needed > maxCapacity) {
+            return null;
+        }
+        int capacity = current.capacity();
+        while (capacity < needed) {
+            capacity *= 2;
+        }
+        // The added days go on the side of the window where day lies
+        long origin = day < current.origin() ? end - capacity : current.origin();
+        int shift = (int) (current.origin() - origin);
+        Map<Long, long[]> byCategory = new ConcurrentHashMap<>();
+        for (Map.Entry<Long, long[]> entry : current.byCategory().entrySet()) {
+            byCategory.put(entry.getKey(), regrow(entry.getValue(), current.capacity(), shift, capacity));
+        }
+        return new Layout(origin, capacity, regrow(current.total(), current.capacity(), shift, capacity), byCategory, current.outside());
+    }
+
+    private static long[] regrow(long[] tree, int oldCapacity, int shift, int newCapacity) {
+        long[] daily = new long[newCapacity + 1];
+        long previous = 0;
+        for (int day = 1; day <= oldCapacity; day++) {
+            long prefix = prefixSum(tree, day);
+            daily[day + shift] = prefix - previous;
+            previous = prefix;
+        }
+        return buildTree(daily);
+    }
+
+    /**
+     * Reloads the trees from a snapshot of the expenses table, then replays the changes committed
+     * since the snapshot. On failure the previous trees stay in place and the index stays stale.
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long reloadsBefore = reloads.get();
+            long start = System.nanoTime();
+            Layout built;
+            try {
+                built = DatabaseManager.getInstance().readSnapshot(this::startQueueing, conn -> load(conn, maxCapacity));
+            } catch (SQLException | RuntimeException e) {
+                long stamp = lock.writeLock();
+                pending = null;
+                lock.unlockWrite(stamp);
+                Logger.error(DailySpendIndex.class, "Failed to load the daily spend index", e);
+                return;
+            }
+
+            long stamp = lock.writeLock();
+            try {
+                List<Change> missed = pending != null ? pending : List.of();
+                pending = null;
+                layout = built;
+                for (Change change : missed) {
+                    applyLocked(change.expense(), change.sign());
+                }
+                Logger.debug(DailySpendIndex.class, "Loaded daily spend index in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms, replayed " + missed.size() + " changes");
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            // A reload requested while this one read may not be in the snapshot
+            stale = reloads.get() != reloadsBefore;
+        }
+    }
+
+    /** Runs on the writer thread at the snapshot: from here on, changes are also kept for replay. */
+    private void startQueueing() {
+        long stamp = lock.writeLock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static Layout load(Connection conn, int maxCapacity) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            long today = LocalDate.now().toEpochDay();
+            long min = today;
+            long max = today;
+            DatabaseManager db = DatabaseManager.getInstance();
+            String day = db.expenseDay("");
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(" + day + "), MAX(" + day + ") FROM expenses")) {
+                if (rs.next() && rs.getObject(1) != null) {
+                    min = Math.min(min, rs.getLong(1));
+                    max = Math.max(max, rs.getLong(2));
+                }
+            }
+            // Leave a year of room after the newest expense so ordinary entry never has to grow the window
+            long span = Math.max(max + 366 - min, MIN_CAPACITY - 1);
+            long origin;
+            int capacity;
+            if (span < maxCapacity) {
+                capacity = Integer.highestOneBit((int) span) * 2;
+                // Spare days on both sides, so an older expense fits without growing as well as a newer one
+                origin = min - (capacity - span) / 2;
+            } else {
+                // Too wide for the window: keep the days up to a year from today
+                capacity = maxCapacity;
+                origin = Math.max(min, today + 366 - capacity);
+            }
+
+            long[] total = new long[capacity + 1];
+            Map<Long, long[]> byCategory = new ConcurrentHashMap<>();
+            long[] outside = new long[1];
+            String sql = "SELECT " + day + " AS epoch_day, category_id, SUM(" + db.expenseCents("") + ") AS total, COUNT(*) AS expense_count " +
+                         "FROM expenses GROUP BY 1, category_id";
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    long offset = rs.getLong("epoch_day") - origin;
+                    if (offset < 0 || offset >= capacity) {
+                        outside[0] += rs.getLong("expense_count");
+                        continue;
+                    }
+                    int position = (int) offset + 1;
+                    long amount = rs.getLong("total");
+                    total[position] += amount;
+                    byCategory.computeIfAbsent(rs.getLong("category_id"), id -> new long[capacity + 1])[position] += amount;
+                }
+            }
+            byCategory.replaceAll((id, daily) -> buildTree(daily));
+            return new Layout(origin, capacity, buildTree(total), byCategory, outside);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.finmanager.service;
+
+import com.finmanager.model.Expense;
+
+/**
+ * Notified by {@link ExpenseService} after a change to the expenses table has been committed.
+ * Change callbacks run on the database writer thread in commit order, before the write returns to
+ * its caller; they must be quick, must not throw and must not write.
+ */
+public interface ExpenseChangeListener {
+
+    default void expenseCreated(Expense expense) {}
+
+    default void expenseUpdated(Expense before, Expense after) {}
+
+    default void expenseDeleted(Expense expense) {}
+
+    /**
+     * Many rows changed at once (bulk generation, cleanup, schema work); anything derived from
+     * the expenses table should be rebuilt.
+     */
+    default void expensesReloaded() {}
+}
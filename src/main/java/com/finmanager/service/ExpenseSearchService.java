@@ -0,0 +1,214 @@
+package com.finmanager.service;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Expense;
+import com.finmanager.model.Money;
+import com.finmanager.util.AppConfig;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranked full-text search over expense descriptions, backed by the expenses_fts FTS5 table.
+ * Triggers on expenses keep the index in step with every write path, like the monthly rollup.
+ */
+public class ExpenseSearchService {
+    private static ExpenseSearchService instance;
+
+    private ExpenseSearchService() {}
+
+    public static ExpenseSearchService getInstance() {
+        if (instance == null) {
+            instance = new ExpenseSearchService();
+        }
+        return instance;
+    }
+
+    /** Optional restrictions applied alongside the text match; null fields are ignored. */
+    public record Filter(LocalDate startDate, LocalDate endDate, Long categoryId, Double minAmount, Double maxAmount) {
+        public static final Filter NONE = new Filter(null, null, null, null, null);
+    }
+
+    /**
+     * Turns free text into an FTS5 query: every word must match, and words of two or more
+     * characters also match as prefixes ("groc whole" finds "Whole Foods groceries"). Operators
+     * and quotes in the input are treated as plain separators, so user text cannot form a syntax error.
+     * @return null if the text contains no searchable words
+     */
+    public static String toMatchQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            // Single-character prefixes would walk most of the index
+            query.append('"').append(word).append('"').append(word.length() >= 2 ? "*" : "");
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    /**
+     * Where the previous page ended, for keyset paging: its last row's bm25 score, epoch day and id
+     * in ranked order, only the id in most-recently-added order.
+     */
+    public record After(double score, long epochDay, long id) {}
+
+    /**
+     * One page of results and whether it is in relevance order (otherwise most recently added
+     * first); {@code scores} holds the bm25 score of each ranked row.
+     */
+    public record Results(List<Expense> expenses, boolean ranked, List<Double> scores) {
+
+        /** The position to pass as {@code after} for the page that follows row {@code index}. */
+        public After after(int index) {
+            Expense expense = expenses.get(index);
+            return new After(ranked ? scores.get(index) : 0, expense.getDate().toEpochDay(), expense.getId());
+        }
+    }
+
+    /**
+     * Expenses whose description matches {@code matchQuery}, best bm25 score first, then newest.
+     *
+     * bm25 has to score every match before the first row can be returned, about 1.5 us per match.
+     * When the text matches more than search.maxRankedMatches rows ("co", "uber"), the results come
+     * back most recently added first instead. That order is read straight off the index and stops at
+     * the page, and relevance means little across tens of thousands of near-identical descriptions.
+     * The matches are counted under the same filter as the page, and only up to the threshold.
+     */
+    public Results search(String matchQuery, Filter filter, int limit) {
+        return search(matchQuery, filter, null, limit, null);
+    }
+
+    /**
+     * The page after {@code after} (the first page if null), in the order given by {@code ranked},
+     * so later pages keep the order of the first even if the number of matches has since crossed
+     * the threshold; null chooses the order as for a first page. Pages seek past the previous one
+     * by key, so each costs the same however deep it is.
+     */
+    public Results search(String matchQuery, Filter filter, After after, int limit, Boolean ranked) {
+        DatabaseManager db = DatabaseManager.getInstance();
+        StringBuilder where = new StringBuilder(" WHERE expenses_fts MATCH ?");
+        List<Object> args = new ArrayList<>();
+        args.add(matchQuery);
+        if (filter.startDate() != null) {
+            where.append(" AND ").append(db.expenseDay("e.")).append(" >= ?");
+            args.add(filter.startDate().toEpochDay());
+        }
+        if (filter.endDate() != null) {
+            where.append(" AND ").append(db.expenseDay("e.")).append(" <= ?");
+            args.add(filter.endDate().toEpochDay());
+        }
+        if (filter.categoryId() != null) {
+            where.append(" AND e.category_id = ?");
+            args.add(filter.categoryId());
+        }
+        if (filter.minAmount() != null) {
+            where.append(" AND ").append(db.expenseCents("e.")).append(" >= ?");
+            args.add(Money.toCents(filter.minAmount()));
+        }
+        if (filter.maxAmount() != null) {
+            where.append(" AND ").append(db.expenseCents("e.")).append(" <= ?");
+            args.add(Money.toCents(filter.maxAmount()));
+        }
+        // Without filters, counting only walks the index (a few ms even for half the table)
+        String from = args.size() > 1 ? " FROM expenses_fts JOIN expenses e ON e.id = expenses_fts.rowid" : " FROM expenses_fts";
+        List<Object> countArgs = new ArrayList<>(args);
+
+        List<Expense> expenses = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        try (Connection conn = db.getConnection()) {
+            if (ranked == null) {
+                int maxRanked = AppConfig.getInstance().getIntProperty("search.maxRankedMatches", 10000);
+                // Stops one past the threshold; the exact number beyond it does not matter
+                countArgs.add(maxRanked + 1);
+                try (PreparedStatement count = conn.prepareStatement("SELECT COUNT(*) FROM (SELECT 1" + from + where + " LIMIT ?)")) {
+                    for (int i = 0; i < countArgs.size(); i++) {
+                        count.setObject(i + 1, countArgs.get(i));
+                    }
+                    try (ResultSet rs = count.executeQuery()) {
+                        ranked = rs.next() && rs.getInt(1) <= maxRanked;
+                    }
+                }
+            }
+
+            String matches = "SELECT " + db.expenseColumns("e.") + (ranked ? ", bm25(expenses_fts) AS score" : "")
+                + " FROM expenses_fts JOIN expenses e ON e.id = expenses_fts.rowid" + where;
+            String sql;
+            if (ranked) {
+                // Scored in a subquery, so the seek past the previous page can compare the score
+                sql = "SELECT * FROM (" + matches + ")";
+                if (after != null) {
+                    sql += " WHERE score > ? OR (score = ? AND (epoch_day < ? OR (epoch_day = ? AND id < ?)))";
+                    args.addAll(List.of(after.score(), after.score(), after.epochDay(), after.epochDay(), after.id()));
+                }
+                sql += " ORDER BY score, epoch_day DESC, id DESC LIMIT ?";
+            } else {
+                // Most recently added first is the index's own rowid order, so the seek stops at the page
+                sql = matches + (after != null ? " AND expenses_fts.rowid < ?" : "") + " ORDER BY expenses_fts.rowid DESC LIMIT ?";
+                if (after != null) {
+                    args.add(after.id());
+                }
+            }
+            args.add(limit);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < args.size(); i++) {
+                    pstmt.setObject(i + 1, args.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        expenses.add(ExpenseService.mapResultSetToExpense(rs));
+                        if (ranked) {
+                            scores.add(rs.getDouble("score"));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new Results(expenses, ranked != null && ranked, scores);
+    }
+
+    /**
+     * Rebuilds the index from the expenses table and merges it into a single segment.
+     * @return Number of expenses indexed
+     */
+    public int rebuild() throws SQLException {
+        return DatabaseManager.getInstance().getWriter().execute(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(DatabaseManager.REBUILD_SEARCH_INDEX_SQL);
+                stmt.executeUpdate("INSERT INTO expenses_fts(expenses_fts) VALUES ('optimize')");
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM expenses")) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs FTS5's integrity check against the expenses table.
+     * @return null when the index matches the table, otherwise SQLite's description of the problem
+     */
+    public String checkIntegrity() throws SQLException {
+        // Issued as an INSERT, so it goes through the writer like any other statement on the table
+        return DatabaseManager.getInstance().getWriter().execute(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO expenses_fts(expenses_fts, rank) VALUES ('integrity-check', 1)");
+                return null;
+            } catch (SQLException e) {
+                if (e.getMessage() != null && e.getMessage().contains("SQLITE_CORRUPT")) {
+                    return e.getMessage();
+                }
+                throw e;
+            }
+        });
+    }
+}
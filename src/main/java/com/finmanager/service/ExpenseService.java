@@ -1,15 +1,26 @@
 package com.finmanager.service;
 
 import com.finmanager.model.Expense;
+import com.finmanager.model.Money;
 import com.finmanager.db.DatabaseManager;
+import com.finmanager.db.DatabaseWriter;
+import com.finmanager.util.AppConfig;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class ExpenseService {
     private static ExpenseService instance;
+    private static final int INSERT_BATCH_SIZE = 1000;
+    /** From this many rows on, createExpenses fills the search index and the rollup once at the end. */
+    private static final int DEFER_TRIGGERS_MIN_ROWS = 1000;
+    private final List<ExpenseChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<ExpenseChangeListener> invalidationListeners = new CopyOnWriteArrayList<>();
 
     private ExpenseService() {}
 
@@ -20,6 +31,36 @@ public class ExpenseService {
         return instance;
     }
 
+    public void addChangeListener(ExpenseChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ExpenseChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * For caches of results computed from the stores that change listeners maintain. These are
+     * notified only after every change listener has applied the batch's writes, whatever the order
+     * they were registered in, so a result recomputed after the eviction never sees a stale store.
+     */
+    public void addInvalidationListener(ExpenseChangeListener listener) {
+        invalidationListeners.add(listener);
+    }
+
+    public void removeInvalidationListener(ExpenseChangeListener listener) {
+        invalidationListeners.remove(listener);
+    }
+
+    /**
+     * For code that writes expenses without going through this service (recurring generation,
+     * cleanup); tells listeners to rebuild whatever they derive from the table.
+     */
+    public void notifyExpensesReloaded() {
+        listeners.forEach(ExpenseChangeListener::expensesReloaded);
+        invalidationListeners.forEach(ExpenseChangeListener::expensesReloaded);
+    }
+
     public List<Expense> getExpensesByMonth(YearMonth yearMonth) {
         LocalDate startDate = yearMonth.atDay(1);
         LocalDate endDate = yearMonth.atEndOfMonth();
@@ -28,13 +69,15 @@ public class ExpenseService {
 
     public List<Expense> getExpensesByDateRange(LocalDate startDate, LocalDate endDate) {
         List<Expense> expenses = new ArrayList<>();
-        String sql = "SELECT * FROM expenses WHERE date >= ? AND date <= ? ORDER BY date DESC";
+        DatabaseManager db = DatabaseManager.getInstance();
+        String sql = "SELECT " + db.expenseColumns("") + " FROM expenses WHERE " + db.expenseDay("") + " BETWEEN ? AND ? " +
+                     "ORDER BY epoch_day DESC, id DESC";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
+        try (Connection conn = db.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, startDate.toString());
-            pstmt.setString(2, endDate.toString());
+            pstmt.setLong(1, startDate.toEpochDay());
+            pstmt.setLong(2, endDate.toEpochDay());
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -47,18 +90,74 @@ public class ExpenseService {
         return expenses;
     }
 
+    /**
+     * One page of expenses between the dates, ordered by (epoch_day, id) descending. Pass the date and id
+     * of the last row of the previous page to continue after it, or nulls for the first page.
+     *
+     * Both statements seek on idx_expenses_day_id and read at most {@code limit} rows from each
+     * branch, so page 1000 costs the same as page 1. The continuation is split into "rest of the
+     * cursor's day" and "earlier days" because SQLite does not seek on an (epoch_day, id) row value.
+     *
+     * A database error is thrown rather than returned as an empty page, which a client would take
+     * for the end of the data.
+     */
+    public List<Expense> getExpensesPage(LocalDate startDate, LocalDate endDate, LocalDate afterDate, Long afterId, int limit)
+            throws SQLException {
+        List<Expense> expenses = new ArrayList<>();
+        if (afterDate != null && afterDate.isBefore(startDate)) {
+            return expenses;
+        }
+        // A cursor past the end of the range continues from the top of the range
+        boolean continuing = afterDate != null && !afterDate.isAfter(endDate);
+        DatabaseManager db = DatabaseManager.getInstance();
+        String select = "SELECT " + db.expenseColumns("") + " FROM expenses WHERE " + db.expenseDay("");
+        String sql = continuing
+            ? "SELECT * FROM (" + select + " = ? AND id < ? ORDER BY id DESC LIMIT ?) " +
+              "UNION ALL " +
+              "SELECT * FROM (" + select + " >= ? AND " + db.expenseDay("") + " < ? ORDER BY epoch_day DESC, id DESC LIMIT ?) " +
+              "ORDER BY epoch_day DESC, id DESC LIMIT ?"
+            : select + " BETWEEN ? AND ? ORDER BY epoch_day DESC, id DESC LIMIT ?";
+
+        try (Connection conn = db.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            if (continuing) {
+                pstmt.setLong(1, afterDate.toEpochDay());
+                pstmt.setLong(2, afterId);
+                pstmt.setInt(3, limit);
+                pstmt.setLong(4, startDate.toEpochDay());
+                pstmt.setLong(5, afterDate.toEpochDay());
+                pstmt.setInt(6, limit);
+                pstmt.setInt(7, limit);
+            } else {
+                pstmt.setLong(1, startDate.toEpochDay());
+                pstmt.setLong(2, endDate.toEpochDay());
+                pstmt.setInt(3, limit);
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    expenses.add(mapResultSetToExpense(rs));
+                }
+            }
+        }
+        return expenses;
+    }
+
     public List<Expense> getExpensesByCategory(Long categoryId, YearMonth yearMonth) {
         LocalDate startDate = yearMonth.atDay(1);
         LocalDate endDate = yearMonth.atEndOfMonth();
-        String sql = "SELECT * FROM expenses WHERE category_id = ? AND date >= ? AND date <= ? ORDER BY date DESC";
+        DatabaseManager db = DatabaseManager.getInstance();
+        String sql = "SELECT " + db.expenseColumns("") + " FROM expenses WHERE category_id = ? AND " + db.expenseDay("") +
+                     " BETWEEN ? AND ? ORDER BY epoch_day DESC";
 
         List<Expense> expenses = new ArrayList<>();
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
+        try (Connection conn = db.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setLong(1, categoryId);
-            pstmt.setString(2, startDate.toString());
-            pstmt.setString(3, endDate.toString());
+            pstmt.setLong(2, startDate.toEpochDay());
+            pstmt.setLong(3, endDate.toEpochDay());
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -72,17 +171,40 @@ public class ExpenseService {
     }
 
     public Long createExpense(Expense expense) {
-        String sql = "INSERT INTO expenses(date, amount, category_id, description, is_recurring_instance) " +
-                     "VALUES(?, ?, ?, ?, ?)";
+        try {
+            return DatabaseManager.getInstance().getWriter().execute(conn -> {
+                Long id = insertExpense(conn, expense);
+                fireCreated(expense, id);
+                return id;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+    /**
+     * Queues the insert on the database writer; completes with the generated id once committed.
+     */
+    public CompletableFuture<Long> createExpenseAsync(Expense expense) {
+        return DatabaseManager.getInstance().getWriter().submit(conn -> {
+            Long id = insertExpense(conn, expense);
+            fireCreated(expense, id);
+            return id;
+        });
+    }
+
+    private Long insertExpense(Connection conn, Expense expense) throws SQLException {
+        String sql = "INSERT INTO expenses(epoch_day, amount_cents, category_id, description, recurring_id, is_recurring_instance) " +
+                     "VALUES(?, ?, ?, ?, ?, ?)";
 
-            pstmt.setString(1, expense.getDate().toString());
-            pstmt.setDouble(2, expense.getAmount());
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setLong(1, expense.getDate().toEpochDay());
+            pstmt.setLong(2, expense.getAmountCents());
             pstmt.setLong(3, expense.getCategoryId());
             pstmt.setString(4, expense.getDescription());
-            pstmt.setBoolean(5, expense.isRecurringInstance());
+            pstmt.setObject(5, expense.getRecurringId());
+            pstmt.setBoolean(6, expense.isRecurringInstance());
             pstmt.executeUpdate();
 
             try (ResultSet keys = pstmt.getGeneratedKeys()) {
@@ -90,24 +212,92 @@ public class ExpenseService {
                     return keys.getLong(1);
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return null;
     }
 
-    public void updateExpense(Expense expense) {
-        String sql = "UPDATE expenses SET date = ?, amount = ?, category_id = ?, description = ? WHERE id = ?";
+    /**
+     * Inserts all expenses in a single transaction using JDBC batching.
+     * @return Generated ids, in the same order as the input
+     * @throws SQLException if any row fails; nothing is inserted in that case
+     */
+    public List<Long> createExpenses(List<Expense> expenses) throws SQLException {
+        if (expenses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return DatabaseManager.getInstance().getWriter().executeExclusive(conn -> {
+            List<Long> ids = insertExpenses(conn, expenses);
+            for (int i = 0; i < ids.size(); i++) {
+                fireCreated(expenses.get(i), ids.get(i));
+            }
+            return ids;
+        });
+    }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    private List<Long> insertExpenses(Connection conn, List<Expense> expenses) throws SQLException {
+        String sql = "INSERT INTO expenses(epoch_day, amount_cents, category_id, description, recurring_id, is_recurring_instance) " +
+                     "VALUES(?, ?, ?, ?, ?, ?)";
+
+        // Per row, the FTS and rollup triggers cost over three times the insert; catch them up in one pass instead
+        DatabaseManager db = DatabaseManager.getInstance();
+        Map<String, String> triggers = expenses.size() >= DEFER_TRIGGERS_MIN_ROWS ? db.suspendInsertTriggers(conn) : Map.of();
+        List<Long> ids = new ArrayList<>(expenses.size());
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             Statement lastId = conn.createStatement()) {
+            for (int start = 0; start < expenses.size(); start += INSERT_BATCH_SIZE) {
+                int end = Math.min(start + INSERT_BATCH_SIZE, expenses.size());
+                for (Expense expense : expenses.subList(start, end)) {
+                    pstmt.setLong(1, expense.getDate().toEpochDay());
+                    pstmt.setLong(2, expense.getAmountCents());
+                    pstmt.setLong(3, expense.getCategoryId());
+                    pstmt.setString(4, expense.getDescription());
+                    pstmt.setObject(5, expense.getRecurringId());
+                    pstmt.setBoolean(6, expense.isRecurringInstance());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+
+                // Only the writer thread inserts, so the rows of one batch get consecutive rowids
+                try (ResultSet rs = lastId.executeQuery("SELECT last_insert_rowid()")) {
+                    rs.next();
+                    long first = rs.getLong(1) - (end - start) + 1;
+                    for (int i = 0; i < end - start; i++) {
+                        ids.add(first + i);
+                    }
+                }
+            }
+        }
+        if (!triggers.isEmpty()) {
+            db.resumeInsertTriggers(conn, triggers, ids.get(0), ids.get(ids.size() - 1));
+        }
+        return ids;
+    }
 
-            pstmt.setString(1, expense.getDate().toString());
-            pstmt.setDouble(2, expense.getAmount());
-            pstmt.setLong(3, expense.getCategoryId());
-            pstmt.setString(4, expense.getDescription());
-            pstmt.setLong(5, expense.getId());
-            pstmt.executeUpdate();
+    public void updateExpense(Expense expense) {
+        String sql = "UPDATE expenses SET epoch_day = ?, amount_cents = ?, category_id = ?, description = ? WHERE id = ?";
+
+        try {
+            // Read the old row in the same transaction so listeners see exactly what was replaced
+            DatabaseManager.getInstance().getWriter().execute(conn -> {
+                Expense before = findExpense(conn, expense.getId());
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, expense.getDate().toEpochDay());
+                    pstmt.setLong(2, expense.getAmountCents());
+                    pstmt.setLong(3, expense.getCategoryId());
+                    pstmt.setString(4, expense.getDescription());
+                    pstmt.setLong(5, expense.getId());
+                    pstmt.executeUpdate();
+                }
+                if (before != null) {
+                    Expense after = copyOf(before, before.getId());
+                    after.setDate(expense.getDate());
+                    after.setAmountCents(expense.getAmountCents());
+                    after.setCategoryId(expense.getCategoryId());
+                    after.setDescription(expense.getDescription());
+                    afterCommit(l -> l.expenseUpdated(before, after));
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -116,11 +306,18 @@ public class ExpenseService {
     public void deleteExpense(Long id) {
         String sql = "DELETE FROM expenses WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
+        try {
+            DatabaseManager.getInstance().getWriter().execute(conn -> {
+                Expense deleted = findExpense(conn, id);
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, id);
+                    pstmt.executeUpdate();
+                }
+                if (deleted != null) {
+                    afterCommit(l -> l.expenseDeleted(deleted));
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -133,17 +330,24 @@ public class ExpenseService {
     }
 
     public Double getTotalExpensesByDateRange(LocalDate startDate, LocalDate endDate) {
-        String sql = "SELECT COALESCE(SUM(amount), 0) as total FROM expenses WHERE date >= ? AND date <= ?";
+        if (useDailyIndex() && DailySpendIndex.getInstance().ready()) {
+            Double total = DailySpendIndex.getInstance().total(startDate, endDate);
+            if (total != null) {
+                return total;
+            }
+        }
+        DatabaseManager db = DatabaseManager.getInstance();
+        String sql = "SELECT COALESCE(SUM(" + db.expenseCents("") + "), 0) as total FROM expenses WHERE " + db.expenseDay("") + " BETWEEN ? AND ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
+        try (Connection conn = db.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, startDate.toString());
-            pstmt.setString(2, endDate.toString());
+            pstmt.setLong(1, startDate.toEpochDay());
+            pstmt.setLong(2, endDate.toEpochDay());
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getDouble("total");
+                    return Money.toDouble(rs.getLong("total"));
                 }
             }
         } catch (SQLException e) {
@@ -155,18 +359,26 @@ public class ExpenseService {
     public Double getTotalExpensesByCategoryAndMonth(Long categoryId, YearMonth yearMonth) {
         LocalDate startDate = yearMonth.atDay(1);
         LocalDate endDate = yearMonth.atEndOfMonth();
-        String sql = "SELECT COALESCE(SUM(amount), 0) as total FROM expenses WHERE category_id = ? AND date >= ? AND date <= ?";
+        if (useDailyIndex() && DailySpendIndex.getInstance().ready()) {
+            Double total = DailySpendIndex.getInstance().total(categoryId, startDate, endDate);
+            if (total != null) {
+                return total;
+            }
+        }
+        DatabaseManager db = DatabaseManager.getInstance();
+        String sql = "SELECT COALESCE(SUM(" + db.expenseCents("") + "), 0) as total FROM expenses " +
+                     "WHERE category_id = ? AND " + db.expenseDay("") + " BETWEEN ? AND ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
+        try (Connection conn = db.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setLong(1, categoryId);
-            pstmt.setString(2, startDate.toString());
-            pstmt.setString(3, endDate.toString());
+            pstmt.setLong(2, startDate.toEpochDay());
+            pstmt.setLong(3, endDate.toEpochDay());
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getDouble("total");
+                    return Money.toDouble(rs.getLong("total"));
                 }
             }
         } catch (SQLException e) {
@@ -175,13 +387,98 @@ public class ExpenseService {
         return 0.0;
     }
 
-    private Expense mapResultSetToExpense(ResultSet rs) throws SQLException {
+    private static boolean useDailyIndex() {
+        return AppConfig.getInstance().getBooleanProperty("expenses.dailyIndex.enabled", true);
+    }
+
+    public Map<String, Double> getTotalExpensesByCategoryForMonth(YearMonth yearMonth) {
+        LocalDate startDate = yearMonth.atDay(1);
+        LocalDate endDate = yearMonth.atEndOfMonth();
+        return getTotalExpensesByCategoryForDateRange(startDate, endDate);
+    }
+
+    /**
+     * Totals per active category for a date range, in a single grouped scan.
+     * Categories are ordered by name and only those with a positive total are included.
+     */
+    public Map<String, Double> getTotalExpensesByCategoryForDateRange(LocalDate startDate, LocalDate endDate) {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        DatabaseManager db = DatabaseManager.getInstance();
+        String sql = "SELECT c.name AS name, SUM(" + db.expenseCents("e.") + ") AS total " +
+                     "FROM expenses e JOIN categories c ON c.id = e.category_id " +
+                     "WHERE c.active = 1 AND " + db.expenseDay("e.") + " BETWEEN ? AND ? " +
+                     "GROUP BY c.id, c.name HAVING total > 0 ORDER BY c.name";
+
+        try (Connection conn = db.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, startDate.toEpochDay());
+            pstmt.setLong(2, endDate.toEpochDay());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getString("name"), Money.toDouble(rs.getLong("total")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return totals;
+    }
+
+    private Expense findExpense(Connection conn, Long id) throws SQLException {
+        String sql = "SELECT " + DatabaseManager.getInstance().expenseColumns("") + " FROM expenses WHERE id = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? mapResultSetToExpense(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Tells listeners about a row inserted by the current write task once its transaction commits.
+     * Rows that code outside this class inserts can be reported here too instead of reloading.
+     */
+    void fireCreated(Expense expense, Long id) {
+        if (id == null || (listeners.isEmpty() && invalidationListeners.isEmpty())) {
+            return;
+        }
+        // Listeners get their own copy carrying the generated id; the caller's object is left as is
+        Expense created = copyOf(expense, id);
+        afterCommit(l -> l.expenseCreated(created));
+    }
+
+    /**
+     * Notifies listeners on the writer thread after commit, so they see changes in commit order;
+     * invalidation listeners follow once the change listeners of the whole batch have run.
+     */
+    private void afterCommit(Consumer<ExpenseChangeListener> notification) {
+        DatabaseWriter writer = DatabaseManager.getInstance().getWriter();
+        writer.afterCommit(() -> listeners.forEach(notification));
+        writer.afterBatch(() -> invalidationListeners.forEach(notification));
+    }
+
+    private static Expense copyOf(Expense source, Long id) {
+        Expense copy = new Expense(source.getDate(), 0, source.getCategoryId(), source.getDescription());
+        copy.setAmountCents(source.getAmountCents());
+        copy.setId(id);
+        copy.setRecurringId(source.getRecurringId());
+        copy.setRecurringInstance(source.isRecurringInstance());
+        return copy;
+    }
+
+    static Expense mapResultSetToExpense(ResultSet rs) throws SQLException {
         Expense expense = new Expense();
         expense.setId(rs.getLong("id"));
-        expense.setDate(LocalDate.parse(rs.getString("date")));
-        expense.setAmount(rs.getDouble("amount"));
+        expense.setDate(LocalDate.ofEpochDay(rs.getLong("epoch_day")));
+        expense.setAmountCents(rs.getLong("amount_cents"));
         expense.setCategoryId(rs.getLong("category_id"));
         expense.setDescription(rs.getString("description"));
+        long recurringId = rs.getLong("recurring_id");
+        if (!rs.wasNull()) {
+            expense.setRecurringId(recurringId);
+        }
         expense.setRecurringInstance(rs.getBoolean("is_recurring_instance"));
         return expense;
     }
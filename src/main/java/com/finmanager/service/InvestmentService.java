@@ -1,12 +1,14 @@
 package com.finmanager.service;
 
 import com.finmanager.model.InvestmentEntry;
+import com.finmanager.model.Money;
 import com.finmanager.db.DatabaseManager;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.Year;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class InvestmentService {
     private static InvestmentService instance;
@@ -23,7 +25,7 @@ public class InvestmentService {
 
     public List<InvestmentEntry> getAllInvestments() {
         List<InvestmentEntry> entries = new ArrayList<>();
-        String sql = "SELECT * FROM investment_entries ORDER BY date DESC";
+        String sql = "SELECT * FROM investment_entries ORDER BY epoch_day DESC";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              Statement stmt = conn.createStatement();
@@ -38,17 +40,50 @@ public class InvestmentService {
         return entries;
     }
 
+    /**
+     * One page of entries for {@code year}, or all entries when it is null, ordered by (epoch_day, id)
+     * descending. Pass the date and id of the last entry of the previous page to continue after it,
+     * or nulls for the first page.
+     */
+    public List<InvestmentEntry> getInvestmentsPage(Year year, LocalDate afterDate, Long afterId, int limit) throws SQLException {
+        String sql = "SELECT * FROM investment_entries WHERE epoch_day >= ? AND epoch_day <= ?" +
+                     (afterDate != null ? " AND (epoch_day < ? OR (epoch_day = ? AND id < ?))" : "") +
+                     " ORDER BY epoch_day DESC, id DESC LIMIT ?";
+
+        List<InvestmentEntry> entries = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            pstmt.setLong(index++, year == null ? Long.MIN_VALUE : LocalDate.of(year.getValue(), 1, 1).toEpochDay());
+            pstmt.setLong(index++, year == null ? Long.MAX_VALUE : LocalDate.of(year.getValue(), 12, 31).toEpochDay());
+            if (afterDate != null) {
+                pstmt.setLong(index++, afterDate.toEpochDay());
+                pstmt.setLong(index++, afterDate.toEpochDay());
+                pstmt.setLong(index++, afterId);
+            }
+            pstmt.setInt(index, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(mapResultSetToInvestmentEntry(rs));
+                }
+            }
+        }
+        return entries;
+    }
+
     public List<InvestmentEntry> getInvestmentsByYear(Year year) {
         LocalDate startDate = LocalDate.of(year.getValue(), 1, 1);
         LocalDate endDate = LocalDate.of(year.getValue(), 12, 31);
-        String sql = "SELECT * FROM investment_entries WHERE date >= ? AND date <= ? ORDER BY date DESC";
+        String sql = "SELECT * FROM investment_entries WHERE epoch_day >= ? AND epoch_day <= ? ORDER BY epoch_day DESC";
 
         List<InvestmentEntry> entries = new ArrayList<>();
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, startDate.toString());
-            pstmt.setString(2, endDate.toString());
+            pstmt.setLong(1, startDate.toEpochDay());
+            pstmt.setLong(2, endDate.toEpochDay());
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -62,14 +97,28 @@ public class InvestmentService {
     }
 
     public Long createInvestmentEntry(InvestmentEntry entry) {
-        String sql = "INSERT INTO investment_entries(date, amount, currency, exchange_rate, description, is_recurring) " +
-                     "VALUES(?, ?, ?, ?, ?, ?)";
+        try {
+            return DatabaseManager.getInstance().getWriter().execute(conn -> insertInvestmentEntry(conn, entry));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+    /**
+     * Queues the insert on the database writer; completes with the generated id once committed.
+     */
+    public CompletableFuture<Long> createInvestmentEntryAsync(InvestmentEntry entry) {
+        return DatabaseManager.getInstance().getWriter().submit(conn -> insertInvestmentEntry(conn, entry));
+    }
 
-            pstmt.setString(1, entry.getDate().toString());
-            pstmt.setDouble(2, entry.getAmount());
+    private Long insertInvestmentEntry(Connection conn, InvestmentEntry entry) throws SQLException {
+        String sql = "INSERT INTO investment_entries(epoch_day, amount_cents, currency, exchange_rate, description, is_recurring) " +
+                     "VALUES(?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setLong(1, entry.getDate().toEpochDay());
+            pstmt.setLong(2, entry.getAmountCents());
             pstmt.setString(3, entry.getCurrency());
             pstmt.setDouble(4, entry.getExchangeRate());
             pstmt.setString(5, entry.getDescription());
@@ -81,25 +130,25 @@ public class InvestmentService {
                     return keys.getLong(1);
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return null;
     }
 
     public void updateInvestmentEntry(InvestmentEntry entry) {
-        String sql = "UPDATE investment_entries SET date = ?, amount = ?, currency = ?, exchange_rate = ?, description = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, entry.getDate().toString());
-            pstmt.setDouble(2, entry.getAmount());
-            pstmt.setString(3, entry.getCurrency());
-            pstmt.setDouble(4, entry.getExchangeRate());
-            pstmt.setString(5, entry.getDescription());
-            pstmt.setLong(6, entry.getId());
-            pstmt.executeUpdate();
+        String sql = "UPDATE investment_entries SET epoch_day = ?, amount_cents = ?, currency = ?, exchange_rate = ?, description = ? WHERE id = ?";
+
+        try {
+            DatabaseManager.getInstance().getWriter().execute(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, entry.getDate().toEpochDay());
+                    pstmt.setLong(2, entry.getAmountCents());
+                    pstmt.setString(3, entry.getCurrency());
+                    pstmt.setDouble(4, entry.getExchangeRate());
+                    pstmt.setString(5, entry.getDescription());
+                    pstmt.setLong(6, entry.getId());
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -108,11 +157,13 @@ public class InvestmentService {
     public void deleteInvestmentEntry(Long id) {
         String sql = "DELETE FROM investment_entries WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
+        try {
+            DatabaseManager.getInstance().getWriter().execute(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, id);
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -121,17 +172,19 @@ public class InvestmentService {
     public Double getTotalInvestmentsByYear(Year year) {
         LocalDate startDate = LocalDate.of(year.getValue(), 1, 1);
         LocalDate endDate = LocalDate.of(year.getValue(), 12, 31);
-        String sql = "SELECT COALESCE(SUM(amount * exchange_rate), 0) as total FROM investment_entries WHERE date >= ? AND date <= ?";
+        // Each entry is converted and rounded to the cent on its own, as InvestmentEntry does, then summed exactly
+        String sql = "SELECT COALESCE(SUM(CAST(ROUND(amount_cents * exchange_rate) AS INTEGER)), 0) as total " +
+                     "FROM investment_entries WHERE epoch_day >= ? AND epoch_day <= ?";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, startDate.toString());
-            pstmt.setString(2, endDate.toString());
+            pstmt.setLong(1, startDate.toEpochDay());
+            pstmt.setLong(2, endDate.toEpochDay());
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getDouble("total");
+                    return Money.toDouble(rs.getLong("total"));
                 }
             }
         } catch (SQLException e) {
@@ -156,8 +209,8 @@ public class InvestmentService {
     private InvestmentEntry mapResultSetToInvestmentEntry(ResultSet rs) throws SQLException {
         InvestmentEntry entry = new InvestmentEntry();
         entry.setId(rs.getLong("id"));
-        entry.setDate(LocalDate.parse(rs.getString("date")));
-        entry.setAmount(rs.getDouble("amount"));
+        entry.setDate(LocalDate.ofEpochDay(rs.getLong("epoch_day")));
+        entry.setAmountCents(rs.getLong("amount_cents"));
         entry.setCurrency(rs.getString("currency"));
         entry.setExchangeRate(rs.getDouble("exchange_rate"));
         entry.setDescription(rs.getString("description"));
@@ -0,0 +1,168 @@
+package com.finmanager.service;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Money;
+
+import java.sql.*;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Reads and maintains the monthly_category_totals rollup.
+ * The rollup is updated incrementally by triggers on the expenses table, so every
+ * write path (ExpenseService, RecurringExpenseGenerator, cleanup) keeps it current.
+ */
+public class MonthlyCategoryTotalsService {
+    private static MonthlyCategoryTotalsService instance;
+
+    private MonthlyCategoryTotalsService() {}
+
+    public static MonthlyCategoryTotalsService getInstance() {
+        if (instance == null) {
+            instance = new MonthlyCategoryTotalsService();
+        }
+        return instance;
+    }
+
+    /**
+     * Totals per active category over an inclusive month range, ordered by category name.
+     * Categories with no positive total are left out.
+     */
+    public Map<String, Double> getCategoryTotals(YearMonth from, YearMonth to) {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        String sql = "SELECT c.name AS name, SUM(t.total_cents) AS total " +
+                     "FROM monthly_category_totals t JOIN categories c ON c.id = t.category_id " +
+                     "WHERE c.active = 1 AND t.month >= ? AND t.month <= ? " +
+                     "GROUP BY c.id, c.name HAVING SUM(t.total_cents) > 0 ORDER BY c.name";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, from.toString());
+            pstmt.setString(2, to.toString());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(rs.getString("name"), Money.toDouble(rs.getLong("total")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return totals;
+    }
+
+    public Double getCategoryTotal(Long categoryId, YearMonth yearMonth) {
+        String sql = "SELECT total_cents AS total FROM monthly_category_totals WHERE month = ? AND category_id = ?";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, yearMonth.toString());
+            pstmt.setLong(2, categoryId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Money.toDouble(rs.getLong("total"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    /**
+     * Total spend per month (1-12) of a year across all categories; months without expenses are 0.
+     */
+    public Map<Integer, Double> getMonthlyTotals(int year) {
+        Map<Integer, Double> totals = new LinkedHashMap<>();
+        for (int month = 1; month <= 12; month++) {
+            totals.put(month, 0.0);
+        }
+
+        String sql = "SELECT month, SUM(total_cents) AS total FROM monthly_category_totals " +
+                     "WHERE month >= ? AND month <= ? GROUP BY month";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, YearMonth.of(year, 1).toString());
+            pstmt.setString(2, YearMonth.of(year, 12).toString());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int month = YearMonth.parse(rs.getString("month")).getMonthValue();
+                    totals.put(month, Money.toDouble(rs.getLong("total")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return totals;
+    }
+
+    public Double getMonthlyTotal(YearMonth yearMonth) {
+        String sql = "SELECT COALESCE(SUM(total_cents), 0) AS total FROM monthly_category_totals WHERE month = ?";
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, yearMonth.toString());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return Money.toDouble(rs.getLong("total"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0.0;
+    }
+
+    /**
+     * Recomputes the rollup from scratch in one transaction.
+     * @return Number of (month, category) rows written
+     */
+    public int rebuild() throws SQLException {
+        // Writer tasks run inside one transaction, so readers never see a half-built rollup
+        return DatabaseManager.getInstance().getWriter().execute(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM monthly_category_totals");
+                return stmt.executeUpdate(DatabaseManager.getInstance().rebuildMonthlyTotalsSql());
+            }
+        });
+    }
+
+    /**
+     * Compares the rollup with a live aggregate over expenses.
+     * @return One description per mismatching (month, category) row; empty when consistent
+     */
+    public List<String> checkConsistency() throws SQLException {
+        List<String> mismatches = new ArrayList<>();
+        DatabaseManager db = DatabaseManager.getInstance();
+        String sql = "SELECT COALESCE(t.month, a.month) AS month, COALESCE(t.category_id, a.category_id) AS category_id, " +
+                     "t.total_cents AS rollup_total, t.expense_count AS rollup_count, a.total AS actual_total, a.cnt AS actual_count " +
+                     "FROM monthly_category_totals t FULL OUTER JOIN (" +
+                     "  SELECT " + DatabaseManager.monthOf(db.expenseDay("")) + " AS month, category_id, " +
+                     "SUM(" + db.expenseCents("") + ") AS total, COUNT(*) AS cnt FROM expenses GROUP BY 1, category_id" +
+                     ") a ON a.month = t.month AND a.category_id = t.category_id " +
+                     "WHERE t.month IS NULL OR a.month IS NULL OR t.expense_count <> a.cnt OR t.total_cents <> a.total " +
+                     "ORDER BY 1, 2";
+
+        try (Connection conn = db.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                mismatches.add(String.format("month=%s category=%d rollup=%s/%s actual=%s/%s",
+                    rs.getString("month"),
+                    rs.getLong("category_id"),
+                    rs.getString("rollup_total"), rs.getString("rollup_count"),
+                    rs.getString("actual_total"), rs.getString("actual_count")));
+            }
+        }
+        return mismatches;
+    }
+}
@@ -1,13 +1,20 @@
 package com.finmanager.service;
 
-import com.finmanager.model.RecurringExpense;
 import com.finmanager.model.Expense;
+import com.finmanager.model.RecurringExpense;
 import com.finmanager.db.DatabaseManager;
+import com.finmanager.db.DatabaseWriter;
+import com.finmanager.util.Logger;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Generates expense instances from recurring expense definitions.
@@ -16,11 +23,9 @@ import java.util.*;
 public class RecurringExpenseGenerator {
     private static RecurringExpenseGenerator instance;
     private final RecurringExpenseService recurringExpenseService;
-    private final ExpenseService expenseService;
 
     private RecurringExpenseGenerator() {
         this.recurringExpenseService = RecurringExpenseService.getInstance();
-        this.expenseService = ExpenseService.getInstance();
     }
 
     public static RecurringExpenseGenerator getInstance() {
@@ -37,46 +42,22 @@ public class RecurringExpenseGenerator {
      * @return Number of instances generated
      */
     public int generateForRecurring(Long recurringId, LocalDate upToDate) {
-        int count = 0;
-        
-        // Get the recurring expense with last_generated_date
-        List<RecurringExpense> allRecurring = recurringExpenseService.getAllRecurringExpenses();
-        RecurringExpense recurring = allRecurring.stream()
-            .filter(r -> r.getId().equals(recurringId))
-            .findFirst()
-            .orElse(null);
-        
+        RecurringExpense recurring = recurringExpenseService.getRecurringExpenseById(recurringId);
         if (recurring == null || !recurring.isActive()) {
             return 0;
         }
         
-        // Determine starting point for generation
-        LocalDate generationStart = (recurring.getLastGeneratedDate() == null) 
-            ? recurring.getStartDate()
-            : recurring.getLastGeneratedDate().plusDays(1);
-        
-        if (generationStart.isAfter(upToDate)) {
-            return 0; // Already generated all instances
-        }
-        
-        // Respect end date boundary
-        LocalDate generationEnd = (recurring.getEndDate() != null && recurring.getEndDate().isBefore(upToDate))
-            ? recurring.getEndDate()
-            : upToDate;
-        
-        // Generate instances based on frequency
-        if (recurring.getFrequency() == RecurringExpense.Frequency.MONTHLY) {
-            count = generateMonthlyInstances(recurring, generationStart, generationEnd);
-        } else if (recurring.getFrequency() == RecurringExpense.Frequency.YEARLY) {
-            count = generateYearlyInstances(recurring, generationStart, generationEnd);
+        Plan plan = plan(recurring, upToDate);
+        if (plan.dates().isEmpty()) {
+            return 0;
         }
         
-        // Update last_generated_date
-        if (count > 0) {
-            updateLastGeneratedDate(recurringId, generationEnd);
+        try {
+            return DatabaseManager.getInstance().getWriter().execute(conn -> insertInstances(conn, recurring, plan));
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
-        
-        return count;
+        return 0;
     }
 
     /**
@@ -85,16 +66,56 @@ public class RecurringExpenseGenerator {
      * @return Total number of instances generated
      */
     public int generateAllRecurring(LocalDate upToDate) {
-        int totalGenerated = 0;
-        List<RecurringExpense> allRecurring = recurringExpenseService.getAllRecurringExpenses();
-        
-        for (RecurringExpense recurring : allRecurring) {
-            if (recurring.isActive()) {
-                totalGenerated += generateForRecurring(recurring.getId(), upToDate);
+        return generateAll(upToDate).total;
+    }
+
+    /**
+     * Bulk generation: loads the active definitions once, plans each one's dates on its own virtual
+     * thread and hands the inserts to the database writer, which groups them into shared transactions.
+     * Definitions are independent, so one failing does not stop the others.
+     * @param upToDate Generate instances up to this date (inclusive)
+     * @return Per-definition counts, failures and elapsed time
+     */
+    public Report generateAll(LocalDate upToDate) {
+        long start = System.nanoTime();
+        List<RecurringExpense> definitions = recurringExpenseService.getAllRecurringExpenses();
+        DatabaseWriter writer = DatabaseManager.getInstance().getWriter();
+        
+        Map<Long, CompletableFuture<Integer>> pending = new LinkedHashMap<>();
+        try (ExecutorService planners = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (RecurringExpense recurring : definitions) {
+                if (!recurring.isActive()) {
+                    continue;
+                }
+                CompletableFuture<Integer> generated = CompletableFuture
+                    .supplyAsync(() -> plan(recurring, upToDate), planners)
+                    .thenCompose(plan -> plan.dates().isEmpty()
+                        ? CompletableFuture.completedFuture(0)
+                        : writer.submit(conn -> insertInstances(conn, recurring, plan)));
+                pending.put(recurring.getId(), generated);
             }
+            CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null)
+                .join();
         }
         
-        return totalGenerated;
+        Report report = new Report();
+        pending.forEach((id, future) -> {
+            try {
+                int count = future.join();
+                report.perDefinition.put(id, count);
+                report.total += count;
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                Logger.error(RecurringExpenseGenerator.class, "Generation failed for recurring expense " + id, cause instanceof Exception ex ? ex : e);
+                report.failed.put(id, cause.getMessage());
+            }
+        });
+        report.definitions = pending.size();
+        report.elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Logger.info(RecurringExpenseGenerator.class, "Generated " + report.total + " instances for "
+            + report.definitions + " recurring expenses in " + report.elapsedMs + " ms");
+        return report;
     }
 
     /**
@@ -105,8 +126,35 @@ public class RecurringExpenseGenerator {
         return generateAllRecurring(LocalDate.now());
     }
 
-    private int generateMonthlyInstances(RecurringExpense recurring, LocalDate start, LocalDate end) {
-        int count = 0;
+    /**
+     * Instance dates still to generate for a definition, from its bookmark up to {@code upToDate}.
+     */
+    private Plan plan(RecurringExpense recurring, LocalDate upToDate) {
+        // Determine starting point for generation
+        LocalDate generationStart = (recurring.getLastGeneratedDate() == null) 
+            ? recurring.getStartDate()
+            : recurring.getLastGeneratedDate().plusDays(1);
+        
+        if (generationStart.isAfter(upToDate)) {
+            return new Plan(List.of(), null); // Already generated all instances
+        }
+        
+        // Respect end date boundary
+        LocalDate generationEnd = (recurring.getEndDate() != null && recurring.getEndDate().isBefore(upToDate))
+            ? recurring.getEndDate()
+            : upToDate;
+        
+        List<LocalDate> dates = List.of();
+        if (recurring.getFrequency() == RecurringExpense.Frequency.MONTHLY) {
+            dates = planMonthlyDates(generationStart, generationEnd);
+        } else if (recurring.getFrequency() == RecurringExpense.Frequency.YEARLY) {
+            dates = planYearlyDates(recurring, generationStart, generationEnd);
+        }
+        return new Plan(dates, generationEnd);
+    }
+
+    private List<LocalDate> planMonthlyDates(LocalDate start, LocalDate end) {
+        List<LocalDate> dates = new ArrayList<>();
         YearMonth current = YearMonth.from(start);
         YearMonth endYearMonth = YearMonth.from(end);
         
@@ -115,31 +163,17 @@ public class RecurringExpenseGenerator {
             
             // Make sure we're within the generation range
             if (!instanceDate.isBefore(start) && !instanceDate.isAfter(end)) {
-                // Check if instance already exists (avoid duplicates)
-                if (!expenseInstanceExists(recurring.getId(), instanceDate)) {
-                    Expense instance = new Expense(
-                        instanceDate,
-                        recurring.getAmount(),
-                        recurring.getCategoryId(),
-                        recurring.getDescription()
-                    );
-                    instance.setRecurringId(recurring.getId());
-                    instance.setRecurringInstance(true);
-                    
-                    if (expenseService.createExpense(instance) != null) {
-                        count++;
-                    }
-                }
+                dates.add(instanceDate);
             }
             
             current = current.plusMonths(1);
         }
         
-        return count;
+        return dates;
     }
 
-    private int generateYearlyInstances(RecurringExpense recurring, LocalDate start, LocalDate end) {
-        int count = 0;
+    private List<LocalDate> planYearlyDates(RecurringExpense recurring, LocalDate start, LocalDate end) {
+        List<LocalDate> dates = new ArrayList<>();
         int startYear = start.getYear();
         int endYear = end.getYear();
         
@@ -150,60 +184,71 @@ public class RecurringExpenseGenerator {
             if (!instanceDate.isBefore(start) && !instanceDate.isAfter(end) && 
                 !instanceDate.isBefore(recurring.getStartDate()) &&
                 (recurring.getEndDate() == null || !instanceDate.isAfter(recurring.getEndDate()))) {
-                
-                // Check if instance already exists (avoid duplicates)
-                if (!expenseInstanceExists(recurring.getId(), instanceDate)) {
-                    Expense instance = new Expense(
-                        instanceDate,
-                        recurring.getAmount(),
-                        recurring.getCategoryId(),
-                        recurring.getDescription()
-                    );
-                    instance.setRecurringId(recurring.getId());
-                    instance.setRecurringInstance(true);
-                    
-                    if (expenseService.createExpense(instance) != null) {
-                        count++;
-                    }
-                }
+                dates.add(instanceDate);
             }
         }
         
-        return count;
+        return dates;
     }
 
-    private boolean expenseInstanceExists(Long recurringId, LocalDate date) {
-        String sql = "SELECT COUNT(*) as cnt FROM expenses WHERE recurring_id = ? AND date = ?";
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setLong(1, recurringId);
-            pstmt.setString(2, date.toString());
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt("cnt") > 0;
+    /**
+     * Inserts the planned instances and advances last_generated_epoch_day in the caller's transaction.
+     * The unique index on (recurring_id, epoch_day) turns instances that already exist into no-ops.
+     * Expense listeners hear about each row actually inserted once the transaction commits.
+     * @return Number of instances actually inserted
+     */
+    private int insertInstances(Connection conn, RecurringExpense recurring, Plan plan) throws SQLException {
+        String insertSql = "INSERT OR IGNORE INTO expenses(epoch_day, amount_cents, category_id, description, recurring_id, is_recurring_instance) " +
+                           "VALUES(?, ?, ?, ?, ?, 1)";
+        String updateSql = "UPDATE recurring_expenses SET last_generated_epoch_day = ? WHERE id = ?";
+        
+        int inserted = 0;
+        ExpenseService expenseService = ExpenseService.getInstance();
+        try (PreparedStatement insert = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (LocalDate date : plan.dates()) {
+                insert.setLong(1, date.toEpochDay());
+                insert.setLong(2, recurring.getAmountCents());
+                insert.setLong(3, recurring.getCategoryId());
+                insert.setString(4, recurring.getDescription());
+                insert.setLong(5, recurring.getId());
+                // One statement per row, as SQLite batches do anyway, so each new row's id is known
+                if (insert.executeUpdate() == 0) {
+                    continue;
+                }
+                inserted++;
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        expenseService.fireCreated(instanceOf(recurring, date), keys.getLong(1));
+                    }
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         
-        return false;
+        try (PreparedStatement update = conn.prepareStatement(updateSql)) {
+            update.setLong(1, plan.through().toEpochDay());
+            update.setLong(2, recurring.getId());
+            update.executeUpdate();
+        }
+        return inserted;
     }
 
-    private void updateLastGeneratedDate(Long recurringId, LocalDate date) {
-        String sql = "UPDATE recurring_expenses SET last_generated_date = ? WHERE id = ?";
-        
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, date.toString());
-            pstmt.setLong(2, recurringId);
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    private static Expense instanceOf(RecurringExpense recurring, LocalDate date) {
+        Expense expense = new Expense(date, 0, recurring.getCategoryId(), recurring.getDescription());
+        expense.setAmountCents(recurring.getAmountCents());
+        expense.setRecurringId(recurring.getId());
+        expense.setRecurringInstance(true);
+        return expense;
+    }
+
+    /** Instance dates for one definition and the date its bookmark advances to. */
+    private record Plan(List<LocalDate> dates, LocalDate through) {}
+
+    /** Outcome of a bulk generation run. */
+    public static class Report {
+        public int definitions;
+        public int total;
+        public long elapsedMs;
+        public Map<Long, Integer> perDefinition = new LinkedHashMap<>();
+        public Map<Long, String> failed = new LinkedHashMap<>();
     }
 }
@@ -8,6 +8,7 @@ import java.sql.*;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class RecurringExpenseService {
     private static RecurringExpenseService instance;
@@ -23,6 +24,7 @@ public class RecurringExpenseService {
 
     public List<RecurringExpense> getAllRecurringExpenses() {
         List<RecurringExpense> expenses = new ArrayList<>();
+        // Definitions a schema backfill has not reached yet have no start date to generate from
         String sql = "SELECT * FROM recurring_expenses WHERE active = 1 ORDER BY category_id";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
@@ -38,19 +40,51 @@ public class RecurringExpenseService {
         return expenses;
     }
 
-    public Long createRecurringExpense(RecurringExpense expense) {
-        String sql = "INSERT INTO recurring_expenses(category_id, amount, description, frequency, start_date, end_date, active) " +
-                     "VALUES(?, ?, ?, ?, ?, ?, ?)";
+    public RecurringExpense getRecurringExpenseById(Long id) {
+        String sql = "SELECT * FROM recurring_expenses WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToRecurringExpense(rs);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    public Long createRecurringExpense(RecurringExpense expense) {
+        try {
+            return DatabaseManager.getInstance().getWriter().execute(conn -> insertRecurringExpense(conn, expense));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Queues the insert on the database writer; completes with the generated id once committed.
+     */
+    public CompletableFuture<Long> createRecurringExpenseAsync(RecurringExpense expense) {
+        return DatabaseManager.getInstance().getWriter().submit(conn -> insertRecurringExpense(conn, expense));
+    }
 
+    private Long insertRecurringExpense(Connection conn, RecurringExpense expense) throws SQLException {
+        String sql = "INSERT INTO recurring_expenses(category_id, amount_cents, description, frequency, start_epoch_day, end_epoch_day, active) " +
+                     "VALUES(?, ?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setLong(1, expense.getCategoryId());
-            pstmt.setDouble(2, expense.getAmount());
+            pstmt.setLong(2, expense.getAmountCents());
             pstmt.setString(3, expense.getDescription());
             pstmt.setString(4, expense.getFrequency().toString());
-            pstmt.setString(5, expense.getStartDate().toString());
-            pstmt.setString(6, expense.getEndDate() != null ? expense.getEndDate().toString() : null);
+            pstmt.setLong(5, expense.getStartDate().toEpochDay());
+            pstmt.setObject(6, expense.getEndDate() != null ? expense.getEndDate().toEpochDay() : null);
             pstmt.setBoolean(7, expense.isActive());
             pstmt.executeUpdate();
 
@@ -59,28 +93,28 @@ public class RecurringExpenseService {
                     return keys.getLong(1);
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return null;
     }
 
     public void updateRecurringExpense(RecurringExpense expense) {
-        String sql = "UPDATE recurring_expenses SET category_id = ?, amount = ?, description = ?, frequency = ?, " +
-                     "start_date = ?, end_date = ?, active = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setLong(1, expense.getCategoryId());
-            pstmt.setDouble(2, expense.getAmount());
-            pstmt.setString(3, expense.getDescription());
-            pstmt.setString(4, expense.getFrequency().toString());
-            pstmt.setString(5, expense.getStartDate().toString());
-            pstmt.setString(6, expense.getEndDate() != null ? expense.getEndDate().toString() : null);
-            pstmt.setBoolean(7, expense.isActive());
-            pstmt.setLong(8, expense.getId());
-            pstmt.executeUpdate();
+        String sql = "UPDATE recurring_expenses SET category_id = ?, amount_cents = ?, description = ?, frequency = ?, " +
+                     "start_epoch_day = ?, end_epoch_day = ?, active = ? WHERE id = ?";
+
+        try {
+            DatabaseManager.getInstance().getWriter().execute(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, expense.getCategoryId());
+                    pstmt.setLong(2, expense.getAmountCents());
+                    pstmt.setString(3, expense.getDescription());
+                    pstmt.setString(4, expense.getFrequency().toString());
+                    pstmt.setLong(5, expense.getStartDate().toEpochDay());
+                    pstmt.setObject(6, expense.getEndDate() != null ? expense.getEndDate().toEpochDay() : null);
+                    pstmt.setBoolean(7, expense.isActive());
+                    pstmt.setLong(8, expense.getId());
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -89,11 +123,13 @@ public class RecurringExpenseService {
     public void deleteRecurringExpense(Long id) {
         String sql = "UPDATE recurring_expenses SET active = 0 WHERE id = ?";
 
-        try (Connection conn = DatabaseManager.getInstance().getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setLong(1, id);
-            pstmt.executeUpdate();
+        try {
+            DatabaseManager.getInstance().getWriter().execute(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setLong(1, id);
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -112,13 +148,15 @@ public class RecurringExpenseService {
             if (rec.getEndDate() != null && rec.getEndDate().isBefore(monthStart)) continue;
 
             if (rec.getFrequency() == RecurringExpense.Frequency.MONTHLY) {
-                Expense exp = new Expense(monthStart, rec.getAmount(), rec.getCategoryId(), rec.getDescription());
+                Expense exp = new Expense(monthStart, 0, rec.getCategoryId(), rec.getDescription());
+                exp.setAmountCents(rec.getAmountCents());
                 exp.setRecurringInstance(true);
                 expenseService.createExpense(exp);
             } else if (rec.getFrequency() == RecurringExpense.Frequency.YEARLY) {
                 LocalDate jan1 = LocalDate.of(monthStart.getYear(), 1, 1);
                 if (monthStart.getMonthValue() == 1) {
-                    Expense exp = new Expense(jan1, rec.getAmount(), rec.getCategoryId(), rec.getDescription());
+                    Expense exp = new Expense(jan1, 0, rec.getCategoryId(), rec.getDescription());
+                    exp.setAmountCents(rec.getAmountCents());
                     exp.setRecurringInstance(true);
                     expenseService.createExpense(exp);
                 }
@@ -130,19 +168,19 @@ public class RecurringExpenseService {
         RecurringExpense expense = new RecurringExpense();
         expense.setId(rs.getLong("id"));
         expense.setCategoryId(rs.getLong("category_id"));
-        expense.setAmount(rs.getDouble("amount"));
+        expense.setAmountCents(rs.getLong("amount_cents"));
         expense.setDescription(rs.getString("description"));
         expense.setFrequency(RecurringExpense.Frequency.valueOf(rs.getString("frequency")));
-        expense.setStartDate(LocalDate.parse(rs.getString("start_date")));
+        expense.setStartDate(LocalDate.ofEpochDay(rs.getLong("start_epoch_day")));
         
-        String endDate = rs.getString("end_date");
-        if (endDate != null) {
-            expense.setEndDate(LocalDate.parse(endDate));
+        long endDay = rs.getLong("end_epoch_day");
+        if (!rs.wasNull()) {
+            expense.setEndDate(LocalDate.ofEpochDay(endDay));
         }
         
-        String lastGenerated = rs.getString("last_generated_date");
-        if (lastGenerated != null) {
-            expense.setLastGeneratedDate(LocalDate.parse(lastGenerated));
+        long lastGeneratedDay = rs.getLong("last_generated_epoch_day");
+        if (!rs.wasNull()) {
+            expense.setLastGeneratedDate(LocalDate.ofEpochDay(lastGeneratedDay));
         }
         
         expense.setActive(rs.getBoolean("active"));
@@ -38,6 +38,34 @@ public class AppConfig {
         properties.setProperty("db.path", "fin-manager.db");
         properties.setProperty("data.retention.years", "3");
         properties.setProperty("currency.base", "USD");
+        properties.setProperty("db.profile", "performance");
+        properties.setProperty("db.pool.minSize", "2");
+        properties.setProperty("db.pool.maxSize", "10");
+        properties.setProperty("db.pool.idleTimeoutMs", "300000");
+        properties.setProperty("db.pool.borrowTimeoutMs", "30000");
+        properties.setProperty("db.pool.leakDetectionThresholdMs", "60000");
+        properties.setProperty("db.pool.validateOnBorrow", "true");
+        properties.setProperty("db.pool.validationTimeoutSec", "2");
+        properties.setProperty("db.pool.housekeepingIntervalMs", "30000");
+        properties.setProperty("db.writer.commitIntervalMs", "0");
+        properties.setProperty("db.writer.maxBatchSize", "256");
+        properties.setProperty("db.writer.queueCapacity", "10000");
+        properties.setProperty("db.migration.backfillChunkRows", "5000");
+        properties.setProperty("db.migration.backfillPauseMs", "10");
+        properties.setProperty("import.batchSize", "5000");
+        properties.setProperty("import.progressInterval", "10000");
+        properties.setProperty("import.rejectDir", "imports");
+        properties.setProperty("api.page.defaultLimit", "100");
+        properties.setProperty("api.page.maxLimit", "1000");
+        properties.setProperty("api.stream.pageRows", "1000");
+        properties.setProperty("expenses.dailyIndex.enabled", "true");
+        properties.setProperty("search.maxRankedMatches", "10000");
+        properties.setProperty("analytics.columnar.enabled", "true");
+        properties.setProperty("analytics.columnar.compactIntervalMs", "60000");
+        properties.setProperty("server.responseCache.maxEntries", "256");
+        properties.setProperty("server.staticCache.offHeap", "false");
+        properties.setProperty("server.staticCache.watch", "false");
+        properties.setProperty("metrics.enabled", "true");
     }
 
     public String getProperty(String key) {
@@ -56,6 +84,11 @@ public class AppConfig {
         }
     }
 
+    public boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
     public void setProperty(String key, String value) {
         properties.setProperty(key, value);
     }
@@ -0,0 +1,140 @@
+package com.finmanager.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 CSV reader: one record in memory at a time, so file size does not matter.
+ * Handles quoted fields with embedded delimiters, doubled quotes and line breaks, CRLF or LF line
+ * endings and a leading UTF-8 byte order mark.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final int maxRecordChars;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(Reader reader, char delimiter, int maxRecordChars) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    public CsvReader(Reader reader) {
+        this(reader, ',', 1 << 20);
+    }
+
+    /**
+     * @return The next record's fields, or null at end of input
+     * @throws IOException on read failure or when a record exceeds the configured size,
+     *         which usually means an unbalanced quote
+     */
+    public List<String> readRecord() throws IOException {
+        if (!started) {
+            started = true;
+            if (peek() == '\uFEFF') {
+                position++;
+            }
+        }
+        if (peek() == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        int recordChars = 0;
+        boolean quoted = false;
+        boolean fieldStart = true;
+
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                if (quoted) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            if (++recordChars > maxRecordChars) {
+                throw new IOException("Record starting on line " + recordLine + " exceeds " + maxRecordChars + " characters");
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        position++;
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') {
+                    position++;
+                }
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+                fieldStart = false;
+            }
+        }
+    }
+
+    /**
+     * Physical line number the last returned record started on (1-based).
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,299 @@
+package com.finmanager.util;
+
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.model.InvestmentEntry;
+import com.finmanager.model.RecurringExpense;
+import com.finmanager.service.CategoryService;
+import com.finmanager.service.ExpenseService;
+import com.finmanager.service.InvestmentService;
+import com.finmanager.service.RecurringExpenseService;
+
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Deterministic synthetic data at configurable scale, for load tests and reproducing
+ * production-sized databases locally.
+ *
+ * The same seed and scale always produce the same rows. Each entity type draws from its own
+ * random stream, so changing the expense count does not change the generated investments.
+ * Distributions: category popularity follows a Zipf curve, amounts are log-normal around a
+ * median that depends on the category type, and weekends and December see more spending.
+ */
+public class DataGenerator {
+    private static final String[][] CATEGORY_NAMES = {
+        {"Rent", "MANDATORY"}, {"Groceries", "MANDATORY"}, {"Dining Out", "LEISURE"}, {"Electricity", "UTILITIES"},
+        {"Transport", "MANDATORY"}, {"Entertainment", "LEISURE"}, {"School", "KIDS"}, {"Internet", "UTILITIES"},
+        {"Health", "MANDATORY"}, {"Travel", "LEISURE"}, {"Toys", "KIDS"}, {"Water", "UTILITIES"},
+        {"Insurance", "MANDATORY"}, {"Hobbies", "LEISURE"}, {"Childcare", "KIDS"}, {"Gas", "UTILITIES"},
+        {"Savings Plan", "INVESTMENTS"}, {"Clothing", "LEISURE"}, {"Phone", "UTILITIES"}, {"Gifts", "LEISURE"}
+    };
+    private static final String[] MERCHANTS = {
+        "Corner Market", "City Grocers", "Fuel Stop", "Pharmacy Plus", "Bistro 21", "Cinema Hall",
+        "Book Nook", "Power Co", "Metro Transit", "Fit Gym", "Pet Supplies", "Hardware Depot",
+        "Coffee House", "Online Store", "Bakery", "Sports Shop"
+    };
+    private static final String[] FUNDS = {"World Index Fund", "Bond Fund", "Tech ETF", "Pension Plan", "Gold"};
+    private static final String[] CURRENCIES = {"USD", "EUR", "GBP", "CHF", "JPY", "CAD"};
+    private static final double[] CURRENCY_WEIGHTS = {0.50, 0.20, 0.12, 0.08, 0.06, 0.04};
+    private static final int EXPENSE_CHUNK = 10_000;
+
+    private final long seed;
+    private final Scale scale;
+
+    /** Row counts and date range to generate. */
+    public static class Scale {
+        public int categories = 20;
+        public int expenses = 100_000;
+        public int recurring = 50;
+        public int investments = 500;
+        public int years = 3;
+        // Fixed rather than today, so the same seed and scale give the same rows on any day
+        public LocalDate endDate = LocalDate.of(2025, 12, 31);
+
+        /** Overrides keyed by field name, e.g. {@code expenses=1000000}, {@code endDate=2024-12-31}. */
+        public static Scale fromSettings(Map<String, String> settings) {
+            Scale scale = new Scale();
+            scale.categories = Integer.parseInt(settings.getOrDefault("categories", String.valueOf(scale.categories)));
+            scale.expenses = Integer.parseInt(settings.getOrDefault("expenses", String.valueOf(scale.expenses)));
+            scale.recurring = Integer.parseInt(settings.getOrDefault("recurring", String.valueOf(scale.recurring)));
+            scale.investments = Integer.parseInt(settings.getOrDefault("investments", String.valueOf(scale.investments)));
+            scale.years = Integer.parseInt(settings.getOrDefault("years", String.valueOf(scale.years)));
+            if (settings.containsKey("endDate")) {
+                scale.endDate = LocalDate.parse(settings.get("endDate"));
+            }
+            return scale;
+        }
+    }
+
+    /** Rows written by {@link #generate()}. */
+    public static class Summary {
+        public int categories;
+        public int expenses;
+        public int recurring;
+        public int investments;
+        public long elapsedMs;
+    }
+
+    public DataGenerator(long seed, Scale scale) {
+        this.seed = seed;
+        this.scale = scale;
+    }
+
+    /**
+     * Writes the generated data through the services. Categories that already exist by name are
+     * reused, inactive ones included, so running against a database seeded by DataInitializer
+     * just adds to it.
+     */
+    public Summary generate() throws SQLException {
+        long start = System.currentTimeMillis();
+        Summary summary = new Summary();
+        CategoryService categoryService = CategoryService.getInstance();
+
+        Map<String, Long> existing = categoryService.getCategoryIdsByName();
+        List<Long> categoryIds = new ArrayList<>();
+        for (Category category : categories()) {
+            Long id = existing.get(category.getName());
+            if (id == null) {
+                Category inactive = categoryService.getCategoryByName(category.getName());
+                if (inactive != null) {
+                    Logger.warn(DataGenerator.class, "Category '" + category.getName()
+                        + "' is inactive; its generated expenses will not show under active categories");
+                    id = inactive.getId();
+                } else {
+                    id = categoryService.createCategory(category);
+                    if (id == null) {
+                        throw new SQLException("Could not create category '" + category.getName() + "'");
+                    }
+                    summary.categories++;
+                }
+            }
+            categoryIds.add(id);
+        }
+
+        ExpenseService expenseService = ExpenseService.getInstance();
+        List<Expense> chunk = new ArrayList<>(EXPENSE_CHUNK);
+        for (Iterator<Expense> it = expenses(categoryIds); it.hasNext(); ) {
+            chunk.add(it.next());
+            if (chunk.size() == EXPENSE_CHUNK || !it.hasNext()) {
+                summary.expenses += expenseService.createExpenses(chunk).size();
+                chunk.clear();
+                Logger.debug(DataGenerator.class, "Generated " + summary.expenses + " expenses");
+            }
+        }
+
+        // Queue the small tables asynchronously so the writer group-commits them
+        List<CompletableFuture<Long>> pending = new ArrayList<>();
+        RecurringExpenseService recurringService = RecurringExpenseService.getInstance();
+        for (RecurringExpense recurring : recurringExpenses(categoryIds)) {
+            pending.add(recurringService.createRecurringExpenseAsync(recurring));
+        }
+        InvestmentService investmentService = InvestmentService.getInstance();
+        for (InvestmentEntry entry : investments()) {
+            pending.add(investmentService.createInvestmentEntryAsync(entry));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        summary.recurring = scale.recurring;
+        summary.investments = scale.investments;
+
+        summary.elapsedMs = System.currentTimeMillis() - start;
+        Logger.info(DataGenerator.class, String.format("Generated %,d categories, %,d expenses, %,d recurring, %,d investments in %d ms",
+            summary.categories, summary.expenses, summary.recurring, summary.investments, summary.elapsedMs));
+        return summary;
+    }
+
+    public List<Category> categories() {
+        Random random = new Random(seed);
+        List<Category> categories = new ArrayList<>(scale.categories);
+        for (int i = 0; i < scale.categories; i++) {
+            String[] template = CATEGORY_NAMES[i % CATEGORY_NAMES.length];
+            String name = i < CATEGORY_NAMES.length ? template[0] : template[0] + " " + (i / CATEGORY_NAMES.length + 1);
+            categories.add(new Category(name, template[1], String.format("#%06X", random.nextInt(0x1000000))));
+        }
+        return categories;
+    }
+
+    /**
+     * Streams the expenses rather than building a list, so ten million rows need no more memory
+     * than one insert chunk. {@code categoryIds} must line up with {@link #categories()}.
+     */
+    public Iterator<Expense> expenses(List<Long> categoryIds) {
+        Random random = new Random(seed * 31 + 1);
+        double[] popularity = zipf(categoryIds.size(), 1.1);
+        LocalDate firstDay = firstDay();
+        int days = (int) (scale.endDate.toEpochDay() - firstDay.toEpochDay()) + 1;
+
+        return new Iterator<>() {
+            private int produced;
+
+            @Override
+            public boolean hasNext() {
+                return produced < scale.expenses;
+            }
+
+            @Override
+            public Expense next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                produced++;
+                int category = pick(random, popularity);
+                String type = CATEGORY_NAMES[category % CATEGORY_NAMES.length][1];
+                LocalDate date = spendingDay(random, firstDay, days);
+                double amount = logNormal(random, medianAmount(type), 0.9);
+                String description = MERCHANTS[random.nextInt(MERCHANTS.length)];
+                return new Expense(date, amount, categoryIds.get(category), description);
+            }
+        };
+    }
+
+    public List<RecurringExpense> recurringExpenses(List<Long> categoryIds) {
+        Random random = new Random(seed * 31 + 2);
+        double[] popularity = zipf(categoryIds.size(), 1.1);
+        LocalDate firstDay = firstDay();
+        int days = (int) (scale.endDate.toEpochDay() - firstDay.toEpochDay()) + 1;
+
+        List<RecurringExpense> recurring = new ArrayList<>(scale.recurring);
+        for (int i = 0; i < scale.recurring; i++) {
+            int category = pick(random, popularity);
+            String type = CATEGORY_NAMES[category % CATEGORY_NAMES.length][1];
+            boolean yearly = random.nextDouble() < 0.2;
+            LocalDate startDate = firstDay.plusDays(random.nextInt(days));
+            double amount = logNormal(random, medianAmount(type) * (yearly ? 8 : 2), 0.5);
+            RecurringExpense expense = new RecurringExpense(categoryIds.get(category), amount,
+                (yearly ? "Annual " : "Monthly ") + CATEGORY_NAMES[category % CATEGORY_NAMES.length][0].toLowerCase(),
+                yearly ? RecurringExpense.Frequency.YEARLY : RecurringExpense.Frequency.MONTHLY, startDate);
+            if (random.nextDouble() < 0.15) {
+                expense.setEndDate(startDate.plusMonths(6 + random.nextInt(30)));
+            }
+            recurring.add(expense);
+        }
+        return recurring;
+    }
+
+    /** Contributions in several currencies, with rates jittered around CurrencyConverter's table. */
+    public List<InvestmentEntry> investments() {
+        Random random = new Random(seed * 31 + 3);
+        LocalDate firstDay = firstDay();
+        int days = (int) (scale.endDate.toEpochDay() - firstDay.toEpochDay()) + 1;
+
+        List<InvestmentEntry> entries = new ArrayList<>(scale.investments);
+        for (int i = 0; i < scale.investments; i++) {
+            String currency = CURRENCIES[pick(random, CURRENCY_WEIGHTS)];
+            double rate = CurrencyConverter.getExchangeRate(currency);
+            // Quote the amount in the entry's currency so base-currency values stay comparable
+            double amount = logNormal(random, 500 / rate, 0.7);
+            InvestmentEntry entry = new InvestmentEntry(firstDay.plusDays(random.nextInt(days)), amount, currency,
+                "Contribution to " + FUNDS[random.nextInt(FUNDS.length)]);
+            entry.setExchangeRate(Math.round(rate * (1 + random.nextGaussian() * 0.02) * 1_000_000) / 1_000_000.0);
+            entry.setRecurring(random.nextDouble() < 0.6);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private LocalDate firstDay() {
+        return scale.endDate.minusYears(scale.years).plusDays(1);
+    }
+
+    /** Weekends and December are busier; rejection sampling keeps the draw a single uniform pass. */
+    private static LocalDate spendingDay(Random random, LocalDate firstDay, int days) {
+        while (true) {
+            LocalDate date = firstDay.plusDays(random.nextInt(days));
+            double weight = (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY ? 1.5 : 1.0)
+                * (date.getMonth() == Month.DECEMBER ? 1.3 : 1.0);
+            if (random.nextDouble() * 1.95 < weight) {
+                return date;
+            }
+        }
+    }
+
+    private static double medianAmount(String type) {
+        return switch (type) {
+            case "MANDATORY" -> 60;
+            case "UTILITIES" -> 80;
+            case "KIDS" -> 30;
+            case "INVESTMENTS" -> 200;
+            default -> 25;
+        };
+    }
+
+    private static double logNormal(Random random, double median, double sigma) {
+        double value = median * Math.exp(sigma * random.nextGaussian());
+        return Math.max(0.01, Math.round(value * 100) / 100.0);
+    }
+
+    /** Zipf weights over {@code n} ranks, most popular first. */
+    private static double[] zipf(int n, double exponent) {
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1 / Math.pow(i + 1, exponent);
+        }
+        return weights;
+    }
+
+    private static int pick(Random random, double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            target -= weights[i];
+            if (target < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
@@ -23,6 +23,7 @@ public class DataInitializer {
 
     public static void cleanupOldData() {
         DatabaseManager.getInstance().cleanupOldData();
+        ExpenseService.getInstance().notifyExpensesReloaded();
         Logger.info(DataInitializer.class, "Old data cleaned up (data older than 3 years)");
     }
 }
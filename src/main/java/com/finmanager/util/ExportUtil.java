@@ -3,6 +3,7 @@ package com.finmanager.util;
 import com.finmanager.model.Expense;
 import com.finmanager.model.Category;
 import com.finmanager.model.InvestmentEntry;
+import com.finmanager.model.Money;
 import com.finmanager.service.CategoryService;
 import com.finmanager.service.ExpenseService;
 import com.finmanager.service.InvestmentService;
@@ -28,10 +29,10 @@ public class ExportUtil {
                 Category category = categoryService.getCategoryById(expense.getCategoryId());
                 String categoryName = category != null ? category.getName() : "Unknown";
                 
-                String line = String.format("%s,%s,%.2f,%s",
+                String line = String.format("%s,%s,%s,%s",
                     expense.getDate(),
                     escapeCsvValue(categoryName),
-                    expense.getAmount(),
+                    Money.format(expense.getAmountCents()),
                     escapeCsvValue(expense.getDescription())
                 );
                 writer.println(line);
@@ -49,12 +50,12 @@ public class ExportUtil {
             writer.println("Date,Amount,Currency,ExchangeRate,BaseCurrencyAmount,Description");
             
             for (InvestmentEntry entry : investments) {
-                String line = String.format("%s,%.2f,%s,%.4f,%.2f,%s",
+                String line = String.format("%s,%s,%s,%.4f,%s,%s",
                     entry.getDate(),
-                    entry.getAmount(),
+                    Money.format(entry.getAmountCents()),
                     entry.getCurrency(),
                     entry.getExchangeRate(),
-                    entry.getAmountInBaseCurrency(),
+                    Money.format(entry.getAmountInBaseCurrencyCents()),
                     escapeCsvValue(entry.getDescription())
                 );
                 writer.println(line);
@@ -64,7 +65,7 @@ public class ExportUtil {
         }
     }
 
-    private static String escapeCsvValue(String value) {
+    public static String escapeCsvValue(String value) {
         if (value == null) return "";
         if (value.contains(DELIMITER) || value.contains(QUOTE) || value.contains("\n")) {
             return QUOTE + value.replace(QUOTE, QUOTE + QUOTE) + QUOTE;
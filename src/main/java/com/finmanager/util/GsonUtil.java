@@ -2,44 +2,17 @@ package com.finmanager.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-
-import java.lang.reflect.Type;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 public class GsonUtil {
     private static final Gson gson = createGson();
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
 
     private static Gson createGson() {
-        return new GsonBuilder()
-                .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+        // Streaming adapters for LocalDate and the model classes; see ModelTypeAdapters
+        return ModelTypeAdapters.registerAll(new GsonBuilder())
                 .create();
     }
 
     public static Gson getInstance() {
         return gson;
     }
-
-    private static class LocalDateAdapter 
-            implements JsonSerializer<LocalDate>, JsonDeserializer<LocalDate> {
-        
-        @Override
-        public JsonElement serialize(LocalDate src, Type typeOfSrc, JsonSerializationContext context) {
-            return new JsonPrimitive(DATE_FORMATTER.format(src));
-        }
-
-        @Override
-        public LocalDate deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) 
-                throws JsonParseException {
-            return LocalDate.parse(json.getAsString(), DATE_FORMATTER);
-        }
-    }
 }
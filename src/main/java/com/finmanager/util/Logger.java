@@ -25,6 +25,10 @@ public class Logger {
         getLogger(clazz).warn(message);
     }
 
+    public static void warn(Class<?> clazz, String message, Exception e) {
+        getLogger(clazz).warn(message, e);
+    }
+
     public static void error(Class<?> clazz, String message) {
         getLogger(clazz).error(message);
     }
@@ -0,0 +1,379 @@
+package com.finmanager.util;
+
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.model.InvestmentEntry;
+import com.finmanager.model.Money;
+import com.finmanager.model.RecurringExpense;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Streaming Gson adapters for the model classes that every list endpoint serializes.
+ *
+ * They produce exactly what reflective Gson did: fields in declaration order, null fields left
+ * out (unless the writer serializes nulls), unknown fields skipped and the same lenient reading of
+ * quoted numbers and booleans. They just skip the reflection and the per-field boxing.
+ *
+ * Amounts are the one difference: the models hold cents, and the adapters write and read them
+ * as the plain decimal "amount" the API has always had, without going through a double.
+ */
+final class ModelTypeAdapters {
+
+    private ModelTypeAdapters() {}
+
+    static GsonBuilder registerAll(GsonBuilder builder) {
+        return builder
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter().nullSafe())
+            .registerTypeAdapter(Expense.class, new ExpenseAdapter().nullSafe())
+            .registerTypeAdapter(Category.class, new CategoryAdapter().nullSafe())
+            .registerTypeAdapter(RecurringExpense.class, new RecurringExpenseAdapter().nullSafe())
+            .registerTypeAdapter(InvestmentEntry.class, new InvestmentEntryAdapter().nullSafe());
+    }
+
+    /**
+     * ISO-8601 dates ("2024-03-15"). Strings for 1970-2099 are built once per day and then reused,
+     * so writing a date in that range allocates nothing.
+     */
+    static final class LocalDateAdapter extends TypeAdapter<LocalDate> {
+        private static final long FIRST_CACHED_DAY = LocalDate.of(1970, 1, 1).toEpochDay();
+        private static final String[] CACHE = new String[(int) (LocalDate.of(2100, 1, 1).toEpochDay() - FIRST_CACHED_DAY)];
+
+        @Override
+        public void write(JsonWriter out, LocalDate date) throws IOException {
+            out.value(format(date));
+        }
+
+        @Override
+        public LocalDate read(JsonReader in) throws IOException {
+            return parse(in.nextString());
+        }
+
+        static String format(LocalDate date) {
+            long index = date.toEpochDay() - FIRST_CACHED_DAY;
+            if (index < 0 || index >= CACHE.length) {
+                return date.toString();
+            }
+            // Racing threads may both build the string; either copy is correct
+            String formatted = CACHE[(int) index];
+            if (formatted == null) {
+                formatted = formatFourDigitYear(date);
+                CACHE[(int) index] = formatted;
+            }
+            return formatted;
+        }
+
+        private static String formatFourDigitYear(LocalDate date) {
+            int year = date.getYear();
+            int month = date.getMonthValue();
+            int day = date.getDayOfMonth();
+            char[] chars = {
+                (char) ('0' + year / 1000), (char) ('0' + year / 100 % 10), (char) ('0' + year / 10 % 10), (char) ('0' + year % 10),
+                '-', (char) ('0' + month / 10), (char) ('0' + month % 10),
+                '-', (char) ('0' + day / 10), (char) ('0' + day % 10)
+            };
+            return new String(chars);
+        }
+
+        /** Reads yyyy-MM-dd without a formatter; anything else goes to LocalDate.parse for the same errors as before. */
+        static LocalDate parse(String text) {
+            if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+                int year = digits(text, 0, 4);
+                int month = digits(text, 5, 7);
+                int day = digits(text, 8, 10);
+                if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= Month.of(month).length(Year.isLeap(year))) {
+                    return LocalDate.of(year, month, day);
+                }
+            }
+            return LocalDate.parse(text);
+        }
+
+        private static int digits(String text, int from, int to) {
+            int value = 0;
+            for (int i = from; i < to; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+    }
+
+    static final class ExpenseAdapter extends TypeAdapter<Expense> {
+        @Override
+        public void write(JsonWriter out, Expense expense) throws IOException {
+            out.beginObject();
+            writeLong(out, "id", expense.getId());
+            writeDate(out, "date", expense.getDate());
+            writeMoney(out, "amount", expense.getAmountCents());
+            writeLong(out, "categoryId", expense.getCategoryId());
+            writeString(out, "description", expense.getDescription());
+            writeLong(out, "recurringId", expense.getRecurringId());
+            out.name("isRecurringInstance").value(expense.isRecurringInstance());
+            out.endObject();
+        }
+
+        @Override
+        public Expense read(JsonReader in) throws IOException {
+            Expense expense = new Expense();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> expense.setId(readLong(in));
+                    case "date" -> expense.setDate(readDate(in));
+                    case "amount" -> expense.setAmountCents(readMoney(in));
+                    case "categoryId" -> expense.setCategoryId(readLong(in));
+                    case "description" -> expense.setDescription(readString(in));
+                    case "recurringId" -> expense.setRecurringId(readLong(in));
+                    case "isRecurringInstance" -> {
+                        Boolean value = readBoolean(in);
+                        if (value != null) {
+                            expense.setRecurringInstance(value);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return expense;
+        }
+    }
+
+    static final class CategoryAdapter extends TypeAdapter<Category> {
+        @Override
+        public void write(JsonWriter out, Category category) throws IOException {
+            out.beginObject();
+            writeLong(out, "id", category.getId());
+            writeString(out, "name", category.getName());
+            writeString(out, "type", category.getType());
+            writeString(out, "color", category.getColor());
+            out.name("active").value(category.isActive());
+            out.endObject();
+        }
+
+        @Override
+        public Category read(JsonReader in) throws IOException {
+            Category category = new Category();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> category.setId(readLong(in));
+                    case "name" -> category.setName(readString(in));
+                    case "type" -> category.setType(readString(in));
+                    case "color" -> category.setColor(readString(in));
+                    case "active" -> {
+                        Boolean value = readBoolean(in);
+                        if (value != null) {
+                            category.setActive(value);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return category;
+        }
+    }
+
+    static final class RecurringExpenseAdapter extends TypeAdapter<RecurringExpense> {
+        @Override
+        public void write(JsonWriter out, RecurringExpense recurring) throws IOException {
+            out.beginObject();
+            writeLong(out, "id", recurring.getId());
+            writeLong(out, "categoryId", recurring.getCategoryId());
+            writeMoney(out, "amount", recurring.getAmountCents());
+            writeString(out, "description", recurring.getDescription());
+            writeString(out, "frequency", recurring.getFrequency() == null ? null : recurring.getFrequency().name());
+            writeDate(out, "startDate", recurring.getStartDate());
+            writeDate(out, "endDate", recurring.getEndDate());
+            writeDate(out, "lastGeneratedDate", recurring.getLastGeneratedDate());
+            out.name("active").value(recurring.isActive());
+            out.endObject();
+        }
+
+        @Override
+        public RecurringExpense read(JsonReader in) throws IOException {
+            RecurringExpense recurring = new RecurringExpense();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> recurring.setId(readLong(in));
+                    case "categoryId" -> recurring.setCategoryId(readLong(in));
+                    case "amount" -> recurring.setAmountCents(readMoney(in));
+                    case "description" -> recurring.setDescription(readString(in));
+                    case "frequency" -> recurring.setFrequency(readFrequency(in));
+                    case "startDate" -> recurring.setStartDate(readDate(in));
+                    case "endDate" -> recurring.setEndDate(readDate(in));
+                    case "lastGeneratedDate" -> recurring.setLastGeneratedDate(readDate(in));
+                    case "active" -> {
+                        Boolean value = readBoolean(in);
+                        if (value != null) {
+                            recurring.setActive(value);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return recurring;
+        }
+
+        /** Unknown names become null, as Gson's enum adapter does. */
+        private static RecurringExpense.Frequency readFrequency(JsonReader in) throws IOException {
+            String name = readString(in);
+            if (name == null) {
+                return null;
+            }
+            for (RecurringExpense.Frequency frequency : RecurringExpense.Frequency.values()) {
+                if (frequency.name().equals(name)) {
+                    return frequency;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final class InvestmentEntryAdapter extends TypeAdapter<InvestmentEntry> {
+        @Override
+        public void write(JsonWriter out, InvestmentEntry entry) throws IOException {
+            out.beginObject();
+            writeLong(out, "id", entry.getId());
+            writeDate(out, "date", entry.getDate());
+            writeMoney(out, "amount", entry.getAmountCents());
+            writeString(out, "currency", entry.getCurrency());
+            writeDouble(out, "exchangeRate", entry.getExchangeRate());
+            writeString(out, "description", entry.getDescription());
+            out.name("isRecurring").value(entry.isRecurring());
+            out.endObject();
+        }
+
+        @Override
+        public InvestmentEntry read(JsonReader in) throws IOException {
+            InvestmentEntry entry = new InvestmentEntry();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id" -> entry.setId(readLong(in));
+                    case "date" -> entry.setDate(readDate(in));
+                    case "amount" -> entry.setAmountCents(readMoney(in));
+                    case "currency" -> entry.setCurrency(readString(in));
+                    case "exchangeRate" -> entry.setExchangeRate(readDouble(in));
+                    case "description" -> entry.setDescription(readString(in));
+                    case "isRecurring" -> {
+                        Boolean value = readBoolean(in);
+                        if (value != null) {
+                            entry.setRecurring(value);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return entry;
+        }
+    }
+
+    // Writers go through nullValue() so the JsonWriter decides whether a null field is emitted at all
+
+    private static void writeLong(JsonWriter out, String name, Long value) throws IOException {
+        out.name(name);
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.longValue());
+        }
+    }
+
+    private static void writeDouble(JsonWriter out, String name, Double value) throws IOException {
+        out.name(name);
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.doubleValue());
+        }
+    }
+
+    private static void writeMoney(JsonWriter out, String name, long cents) throws IOException {
+        out.name(name).jsonValue(Money.format(cents));
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        out.name(name).value(value);
+    }
+
+    private static void writeDate(JsonWriter out, String name, LocalDate value) throws IOException {
+        out.name(name).value(value == null ? null : LocalDateAdapter.format(value));
+    }
+
+    // Readers accept the same loose input as Gson's built-in adapters (quoted numbers, "true")
+
+    private static Long readLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static Double readDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    /** A number or numeric string as cents; null leaves the amount at zero, which validation rejects. */
+    private static long readMoney(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        try {
+            return Money.parse(in.nextString());
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+    }
+
+    private static Boolean readBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();
+    }
+
+    private static LocalDate readDate(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return LocalDateAdapter.parse(in.nextString());
+    }
+}
@@ -8,6 +8,10 @@ public class ValidationUtil {
         return amount != null && amount > 0;
     }
 
+    public static boolean isValidAmountCents(long amountCents) {
+        return amountCents > 0;
+    }
+
     public static boolean isValidCategoryName(String name) {
         return name != null && !name.trim().isEmpty() && name.length() <= 50;
     }
@@ -113,6 +113,8 @@ public class Phase1StepDefinitions {
             stmt.execute("DROP TABLE IF EXISTS recurring_expenses");
             stmt.execute("DROP TABLE IF EXISTS investment_entries");
             stmt.execute("DROP TABLE IF EXISTS categories");
+            stmt.execute("DROP TABLE IF EXISTS schema_backfill");
+            stmt.execute("DROP TABLE IF EXISTS schema_version");
         } catch (Exception e) {
             // Ignore cleanup errors
         }
@@ -0,0 +1,76 @@
+package com.finmanager.benchmark;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.service.CategoryService;
+import com.finmanager.service.ExpenseService;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures createExpenses throughput against the one-row-per-call createExpense path.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.finmanager.benchmark.BatchInsertBenchmark \
+ *       -Dbench.rows=100000 -Dbench.singleRows=5000
+ */
+public class BatchInsertBenchmark {
+    private static final int ROWS = Integer.getInteger("bench.rows", 100_000);
+    private static final int SINGLE_ROWS = Integer.getInteger("bench.singleRows", 5_000);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 5);
+    private static final String DB_FILE = "bench-batch.db";
+
+    public static void main(String[] args) throws Exception {
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            new File(DB_FILE + suffix).delete();
+        }
+        System.setProperty("db.url", "jdbc:sqlite:" + DB_FILE);
+
+        ExpenseService expenseService = ExpenseService.getInstance();
+        Long categoryId = CategoryService.getInstance().createCategory(new Category("Bench", "LEISURE", "#336699"));
+
+        long start = System.nanoTime();
+        for (Expense expense : generate(SINGLE_ROWS, categoryId, 1)) {
+            expenseService.createExpense(expense);
+        }
+        double singleSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("createExpense:  %,d rows in %.2f s -> %,.0f rows/s%n",
+            SINGLE_ROWS, singleSeconds, SINGLE_ROWS / singleSeconds);
+
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Expense> batch = generate(ROWS, categoryId, round + 2);
+            start = System.nanoTime();
+            List<Long> ids = expenseService.createExpenses(batch);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (ids.size() != ROWS) {
+                throw new IllegalStateException("Expected " + ROWS + " ids, got " + ids.size());
+            }
+            best = Math.min(best, seconds);
+            System.out.printf("createExpenses: %,d rows in %.2f s -> %,.0f rows/s%n", ROWS, seconds, ROWS / seconds);
+        }
+        System.out.printf("best createExpenses round: %,.0f rows/s%n", ROWS / best);
+
+        DatabaseManager.getInstance().shutdown();
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            new File(DB_FILE + suffix).delete();
+        }
+    }
+
+    private static List<Expense> generate(int rows, Long categoryId, long seed) {
+        Random random = new Random(seed);
+        LocalDate base = LocalDate.of(2023, 1, 1);
+        List<Expense> expenses = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            expenses.add(new Expense(base.plusDays(random.nextInt(730)),
+                Math.round(random.nextDouble() * 50_000) / 100.0, categoryId, "Bench row " + i));
+        }
+        return expenses;
+    }
+}
@@ -0,0 +1,110 @@
+package com.finmanager.benchmark;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Category;
+import com.finmanager.service.CategoryService;
+import com.finmanager.service.ExpenseService;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Compares the per-category breakdown loop against the single grouped scan.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.finmanager.benchmark.CategoryBreakdownBenchmark \
+ *       -Dbench.expenses=1000000 -Dbench.categories=300
+ */
+public class CategoryBreakdownBenchmark {
+    private static final int EXPENSES = Integer.getInteger("bench.expenses", 1_000_000);
+    private static final int CATEGORIES = Integer.getInteger("bench.categories", 300);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 20);
+    private static final String DB_FILE = "bench-breakdown.db";
+
+    public static void main(String[] args) throws Exception {
+        new File(DB_FILE).delete();
+        System.setProperty("db.url", "jdbc:sqlite:" + DB_FILE);
+
+        seed();
+
+        ExpenseService expenseService = ExpenseService.getInstance();
+        CategoryService categoryService = CategoryService.getInstance();
+        YearMonth month = YearMonth.of(2024, 6);
+
+        // Warm up both paths and check they agree
+        Map<String, Double> legacy = legacyBreakdown(categoryService, expenseService, month);
+        Map<String, Double> grouped = expenseService.getTotalExpensesByCategoryForMonth(month);
+        if (!legacy.keySet().equals(grouped.keySet()) || !new ArrayList<>(legacy.keySet()).equals(new ArrayList<>(grouped.keySet()))) {
+            throw new IllegalStateException("Breakdown results differ");
+        }
+
+        long legacyNanos = 0;
+        long groupedNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            legacyBreakdown(categoryService, expenseService, month);
+            legacyNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            expenseService.getTotalExpensesByCategoryForMonth(month);
+            groupedNanos += System.nanoTime() - start;
+        }
+
+        int categoryCount = categoryService.getAllCategories().size();
+        System.out.printf("expenses=%d categories=%d iterations=%d%n", EXPENSES, categoryCount, ITERATIONS);
+        System.out.printf("per-category loop: %d queries, %.2f ms/op%n", 1 + categoryCount, legacyNanos / 1e6 / ITERATIONS);
+        System.out.printf("grouped scan:      %d query,  %.2f ms/op%n", 1, groupedNanos / 1e6 / ITERATIONS);
+
+        new File(DB_FILE).delete();
+    }
+
+    private static Map<String, Double> legacyBreakdown(CategoryService categoryService, ExpenseService expenseService, YearMonth month) {
+        Map<String, Double> breakdown = new LinkedHashMap<>();
+        for (Category category : categoryService.getAllCategories()) {
+            Double total = expenseService.getTotalExpensesByCategoryAndMonth(category.getId(), month);
+            if (total > 0) {
+                breakdown.put(category.getName(), total);
+            }
+        }
+        return breakdown;
+    }
+
+    private static void seed() throws SQLException {
+        Random random = new Random(42);
+        LocalDate firstDay = LocalDate.of(2022, 1, 1);
+        int days = 3 * 365;
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO categories(name, type, color, active) VALUES(?, 'LEISURE', '#123456', 1)")) {
+                for (int i = 0; i < CATEGORIES; i++) {
+                    pstmt.setString(1, "Category " + i);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO expenses(epoch_day, amount_cents, category_id, description) VALUES(?, ?, ?, ?)")) {
+                for (int i = 0; i < EXPENSES; i++) {
+                    pstmt.setLong(1, firstDay.plusDays(random.nextInt(days)).toEpochDay());
+                    pstmt.setLong(2, Math.round(random.nextDouble() * 20000));
+                    pstmt.setLong(3, 1 + random.nextInt(CATEGORIES));
+                    pstmt.setString(4, "Expense " + i);
+                    pstmt.addBatch();
+                    if (i % 10_000 == 9_999) {
+                        pstmt.executeBatch();
+                    }
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+}
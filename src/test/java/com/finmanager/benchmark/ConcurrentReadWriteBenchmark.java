@@ -0,0 +1,159 @@
+package com.finmanager.benchmark;
+
+import com.finmanager.db.ConnectionPool;
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.db.SqlitePragmaProfile;
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.service.CategoryService;
+import com.finmanager.service.ExpenseService;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mixed read/write throughput of each {@link SqlitePragmaProfile} on the application's schema
+ * (epoch-day dates, cents amounts, covering indexes, rollup and search triggers). Reads run
+ * ExpenseService's month listing and month total; writes run its single-row insert, straight on
+ * pooled connections so the profiles' locking is what is measured, not the writer queue.
+ *
+ * The schema and seed rows are created once through DatabaseManager, then copied for each profile.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.finmanager.benchmark.ConcurrentReadWriteBenchmark \
+ *       -Dbench.readers=8 -Dbench.writers=2 -Dbench.seconds=10
+ */
+public class ConcurrentReadWriteBenchmark {
+    private static final int READERS = Integer.getInteger("bench.readers", 8);
+    private static final int WRITERS = Integer.getInteger("bench.writers", 2);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 10);
+    private static final int SEED_ROWS = Integer.getInteger("bench.expenses", 100_000);
+    private static final int CATEGORIES = 20;
+    private static final String TEMPLATE_FILE = "bench-profile-template.db";
+
+    private static String listSql;
+    private static String totalSql;
+    private static String insertSql;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("readers=%d writers=%d seconds=%d seedRows=%d%n", READERS, WRITERS, SECONDS, SEED_ROWS);
+        List<Long> categoryIds = createTemplate();
+        for (SqlitePragmaProfile profile : SqlitePragmaProfile.values()) {
+            run(profile, categoryIds);
+        }
+        deleteDatabase(TEMPLATE_FILE);
+    }
+
+    /** Migrates and seeds the template database through the application's own services. */
+    private static List<Long> createTemplate() throws SQLException {
+        deleteDatabase(TEMPLATE_FILE);
+        System.setProperty("db.url", "jdbc:sqlite:" + TEMPLATE_FILE);
+        DatabaseManager db = DatabaseManager.getInstance();
+        listSql = "SELECT " + db.expenseColumns("") + " FROM expenses WHERE " + db.expenseDay("") + " BETWEEN ? AND ? " +
+                  "ORDER BY epoch_day DESC, id DESC";
+        totalSql = "SELECT COALESCE(SUM(" + db.expenseCents("") + "), 0) as total FROM expenses WHERE " + db.expenseDay("") + " BETWEEN ? AND ?";
+        insertSql = "INSERT INTO expenses(epoch_day, amount_cents, category_id, description, recurring_id, is_recurring_instance) " +
+                    "VALUES(?, ?, ?, ?, NULL, 0)";
+
+        List<Long> categoryIds = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categoryIds.add(CategoryService.getInstance().createCategory(new Category("Bench " + i, "LEISURE", "#336699")));
+        }
+        Random random = new Random(7);
+        List<Expense> expenses = new ArrayList<>(SEED_ROWS);
+        for (int i = 0; i < SEED_ROWS; i++) {
+            expenses.add(new Expense(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(366)),
+                random.nextInt(10_000) / 100.0, categoryIds.get(random.nextInt(CATEGORIES)), "Seed " + i));
+        }
+        ExpenseService.getInstance().createExpenses(expenses);
+        // Closing the last connection checkpoints the WAL into the main file
+        db.shutdown();
+        return categoryIds;
+    }
+
+    private static void run(SqlitePragmaProfile profile, List<Long> categoryIds) throws Exception {
+        String file = "bench-profile-" + profile.name().toLowerCase() + ".db";
+        deleteDatabase(file);
+        Files.copy(Path.of(TEMPLATE_FILE), Path.of(file), StandardCopyOption.REPLACE_EXISTING);
+        String url = "jdbc:sqlite:" + file;
+
+        ConnectionPool pool = new ConnectionPool(() -> {
+            Connection conn = DriverManager.getConnection(url);
+            profile.apply(conn);
+            return conn;
+        }, 0, READERS + WRITERS, 60_000, 60_000, 0, false, true, 1, 60_000);
+
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(READERS + WRITERS)) {
+            for (int i = 0; i < READERS; i++) {
+                int seed = i;
+                executor.submit(() -> readLoop(pool, deadline, new Random(seed), reads, errors));
+            }
+            for (int i = 0; i < WRITERS; i++) {
+                int seed = 1000 + i;
+                executor.submit(() -> writeLoop(pool, deadline, new Random(seed), categoryIds, writes, errors));
+            }
+        }
+        pool.close();
+
+        System.out.printf("%-12s reads/s=%8.0f writes/s=%7.0f errors=%d%n", profile.name().toLowerCase(),
+            reads.sum() / (double) SECONDS, writes.sum() / (double) SECONDS, errors.sum());
+        deleteDatabase(file);
+    }
+
+    private static void readLoop(ConnectionPool pool, long deadline, Random random, LongAdder reads, LongAdder errors) {
+        while (System.nanoTime() < deadline) {
+            LocalDate start = LocalDate.of(2024, 1 + random.nextInt(12), 1);
+            try (Connection conn = pool.borrow();
+                 PreparedStatement pstmt = conn.prepareStatement(random.nextBoolean() ? listSql : totalSql)) {
+                pstmt.setLong(1, start.toEpochDay());
+                pstmt.setLong(2, start.plusMonths(1).minusDays(1).toEpochDay());
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString(1);
+                    }
+                }
+                reads.increment();
+            } catch (SQLException e) {
+                errors.increment();
+            }
+        }
+    }
+
+    private static void writeLoop(ConnectionPool pool, long deadline, Random random, List<Long> categoryIds,
+                                  LongAdder writes, LongAdder errors) {
+        while (System.nanoTime() < deadline) {
+            try (Connection conn = pool.borrow();
+                 PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+                pstmt.setLong(1, LocalDate.of(2024, 1, 1).plusDays(random.nextInt(366)).toEpochDay());
+                pstmt.setLong(2, random.nextInt(10_000));
+                pstmt.setLong(3, categoryIds.get(random.nextInt(categoryIds.size())));
+                pstmt.setString(4, "Bench write");
+                pstmt.executeUpdate();
+                writes.increment();
+            } catch (SQLException e) {
+                errors.increment();
+            }
+        }
+    }
+
+    private static void deleteDatabase(String file) {
+        for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+            new File(file + suffix).delete();
+        }
+    }
+}
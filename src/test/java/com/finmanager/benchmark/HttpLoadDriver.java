@@ -0,0 +1,233 @@
+package com.finmanager.benchmark;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.server.EmbeddedServer;
+import com.finmanager.util.DataGenerator;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Closed-loop HTTP load test: each client sends a request, waits for the response and sends the
+ * next, replaying a mixed workload of dashboard reads, expense CRUD, analytics and generate-all.
+ * Reports throughput and p50/p99/p999 latency per endpoint.
+ *
+ * By default it seeds a fresh database with DataGenerator and starts an EmbeddedServer in-process,
+ * so it runs offline. Set -Dload.url to drive an already running server instead.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.finmanager.benchmark.HttpLoadDriver \
+ *       -Dload.clients=16 -Dload.seconds=30 -Dload.expenses=1000000
+ */
+public class HttpLoadDriver {
+    private static final int CLIENTS = Integer.getInteger("load.clients", 8);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 20);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 5);
+    private static final int EXPENSES = Integer.getInteger("load.expenses", 100_000);
+    private static final long SEED = Long.getLong("load.seed", 42);
+    private static final int PORT = Integer.getInteger("load.port", 18080);
+    private static final String URL = System.getProperty("load.url");
+    private static final String DB_FILE = "bench-load.db";
+    private static final LocalDate END_DATE = LocalDate.of(2024, 12, 31);
+    private static final int YEARS = 3;
+
+    /** Workload mix: operation name and relative weight. */
+    private static final String[] OPERATIONS = {"dashboard", "analytics", "expense-crud", "investments", "generate-all"};
+    private static final int[] WEIGHTS = {55, 20, 15, 9, 1};
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String baseUrl;
+    private final long categoryId;
+
+    private HttpLoadDriver(String baseUrl) throws Exception {
+        this.baseUrl = baseUrl;
+        // Created expenses go to the first category so the workload also runs against an existing server
+        String categories = http.send(get("/api/categories").build(), HttpResponse.BodyHandlers.ofString()).body();
+        this.categoryId = JsonParser.parseString(categories).getAsJsonArray().get(0).getAsJsonObject().get("id").getAsLong();
+    }
+
+    public static void main(String[] args) throws Exception {
+        EmbeddedServer server = null;
+        String baseUrl = URL;
+        if (baseUrl == null) {
+            for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                new File(DB_FILE + suffix).delete();
+            }
+            System.setProperty("db.url", "jdbc:sqlite:" + DB_FILE);
+
+            DataGenerator.Scale scale = new DataGenerator.Scale();
+            scale.expenses = EXPENSES;
+            scale.years = YEARS;
+            scale.endDate = END_DATE;
+            new DataGenerator(SEED, scale).generate();
+
+            server = new EmbeddedServer(PORT);
+            server.start();
+            baseUrl = "http://localhost:" + PORT;
+        }
+        System.out.printf("url=%s clients=%d seconds=%d warmup=%d expenses=%d seed=%d%n",
+            baseUrl, CLIENTS, SECONDS, WARMUP_SECONDS, EXPENSES, SEED);
+
+        try {
+            HttpLoadDriver driver = new HttpLoadDriver(baseUrl);
+            driver.run(WARMUP_SECONDS, 0);
+            print(driver.run(SECONDS, 1), SECONDS);
+        } finally {
+            if (server != null) {
+                server.stop();
+                DatabaseManager.getInstance().shutdown();
+                for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                    new File(DB_FILE + suffix).delete();
+                }
+            }
+        }
+    }
+
+    /** Runs every client for {@code seconds} and merges their per-endpoint latencies. */
+    private Map<String, Latencies> run(int seconds, long seedOffset) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Map<String, Latencies>>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                Random random = new Random(SEED + seedOffset * 1_000 + i);
+                clients.add(executor.submit(() -> client(random, deadline)));
+            }
+        }
+        Map<String, Latencies> merged = new TreeMap<>();
+        for (Future<Map<String, Latencies>> client : clients) {
+            client.get().forEach((endpoint, latencies) -> merged.computeIfAbsent(endpoint, e -> new Latencies()).addAll(latencies));
+        }
+        return merged;
+    }
+
+    private Map<String, Latencies> client(Random random, long deadline) {
+        Map<String, Latencies> latencies = new HashMap<>();
+        int totalWeight = Arrays.stream(WEIGHTS).sum();
+        while (System.nanoTime() < deadline) {
+            int draw = random.nextInt(totalWeight);
+            int op = 0;
+            while (draw >= WEIGHTS[op]) {
+                draw -= WEIGHTS[op++];
+            }
+            YearMonth month = YearMonth.from(END_DATE.minusMonths(random.nextInt(YEARS * 12)));
+            switch (OPERATIONS[op]) {
+                case "dashboard" -> {
+                    send(latencies, "GET /api/expenses", get("/api/expenses?month=" + month));
+                    send(latencies, "GET /api/expenses/total", get("/api/expenses/total?month=" + month));
+                    send(latencies, "GET /api/categories", get("/api/categories"));
+                    send(latencies, "GET /api/analytics/breakdown", get("/api/analytics/breakdown?month=" + month));
+                }
+                case "analytics" -> send(latencies, "GET /api/analytics/trend", get("/api/analytics/trend?year=" + month.getYear()));
+                case "expense-crud" -> expenseCrud(latencies, random, month);
+                case "investments" -> send(latencies, "GET /api/investments", get("/api/investments"));
+                case "generate-all" -> send(latencies, "POST /api/recurring/generate-all",
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/api/recurring/generate-all")).POST(HttpRequest.BodyPublishers.noBody()));
+                default -> throw new IllegalStateException(OPERATIONS[op]);
+            }
+        }
+        return latencies;
+    }
+
+    private void expenseCrud(Map<String, Latencies> latencies, Random random, YearMonth month) {
+        String date = month.atDay(1 + random.nextInt(month.lengthOfMonth())).toString();
+        String body = "{\"date\":\"" + date + "\",\"amount\":" + (1 + random.nextInt(10_000)) / 100.0
+            + ",\"categoryId\":" + categoryId + ",\"description\":\"Load test\"}";
+        String created = send(latencies, "POST /api/expenses", json("/api/expenses", "POST", body));
+        if (created == null || !created.contains("\"id\"")) {
+            return;
+        }
+        long id = JsonParser.parseString(created).getAsJsonObject().get("id").getAsLong();
+        send(latencies, "PUT /api/expense", json("/api/expense", "PUT", created.replace("\"Load test\"", "\"Load test updated\"")));
+        send(latencies, "DELETE /api/expense", HttpRequest.newBuilder(URI.create(baseUrl + "/api/expense?id=" + id)).DELETE());
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private HttpRequest.Builder json(String path, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    /** Sends one request and records its latency; returns the body, or null on failure. */
+    private String send(Map<String, Latencies> latencies, String endpoint, HttpRequest.Builder request) {
+        Latencies log = latencies.computeIfAbsent(endpoint, e -> new Latencies());
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+            log.add(System.nanoTime() - start);
+            // The API reports most failures as an error object with a 2xx status
+            if (response.statusCode() >= 400 || response.body().startsWith("{\"error\"")) {
+                log.errors++;
+                return null;
+            }
+            return response.body();
+        } catch (Exception e) {
+            log.add(System.nanoTime() - start);
+            log.errors++;
+            return null;
+        }
+    }
+
+    private static void print(Map<String, Latencies> results, int seconds) {
+        System.out.printf("%-34s %9s %7s %9s %9s %9s %9s %9s%n", "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p999 ms", "Max ms");
+        Latencies all = new Latencies();
+        for (Map.Entry<String, Latencies> entry : results.entrySet()) {
+            printRow(entry.getKey(), entry.getValue(), seconds);
+            all.addAll(entry.getValue());
+        }
+        printRow("TOTAL", all, seconds);
+    }
+
+    private static void printRow(String name, Latencies latencies, int seconds) {
+        latencies.sort();
+        System.out.printf("%-34s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", name, latencies.size, latencies.errors,
+            latencies.size / (double) seconds, latencies.percentile(50), latencies.percentile(99),
+            latencies.percentile(99.9), latencies.percentile(100));
+    }
+
+    /** Growable array of latencies in nanoseconds; percentiles are exact (nearest rank). */
+    private static class Latencies {
+        long[] values = new long[1024];
+        int size;
+        int errors;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+            errors += other.errors;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        double percentile(double p) {
+            if (size == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p / 100 * size);
+            return values[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
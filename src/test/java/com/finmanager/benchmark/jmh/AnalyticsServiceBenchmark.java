@@ -0,0 +1,62 @@
+package com.finmanager.benchmark.jmh;
+
+import com.finmanager.model.Expense;
+import com.finmanager.service.AnalyticsService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every public {@link AnalyticsService} query against the seeded dataset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsServiceBenchmark {
+    private AnalyticsService analyticsService;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDataset dataset) {
+        analyticsService = AnalyticsService.getInstance();
+    }
+
+    @Benchmark
+    public Map<String, Double> getCategoryBreakdown(BenchmarkDataset dataset) {
+        return analyticsService.getCategoryBreakdown(dataset.month);
+    }
+
+    @Benchmark
+    public Map<String, Double> getYearlyTrendByCategory(BenchmarkDataset dataset) {
+        return analyticsService.getYearlyTrendByCategory(dataset.year);
+    }
+
+    @Benchmark
+    public Double getTotalByCategory(BenchmarkDataset dataset) {
+        return analyticsService.getTotalByCategory(dataset.categoryId(0), dataset.month);
+    }
+
+    @Benchmark
+    public List<Expense> getExpensesByCategory(BenchmarkDataset dataset) {
+        return analyticsService.getExpensesByCategory(dataset.categoryId(0), dataset.month);
+    }
+
+    @Benchmark
+    public Double getMonthlyTotal(BenchmarkDataset dataset) {
+        return analyticsService.getMonthlyTotal(dataset.month);
+    }
+
+    @Benchmark
+    public Map<Integer, Double> getMonthlyTrend(BenchmarkDataset dataset) {
+        return analyticsService.getMonthlyTrend(dataset.year);
+    }
+
+    @Benchmark
+    public Map<Integer, Map<String, Double>> getYearlyComparison(BenchmarkDataset dataset) {
+        return analyticsService.getYearlyComparison(dataset.year - 1, dataset.year);
+    }
+}
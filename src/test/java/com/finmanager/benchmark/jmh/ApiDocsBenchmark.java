@@ -0,0 +1,51 @@
+package com.finmanager.benchmark.jmh;
+
+import com.finmanager.config.SwaggerConfig;
+import com.finmanager.server.PrecomputedResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of /api-docs: rebuilding and serializing the spec every time, as the handler
+ * used to, against writing the precomputed bytes. Needs no database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiDocsBenchmark {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+    private PrecomputedResponse precomputed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        precomputed = PrecomputedResponse.of(SwaggerConfig.generateOpenAPIJson(), "application/json; charset=utf-8");
+    }
+
+    @Benchmark
+    public int regeneratePerRequest() throws IOException {
+        out.reset();
+        out.write(SwaggerConfig.generateOpenAPIJson().getBytes(StandardCharsets.UTF_8));
+        return out.size();
+    }
+
+    @Benchmark
+    public int precomputedIdentity() throws IOException {
+        out.reset();
+        precomputed.writeTo(out, false);
+        return out.size();
+    }
+
+    @Benchmark
+    public int precomputedGzip() throws IOException {
+        out.reset();
+        precomputed.writeTo(out, true);
+        return out.size();
+    }
+}
@@ -0,0 +1,116 @@
+package com.finmanager.benchmark.jmh;
+
+import com.finmanager.api.AnalyticsAPI;
+import com.finmanager.api.CategoryAPI;
+import com.finmanager.api.ExpenseAPI;
+import com.finmanager.model.Expense;
+import com.finmanager.service.ExpenseService;
+import com.finmanager.util.GsonUtil;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API JSON paths end to end (query plus serialization) and {@link GsonUtil} serialization on its
+ * own, so a regression can be placed on either side of the service boundary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiJsonBenchmark {
+    private static final Type EXPENSE_LIST = new TypeToken<List<Expense>>() {}.getType();
+
+    private ExpenseAPI expenseAPI;
+    private AnalyticsAPI analyticsAPI;
+    private CategoryAPI categoryAPI;
+    private Gson gson;
+    private String monthKey;
+    private List<Expense> monthExpenses;
+    private String monthExpensesJson;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDataset dataset) {
+        expenseAPI = new ExpenseAPI();
+        analyticsAPI = new AnalyticsAPI();
+        categoryAPI = new CategoryAPI();
+        gson = GsonUtil.getInstance();
+        monthKey = dataset.month.toString();
+        monthExpenses = ExpenseService.getInstance().getExpensesByMonth(dataset.month);
+        monthExpensesJson = gson.toJson(monthExpenses);
+    }
+
+    @Benchmark
+    public String expensesByMonth() {
+        return expenseAPI.getExpensesByMonth(monthKey);
+    }
+
+    /** The server path: rows go through a JsonWriter into an 8 KB buffer, never a whole String. */
+    @Benchmark
+    public void streamExpensesByMonth() throws IOException, SQLException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8), 8192);
+        JsonWriter writer = gson.newJsonWriter(out);
+        expenseAPI.streamExpensesByMonth(monthKey).writeTo(writer);
+        writer.flush();
+    }
+
+    @Benchmark
+    public String expensesByDateRange(BenchmarkDataset dataset) {
+        return expenseAPI.getExpensesByDateRange(dataset.month.atDay(1).toString(), dataset.month.plusMonths(2).atEndOfMonth().toString());
+    }
+
+    @Benchmark
+    public String totalExpensesByMonth() {
+        return expenseAPI.getTotalExpensesByMonth(monthKey);
+    }
+
+    @Benchmark
+    public String allCategories() {
+        return categoryAPI.getAllCategories();
+    }
+
+    @Benchmark
+    public String categoryBreakdown() {
+        return analyticsAPI.getCategoryBreakdown(monthKey);
+    }
+
+    @Benchmark
+    public String yearlyTrendByCategory(BenchmarkDataset dataset) {
+        return analyticsAPI.getYearlyTrendByCategory(dataset.year);
+    }
+
+    @Benchmark
+    public String monthlyTotal() {
+        return analyticsAPI.getMonthlyTotal(monthKey);
+    }
+
+    @Benchmark
+    public String monthlyTrend(BenchmarkDataset dataset) {
+        return analyticsAPI.getMonthlyTrend(dataset.year);
+    }
+
+    @Benchmark
+    public String yearlyComparison(BenchmarkDataset dataset) {
+        return analyticsAPI.getYearlyComparison(dataset.year - 1, dataset.year);
+    }
+
+    @Benchmark
+    public String serializeMonthExpenses() {
+        return gson.toJson(monthExpenses);
+    }
+
+    @Benchmark
+    public List<Expense> deserializeMonthExpenses() {
+        return gson.fromJson(monthExpensesJson, EXPENSE_LIST);
+    }
+}
@@ -0,0 +1,156 @@
+package com.finmanager.benchmark.jmh;
+
+import com.finmanager.db.DatabaseManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded SQLite dataset shared by the JMH benchmarks.
+ *
+ * Each size gets its own database under target/jmh-data, seeded on first use and reused by later
+ * forks and runs, so a 10M-row dataset is only built once. DatabaseManager reads db.url once per
+ * JVM, which relies on JMH forking a fresh JVM per benchmark; do not run with -f 0.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDataset {
+    static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    static final int YEARS = 5;
+    static final int CATEGORIES = 24;
+    static final int RECURRING = 40;
+
+    private static final Path DATA_DIR = Paths.get("target", "jmh-data");
+    private static final String[] TYPES = {"HOUSING", "UTILITIES", "FOOD", "TRANSPORT", "HEALTH", "LEISURE"};
+    private static final String[] MERCHANTS = {
+        "Grocery store", "Coffee shop", "Fuel station", "Pharmacy", "Restaurant", "Cinema",
+        "Bookshop", "Electricity bill", "Water bill", "Internet", "Train ticket", "Gym"
+    };
+
+    /** Number of seeded expenses; override with -p size=1000000 (10k to 10M). */
+    @Param({"10000"})
+    public int size;
+
+    /** Month in the middle of the dataset used by month-scoped benchmarks. */
+    public final YearMonth month = YearMonth.of(2022, 6);
+    public final int year = 2022;
+    public List<Long> categoryIds;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException, SQLException {
+        Files.createDirectories(DATA_DIR);
+        Path db = DATA_DIR.resolve("expenses-" + size + ".db");
+        Path seeded = DATA_DIR.resolve("expenses-" + size + ".seeded");
+        if (!Files.exists(seeded)) {
+            Files.deleteIfExists(db);
+            Files.deleteIfExists(Paths.get(db + "-wal"));
+            Files.deleteIfExists(Paths.get(db + "-shm"));
+        }
+        System.setProperty("db.url", "jdbc:sqlite:" + db);
+
+        if (!Files.exists(seeded)) {
+            seed(size);
+            Files.createFile(seeded);
+        }
+        categoryIds = loadCategoryIds();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        DatabaseManager.getInstance().shutdown();
+    }
+
+    /** A category id picked deterministically from the seeded set. */
+    public Long categoryId(int i) {
+        return categoryIds.get(Math.floorMod(i, categoryIds.size()));
+    }
+
+    private static List<Long> loadCategoryIds() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            return loadCategoryIds(conn);
+        }
+    }
+
+    /**
+     * Spreads expenses over five years with a skewed category mix and log-normal amounts, which is
+     * closer to real statements than uniform data: a few categories dominate and most amounts are small.
+     */
+    private static void seed(int size) throws SQLException {
+        Random random = new Random(42);
+        int days = (int) (FIRST_DAY.plusYears(YEARS).toEpochDay() - FIRST_DAY.toEpochDay());
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO categories(name, type, color, active) VALUES(?, ?, ?, 1)")) {
+                for (int i = 0; i < CATEGORIES; i++) {
+                    pstmt.setString(1, "Category " + i);
+                    pstmt.setString(2, TYPES[i % TYPES.length]);
+                    pstmt.setString(3, String.format("#%06X", random.nextInt(0x1000000)));
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            List<Long> categoryIds = loadCategoryIds(conn);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO recurring_expenses(category_id, amount_cents, description, frequency, start_epoch_day, active) " +
+                    "VALUES(?, ?, ?, ?, ?, 1)")) {
+                for (int i = 0; i < RECURRING; i++) {
+                    pstmt.setLong(1, categoryIds.get(i % categoryIds.size()));
+                    pstmt.setLong(2, (10 + random.nextInt(1500)) * 100L);
+                    pstmt.setString(3, "Subscription " + i);
+                    pstmt.setString(4, i % 5 == 0 ? "YEARLY" : "MONTHLY");
+                    pstmt.setLong(5, FIRST_DAY.toEpochDay());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO expenses(epoch_day, amount_cents, category_id, description) VALUES(?, ?, ?, ?)")) {
+                for (int i = 0; i < size; i++) {
+                    // Squaring a uniform draw skews the mix towards the first categories
+                    double skew = random.nextDouble();
+                    pstmt.setLong(1, FIRST_DAY.plusDays(random.nextInt(days)).toEpochDay());
+                    pstmt.setLong(2, Math.min(500_000, Math.round(Math.exp(3 + random.nextGaussian()) * 100)));
+                    pstmt.setLong(3, categoryIds.get((int) (skew * skew * categoryIds.size())));
+                    pstmt.setString(4, MERCHANTS[random.nextInt(MERCHANTS.length)] + " #" + random.nextInt(1000));
+                    pstmt.addBatch();
+                    if (i % 10_000 == 9_999) {
+                        pstmt.executeBatch();
+                    }
+                    if (i % 500_000 == 499_999) {
+                        conn.commit();
+                    }
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static List<Long> loadCategoryIds(Connection conn) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM categories ORDER BY id")) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,98 @@
+package com.finmanager.benchmark.jmh;
+
+import com.finmanager.model.Expense;
+import com.finmanager.service.ExpenseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write paths of {@link ExpenseService} against the seeded dataset.
+ * Write benchmarks delete what they insert so the dataset stays the same size across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseServiceBenchmark {
+    private static final int BATCH = 100;
+
+    private ExpenseService expenseService;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDataset dataset) {
+        expenseService = ExpenseService.getInstance();
+    }
+
+    @Benchmark
+    public List<Expense> getExpensesByMonth(BenchmarkDataset dataset) {
+        return expenseService.getExpensesByMonth(dataset.month);
+    }
+
+    @Benchmark
+    public List<Expense> getExpensesByDateRange(BenchmarkDataset dataset) {
+        return expenseService.getExpensesByDateRange(dataset.month.atDay(1), dataset.month.plusMonths(2).atEndOfMonth());
+    }
+
+    @Benchmark
+    public List<Expense> getExpensesByCategory(BenchmarkDataset dataset) {
+        return expenseService.getExpensesByCategory(dataset.categoryId(0), dataset.month);
+    }
+
+    @Benchmark
+    public Double getTotalExpensesByMonth(BenchmarkDataset dataset) {
+        return expenseService.getTotalExpensesByMonth(dataset.month);
+    }
+
+    @Benchmark
+    public Double getTotalExpensesByDateRange(BenchmarkDataset dataset) {
+        return expenseService.getTotalExpensesByDateRange(LocalDate.of(dataset.year, 1, 1), LocalDate.of(dataset.year, 12, 31));
+    }
+
+    @Benchmark
+    public Double getTotalExpensesByCategoryAndMonth(BenchmarkDataset dataset) {
+        return expenseService.getTotalExpensesByCategoryAndMonth(dataset.categoryId(0), dataset.month);
+    }
+
+    @Benchmark
+    public Map<String, Double> getTotalExpensesByCategoryForMonth(BenchmarkDataset dataset) {
+        return expenseService.getTotalExpensesByCategoryForMonth(dataset.month);
+    }
+
+    @Benchmark
+    public Map<String, Double> getTotalExpensesByCategoryForDateRange(BenchmarkDataset dataset) {
+        return expenseService.getTotalExpensesByCategoryForDateRange(LocalDate.of(dataset.year, 1, 1), LocalDate.of(dataset.year, 12, 31));
+    }
+
+    @Benchmark
+    public Long createUpdateDeleteExpense(BenchmarkDataset dataset) {
+        Expense expense = new Expense(dataset.month.atDay(15), 12.5, dataset.categoryId(1), "Benchmark expense");
+        Long id = expenseService.createExpense(expense);
+        expense.setId(id);
+        expense.setAmount(13.5);
+        expenseService.updateExpense(expense);
+        expenseService.deleteExpense(id);
+        return id;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Long> createExpensesBatch(BenchmarkDataset dataset) throws SQLException {
+        List<Expense> expenses = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            expenses.add(new Expense(dataset.month.atDay(1 + i % 28), 1.0 + i, dataset.categoryId(i), "Benchmark batch"));
+        }
+        List<Long> ids = expenseService.createExpenses(expenses);
+        for (Long id : ids) {
+            expenseService.deleteExpense(id);
+        }
+        return ids;
+    }
+}
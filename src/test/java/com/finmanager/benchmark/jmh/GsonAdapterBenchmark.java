@@ -0,0 +1,88 @@
+package com.finmanager.benchmark.jmh;
+
+import com.finmanager.model.Expense;
+import com.finmanager.util.GsonUtil;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing and parsing an expense list with the streaming adapters GsonUtil registers, against
+ * reflective Gson with the tree-based LocalDate adapter it replaced. Needs no database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GsonAdapterBenchmark {
+    private static final Type EXPENSE_LIST = new TypeToken<List<Expense>>() {}.getType();
+
+    @Param({"10000"})
+    public int size;
+
+    private Gson streaming;
+    private Gson reflective;
+    private List<Expense> expenses;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        streaming = GsonUtil.getInstance();
+        reflective = new GsonBuilder()
+                .registerTypeAdapter(LocalDate.class, new TreeDateAdapter())
+                .create();
+
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        expenses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Expense expense = new Expense(start.plusDays(random.nextInt(366)), Math.round(random.nextDouble() * 50000) / 100.0,
+                    1L + random.nextInt(20), random.nextInt(4) == 0 ? null : "Expense " + i);
+            expense.setId((long) i + 1);
+            expenses.add(expense);
+        }
+        json = streaming.toJson(expenses);
+    }
+
+    @Benchmark
+    public String serializeStreaming() {
+        return streaming.toJson(expenses, EXPENSE_LIST);
+    }
+
+    @Benchmark
+    public String serializeReflective() {
+        return reflective.toJson(expenses, EXPENSE_LIST);
+    }
+
+    @Benchmark
+    public List<Expense> deserializeStreaming() {
+        return streaming.fromJson(json, EXPENSE_LIST);
+    }
+
+    @Benchmark
+    public List<Expense> deserializeReflective() {
+        return reflective.fromJson(json, EXPENSE_LIST);
+    }
+
+    /** The adapter GsonUtil registered before the streaming ones. */
+    private static class TreeDateAdapter implements JsonSerializer<LocalDate>, JsonDeserializer<LocalDate> {
+        @Override
+        public JsonElement serialize(LocalDate src, Type typeOfSrc, JsonSerializationContext context) {
+            return new JsonPrimitive(src.toString());
+        }
+
+        @Override
+        public LocalDate deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) {
+            return LocalDate.parse(json.getAsString());
+        }
+    }
+}
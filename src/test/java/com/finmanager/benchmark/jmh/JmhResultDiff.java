@@ -0,0 +1,75 @@
+package com.finmanager.benchmark.jmh;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, e.g. from the base and head of a branch.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.finmanager.benchmark.jmh.JmhResultDiff \
+ *       -Dexec.args="base.json head.json"
+ */
+public class JmhResultDiff {
+    private static final String PACKAGE = JmhResultDiff.class.getPackageName() + ".";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: JmhResultDiff <base.json> <head.json>");
+            System.exit(2);
+        }
+        Map<String, double[]> base = load(args[0]);
+        Map<String, double[]> head = load(args[1]);
+
+        System.out.printf("%-64s %14s %14s %9s%n", "Benchmark", "Base", "Head", "Change");
+        for (Map.Entry<String, double[]> entry : head.entrySet()) {
+            double[] before = base.get(entry.getKey());
+            double[] after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-64s %14s %14.3f %9s%n", entry.getKey(), "-", after[0], "new");
+                continue;
+            }
+            double change = (after[0] - before[0]) / before[0] * 100;
+            // Flag changes larger than the combined error margins
+            String marker = Math.abs(after[0] - before[0]) > before[1] + after[1] ? " *" : "";
+            System.out.printf("%-64s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before[0], after[0], change, marker);
+        }
+        for (String removed : base.keySet()) {
+            if (!head.containsKey(removed)) {
+                System.out.printf("%-64s %14.3f %14s %9s%n", removed, base.get(removed)[0], "-", "removed");
+            }
+        }
+    }
+
+    /** Score and error per benchmark, keyed by name plus its parameters. */
+    private static Map<String, double[]> load(String file) throws IOException {
+        Map<String, double[]> results = new TreeMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(file))) {
+            JsonArray runs = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : runs) {
+                JsonObject run = element.getAsJsonObject();
+                StringBuilder key = new StringBuilder(run.get("benchmark").getAsString().replace(PACKAGE, ""));
+                if (run.has("params")) {
+                    for (Map.Entry<String, JsonElement> param : run.getAsJsonObject("params").entrySet()) {
+                        key.append(' ').append(param.getKey()).append('=').append(param.getValue().getAsString());
+                    }
+                }
+                JsonObject metric = run.getAsJsonObject("primaryMetric");
+                double error = metric.get("scoreError").isJsonPrimitive() && !Double.isNaN(metric.get("scoreError").getAsDouble())
+                    ? metric.get("scoreError").getAsDouble() : 0;
+                results.put(key.toString(), new double[] {metric.get("score").getAsDouble(), error});
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,56 @@
+package com.finmanager.benchmark.jmh;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.service.ExpenseService;
+import com.finmanager.service.RecurringExpenseGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full backfill of the seeded recurring definitions over the dataset's five years.
+ * Generated instances are removed and bookmarks cleared before each invocation so every run
+ * does the same amount of work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecurringGenerationBenchmark {
+    private RecurringExpenseGenerator generator;
+    private LocalDate upTo;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDataset dataset) {
+        generator = RecurringExpenseGenerator.getInstance();
+        upTo = BenchmarkDataset.FIRST_DAY.plusYears(BenchmarkDataset.YEARS).minusDays(1);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() throws SQLException {
+        DatabaseManager.getInstance().getWriter().execute(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM expenses WHERE recurring_id IS NOT NULL");
+                stmt.executeUpdate("UPDATE recurring_expenses SET last_generated_epoch_day = NULL");
+            }
+            return null;
+        });
+        ExpenseService.getInstance().notifyExpensesReloaded();
+    }
+
+    @Benchmark
+    public RecurringExpenseGenerator.Report generateAll() {
+        return generator.generateAll(upTo);
+    }
+
+    @Benchmark
+    public int generateForRecurring() {
+        return generator.generateForRecurring(1L, upTo);
+    }
+}
@@ -0,0 +1,108 @@
+package com.finmanager.db;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+public class AmountMigrationTest {
+
+    static SchemaMigrator.Migration migration(int version) {
+        return DatabaseManager.migrations().stream().filter(m -> m.version() == version).findFirst().orElseThrow();
+    }
+
+    private static void createLegacySchema(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE expenses (id INTEGER PRIMARY KEY AUTOINCREMENT, date DATE NOT NULL, " +
+            "amount REAL NOT NULL, category_id INTEGER NOT NULL, description TEXT, recurring_id INTEGER, " +
+            "is_recurring_instance BOOLEAN DEFAULT 0)");
+        stmt.execute("CREATE TABLE recurring_expenses (id INTEGER PRIMARY KEY AUTOINCREMENT, category_id INTEGER NOT NULL, " +
+            "amount REAL NOT NULL, description TEXT, frequency TEXT NOT NULL, start_date DATE NOT NULL)");
+        stmt.execute("CREATE TABLE investment_entries (id INTEGER PRIMARY KEY AUTOINCREMENT, date DATE NOT NULL, " +
+            "amount REAL NOT NULL, currency TEXT DEFAULT 'USD', exchange_rate REAL DEFAULT 1.0)");
+        stmt.execute("CREATE INDEX idx_expenses_date_category_amount ON expenses(date, category_id, amount)");
+        stmt.execute("CREATE TABLE monthly_category_totals (month TEXT NOT NULL, category_id INTEGER NOT NULL, " +
+            "total REAL NOT NULL DEFAULT 0, expense_count INTEGER NOT NULL DEFAULT 0, PRIMARY KEY (month, category_id)) WITHOUT ROWID");
+        stmt.execute("CREATE TRIGGER trg_expenses_totals_update AFTER UPDATE OF date, amount, category_id ON expenses " +
+            "BEGIN UPDATE monthly_category_totals SET total = total - OLD.amount + NEW.amount; END");
+
+        stmt.execute("INSERT INTO expenses(date, amount, category_id) VALUES ('2024-01-05', 19.99, 1), " +
+            "('2024-01-06', 0.1 + 0.2, 1), ('2024-01-07', 1234567.89, 2), ('2024-01-08', 0.125, 2)");
+        stmt.execute("INSERT INTO recurring_expenses(category_id, amount, frequency, start_date) VALUES (1, 49.95, 'MONTHLY', '2024-01-01')");
+        stmt.execute("INSERT INTO investment_entries(date, amount, currency, exchange_rate) VALUES ('2024-02-01', 1000.01, 'EUR', 1.1)");
+    }
+
+    private static long sumCents(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT SUM(amount_cents) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static long count(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    public void testRealAmountsBecomeIntegerCents() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = conn.createStatement()) {
+            createLegacySchema(stmt);
+
+            SchemaMigrator migrator = new SchemaMigrator(List.of(migration(3)), 3);
+            assertEquals(1, migrator.migrate(conn));
+            // The small tables are converted by the migration itself
+            assertEquals(4995, sumCents(stmt, "recurring_expenses"));
+            assertEquals(100001, sumCents(stmt, "investment_entries"));
+            assertEquals(0, count(stmt, "SELECT COUNT(*) FROM pragma_table_info('investment_entries') WHERE name = 'amount'"));
+            // expenses only gets the column; rows the backfill has not reached are NULL, and new rows need no REAL amount
+            assertEquals(4, count(stmt, "SELECT COUNT(*) FROM expenses WHERE amount_cents IS NULL"));
+            stmt.execute("INSERT INTO expenses(date, amount_cents, category_id) VALUES ('2024-01-09', 500, 1)");
+            assertEquals(1999 + 30 + 123456789 + 13 + 500,
+                count(stmt, "SELECT SUM(" + DatabaseManager.centsOrLegacy("") + ") FROM expenses"));
+            assertTrue(migrator.runNextChunk(conn));
+            assertEquals(1, count(stmt, "SELECT COUNT(*) FROM expenses WHERE amount_cents IS NULL"));
+            // Updated by the application before the backfill got there; the backfill keeps the new amount
+            stmt.execute("UPDATE expenses SET amount_cents = 14 WHERE id = 4");
+            while (migrator.runNextChunk(conn)) {
+                // one chunk per call
+            }
+
+            assertEquals(1999 + 30 + 123456789 + 14 + 500, sumCents(stmt, "expenses"));
+            try (ResultSet rs = stmt.executeQuery("SELECT typeof(amount_cents) FROM expenses GROUP BY 1")) {
+                assertTrue(rs.next());
+                assertEquals("integer", rs.getString(1));
+                assertFalse(rs.next());
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE name IN " +
+                    "('monthly_category_totals', 'trg_expenses_totals_update', 'idx_expenses_date_category_amount')")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+            }
+            assertTrue(conn.getAutoCommit());
+
+            // A converted database is left alone
+            DatabaseManager.addAmountCentsColumns(conn);
+            assertEquals(4995, sumCents(stmt, "recurring_expenses"));
+        }
+    }
+
+    @Test
+    public void testDatabaseWithCentsColumnsHasNothingToBackfill() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = conn.createStatement()) {
+            SchemaMigrator migrator = new SchemaMigrator(List.of(migration(1), migration(3)), 3);
+            migrator.migrate(conn);
+
+            assertFalse(migrator.hasPendingBackfills(conn));
+            assertEquals(0, count(stmt, "SELECT COUNT(*) FROM schema_backfill"));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.finmanager.db;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+public class ConnectionPoolTest {
+    private ConnectionPool pool;
+
+    private ConnectionPool newPool(int max, long borrowTimeoutMs, long leakThresholdMs, long housekeepingMs) {
+        return new ConnectionPool(() -> DriverManager.getConnection("jdbc:sqlite::memory:"),
+            0, max, 60_000, borrowTimeoutMs, leakThresholdMs, false, true, 1, housekeepingMs);
+    }
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws SQLException {
+        pool = newPool(2, 1_000, 0, 60_000);
+
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+
+        PoolStats.Snapshot stats = pool.getStats();
+        assertEquals(1, stats.created);
+        assertEquals(2, stats.borrows);
+        assertEquals(0, stats.active);
+        assertEquals(1, stats.idle);
+    }
+
+    @Test
+    public void testPoolIsBounded() throws SQLException {
+        pool = newPool(1, 50, 0, 60_000);
+
+        try (Connection held = pool.borrow()) {
+            assertEquals(1, pool.getStats().active);
+            try {
+                pool.borrow();
+                fail("Expected borrow to time out");
+            } catch (SQLException expected) {
+                assertEquals(1, pool.getStats().timeouts);
+            }
+        }
+        try (Connection conn = pool.borrow()) {
+            assertNotNull(conn);
+        }
+    }
+
+    @Test
+    public void testClosedLeaseCannotBeUsed() throws SQLException {
+        pool = newPool(1, 1_000, 0, 60_000);
+
+        Connection conn = pool.borrow();
+        conn.close();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        try {
+            conn.createStatement();
+            fail("Expected returned connection to reject use");
+        } catch (SQLException expected) {
+            // expected
+        }
+        assertEquals(1, pool.getStats().idle);
+    }
+
+    @Test
+    public void testOpenTransactionIsRolledBackOnReturn() throws SQLException {
+        pool = newPool(1, 1_000, 0, 60_000);
+
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+        }
+        try (Connection conn = pool.borrow()) {
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void testLeakIsDetected() throws Exception {
+        pool = newPool(1, 1_000, 20, 10);
+
+        try (Connection conn = pool.borrow()) {
+            long deadline = System.currentTimeMillis() + 2_000;
+            while (pool.getStats().leaksDetected == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(1, pool.getStats().leaksDetected);
+    }
+}
@@ -0,0 +1,170 @@
+package com.finmanager.db;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class DatabaseWriterTest {
+    private DatabaseWriter writer;
+
+    private DatabaseWriter newWriter(long commitIntervalMs) throws SQLException {
+        // A single in-memory connection is enough: the writer never opens a second one
+        DatabaseWriter w = new DatabaseWriter(() -> DriverManager.getConnection("jdbc:sqlite::memory:"),
+            commitIntervalMs, 64, 1_000);
+        w.execute(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT NOT NULL)");
+            }
+        });
+        return w;
+    }
+
+    private int count() throws SQLException {
+        return writer.execute(conn -> {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM items")) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+    }
+
+    private DatabaseWriter.WriteTask<Integer> insert(String name) {
+        return conn -> {
+            try (var pstmt = conn.prepareStatement("INSERT INTO items(name) VALUES(?)")) {
+                pstmt.setString(1, name);
+                return pstmt.executeUpdate();
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentWritesAreGroupCommitted() throws Exception {
+        writer = newWriter(50);
+        long batchesBefore = writer.getStats().batches;
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(writer.submit(insert("item-" + i)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+        assertEquals(40, count());
+        DatabaseWriter.Stats stats = writer.getStats();
+        assertTrue("Expected fewer transactions than writes", stats.batches - batchesBefore < 40);
+        assertTrue(stats.largestBatch > 1);
+    }
+
+    @Test
+    public void testExclusiveWriteGetsItsOwnTransaction() throws Exception {
+        writer = newWriter(50);
+        long batchesBefore = writer.getStats().batches;
+
+        CompletableFuture<Integer> before = writer.submit(insert("before"));
+        CompletableFuture<Integer> bulk = writer.submitExclusive(insert("bulk"));
+        CompletableFuture<Integer> after = writer.submit(insert("after"));
+        CompletableFuture.allOf(before, bulk, after).get();
+
+        assertEquals(3, count());
+        assertEquals(3, writer.getStats().batches - batchesBefore - 1);
+    }
+
+    @Test
+    public void testFailingTaskDoesNotAbortBatch() throws Exception {
+        writer = newWriter(50);
+
+        CompletableFuture<Integer> first = writer.submit(insert("first"));
+        CompletableFuture<Integer> failing = writer.submit(insert(null));
+        CompletableFuture<Integer> last = writer.submit(insert("last"));
+
+        assertEquals(Integer.valueOf(1), first.get());
+        assertEquals(Integer.valueOf(1), last.get());
+        try {
+            failing.get();
+            fail("Expected NOT NULL violation");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof SQLException);
+        }
+        assertEquals(2, count());
+        assertEquals(1, writer.getStats().failedTasks);
+    }
+
+    @Test
+    public void testNestedWriteJoinsCurrentTransaction() throws SQLException {
+        writer = newWriter(0);
+
+        int inserted = writer.execute(conn -> insert("outer").execute(conn) + writer.execute(insert("inner")));
+
+        assertEquals(2, inserted);
+        assertEquals(2, count());
+    }
+
+    @Test
+    public void testFailedNestedWriteRollsBackOnlyItself() throws SQLException {
+        writer = newWriter(0);
+
+        int inserted = writer.execute(conn -> {
+            int rows = insert("outer").execute(conn);
+            try {
+                writer.execute(c -> insert("inner").execute(c) + insert(null).execute(c));
+                fail("Expected NOT NULL violation");
+            } catch (SQLException expected) {
+                // the outer task carries on without the inner write
+            }
+            return rows;
+        });
+
+        assertEquals(1, inserted);
+        assertEquals(1, count());
+    }
+
+    @Test
+    public void testAfterCommitCallbacksRunInCommitOrder() throws Exception {
+        writer = newWriter(50);
+        List<String> committed = Collections.synchronizedList(new ArrayList<>());
+
+        List<CompletableFuture<Boolean>> seenBeforeReturn = new ArrayList<>();
+        for (String name : new String[] {"a", null, "b", "c"}) {
+            String label = name == null ? "failed" : name;
+            seenBeforeReturn.add(writer.submit(conn -> {
+                writer.afterCommit(() -> committed.add(label));
+                return insert(name).execute(conn);
+            }).thenApply(rows -> committed.contains(label)).exceptionally(e -> null));
+        }
+        CompletableFuture.allOf(seenBeforeReturn.toArray(new CompletableFuture[0])).get();
+
+        assertEquals(List.of("a", "b", "c"), committed);
+        assertEquals(Boolean.TRUE, seenBeforeReturn.get(0).get());
+        assertEquals(Boolean.TRUE, seenBeforeReturn.get(3).get());
+        assertThrows(IllegalStateException.class, () -> writer.afterCommit(() -> {}));
+    }
+
+    @Test
+    public void testSubmitAfterCloseFails() throws Exception {
+        writer = newWriter(0);
+        writer.close();
+
+        try {
+            writer.submit(insert("late")).get();
+            fail("Expected writer to reject work after close");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof SQLException);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.finmanager.db;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+public class DateMigrationTest {
+
+    private static void createLegacySchema(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE expenses (id INTEGER PRIMARY KEY AUTOINCREMENT, date DATE NOT NULL, " +
+            "amount_cents INTEGER NOT NULL, category_id INTEGER NOT NULL, description TEXT, recurring_id INTEGER, " +
+            "is_recurring_instance BOOLEAN DEFAULT 0)");
+        stmt.execute("CREATE TABLE recurring_expenses (id INTEGER PRIMARY KEY AUTOINCREMENT, category_id INTEGER NOT NULL, " +
+            "amount_cents INTEGER NOT NULL, description TEXT, frequency TEXT NOT NULL, start_date DATE NOT NULL, " +
+            "end_date DATE, last_generated_date DATE, active BOOLEAN DEFAULT 1)");
+        stmt.execute("CREATE TABLE investment_entries (id INTEGER PRIMARY KEY AUTOINCREMENT, date DATE NOT NULL, " +
+            "amount_cents INTEGER NOT NULL, currency TEXT DEFAULT 'USD', exchange_rate REAL DEFAULT 1.0)");
+        stmt.execute("CREATE INDEX idx_expenses_date_category_amount ON expenses(date, category_id, amount_cents)");
+        stmt.execute("CREATE INDEX idx_expenses_date_id ON expenses(date, id)");
+        stmt.execute("CREATE UNIQUE INDEX idx_expenses_recurring_date ON expenses(recurring_id, date) WHERE recurring_id IS NOT NULL");
+        stmt.execute("CREATE INDEX idx_investments_date ON investment_entries(date)");
+        stmt.execute("CREATE TABLE monthly_category_totals (month TEXT NOT NULL, category_id INTEGER NOT NULL, " +
+            "total_cents INTEGER NOT NULL DEFAULT 0, expense_count INTEGER NOT NULL DEFAULT 0, PRIMARY KEY (month, category_id)) WITHOUT ROWID");
+        stmt.execute("CREATE TRIGGER trg_expenses_totals_update AFTER UPDATE OF date, amount_cents, category_id ON expenses " +
+            "BEGIN UPDATE monthly_category_totals SET total_cents = total_cents - OLD.amount_cents + NEW.amount_cents; END");
+
+        stmt.execute("INSERT INTO expenses(date, amount_cents, category_id) VALUES ('2024-02-29', 100, 1), " +
+            "('1969-12-31', 200, 1), ('1970-01-01', 300, 2), ('2099-12-31', 400, 2)");
+        stmt.execute("INSERT INTO recurring_expenses(category_id, amount_cents, frequency, start_date, end_date, last_generated_date) " +
+            "VALUES (1, 4995, 'MONTHLY', '2024-01-01', NULL, '2024-03-01'), (2, 999, 'YEARLY', '2020-06-15', '2030-06-15', NULL)");
+        stmt.execute("INSERT INTO investment_entries(date, amount_cents) VALUES ('2024-02-01', 100001)");
+        stmt.execute("INSERT INTO monthly_category_totals VALUES ('2024-02', 1, 100, 1)");
+    }
+
+    private static Long day(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(sql, rs.next());
+            long value = rs.getLong(1);
+            return rs.wasNull() ? null : value;
+        }
+    }
+
+    @Test
+    public void testIsoDatesBecomeEpochDays() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = conn.createStatement()) {
+            createLegacySchema(stmt);
+
+            SchemaMigrator migrator = new SchemaMigrator(List.of(AmountMigrationTest.migration(4)), 3);
+            assertEquals(1, migrator.migrate(conn));
+            // Only expenses is left to the backfill; until it reaches a row, its day is read from the old column
+            assertEquals(1, migrator.getStatus(conn).backfills.size());
+            assertNull(day(stmt, "SELECT epoch_day FROM expenses WHERE id = 1"));
+            assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(),
+                (long) day(stmt, "SELECT " + DatabaseManager.dayOrLegacy("") + " FROM expenses WHERE id = 1"));
+            while (migrator.runNextChunk(conn)) {
+                // one chunk per call
+            }
+            assertFalse(migrator.hasPendingBackfills(conn));
+
+            try (ResultSet rs = stmt.executeQuery("SELECT epoch_day, typeof(epoch_day), " +
+                    DatabaseManager.monthOf("epoch_day") + " FROM expenses ORDER BY id")) {
+                for (String iso : new String[] {"2024-02-29", "1969-12-31", "1970-01-01", "2099-12-31"}) {
+                    assertTrue(rs.next());
+                    assertEquals(iso, LocalDate.parse(iso).toEpochDay(), rs.getLong(1));
+                    assertEquals("integer", rs.getString(2));
+                    // The rollup's month keys still match the converted rows
+                    assertEquals(iso.substring(0, 7), rs.getString(3));
+                }
+                assertFalse(rs.next());
+            }
+            assertEquals(LocalDate.of(2024, 1, 1).toEpochDay(), (long) day(stmt, "SELECT start_epoch_day FROM recurring_expenses WHERE id = 1"));
+            assertNull(day(stmt, "SELECT end_epoch_day FROM recurring_expenses WHERE id = 1"));
+            assertEquals(LocalDate.of(2024, 3, 1).toEpochDay(), (long) day(stmt, "SELECT last_generated_epoch_day FROM recurring_expenses WHERE id = 1"));
+            assertEquals(LocalDate.of(2030, 6, 15).toEpochDay(), (long) day(stmt, "SELECT end_epoch_day FROM recurring_expenses WHERE id = 2"));
+            assertNull(day(stmt, "SELECT last_generated_epoch_day FROM recurring_expenses WHERE id = 2"));
+            assertEquals(LocalDate.of(2024, 2, 1).toEpochDay(), (long) day(stmt, "SELECT epoch_day FROM investment_entries"));
+
+            // The old expenses column stays until a later release drops it, but no longer has to be set
+            assertEquals(0, (long) day(stmt, "SELECT \"notnull\" FROM pragma_table_info('expenses') WHERE name = 'date'"));
+            assertThrows(SQLException.class, () -> stmt.executeQuery("SELECT start_date FROM recurring_expenses").close());
+            assertThrows(SQLException.class, () -> stmt.executeQuery("SELECT date FROM investment_entries").close());
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE name IN " +
+                    "('trg_expenses_totals_update', 'idx_expenses_date_category_amount', 'idx_expenses_date_id', " +
+                    "'idx_expenses_recurring_date', 'idx_investments_date')")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+            }
+            assertEquals(100, (long) day(stmt, "SELECT total_cents FROM monthly_category_totals WHERE month = '2024-02'"));
+            assertTrue(conn.getAutoCommit());
+
+            // A converted database is left alone
+            DatabaseManager.addEpochDayColumns(conn);
+            assertEquals(LocalDate.of(2024, 2, 1).toEpochDay(), (long) day(stmt, "SELECT epoch_day FROM investment_entries"));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.finmanager.db;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+public class SchemaMigratorTest {
+    private Path file;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("schema-migrator", ".db");
+        url = "jdbc:sqlite:" + file;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static long queryLong(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(sql, rs.next());
+            return rs.getLong(1);
+        }
+    }
+
+    private static SchemaMigrator.Migration createItems() {
+        return SchemaMigrator.Migration.sql(1, "Create items",
+            "CREATE TABLE items (id INTEGER PRIMARY KEY, price INTEGER NOT NULL)");
+    }
+
+    private static SchemaMigrator.Migration addDoubledPrice() {
+        return SchemaMigrator.Migration.sql(2, "Add items.doubled", "ALTER TABLE items ADD COLUMN doubled INTEGER")
+            .withBackfill("items", "doubled = price * 2", "CREATE INDEX idx_items_doubled ON items(doubled)");
+    }
+
+    @Test
+    public void testAppliesPendingMigrationsOnceInOrder() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            SchemaMigrator.Migration index = SchemaMigrator.Migration.sql(2, "Index items",
+                "CREATE INDEX idx_items_price ON items(price)");
+            // Listed out of order on purpose: the index needs the table
+            assertEquals(2, new SchemaMigrator(List.of(index, createItems()), 100).migrate(conn));
+            assertEquals(0, new SchemaMigrator(List.of(createItems(), index), 100).migrate(conn));
+
+            SchemaMigrator.Migration column = SchemaMigrator.Migration.code(3, "Add items.name", 1, c -> {
+                try (Statement s = c.createStatement()) {
+                    s.execute("ALTER TABLE items ADD COLUMN name TEXT");
+                }
+            });
+            SchemaMigrator migrator = new SchemaMigrator(List.of(createItems(), index, column), 100);
+            assertEquals(1, migrator.migrate(conn));
+            assertEquals(3, queryLong(stmt, "SELECT COUNT(*) FROM schema_version"));
+            assertEquals(3, migrator.getStatus(conn).version);
+            assertEquals(3, migrator.getStatus(conn).latestVersion);
+        }
+    }
+
+    @Test
+    public void testEditedMigrationStopsStartup() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url)) {
+            new SchemaMigrator(List.of(createItems()), 100).migrate(conn);
+
+            SchemaMigrator.Migration edited = SchemaMigrator.Migration.sql(1, "Create items",
+                "CREATE TABLE items (id INTEGER PRIMARY KEY, price REAL NOT NULL)");
+            SQLException e = assertThrows(SQLException.class,
+                () -> new SchemaMigrator(List.of(edited), 100).migrate(conn));
+            assertTrue(e.getMessage(), e.getMessage().contains("V1"));
+        }
+    }
+
+    @Test
+    public void testNewRevisionOfCodeMigrationStopsStartup() throws SQLException {
+        SchemaMigrator.Step addName = c -> {
+            try (Statement s = c.createStatement()) {
+                s.execute("ALTER TABLE items ADD COLUMN name TEXT");
+            }
+        };
+        try (Connection conn = DriverManager.getConnection(url)) {
+            new SchemaMigrator(List.of(createItems(), SchemaMigrator.Migration.code(2, "Add items.name", 1, addName)), 100).migrate(conn);
+
+            SchemaMigrator.Migration revised = SchemaMigrator.Migration.code(2, "Add items.name", 2, addName);
+            SQLException e = assertThrows(SQLException.class,
+                () -> new SchemaMigrator(List.of(createItems(), revised), 100).migrate(conn));
+            assertTrue(e.getMessage(), e.getMessage().contains("V2"));
+        }
+    }
+
+    @Test
+    public void testFailedMigrationIsRolledBack() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            SchemaMigrator.Migration broken = SchemaMigrator.Migration.sql(2, "Half a change",
+                "CREATE TABLE tags (id INTEGER PRIMARY KEY)",
+                "INSERT INTO no_such_table VALUES (1)");
+            SchemaMigrator.Migration later = SchemaMigrator.Migration.sql(3, "Later",
+                "CREATE TABLE later (id INTEGER PRIMARY KEY)");
+
+            assertThrows(SQLException.class, () -> new SchemaMigrator(List.of(createItems(), broken, later), 100).migrate(conn));
+
+            assertEquals(1, queryLong(stmt, "SELECT MAX(version) FROM schema_version"));
+            assertEquals(0, queryLong(stmt, "SELECT COUNT(*) FROM sqlite_master WHERE name IN ('tags', 'later')"));
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void testBackfillResumesAfterRestart() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            new SchemaMigrator(List.of(createItems()), 100).migrate(conn);
+            stmt.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 1000) " +
+                "INSERT INTO items(id, price) SELECT i, i FROM n");
+
+            SchemaMigrator migrator = new SchemaMigrator(List.of(createItems(), addDoubledPrice()), 100);
+            assertEquals(1, migrator.migrate(conn));
+            assertTrue(migrator.hasPendingBackfills(conn));
+            // Written after the migration by code that already fills the column; the backfill leaves it alone
+            stmt.execute("INSERT INTO items(id, price, doubled) VALUES (1001, 5, -1)");
+
+            for (int chunk = 0; chunk < 3; chunk++) {
+                assertTrue(migrator.runNextChunk(conn));
+            }
+            assertEquals(300, queryLong(stmt, "SELECT COUNT(*) FROM items WHERE doubled IS NOT NULL AND id <= 1000"));
+            assertEquals(30.0, migrator.getStatus(conn).backfills.get(0).percentDone, 1e-9);
+        }
+
+        // A new process picks up from the committed progress
+        SchemaMigrator restarted = new SchemaMigrator(List.of(createItems(), addDoubledPrice()), 100);
+        try (DatabaseWriter writer = new DatabaseWriter(() -> DriverManager.getConnection(url), 0, 16, 100);
+             Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            assertEquals(0, restarted.migrate(conn));
+            restarted.runBackfills(writer, 0);
+
+            assertFalse(restarted.hasPendingBackfills(conn));
+            assertEquals(0, queryLong(stmt, "SELECT COUNT(*) FROM items WHERE id <= 1000 AND doubled <> price * 2"));
+            assertEquals(-1, queryLong(stmt, "SELECT doubled FROM items WHERE id = 1001"));
+            assertEquals(1, queryLong(stmt, "SELECT COUNT(*) FROM sqlite_master WHERE name = 'idx_items_doubled'"));
+            SchemaMigrator.BackfillStatus status = restarted.getStatus(conn).backfills.get(0);
+            assertEquals(1000, status.rowsUpdated);
+            assertEquals(100.0, status.percentDone, 1e-9);
+            assertNotNull(status.completedAt);
+        }
+    }
+
+    @Test
+    public void testLaterMigrationsDoNotWaitForBackfills() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            new SchemaMigrator(List.of(createItems()), 100).migrate(conn);
+            stmt.execute("INSERT INTO items(id, price) VALUES (1, 10), (2, 20), (500, 30)");
+            new SchemaMigrator(List.of(createItems(), addDoubledPrice()), 100).migrate(conn);
+
+            SchemaMigrator.Migration snapshot = SchemaMigrator.Migration.sql(3, "Count unfilled rows",
+                "CREATE TABLE unfilled AS SELECT COUNT(*) AS n FROM items WHERE doubled IS NULL");
+            SchemaMigrator migrator = new SchemaMigrator(List.of(createItems(), addDoubledPrice(), snapshot), 2);
+            assertEquals(1, migrator.migrate(conn));
+
+            assertEquals(3, queryLong(stmt, "SELECT n FROM unfilled"));
+            assertTrue(migrator.isBackfillPending(conn, 2, "items"));
+            assertFalse(migrator.isBackfillPending(conn, 3, "items"));
+        }
+    }
+
+    @Test
+    public void testAppMigrationsUpgradeAnUnversionedDatabase() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            // The oldest schema: REAL amounts, TEXT dates, no generation bookmark, no rollup or search index
+            stmt.execute("CREATE TABLE categories (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL UNIQUE, " +
+                "type TEXT NOT NULL, color TEXT, active BOOLEAN DEFAULT 1)");
+            stmt.execute("CREATE TABLE expenses (id INTEGER PRIMARY KEY AUTOINCREMENT, date DATE NOT NULL, " +
+                "amount REAL NOT NULL, category_id INTEGER NOT NULL, description TEXT, recurring_id INTEGER, " +
+                "is_recurring_instance BOOLEAN DEFAULT 0)");
+            stmt.execute("CREATE TABLE recurring_expenses (id INTEGER PRIMARY KEY AUTOINCREMENT, category_id INTEGER NOT NULL, " +
+                "amount REAL NOT NULL, description TEXT, frequency TEXT NOT NULL, start_date DATE NOT NULL, end_date DATE, " +
+                "active BOOLEAN DEFAULT 1)");
+            stmt.execute("CREATE TABLE investment_entries (id INTEGER PRIMARY KEY AUTOINCREMENT, date DATE NOT NULL, " +
+                "amount REAL NOT NULL, currency TEXT DEFAULT 'USD', exchange_rate REAL DEFAULT 1.0, description TEXT, " +
+                "is_recurring BOOLEAN DEFAULT 0)");
+            stmt.execute("CREATE INDEX idx_expenses_date ON expenses(date)");
+            stmt.execute("INSERT INTO categories(name, type) VALUES ('Food', 'ESSENTIAL')");
+            stmt.execute("INSERT INTO expenses(date, amount, category_id, description) VALUES " +
+                "('2024-01-05', 19.99, 1, 'Corner bakery'), ('2024-01-20', 5.01, 1, 'Coffee'), ('2024-02-01', 7.5, 1, 'Bakery run')");
+            stmt.execute("INSERT INTO recurring_expenses(category_id, amount, frequency, start_date) VALUES (1, 9.99, 'MONTHLY', '2024-01-01')");
+
+            SchemaMigrator migrator = new SchemaMigrator(DatabaseManager.migrations(), 2);
+            assertEquals(DatabaseManager.migrations().size(), migrator.migrate(conn));
+
+            // Startup did not wait for the expenses backfills; the rollup was seeded from the old columns
+            assertTrue(migrator.hasPendingBackfills(conn));
+            assertEquals(3, queryLong(stmt, "SELECT COUNT(*) FROM expenses WHERE epoch_day IS NULL AND amount_cents IS NULL"));
+            assertEquals(2500, queryLong(stmt, "SELECT total_cents FROM monthly_category_totals WHERE month = '2024-01'"));
+            assertEquals(2, queryLong(stmt, "SELECT COUNT(*) FROM expenses_fts WHERE expenses_fts MATCH 'bakery'"));
+            assertEquals(999, queryLong(stmt, "SELECT amount_cents FROM recurring_expenses"));
+            assertEquals(1, queryLong(stmt, "SELECT COUNT(*) FROM pragma_table_info('recurring_expenses') WHERE name = 'last_generated_epoch_day'"));
+            assertEquals(0, queryLong(stmt, "SELECT COUNT(*) FROM pragma_table_info('recurring_expenses') " +
+                "WHERE name IN ('amount', 'start_date', 'end_date', 'last_generated_date')"));
+            assertEquals(0, queryLong(stmt, "SELECT COUNT(*) FROM sqlite_master WHERE name = 'idx_expenses_date'"));
+
+            // The rollup triggers read the old columns of rows the backfill has not reached
+            stmt.execute("INSERT INTO expenses(epoch_day, amount_cents, category_id, description) VALUES (" +
+                LocalDate.of(2024, 1, 25).toEpochDay() + ", 1, 1, 'Gum')");
+            stmt.execute("UPDATE expenses SET category_id = 2 WHERE description = 'Corner bakery'");
+            assertEquals(502, queryLong(stmt, "SELECT total_cents FROM monthly_category_totals WHERE month = '2024-01' AND category_id = 1"));
+            assertTrue(migrator.runNextChunk(conn));
+            // A backfill chunk leaves the rollup as it was
+            assertEquals(502, queryLong(stmt, "SELECT total_cents FROM monthly_category_totals WHERE month = '2024-01' AND category_id = 1"));
+            while (migrator.runNextChunk(conn)) {
+                // one chunk per call
+            }
+            assertFalse(migrator.hasPendingBackfills(conn));
+            assertEquals(0, queryLong(stmt, "SELECT COUNT(*) FROM expenses WHERE epoch_day IS NULL OR amount_cents IS NULL"));
+            assertEquals(LocalDate.of(2024, 2, 1).toEpochDay(), queryLong(stmt, "SELECT MAX(epoch_day) FROM expenses"));
+            assertEquals(1999, queryLong(stmt, "SELECT total_cents FROM monthly_category_totals WHERE month = '2024-01' AND category_id = 2"));
+
+            // The triggers recreated by the migrations keep the rollup current
+            stmt.execute("UPDATE expenses SET amount_cents = 100 WHERE description = 'Coffee'");
+            assertEquals(101, queryLong(stmt, "SELECT total_cents FROM monthly_category_totals WHERE month = '2024-01' AND category_id = 1"));
+
+            assertEquals(0, migrator.migrate(conn));
+        }
+    }
+}
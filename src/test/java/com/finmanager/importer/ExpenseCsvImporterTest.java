@@ -0,0 +1,110 @@
+package com.finmanager.importer;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.service.CategoryService;
+import com.finmanager.service.ExpenseService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ExpenseCsvImporterTest {
+    private String categoryName;
+    private Long categoryId;
+
+    @BeforeClass
+    public static void freshDatabaseManager() throws Exception {
+        // The BDD suites drop the schema of the shared database when they finish; a new manager recreates it
+        DatabaseManager.getInstance().shutdown();
+        Field instance = DatabaseManager.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, null);
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        cleanUp();
+        categoryName = "Test Import_" + System.nanoTime();
+        categoryId = CategoryService.getInstance().createCategory(new Category(categoryName, "LEISURE", "#123456"));
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        cleanUp();
+    }
+
+    private void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE 'Test import%'");
+            ExpenseService.getInstance().notifyExpensesReloaded();
+            stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Test Import%'");
+            CategoryService.getInstance().reload();
+        }
+    }
+
+    @Test
+    public void testImportsValidRowsAndRejectsTheRest() throws Exception {
+        String csv = "Date,Category,Amount,Description\n"
+            + "2024-03-01," + categoryName + ",12.50,Test import one\n"
+            + "2024-03-02," + categoryName.toUpperCase() + ",\"1,200.00\",\"Test import, two\"\n"
+            + "2024-03-03,No Such Category,5.00,Test import bad category\n"
+            + "not-a-date," + categoryName + ",5.00,Test import bad date\n"
+            + "2024-03-04," + categoryName + ",-3.00,Test import negative\n";
+        StringWriter rejects = new StringWriter();
+        List<ImportResult> progress = new ArrayList<>();
+
+        ImportResult result = new ExpenseCsvImporter(CsvColumnMapping.fromConfig(Map.of()))
+            .importCsv(new StringReader(csv), rejects, progress::add);
+
+        assertEquals(5, result.rowsRead);
+        assertEquals(2, result.imported);
+        assertEquals(3, result.rejected);
+        assertTrue(result.finished);
+        assertTrue(progress.get(progress.size() - 1).finished);
+
+        String[] rejectLines = rejects.toString().split("\n");
+        assertEquals(4, rejectLines.length);
+        assertTrue(rejectLines[1].startsWith("4,unknown category"));
+        assertTrue(rejectLines[2].startsWith("5,"));
+        assertTrue(rejectLines[3].startsWith("6,amount must be positive"));
+
+        List<Expense> imported = ExpenseService.getInstance().getExpensesByCategory(categoryId, YearMonth.of(2024, 3));
+        assertEquals(2, imported.size());
+        assertEquals(1212.50, imported.stream().mapToDouble(Expense::getAmount).sum(), 0.001);
+    }
+
+    @Test
+    public void testCustomMappingWithoutHeader() throws Exception {
+        String csv = "05/04/2024;Test import debit;-42,10\n"
+            + "06/04/2024;Test import credit;100,00\n";
+        Map<String, String> settings = Map.of(
+            "header", "false", "delimiter", ";", "dateColumn", "0", "descriptionColumn", "1", "amountColumn", "2",
+            "dateFormat", "dd/MM/yyyy", "decimalComma", "true", "negativeIsExpense", "true",
+            "defaultCategory", categoryName);
+        StringWriter rejects = new StringWriter();
+
+        ImportResult result = new ExpenseCsvImporter(CsvColumnMapping.fromConfig(settings))
+            .importCsv(new StringReader(csv), rejects, null);
+
+        assertEquals(1, result.imported);
+        assertEquals(1, result.rejected);
+        Expense debit = ExpenseService.getInstance().getExpensesByCategory(categoryId, YearMonth.of(2024, 4)).get(0);
+        assertEquals(42.10, debit.getAmount(), 0.001);
+        assertEquals("Test import debit", debit.getDescription());
+    }
+}
@@ -37,9 +37,11 @@ public class FinManagerIntegrationTest {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              Statement stmt = conn.createStatement()) {
             try { stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE '%Rent%' OR description LIKE '%Movie%' OR description LIKE '%Internet%'"); } catch (Exception e) {}
+            ExpenseService.getInstance().notifyExpensesReloaded();
             try { stmt.executeUpdate("DELETE FROM recurring_expenses WHERE description LIKE '%Bill%'"); } catch (Exception e) {}
             try { stmt.executeUpdate("DELETE FROM investments WHERE description LIKE '%Stock%'"); } catch (Exception e) {}
             try { stmt.executeUpdate("DELETE FROM categories WHERE name IN ('Rent', 'Entertainment', 'Savings', 'Tech Stocks', 'Index Funds')"); } catch (Exception e) {}
+            CategoryService.getInstance().reload();
         }
     }
 
@@ -49,9 +51,11 @@ public class FinManagerIntegrationTest {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE '%Rent%' OR description LIKE '%Movie%' OR description LIKE '%Internet%'");
+            ExpenseService.getInstance().notifyExpensesReloaded();
             try { stmt.executeUpdate("DELETE FROM recurring_expenses WHERE description LIKE '%Bill%'"); } catch (Exception e) {}
             try { stmt.executeUpdate("DELETE FROM investments WHERE description LIKE '%Stock%'"); } catch (Exception e) {}
             stmt.executeUpdate("DELETE FROM categories WHERE name IN ('Rent', 'Entertainment', 'Savings', 'Tech Stocks', 'Index Funds')");
+            CategoryService.getInstance().reload();
         }
     }
 
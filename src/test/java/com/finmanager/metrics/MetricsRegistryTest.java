@@ -0,0 +1,80 @@
+package com.finmanager.metrics;
+
+import com.finmanager.service.ExpenseService;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testBucketsStayWithinAnEighthOfTheValue() {
+        for (long nanos = 1024; nanos < TimeUnit.SECONDS.toNanos(100); nanos = nanos * 3 / 2 + 7) {
+            int bucket = Histogram.bucketFor(nanos);
+            long upper = Histogram.upperEdgeNanos(bucket);
+            long lower = bucket == 0 ? 0 : Histogram.upperEdgeNanos(bucket - 1);
+            assertTrue(nanos + " below bucket " + bucket, nanos >= lower);
+            assertTrue(nanos + " above bucket " + bucket, nanos < upper);
+            assertTrue("bucket too wide at " + nanos, upper - lower <= nanos / 8 + 1);
+        }
+        assertEquals(0, Histogram.bucketFor(-5));
+        assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.bucketFor(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testHistogramExposition() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("test_duration_seconds", "Test latency", "route").labels("/api/x");
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.SECONDS.toNanos(30));
+
+        String text = registry.scrape();
+        assertTrue(text.contains("# TYPE test_duration_seconds histogram\n"));
+        assertTrue(text.contains("test_duration_seconds_bucket{route=\"/api/x\",le=\"0.0001\"} 1\n"));
+        assertTrue(text.contains("test_duration_seconds_bucket{route=\"/api/x\",le=\"0.0025\"} 1\n"));
+        assertTrue(text.contains("test_duration_seconds_bucket{route=\"/api/x\",le=\"0.005\"} 3\n"));
+        assertTrue(text.contains("test_duration_seconds_bucket{route=\"/api/x\",le=\"10\"} 3\n"));
+        assertTrue(text.contains("test_duration_seconds_bucket{route=\"/api/x\",le=\"+Inf\"} 4\n"));
+        assertTrue(text.contains("test_duration_seconds_count{route=\"/api/x\"} 4\n"));
+        assertTrue(text.contains("test_duration_seconds_sum{route=\"/api/x\"} 30.00605\n"));
+    }
+
+    @Test
+    public void testCountersGaugesAndLabelEscaping() {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Family<LongAdder> requests = registry.counter("test_requests_total", "Requests", "route", "status");
+        requests.labels("/b", "200").add(2);
+        requests.labels("/a", "500").increment();
+        requests.labels("/a\"\n", "200").increment();
+        registry.callback("test_ratio", "A ratio", MetricsRegistry.Type.GAUGE).register(() -> 0.25);
+
+        // Asking again returns the same family; asking with other labels is a programming error
+        assertSame(requests, registry.counter("test_requests_total", "Requests", "route", "status"));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("test_requests_total", "Requests", "route", "status"));
+        assertThrows(IllegalArgumentException.class, () -> requests.labels("/a"));
+
+        assertEquals("# HELP test_ratio A ratio\n"
+            + "# TYPE test_ratio gauge\n"
+            + "test_ratio 0.25\n"
+            + "# HELP test_requests_total Requests\n"
+            + "# TYPE test_requests_total counter\n"
+            + "test_requests_total{route=\"/a\",status=\"500\"} 1\n"
+            + "test_requests_total{route=\"/a\\\"\\n\",status=\"200\"} 1\n"
+            + "test_requests_total{route=\"/b\",status=\"200\"} 2\n", registry.scrape());
+    }
+
+    @Test
+    public void testJdbcAndJvmMetricsAreExported() {
+        ExpenseService.getInstance().getExpensesByMonth(YearMonth.of(2001, 1));
+
+        String text = MetricsRegistry.getInstance().scrape();
+        assertTrue(text.contains("db_query_duration_seconds_count{operation=\"select\",table=\"expenses\"} "));
+        assertTrue(text.contains("jvm_memory_used_bytes{area=\"heap\"} "));
+        assertTrue(text.contains("# TYPE jvm_gc_collections_total counter\n"));
+    }
+}
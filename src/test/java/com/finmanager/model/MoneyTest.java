@@ -0,0 +1,63 @@
+package com.finmanager.model;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MoneyTest {
+
+    @Test
+    public void testConversionsRoundHalfAwayFromZero() {
+        assertEquals(1999, Money.toCents(19.99));
+        assertEquals(30, Money.toCents(0.1 + 0.2));
+        assertEquals(-1999, Money.toCents(-19.99));
+        assertEquals(3, Money.toCents(0.025));
+        assertEquals(-3, Money.toCents(-0.025));
+        assertEquals(19.99, Money.toDouble(1999), 0.0);
+        assertEquals(1001, Money.multiply(1000, 1.0005));
+        assertEquals(-1001, Money.multiply(-1000, 1.0005));
+    }
+
+    @Test
+    public void testParseAndFormat() {
+        assertEquals(1990, Money.parse("19.90"));
+        assertEquals(1990, Money.parse(" 19.9 "));
+        assertEquals(-500, Money.parse("-5"));
+        assertEquals(101, Money.parse("1.005"));
+        assertEquals(123456789012L, Money.parse("1234567890.12"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12,50"));
+        assertThrows(ArithmeticException.class, () -> Money.parse("99999999999999999"));
+
+        assertEquals("19.90", Money.format(1990));
+        assertEquals("0.00", Money.format(0));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("-12.34", Money.format(-1234));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testHugeExponentsAreRejectedBeforeRescaling() {
+        long start = System.nanoTime();
+        for (String amount : new String[] {"1e30", "1e1000000", "1e99999999", "-1E+99999999", "1e-99999999", "0e99999999",
+                "123456789012345678", "0.000000000000000000001"}) {
+            assertThrows(amount, NumberFormatException.class, () -> Money.parse(amount));
+        }
+        assertTrue("took " + (System.nanoTime() - start) / 1_000_000 + " ms", System.nanoTime() - start < 1_000_000_000L);
+
+        assertEquals(100, Money.parse("1e0"));
+        assertEquals(150, Money.parse("0.15e1"));
+        assertEquals(30, Money.parse("0.30000000000000004"));
+        assertEquals(Long.MAX_VALUE, Money.parse("92233720368547758.07"));
+    }
+
+    @Test
+    public void testSummingCentsIsExact() {
+        long cents = 0;
+        double units = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            cents += Money.toCents(0.10);
+            units += 0.10;
+        }
+        assertEquals(10_000_000, cents);
+        assertNotEquals(100_000.0, units, 0.0);
+    }
+}
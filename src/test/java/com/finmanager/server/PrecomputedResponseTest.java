@@ -0,0 +1,37 @@
+package com.finmanager.server;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class PrecomputedResponseTest {
+
+    @Test
+    public void testGzipVariantDecodesToBody() throws IOException {
+        String body = "{\"openapi\":\"3.0.0\",\"paths\":{}}".repeat(50);
+        PrecomputedResponse response = PrecomputedResponse.of(body, "application/json");
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        response.writeTo(gzipped, true);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.toByteArray()))) {
+            assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertTrue(response.getGzipLength() < response.getLength());
+        assertEquals(PrecomputedResponse.of(body, "text/plain").getEtag(), response.getEtag());
+    }
+
+    @Test
+    public void testAcceptEncodingParsing() {
+        assertTrue(PrecomputedResponse.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PrecomputedResponse.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(PrecomputedResponse.acceptsGzip("*"));
+        assertFalse(PrecomputedResponse.acceptsGzip("gzip;q=0"));
+        assertFalse(PrecomputedResponse.acceptsGzip("deflate"));
+        assertFalse(PrecomputedResponse.acceptsGzip(null));
+    }
+}
@@ -0,0 +1,66 @@
+package com.finmanager.server;
+
+import com.finmanager.model.Expense;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Set;
+
+public class ResponseCacheTest {
+    private static final YearMonth JAN = YearMonth.of(2024, 1);
+    private static final YearMonth FEB = YearMonth.of(2024, 2);
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        ResponseCache cache = new ResponseCache(2);
+        cache.put("a", "{}", Set.of(JAN), cache.version());
+        cache.put("b", "{}", Set.of(JAN), cache.version());
+        cache.get("a");
+        cache.put("c", "{}", Set.of(JAN), cache.version());
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testWriteEvictsOnlyTouchedMonths() {
+        ResponseCache cache = new ResponseCache(10);
+        cache.put("breakdown:2024-01", "{\"Rent\":1.0}", Set.of(JAN), cache.version());
+        cache.put("breakdown:2024-02", "{\"Rent\":2.0}", Set.of(FEB), cache.version());
+        cache.put("trend:2024", "{\"Rent\":3.0}", Set.of(JAN, FEB), cache.version());
+
+        cache.expenseCreated(new Expense(LocalDate.of(2024, 2, 10), 5.0, 1L, "Test"));
+
+        assertNotNull(cache.get("breakdown:2024-01"));
+        assertNull(cache.get("breakdown:2024-02"));
+        assertNull(cache.get("trend:2024"));
+    }
+
+    @Test
+    public void testResponseComputedDuringWriteIsNotCached() {
+        ResponseCache cache = new ResponseCache(10);
+        long version = cache.version();
+        cache.invalidate(JAN);
+
+        ResponseCache.Entry entry = cache.put("breakdown:2024-01", "{}", Set.of(JAN), version);
+        assertNotNull(entry.getEtag());
+        assertNull(cache.get("breakdown:2024-01"));
+    }
+
+    @Test
+    public void testEtagsAreStableAndMatchIfNoneMatch() {
+        ResponseCache cache = new ResponseCache(10);
+        String etag = cache.put("a", "{\"x\":1}", Set.of(JAN), cache.version()).getEtag();
+
+        assertEquals(etag, cache.put("b", "{\"x\":1}", Set.of(JAN), cache.version()).getEtag());
+        assertNotEquals(etag, cache.put("c", "{\"x\":2}", Set.of(JAN), cache.version()).getEtag());
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertTrue(ResponseCache.matches(etag, etag));
+        assertTrue(ResponseCache.matches("\"other\", W/" + etag, etag));
+        assertFalse(ResponseCache.matches("\"other\"", etag));
+        assertFalse(ResponseCache.matches(null, etag));
+    }
+}
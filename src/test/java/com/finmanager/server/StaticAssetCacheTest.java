@@ -0,0 +1,137 @@
+package com.finmanager.server;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+public class StaticAssetCacheTest {
+    private static final String SCRIPT = "function add(a, b) { return a + b; }\n".repeat(200);
+
+    private Path root;
+    private StaticAssetCache cache;
+    private HttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("static-assets");
+        Files.createDirectories(root.resolve("static/js"));
+        Files.writeString(root.resolve("index.html"), "<html><body>Fin Manager</body></html>");
+        Files.writeString(root.resolve("static/js/main.3f2a1b9c.js"), SCRIPT);
+        Files.setLastModifiedTime(root.resolve("index.html"), FileTime.fromMillis(1_700_000_000_000L));
+        startServer(false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        cache.close();
+        try (var paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private void startServer(boolean offHeap) throws IOException {
+        cache = new StaticAssetCache(root, offHeap);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            if (!cache.serve(exchange, exchange.getRequestURI().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    private HttpURLConnection request(String path, String header, String value) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getAddress().getPort() + path).openConnection();
+        if (header != null) {
+            conn.setRequestProperty(header, value);
+        }
+        return conn;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testNegotiatesPrecompressedVariants() throws IOException {
+        for (boolean offHeap : new boolean[] {false, true}) {
+            server.stop(0);
+            startServer(offHeap);
+
+            HttpURLConnection gzip = request("/static/js/main.3f2a1b9c.js", "Accept-Encoding", "gzip, deflate");
+            assertEquals(200, gzip.getResponseCode());
+            assertEquals("gzip", gzip.getHeaderField("Content-Encoding"));
+            assertEquals("public, max-age=31536000, immutable", gzip.getHeaderField("Cache-Control"));
+            assertTrue(gzip.getContentLength() < SCRIPT.length());
+            assertEquals(SCRIPT, read(new GZIPInputStream(gzip.getInputStream())));
+
+            HttpURLConnection deflate = request("/static/js/main.3f2a1b9c.js", "Accept-Encoding", "gzip;q=0, deflate");
+            assertEquals("deflate", deflate.getHeaderField("Content-Encoding"));
+            assertEquals(SCRIPT, read(new InflaterInputStream(deflate.getInputStream())));
+
+            HttpURLConnection identity = request("/static/js/main.3f2a1b9c.js", null, null);
+            assertNull(identity.getHeaderField("Content-Encoding"));
+            assertEquals(SCRIPT, read(identity.getInputStream()));
+        }
+    }
+
+    @Test
+    public void testConditionalRequestsReturnNotModified() throws IOException {
+        HttpURLConnection first = request("/", null, null);
+        assertEquals(200, first.getResponseCode());
+        assertEquals("no-cache", first.getHeaderField("Cache-Control"));
+        assertTrue(read(first.getInputStream()).contains("Fin Manager"));
+        String etag = first.getHeaderField("ETag");
+        String lastModified = first.getHeaderField("Last-Modified");
+        assertNotNull(etag);
+        assertEquals("Tue, 14 Nov 2023 22:13:20 GMT", lastModified);
+
+        assertEquals(304, request("/index.html", "If-None-Match", etag).getResponseCode());
+        assertEquals(200, request("/index.html", "If-None-Match", "\"other\"").getResponseCode());
+        assertEquals(304, request("/index.html", "If-Modified-Since", lastModified).getResponseCode());
+        assertEquals(200, request("/index.html", "If-Modified-Since", "Mon, 13 Nov 2023 00:00:00 GMT").getResponseCode());
+    }
+
+    @Test
+    public void testServesFromMemoryUntilCleared() throws IOException {
+        assertEquals(404, request("/missing.js", null, null).getResponseCode());
+        assertEquals(404, request("/../secret.txt", null, null).getResponseCode());
+        assertEquals(200, request("/index.html", null, null).getResponseCode());
+        assertEquals(1, cache.size());
+
+        Files.writeString(root.resolve("index.html"), "<html>rebuilt</html>");
+        assertTrue(read(request("/index.html", null, null).getInputStream()).contains("Fin Manager"));
+
+        cache.clear();
+        assertEquals("<html>rebuilt</html>", read(request("/index.html", null, null).getInputStream()));
+    }
+
+    @Test
+    public void testHashedNames() {
+        assertTrue(StaticAssetCache.isHashed("/static/js/main.3f2a1b9c.js"));
+        assertTrue(StaticAssetCache.isHashed("/static/js/787.28cb0dcd.chunk.js"));
+        assertTrue(StaticAssetCache.isHashed("/assets/index-BxYz12_a.css"));
+        assertFalse(StaticAssetCache.isHashed("/index.html"));
+        assertFalse(StaticAssetCache.isHashed("/manifest.json"));
+        assertFalse(StaticAssetCache.isHashed("/static/js/component-settings.js"));
+    }
+}
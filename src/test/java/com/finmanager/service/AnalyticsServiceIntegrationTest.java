@@ -28,6 +28,7 @@ public class AnalyticsServiceIntegrationTest {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.execute("DELETE FROM expenses WHERE description = 'Test Analytics'");
+            ExpenseService.getInstance().notifyExpensesReloaded();
         }
     }
 
@@ -49,4 +50,31 @@ public class AnalyticsServiceIntegrationTest {
             assertTrue(total >= 100.0);
         }
     }
+
+    @Test
+    public void testCategoryBreakdownMatchesPerCategoryTotals() {
+        java.time.YearMonth month = java.time.YearMonth.now();
+
+        var categories = categoryService.getAllCategories();
+        if (!categories.isEmpty()) {
+            var category = categories.get(0);
+            expenseService.createExpense(new com.finmanager.model.Expense(
+                java.time.LocalDate.now(), 42.5, category.getId(), "Test Analytics"
+            ));
+
+            var expected = new java.util.LinkedHashMap<String, Double>();
+            for (var c : categories) {
+                Double total = expenseService.getTotalExpensesByCategoryAndMonth(c.getId(), month);
+                if (total > 0) {
+                    expected.put(c.getName(), total);
+                }
+            }
+
+            var breakdown = analyticsService.getCategoryBreakdown(month);
+            assertEquals(new java.util.ArrayList<>(expected.keySet()), new java.util.ArrayList<>(breakdown.keySet()));
+            for (var entry : expected.entrySet()) {
+                assertEquals(entry.getValue(), breakdown.get(entry.getKey()), 0.001);
+            }
+        }
+    }
 }
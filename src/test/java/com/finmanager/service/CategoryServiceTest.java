@@ -20,7 +20,9 @@ public class CategoryServiceTest {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM expenses WHERE category_id IN (SELECT id FROM categories WHERE name LIKE 'Test%' OR name LIKE '%Original%' OR name LIKE '%Updated%' OR name LIKE '%Delete%' OR name = 'Leisure Expenses')");
+            ExpenseService.getInstance().notifyExpensesReloaded();
             stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Test%' OR name LIKE '%Original%' OR name LIKE '%Updated%' OR name LIKE '%Delete%' OR name = 'Leisure Expenses'");
+            CategoryService.getInstance().reload();
         }
     }
 
@@ -30,7 +32,9 @@ public class CategoryServiceTest {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM expenses WHERE category_id IN (SELECT id FROM categories WHERE name LIKE 'Test%' OR name LIKE '%Original%' OR name LIKE '%Updated%' OR name LIKE '%Delete%' OR name = 'Leisure Expenses')");
+            ExpenseService.getInstance().notifyExpensesReloaded();
             stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Test%' OR name LIKE '%Original%' OR name LIKE '%Updated%' OR name LIKE '%Delete%' OR name = 'Leisure Expenses'");
+            CategoryService.getInstance().reload();
         }
     }
 
@@ -88,4 +92,91 @@ public class CategoryServiceTest {
         assertNotNull(deleted);
         assertFalse(deleted.isActive());
     }
+
+    @Test
+    public void testGetCategoryByNameIncludesInactive() throws SQLException {
+        Long id = categoryService.createCategory(new Category("Test Inactive", "KIDS", "#0000FF"));
+        categoryService.deleteCategory(id);
+
+        assertNull(categoryService.getCategoryIdsByName().get("Test Inactive"));
+        Category found = categoryService.getCategoryByName("test inactive");
+        assertNotNull(found);
+        assertEquals(id, found.getId());
+        assertFalse(found.isActive());
+        assertNull(categoryService.getCategoryByName("Test Missing"));
+    }
+
+    @Test
+    public void testCachedReadsAreCopiesAndFollowWrites() throws SQLException {
+        Long id = categoryService.createCategory(new Category("Test Cached", "LEISURE", "#123456"));
+
+        Category first = categoryService.getCategoryById(id);
+        first.setName("Test Mutated");
+        assertEquals("Test Cached", categoryService.getCategoryById(id).getName());
+        assertTrue(categoryService.getCategoryIdsByName().containsKey("test cached"));
+
+        categoryService.deleteCategory(id);
+        assertFalse(categoryService.getCategoryIdsByName().containsKey("Test Cached"));
+        assertTrue(categoryService.getAllCategories().stream().noneMatch(c -> c.getId().equals(id)));
+    }
+
+    @Test
+    public void testWritesSwapInTheCommittedRowWithoutReloading() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO categories(name, type, color, active) VALUES ('Test Bypassed', 'KIDS', '#000000', 1)");
+        }
+        int[] calls = new int[1];
+        Runnable listener = () -> calls[0]++;
+        categoryService.addChangeListener(listener);
+        try {
+            Long id = categoryService.createCategory(new Category("Test Swapped", "KIDS", "#111111"));
+            assertEquals(1, calls[0]);
+            assertEquals(id, categoryService.getCategoryIdsByName().get("test swapped"));
+            assertEquals("#111111", categoryService.getCategoryByName("TEST SWAPPED").getColor());
+            assertNull(categoryService.getCategoryByName("Test Bypassed"));
+
+            Category renamed = categoryService.getCategoryById(id);
+            renamed.setName("Test Swapped Again");
+            categoryService.updateCategory(renamed);
+            assertEquals(2, calls[0]);
+            assertNull(categoryService.getCategoryByName("Test Swapped"));
+            assertEquals(id, categoryService.getCategoryByName("test swapped again").getId());
+
+            categoryService.reload();
+            assertNotNull(categoryService.getCategoryByName("Test Bypassed"));
+        } finally {
+            categoryService.removeChangeListener(listener);
+        }
+    }
+
+    @Test
+    public void testRemovedListenerIsNotCalled() {
+        int[] calls = new int[1];
+        Runnable listener = () -> calls[0]++;
+        categoryService.addChangeListener(listener);
+        categoryService.reload();
+        categoryService.removeChangeListener(listener);
+        categoryService.reload();
+        assertEquals(1, calls[0]);
+    }
+
+    @Test
+    public void testFailedReloadKeepsPreviousSnapshot() throws SQLException {
+        Long id = categoryService.createCategory(new Category("Test Kept", "LEISURE", "#654321"));
+
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE categories RENAME TO categories_away");
+            try {
+                categoryService.reload();
+                assertEquals("Test Kept", categoryService.getCategoryById(id).getName());
+                assertEquals(id, categoryService.getCategoryIdsByName().get("test kept"));
+            } finally {
+                stmt.executeUpdate("ALTER TABLE categories_away RENAME TO categories");
+            }
+        }
+        // Served from the kept snapshot until the retry delay passes, then loaded again
+        assertEquals("Test Kept", categoryService.getCategoryById(id).getName());
+    }
 }
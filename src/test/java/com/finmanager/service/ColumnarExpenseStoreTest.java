@@ -0,0 +1,215 @@
+package com.finmanager.service;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ColumnarExpenseStoreTest {
+    private static final LocalDate BASE = LocalDate.of(2019, 1, 1);
+
+    private ExpenseService expenseService;
+    private ColumnarExpenseStore store;
+    private final List<Long> categoryIds = new ArrayList<>();
+
+    @Before
+    public void setUp() throws SQLException {
+        expenseService = ExpenseService.getInstance();
+        store = ColumnarExpenseStore.getInstance();
+        cleanUp();
+        for (int i = 0; i < 3; i++) {
+            categoryIds.add(CategoryService.getInstance().createCategory(
+                new Category("Columnar Test " + i + "_" + System.nanoTime(), "LEISURE", "#556677")));
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        cleanUp();
+    }
+
+    private void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE 'Columnar%'");
+            stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Columnar Test%'");
+            CategoryService.getInstance().reload();
+        }
+        expenseService.notifyExpensesReloaded();
+    }
+
+    private long sqlCents(Long categoryId, boolean recurringOnly, LocalDate start, LocalDate end) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(amount_cents), 0) FROM expenses WHERE epoch_day >= ? AND epoch_day <= ?"
+            + (categoryId != null ? " AND category_id = ?" : "")
+            + (recurringOnly ? " AND is_recurring_instance = 1" : "");
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, start.toEpochDay());
+            pstmt.setLong(2, end.toEpochDay());
+            if (categoryId != null) {
+                pstmt.setLong(3, categoryId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private LocalDate randomDate(Random random) {
+        return BASE.plusDays(random.nextInt(1_500));
+    }
+
+    private void assertRangesMatchSql(Random random, int ranges) throws SQLException {
+        for (int i = 0; i < ranges; i++) {
+            LocalDate start = randomDate(random);
+            LocalDate end = random.nextInt(10) == 0 ? start : start.plusDays(random.nextInt(400));
+            Long categoryId = random.nextBoolean() ? null : categoryIds.get(random.nextInt(categoryIds.size()));
+            boolean recurringOnly = random.nextInt(4) == 0;
+            String label = "category " + categoryId + " recurring " + recurringOnly + " " + start + ".." + end;
+            assertEquals(label, sqlCents(categoryId, recurringOnly, start, end), store.total(start, end, categoryId, recurringOnly));
+
+            long[] byCategory = store.totalsByCategory(start, end);
+            for (Long id : categoryIds) {
+                long actual = id < byCategory.length ? byCategory[Math.toIntExact(id)] : 0;
+                assertEquals("category " + id + " " + start + ".." + end, sqlCents(id, false, start, end), actual);
+            }
+        }
+    }
+
+    /** One random create, update or delete of an expense this test owns. */
+    private void mutate(Random random, List<Expense> live, String description) {
+        int op = random.nextInt(100);
+        if (op < 55 || live.isEmpty()) {
+            // Few distinct amounts, so deletes often have several identical rows to choose from
+            Expense expense = new Expense(randomDate(random), 0.01 + random.nextInt(50) * 2.5,
+                categoryIds.get(random.nextInt(categoryIds.size())), description);
+            expense.setRecurringInstance(random.nextInt(5) == 0);
+            expense.setId(expenseService.createExpense(expense));
+            live.add(expense);
+        } else if (op < 85) {
+            Expense expense = live.get(random.nextInt(live.size()));
+            expense.setDate(random.nextBoolean() ? randomDate(random) : expense.getDate().plusDays(1));
+            expense.setAmount(0.01 + random.nextInt(100_000) / 100.0);
+            expense.setCategoryId(categoryIds.get(random.nextInt(categoryIds.size())));
+            expenseService.updateExpense(expense);
+        } else {
+            expenseService.deleteExpense(live.remove(random.nextInt(live.size())).getId());
+        }
+    }
+
+    @Test
+    public void testRandomMutationsMatchSqlTotals() throws SQLException {
+        for (long seed = 1; seed <= 3; seed++) {
+            Random random = new Random(seed);
+            List<Expense> live = new ArrayList<>();
+            for (int step = 1; step <= 300; step++) {
+                mutate(random, live, "Columnar " + seed + "/" + step);
+
+                if (step % 25 == 0) {
+                    assertRangesMatchSql(random, 20);
+                }
+                if (step % 100 == 0) {
+                    // Fold delta rows and tombstones into the sorted segment mid-run
+                    store.compactIfDirty();
+                    assertEquals(0, store.getStats().tombstones);
+                    assertEquals(0, store.getStats().deltaRows);
+                    assertRangesMatchSql(random, 20);
+                }
+            }
+
+            expenseService.notifyExpensesReloaded();
+            assertRangesMatchSql(random, 50);
+        }
+    }
+
+    @Test
+    public void testReloadsRacingConcurrentWritersLoseNothing() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(5);
+        AtomicInteger steps = new AtomicInteger();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                long seed = 100 + w;
+                writers.add(threads.submit(() -> {
+                    Random random = new Random(seed);
+                    List<Expense> live = new ArrayList<>();
+                    for (int step = 1; step <= 150; step++) {
+                        steps.incrementAndGet();
+                        mutate(random, live, "Columnar concurrent " + seed + "/" + step);
+                    }
+                    return null;
+                }));
+            }
+            // Keep forcing reloads so snapshots land between commits and their notifications
+            Future<Integer> reloader = threads.submit(() -> {
+                int reloads = 0;
+                // Stop with writes still to come, so the last load races them and later changes apply on top
+                while (steps.get() < 450) {
+                    expenseService.notifyExpensesReloaded();
+                    store.total(BASE, BASE.plusDays(1_500), null, false);
+                    reloads++;
+                }
+                return reloads;
+            });
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            assertTrue(reloader.get() > 0);
+        } finally {
+            threads.shutdown();
+        }
+
+        // Every change matched a row, so nothing forces a reload: these come from the last load plus the changes after it
+        assertFalse(store.isStale());
+        assertRangesMatchSql(new Random(7), 50);
+    }
+
+    @Test
+    public void testAnalyticsMatchesTheRollup() {
+        Long categoryId = categoryIds.get(0);
+        expenseService.createExpense(new Expense(LocalDate.of(2022, 5, 3), 12.40, categoryId, "Columnar analytics a"));
+        expenseService.createExpense(new Expense(LocalDate.of(2022, 5, 31), 7.60, categoryIds.get(1), "Columnar analytics b"));
+        Expense recurring = new Expense(LocalDate.of(2022, 6, 1), 30.00, categoryId, "Columnar analytics c");
+        recurring.setRecurringInstance(true);
+        expenseService.createExpense(recurring);
+
+        AnalyticsService analytics = AnalyticsService.getInstance();
+        MonthlyCategoryTotalsService rollup = MonthlyCategoryTotalsService.getInstance();
+        YearMonth may = YearMonth.of(2022, 5);
+
+        Map<String, Double> breakdown = analytics.getCategoryBreakdown(may);
+        Map<String, Double> expected = rollup.getCategoryTotals(may, may);
+        assertEquals(expected.keySet().stream().toList(), breakdown.keySet().stream().toList());
+        for (Map.Entry<String, Double> entry : expected.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue(), breakdown.get(entry.getKey()), 1e-6);
+        }
+        assertEquals(rollup.getMonthlyTotal(may), analytics.getMonthlyTotal(may), 1e-6);
+        assertEquals(12.40, analytics.getTotalByCategory(categoryId, may), 1e-9);
+
+        Map<Integer, Double> trend = analytics.getMonthlyTrend(2022);
+        Map<Integer, Double> expectedTrend = rollup.getMonthlyTotals(2022);
+        for (int month = 1; month <= 12; month++) {
+            assertEquals("month " + month, expectedTrend.get(month), trend.get(month), 1e-6);
+        }
+    }
+}
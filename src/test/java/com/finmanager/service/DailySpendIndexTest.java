@@ -0,0 +1,227 @@
+package com.finmanager.service;
+
+import com.finmanager.db.DatabaseManager;
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DailySpendIndexTest {
+    private static final LocalDate BASE = LocalDate.of(2018, 1, 1);
+
+    private ExpenseService expenseService;
+    private DailySpendIndex index;
+    private final List<Long> categoryIds = new ArrayList<>();
+
+    @Before
+    public void setUp() throws SQLException {
+        expenseService = ExpenseService.getInstance();
+        index = DailySpendIndex.getInstance();
+        cleanUp();
+        for (int i = 0; i < 3; i++) {
+            categoryIds.add(CategoryService.getInstance().createCategory(
+                new Category("Fenwick Test " + i + "_" + System.nanoTime(), "LEISURE", "#445566")));
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        cleanUp();
+    }
+
+    private void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE 'Fenwick%'");
+            stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Fenwick Test%'");
+            CategoryService.getInstance().reload();
+        }
+        expenseService.notifyExpensesReloaded();
+    }
+
+    private double sqlTotal(Long categoryId, LocalDate start, LocalDate end) throws SQLException {
+        String sql = "SELECT COALESCE(SUM(amount_cents), 0) / 100.0 FROM expenses WHERE epoch_day >= ? AND epoch_day <= ?"
+            + (categoryId != null ? " AND category_id = ?" : "");
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, start.toEpochDay());
+            pstmt.setLong(2, end.toEpochDay());
+            if (categoryId != null) {
+                pstmt.setLong(3, categoryId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getDouble(1);
+            }
+        }
+    }
+
+    private LocalDate randomDate(Random random) {
+        // Mostly recent dates, sometimes far enough out to make the index grow its window
+        int roll = random.nextInt(20);
+        if (roll == 0) {
+            return BASE.minusDays(random.nextInt(15_000));
+        }
+        if (roll == 1) {
+            return BASE.plusDays(10_000 + random.nextInt(15_000));
+        }
+        return BASE.plusDays(random.nextInt(3_000));
+    }
+
+    private void assertRangesMatchSql(Random random, int ranges) throws SQLException {
+        for (int i = 0; i < ranges; i++) {
+            LocalDate start = randomDate(random);
+            LocalDate end = random.nextInt(10) == 0 ? start : randomDate(random);
+            Long categoryId = random.nextBoolean() ? null : categoryIds.get(random.nextInt(categoryIds.size()));
+            double expected = start.isAfter(end) ? 0.0 : sqlTotal(categoryId, start, end);
+            double actual = categoryId == null ? index.total(start, end) : index.total(categoryId, start, end);
+            assertEquals("category " + categoryId + " " + start + ".." + end, expected, actual, 1e-6);
+        }
+    }
+
+    /** One random create, update or delete of an expense this test owns. */
+    private void mutate(Random random, List<Expense> live, String description) {
+        int op = random.nextInt(100);
+        if (op < 55 || live.isEmpty()) {
+            Expense expense = new Expense(randomDate(random), 0.01 + random.nextInt(100_000) / 100.0,
+                categoryIds.get(random.nextInt(categoryIds.size())), description);
+            expense.setId(expenseService.createExpense(expense));
+            live.add(expense);
+        } else if (op < 85) {
+            Expense expense = live.get(random.nextInt(live.size()));
+            expense.setDate(random.nextBoolean() ? randomDate(random) : expense.getDate().plusDays(1));
+            expense.setAmount(0.01 + random.nextInt(100_000) / 100.0);
+            expense.setCategoryId(categoryIds.get(random.nextInt(categoryIds.size())));
+            expenseService.updateExpense(expense);
+        } else {
+            expenseService.deleteExpense(live.remove(random.nextInt(live.size())).getId());
+        }
+    }
+
+    @Test
+    public void testRandomMutationsMatchSqlTotals() throws SQLException {
+        for (long seed = 1; seed <= 3; seed++) {
+            Random random = new Random(seed);
+            List<Expense> live = new ArrayList<>();
+            for (int step = 1; step <= 300; step++) {
+                mutate(random, live, "Fenwick " + seed + "/" + step);
+
+                if (step % 25 == 0) {
+                    assertRangesMatchSql(random, 40);
+                }
+            }
+
+            // A reload rebuilds from the table and must land on the same answers
+            expenseService.notifyExpensesReloaded();
+            assertRangesMatchSql(random, 100);
+        }
+    }
+
+    @Test
+    public void testRebuildsRacingConcurrentWritersLoseNothing() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(5);
+        AtomicInteger steps = new AtomicInteger();
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                long seed = 100 + w;
+                writers.add(threads.submit(() -> {
+                    Random random = new Random(seed);
+                    List<Expense> live = new ArrayList<>();
+                    for (int step = 1; step <= 150; step++) {
+                        steps.incrementAndGet();
+                        mutate(random, live, "Fenwick concurrent " + seed + "/" + step);
+                    }
+                    return null;
+                }));
+            }
+            // Keep forcing rebuilds so snapshots land between commits and their notifications
+            Future<Integer> rebuilder = threads.submit(() -> {
+                int rebuilds = 0;
+                // Stop with writes still to come, so the last load races them and later changes apply on top
+                while (steps.get() < 450) {
+                    expenseService.notifyExpensesReloaded();
+                    index.total(BASE, BASE.plusDays(3_000));
+                    rebuilds++;
+                }
+                return rebuilds;
+            });
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            assertTrue(rebuilder.get() > 0);
+        } finally {
+            threads.shutdown();
+        }
+
+        // No reload is pending, so these come from the last rebuild plus the changes applied after it
+        assertRangesMatchSql(new Random(7), 100);
+    }
+
+    @Test
+    public void testFarOutDatesAreLeftToSql() throws SQLException {
+        Long categoryId = categoryIds.get(1);
+        LocalDate day = LocalDate.of(2022, 6, 1);
+        LocalDate first = LocalDate.of(1, 1, 1);
+        LocalDate last = LocalDate.of(9999, 12, 31);
+        expenseService.createExpense(new Expense(day, 10.0, categoryId, "Fenwick near"));
+        assertTrue(index.ready());
+
+        // Each of these would once have doubled every tree until it reached them
+        List<Long> ids = new ArrayList<>();
+        for (LocalDate far : List.of(first, last)) {
+            ids.add(expenseService.createExpense(new Expense(far, 1.0, categoryId, "Fenwick far")));
+        }
+        assertEquals(10.0, index.total(categoryId, day, day), 0.0);
+        assertNull(index.total(categoryId, first, day));
+        assertEquals(sqlTotal(null, first, day), expenseService.getTotalExpensesByDateRange(first, day), 1e-9);
+        assertEquals(sqlTotal(null, day, last), expenseService.getTotalExpensesByDateRange(day, last), 1e-9);
+
+        // The table cannot hold this one, but the index must not overflow on it either
+        Expense beyondInt = new Expense(LocalDate.of(100_000, 1, 1), 1.0, categoryId, "Fenwick beyond");
+        index.expenseCreated(beyondInt);
+        assertEquals(10.0, index.total(categoryId, day, day), 0.0);
+        index.expenseDeleted(beyondInt);
+
+        // A rebuild keeps the window around the recent expenses and counts the rest
+        expenseService.notifyExpensesReloaded();
+        assertEquals(10.0, index.total(categoryId, day, day), 0.0);
+        assertNull(index.total(day, last));
+        assertEquals(sqlTotal(null, first, last), expenseService.getTotalExpensesByDateRange(first, last), 1e-9);
+
+        // Once they are gone the index answers every range again
+        ids.forEach(expenseService::deleteExpense);
+        assertEquals(10.0, index.total(categoryId, first, last), 0.0);
+    }
+
+    @Test
+    public void testServiceTotalsComeFromTheIndex() {
+        Long categoryId = categoryIds.get(0);
+        LocalDate day = LocalDate.of(2021, 3, 15);
+        expenseService.createExpense(new Expense(day, 40.25, categoryId, "Fenwick service a"));
+        expenseService.createExpense(new Expense(day.plusDays(20), 9.75, categoryId, "Fenwick service b"));
+
+        double before = expenseService.getTotalExpensesByDateRange(day.minusYears(1), day.plusYears(1));
+        assertEquals(before, index.total(day.minusYears(1), day.plusYears(1)), 1e-9);
+        assertEquals(40.25, expenseService.getTotalExpensesByCategoryAndMonth(categoryId, YearMonth.of(2021, 3)), 1e-9);
+        assertEquals(9.75, expenseService.getTotalExpensesByCategoryAndMonth(categoryId, YearMonth.of(2021, 4)), 1e-9);
+        assertEquals(0.0, index.total(day, day.minusDays(1)), 0.0);
+    }
+}
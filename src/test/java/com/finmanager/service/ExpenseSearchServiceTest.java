@@ -0,0 +1,182 @@
+package com.finmanager.service;
+
+import com.finmanager.api.ExpenseAPI;
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.util.AppConfig;
+import com.finmanager.util.GsonUtil;
+import com.finmanager.db.DatabaseManager;
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.After;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ExpenseSearchServiceTest {
+    private ExpenseSearchService searchService;
+    private ExpenseService expenseService;
+    private Long testCategoryId;
+    private Long otherCategoryId;
+
+    @Before
+    public void setUp() throws SQLException {
+        searchService = ExpenseSearchService.getInstance();
+        expenseService = ExpenseService.getInstance();
+        cleanUp();
+
+        testCategoryId = CategoryService.getInstance().createCategory(new Category("Search Test Cat_" + System.nanoTime(), "LEISURE", "#112233"));
+        otherCategoryId = CategoryService.getInstance().createCategory(new Category("Search Test Other_" + System.nanoTime(), "LEISURE", "#332211"));
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        cleanUp();
+    }
+
+    private void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE 'Search%'");
+            ExpenseService.getInstance().notifyExpensesReloaded();
+            stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Search Test%'");
+            CategoryService.getInstance().reload();
+        }
+    }
+
+    private List<String> search(String text, ExpenseSearchService.Filter filter) {
+        return searchService.search(ExpenseSearchService.toMatchQuery(text), filter, 50).expenses().stream()
+                .map(Expense::getDescription).toList();
+    }
+
+    @Test
+    public void testToMatchQuery() {
+        assertEquals("\"Whole\"* \"Foods\"*", ExpenseSearchService.toMatchQuery("Whole Foods"));
+        assertEquals("\"a\" \"OR\"* \"b\"", ExpenseSearchService.toMatchQuery("a OR \"b\"*"));
+        assertEquals("\"café\"*", ExpenseSearchService.toMatchQuery("  café!! "));
+        assertNull(ExpenseSearchService.toMatchQuery(" *-\" "));
+        assertNull(ExpenseSearchService.toMatchQuery(null));
+    }
+
+    @Test
+    public void testPrefixSearchWithFilters() {
+        LocalDate day = LocalDate.of(2023, 7, 10);
+        expenseService.createExpense(new Expense(day, 80.0, testCategoryId, "Search Quokkamart groceries"));
+        expenseService.createExpense(new Expense(day.plusDays(20), 15.0, testCategoryId, "Search Quokkamart snacks"));
+        expenseService.createExpense(new Expense(day, 200.0, otherCategoryId, "Search Quokka Café lunch"));
+        expenseService.createExpense(new Expense(day, 5.0, testCategoryId, "Search bus ticket"));
+
+        assertEquals(3, search("quokka", ExpenseSearchService.Filter.NONE).size());
+        assertEquals(List.of("Search Quokkamart groceries"), search("QUOKKAM groc", ExpenseSearchService.Filter.NONE));
+        assertEquals(List.of("Search Quokka Café lunch"), search("quokka cafe", ExpenseSearchService.Filter.NONE));
+
+        assertEquals(List.of("Search Quokka Café lunch"),
+                search("quokka", new ExpenseSearchService.Filter(null, null, otherCategoryId, null, null)));
+        assertEquals(List.of("Search Quokkamart groceries"),
+                search("quokka", new ExpenseSearchService.Filter(null, day, testCategoryId, null, null)));
+        assertEquals(List.of("Search Quokkamart groceries"),
+                search("quokka", new ExpenseSearchService.Filter(null, null, null, 50.0, 100.0)));
+        assertEquals(List.of("Search Quokkamart snacks"),
+                search("quokka", new ExpenseSearchService.Filter(day.plusDays(1), day.plusMonths(1), null, null, null)));
+
+        ExpenseSearchService.Results first = searchService.search(ExpenseSearchService.toMatchQuery("quokka"), ExpenseSearchService.Filter.NONE, 2);
+        ExpenseSearchService.Results page = searchService.search(ExpenseSearchService.toMatchQuery("quokka"), ExpenseSearchService.Filter.NONE, first.after(1), 2, true);
+        assertEquals(1, page.expenses().size());
+        assertTrue(page.ranked());
+
+        AppConfig config = AppConfig.getInstance();
+        config.setProperty("search.maxRankedMatches", "2");
+        try {
+            ExpenseSearchService.Results newestFirst = searchService.search(ExpenseSearchService.toMatchQuery("quokka"), ExpenseSearchService.Filter.NONE, 50);
+            assertFalse(newestFirst.ranked());
+            assertEquals(List.of("Search Quokka Café lunch", "Search Quokkamart snacks", "Search Quokkamart groceries"),
+                    newestFirst.expenses().stream().map(Expense::getDescription).toList());
+            ExpenseSearchService.Results rest = searchService.search(ExpenseSearchService.toMatchQuery("quokka"), ExpenseSearchService.Filter.NONE, newestFirst.after(0), 50, false);
+            assertEquals(newestFirst.expenses().subList(1, 3).stream().map(Expense::getId).toList(),
+                    rest.expenses().stream().map(Expense::getId).toList());
+
+            // Only the matches that pass the filter count towards the threshold
+            assertTrue(searchService.search(ExpenseSearchService.toMatchQuery("quokka"),
+                    new ExpenseSearchService.Filter(null, null, testCategoryId, null, null), 50).ranked());
+        } finally {
+            config.setProperty("search.maxRankedMatches", "10000");
+        }
+    }
+
+    @Test
+    public void testLaterPagesKeepTheOrderOfTheFirst() {
+        LocalDate day = LocalDate.of(2023, 9, 1);
+        for (int i = 0; i < 4; i++) {
+            expenseService.createExpense(new Expense(day.plusDays(i), 10.0 + i, testCategoryId, "Search Echidnaware item " + i));
+        }
+        ExpenseAPI api = new ExpenseAPI();
+        ExpenseAPI.PageResponse first = GsonUtil.getInstance().fromJson(
+                api.searchExpenses(Map.of("q", "echidnaware", "limit", "2")), ExpenseAPI.PageResponse.class);
+        assertTrue(first.ranked);
+
+        AppConfig config = AppConfig.getInstance();
+        config.setProperty("search.maxRankedMatches", "2");
+        try {
+            ExpenseAPI.PageResponse second = GsonUtil.getInstance().fromJson(
+                    api.searchExpenses(Map.of("q", "echidnaware", "limit", "2", "cursor", first.nextCursor)), ExpenseAPI.PageResponse.class);
+            assertTrue(second.ranked);
+            assertEquals(2, second.items.size());
+            assertTrue(second.items.stream().noneMatch(e -> first.items.stream().anyMatch(f -> f.getId().equals(e.getId()))));
+        } finally {
+            config.setProperty("search.maxRankedMatches", "10000");
+        }
+    }
+
+    @Test
+    public void testPagesSeekPastTiedScores() {
+        // Same description, so every match has the same score and only the day and id order them
+        LocalDate day = LocalDate.of(2023, 10, 1);
+        for (int i = 0; i < 7; i++) {
+            expenseService.createExpense(new Expense(day.plusDays(i % 3), 5.0, testCategoryId, "Search Numbatfood pellets"));
+        }
+        String match = ExpenseSearchService.toMatchQuery("numbatfood");
+        List<Long> all = searchService.search(match, ExpenseSearchService.Filter.NONE, 50).expenses().stream().map(Expense::getId).toList();
+        assertEquals(7, all.size());
+
+        ExpenseAPI api = new ExpenseAPI();
+        List<Long> paged = new ArrayList<>();
+        Map<String, String> params = new HashMap<>(Map.of("q", "numbatfood", "limit", "2"));
+        while (true) {
+            ExpenseAPI.PageResponse page = GsonUtil.getInstance().fromJson(api.searchExpenses(params), ExpenseAPI.PageResponse.class);
+            page.items.forEach(e -> paged.add(e.getId()));
+            if (page.nextCursor == null) {
+                break;
+            }
+            params.put("cursor", page.nextCursor);
+        }
+        assertEquals(all, paged);
+    }
+
+    @Test
+    public void testIndexFollowsUpdatesAndDeletes() throws SQLException {
+        Expense expense = new Expense(LocalDate.of(2023, 8, 1), 12.0, testCategoryId, "Search Wombatbooks novel");
+        expense.setId(expenseService.createExpense(expense));
+        assertEquals(1, search("wombatbooks", ExpenseSearchService.Filter.NONE).size());
+
+        expense.setDescription("Search Numbatbooks novel");
+        expenseService.updateExpense(expense);
+        assertTrue(search("wombatbooks", ExpenseSearchService.Filter.NONE).isEmpty());
+        assertEquals(1, search("numbat", ExpenseSearchService.Filter.NONE).size());
+
+        expenseService.deleteExpense(expense.getId());
+        assertTrue(search("numbat", ExpenseSearchService.Filter.NONE).isEmpty());
+        assertNull(searchService.checkIntegrity());
+
+        expenseService.createExpense(new Expense(LocalDate.of(2023, 8, 2), 3.0, testCategoryId, "Search Bilbyprint poster"));
+        assertTrue(searchService.rebuild() >= 1);
+        assertNull(searchService.checkIntegrity());
+        assertEquals(1, search("bilby", ExpenseSearchService.Filter.NONE).size());
+    }
+}
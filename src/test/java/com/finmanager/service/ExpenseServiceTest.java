@@ -3,6 +3,10 @@ package com.finmanager.service;
 import com.finmanager.model.Expense;
 import com.finmanager.model.Category;
 import com.finmanager.db.DatabaseManager;
+import com.finmanager.api.ExpenseAPI;
+import com.finmanager.server.ResponseCache;
+import com.finmanager.util.AppConfig;
+import com.finmanager.util.GsonUtil;
 import org.junit.Test;
 import org.junit.Before;
 import org.junit.After;
@@ -13,6 +17,9 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 public class ExpenseServiceTest {
     private ExpenseService expenseService;
@@ -28,7 +35,9 @@ public class ExpenseServiceTest {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE 'Test%' OR description LIKE 'Exp%' OR description IS NULL");
+            ExpenseService.getInstance().notifyExpensesReloaded();
             stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Test%'");
+            CategoryService.getInstance().reload();
         }
         
         // Create new category with unique name
@@ -43,7 +52,9 @@ public class ExpenseServiceTest {
         try (Connection conn = DatabaseManager.getInstance().getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE 'Test%' OR description LIKE 'Exp%' OR description IS NULL");
+            ExpenseService.getInstance().notifyExpensesReloaded();
             stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Test%'");
+            CategoryService.getInstance().reload();
         }
     }
 
@@ -113,4 +124,170 @@ public class ExpenseServiceTest {
         var expenses = expenseService.getExpensesByCategory(testCategoryId, YearMonth.now());
         assertTrue(expenses.size() >= 1);
     }
+
+    @Test
+    public void testCreateExpensesReturnsIdsInOrder() throws SQLException {
+        List<Expense> batch = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            batch.add(new Expense(LocalDate.now(), 1.0 + i, testCategoryId, "Test batch " + i));
+        }
+
+        List<Long> ids = expenseService.createExpenses(batch);
+
+        assertEquals(batch.size(), ids.size());
+        var byId = new java.util.HashMap<Long, Expense>();
+        expenseService.getExpensesByCategory(testCategoryId, YearMonth.now()).forEach(e -> byId.put(e.getId(), e));
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("Test batch " + i, byId.get(ids.get(i)).getDescription());
+        }
+    }
+
+    @Test
+    public void testCreateExpensesIsAllOrNothing() {
+        List<Expense> batch = new ArrayList<>();
+        batch.add(new Expense(LocalDate.now(), 10.0, testCategoryId, "Test batch ok"));
+        batch.add(new Expense(LocalDate.now(), 10.0, null, "Test batch broken"));
+
+        try {
+            expenseService.createExpenses(batch);
+            fail("Expected the batch to fail");
+        } catch (SQLException | RuntimeException expected) {
+            // the whole batch is rolled back
+        }
+        assertTrue(expenseService.getExpensesByCategory(testCategoryId, YearMonth.now()).isEmpty());
+    }
+
+    @Test
+    public void testLargeBatchKeepsSearchIndexAndRollupInStep() throws SQLException {
+        YearMonth month = YearMonth.of(1997, 5);
+        expenseService.createExpense(new Expense(month.atDay(1), 3.0, testCategoryId, "Test single zebrafinch"));
+        List<Expense> batch = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            batch.add(new Expense(month.atDay(1 + i % 28), 2.0, testCategoryId, "Test bulk zebrafinch " + i));
+        }
+        expenseService.createExpenses(batch);
+
+        assertEquals(3003.0, MonthlyCategoryTotalsService.getInstance().getCategoryTotal(testCategoryId, month), 0.001);
+        assertTrue(MonthlyCategoryTotalsService.getInstance().checkConsistency().isEmpty());
+        assertEquals(1501, ExpenseSearchService.getInstance()
+            .search(ExpenseSearchService.toMatchQuery("zebrafinch"), ExpenseSearchService.Filter.NONE, 2000).expenses().size());
+        assertNull(ExpenseSearchService.getInstance().checkIntegrity());
+
+        // A failed batch rolls back with the triggers it suspended, so single inserts are indexed again
+        batch.set(batch.size() - 1, new Expense(month.atDay(2), 1.0, null, "Test bulk broken"));
+        try {
+            expenseService.createExpenses(batch);
+            fail("Expected the batch to fail");
+        } catch (SQLException | RuntimeException expected) {
+            // rolled back after its triggers were dropped
+        }
+        expenseService.createExpense(new Expense(month.atDay(2), 4.0, testCategoryId, "Test single zebrafinch"));
+        assertEquals(3007.0, MonthlyCategoryTotalsService.getInstance().getCategoryTotal(testCategoryId, month), 0.001);
+        assertEquals(1502, ExpenseSearchService.getInstance()
+            .search(ExpenseSearchService.toMatchQuery("zebrafinch"), ExpenseSearchService.Filter.NONE, 2000).expenses().size());
+    }
+
+    @Test
+    public void testStreamedMonthMatchesListJson() {
+        YearMonth month = YearMonth.now();
+        expenseService.createExpense(new Expense(month.atDay(1), 12.5, testCategoryId, "Test stream <a & b>"));
+        expenseService.createExpense(new Expense(month.atDay(2), 7.0, testCategoryId, null));
+        expenseService.createExpense(new Expense(month.atDay(3), 99.99, testCategoryId, "Test stream caf\u00e9"));
+
+        String expected = GsonUtil.getInstance().toJson(expenseService.getExpensesByMonth(month));
+        assertEquals(expected, new ExpenseAPI().getExpensesByMonth(month.toString()));
+        assertTrue(new ExpenseAPI().getExpensesByMonth("not-a-month").startsWith("{\"error\""));
+
+        // Pages that end part-way through and exactly at the last row join into the same array
+        AppConfig config = AppConfig.getInstance();
+        String pageRows = config.getProperty("api.stream.pageRows");
+        try {
+            for (String rows : new String[] {"1", "2"}) {
+                config.setProperty("api.stream.pageRows", rows);
+                assertEquals(expected, new ExpenseAPI().getExpensesByMonth(month.toString()));
+            }
+        } finally {
+            config.setProperty("api.stream.pageRows", pageRows);
+        }
+    }
+
+    @Test
+    public void testKeysetPagesCoverRangeExactlyOnce() throws SQLException {
+        YearMonth month = YearMonth.of(1999, 3);
+        List<Expense> batch = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            // Several rows per day so pages split days part-way through
+            batch.add(new Expense(month.atDay(1 + i % 4), 1.0 + i, testCategoryId, "Test page " + i));
+        }
+        try {
+            expenseService.createExpenses(batch);
+        } catch (SQLException e) {
+            fail(e.getMessage());
+        }
+
+        List<Expense> expected = new ArrayList<>(expenseService.getExpensesByMonth(month));
+        expected.sort(java.util.Comparator.comparing(Expense::getDate).thenComparing(Expense::getId).reversed());
+        assertEquals(23, expected.size());
+
+        List<Expense> paged = new ArrayList<>();
+        LocalDate afterDate = null;
+        Long afterId = null;
+        List<Expense> page;
+        do {
+            page = expenseService.getExpensesPage(month.atDay(1), month.atEndOfMonth(), afterDate, afterId, 5);
+            assertTrue(page.size() <= 5);
+            paged.addAll(page);
+            if (!page.isEmpty()) {
+                afterDate = page.get(page.size() - 1).getDate();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 5);
+        assertEquals(expected.stream().map(Expense::getId).toList(), paged.stream().map(Expense::getId).toList());
+
+        // Through the API: follow nextCursor until it disappears
+        ExpenseAPI api = new ExpenseAPI();
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            ExpenseAPI.PageResponse response = GsonUtil.getInstance().fromJson(
+                api.getExpensesPageByDateRange("1999-03-01", "1999-03-31", cursor, "10"), ExpenseAPI.PageResponse.class);
+            response.items.forEach(e -> ids.add(e.getId()));
+            cursor = response.nextCursor;
+            assertEquals(cursor == null, response.next == null);
+        } while (cursor != null);
+        assertEquals(expected.stream().map(Expense::getId).toList(), ids);
+
+        assertTrue(api.getExpensesPageByMonth("1999-03", "not-a-cursor", null).startsWith("{\"error\""));
+        assertTrue(api.getExpensesPageByMonth("1999-03", null, "0").startsWith("{\"error\""));
+    }
+
+    @Test
+    public void testCacheEvictionWaitsForDerivedStores() {
+        YearMonth month = YearMonth.of(1998, 7);
+        String key = "breakdown:" + month;
+        ResponseCache cache = new ResponseCache(10);
+        long[] storeTotal = {0};
+        // A store registered after the cache, answering a cached read while it has yet to apply the
+        // write: the response it renders is stale and must not outlive the write's eviction
+        ExpenseChangeListener store = new ExpenseChangeListener() {
+            @Override
+            public void expenseCreated(Expense expense) {
+                long version = cache.version();
+                cache.put(key, "{\"total\":" + storeTotal[0] + "}", Set.of(month), version);
+                storeTotal[0] += expense.getAmountCents();
+            }
+        };
+        expenseService.addInvalidationListener(cache);
+        expenseService.addChangeListener(store);
+        try {
+            cache.put(key, "{\"total\":0}", Set.of(month), cache.version());
+            expenseService.createExpense(new Expense(month.atDay(3), 12.5, testCategoryId, "Test cached read"));
+
+            assertEquals(1250, storeTotal[0]);
+            assertNull("stale response survived the write", cache.get(key));
+        } finally {
+            expenseService.removeChangeListener(store);
+            expenseService.removeInvalidationListener(cache);
+        }
+    }
 }
@@ -0,0 +1,85 @@
+package com.finmanager.service;
+
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.db.DatabaseManager;
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.After;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+
+public class MonthlyCategoryTotalsServiceTest {
+    private MonthlyCategoryTotalsService totalsService;
+    private ExpenseService expenseService;
+    private Long testCategoryId;
+    private final YearMonth month = YearMonth.of(2024, 3);
+
+    @Before
+    public void setUp() throws SQLException {
+        totalsService = MonthlyCategoryTotalsService.getInstance();
+        expenseService = ExpenseService.getInstance();
+        cleanUp();
+
+        Category category = new Category("Rollup Test Cat_" + System.nanoTime(), "LEISURE", "#112233");
+        testCategoryId = CategoryService.getInstance().createCategory(category);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        cleanUp();
+    }
+
+    private void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE 'Rollup%'");
+            ExpenseService.getInstance().notifyExpensesReloaded();
+            stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Rollup Test%'");
+            CategoryService.getInstance().reload();
+        }
+    }
+
+    @Test
+    public void testRollupFollowsCreateUpdateDelete() {
+        Long first = expenseService.createExpense(new Expense(month.atDay(3), 40.0, testCategoryId, "Rollup A"));
+        expenseService.createExpense(new Expense(month.atDay(20), 10.0, testCategoryId, "Rollup B"));
+        assertEquals(50.0, totalsService.getCategoryTotal(testCategoryId, month), 0.001);
+
+        Expense moved = new Expense(month.plusMonths(1).atDay(1), 25.0, testCategoryId, "Rollup A");
+        moved.setId(first);
+        expenseService.updateExpense(moved);
+        assertEquals(10.0, totalsService.getCategoryTotal(testCategoryId, month), 0.001);
+        assertEquals(25.0, totalsService.getCategoryTotal(testCategoryId, month.plusMonths(1)), 0.001);
+
+        expenseService.deleteExpense(first);
+        assertEquals(0.0, totalsService.getCategoryTotal(testCategoryId, month.plusMonths(1)), 0.001);
+    }
+
+    @Test
+    public void testYearlyTotalsMatchExpenseQueries() {
+        expenseService.createExpense(new Expense(month.atDay(1), 12.5, testCategoryId, "Rollup C"));
+        expenseService.createExpense(new Expense(month.plusMonths(5).atDay(1), 7.5, testCategoryId, "Rollup D"));
+
+        var monthly = totalsService.getMonthlyTotals(month.getYear());
+        assertEquals(12, monthly.size());
+        for (int m = 1; m <= 12; m++) {
+            YearMonth ym = YearMonth.of(month.getYear(), m);
+            assertEquals(expenseService.getTotalExpensesByMonth(ym), monthly.get(m), 0.001);
+        }
+    }
+
+    @Test
+    public void testRebuildLeavesRollupConsistent() throws SQLException {
+        expenseService.createExpense(new Expense(month.atDay(9), 99.0, testCategoryId, "Rollup E"));
+
+        totalsService.rebuild();
+
+        assertTrue(totalsService.checkConsistency().isEmpty());
+        assertEquals(99.0, totalsService.getCategoryTotal(testCategoryId, month), 0.001);
+    }
+}
@@ -0,0 +1,111 @@
+package com.finmanager.service;
+
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.model.RecurringExpense;
+import com.finmanager.db.DatabaseManager;
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.After;
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+public class RecurringExpenseGeneratorTest {
+    private RecurringExpenseGenerator generator;
+    private Long recurringId;
+
+    @Before
+    public void setUp() throws SQLException {
+        generator = RecurringExpenseGenerator.getInstance();
+        cleanUp();
+
+        Long categoryId = CategoryService.getInstance().createCategory(
+            new Category("Test Generator Cat_" + System.nanoTime(), "UTILITIES", "#00FF00"));
+        recurringId = RecurringExpenseService.getInstance().createRecurringExpense(new RecurringExpense(
+            categoryId, 25.0, "Test generator rent", RecurringExpense.Frequency.MONTHLY, LocalDate.of(2021, 1, 1)));
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        cleanUp();
+    }
+
+    private void cleanUp() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM expenses WHERE description LIKE 'Test generator%'");
+            ExpenseService.getInstance().notifyExpensesReloaded();
+            stmt.executeUpdate("DELETE FROM recurring_expenses WHERE description LIKE 'Test generator%'");
+            stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Test Generator%'");
+            CategoryService.getInstance().reload();
+        }
+    }
+
+    private int instanceCount() throws SQLException {
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM expenses WHERE recurring_id = ?")) {
+            pstmt.setLong(1, recurringId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Test
+    public void testBackfillGeneratesEveryMonthOnce() throws SQLException {
+        int generated = generator.generateForRecurring(recurringId, LocalDate.of(2023, 12, 31));
+
+        assertEquals(36, generated);
+        assertEquals(36, instanceCount());
+        assertEquals(0, generator.generateForRecurring(recurringId, LocalDate.of(2023, 12, 31)));
+
+        RecurringExpense recurring = RecurringExpenseService.getInstance().getAllRecurringExpenses().stream()
+            .filter(r -> r.getId().equals(recurringId)).findFirst().orElseThrow();
+        assertEquals(LocalDate.of(2023, 12, 31), recurring.getLastGeneratedDate());
+    }
+
+    @Test
+    public void testExistingInstancesAreSkipped() throws SQLException {
+        generator.generateForRecurring(recurringId, LocalDate.of(2022, 6, 30));
+
+        // Forget the bookmark so the next run replans dates that already have instances
+        try (Connection conn = DatabaseManager.getInstance().getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE recurring_expenses SET last_generated_epoch_day = NULL WHERE id = " + recurringId);
+        }
+
+        assertEquals(6, generator.generateForRecurring(recurringId, LocalDate.of(2022, 12, 31)));
+        assertEquals(24, instanceCount());
+    }
+
+    @Test
+    public void testInstancesCarryRecurringId() {
+        generator.generateForRecurring(recurringId, LocalDate.of(2021, 1, 31));
+
+        Expense instance = ExpenseService.getInstance().getExpensesByDateRange(LocalDate.of(2021, 1, 1), LocalDate.of(2021, 1, 1))
+            .stream().filter(e -> recurringId.equals(e.getRecurringId())).findFirst().orElse(null);
+        assertNotNull(instance);
+        assertTrue(instance.isRecurringInstance());
+    }
+
+    @Test
+    public void testGenerateAllReportsPerDefinitionCounts() {
+        RecurringExpense rent = RecurringExpenseService.getInstance().getRecurringExpenseById(recurringId);
+        Long yearlyId = RecurringExpenseService.getInstance().createRecurringExpense(new RecurringExpense(
+            rent.getCategoryId(), 120.0, "Test generator licence", RecurringExpense.Frequency.YEARLY, LocalDate.of(2021, 1, 1)));
+
+        RecurringExpenseGenerator.Report report = generator.generateAll(LocalDate.of(2023, 12, 31));
+
+        assertEquals(Integer.valueOf(36), report.perDefinition.get(recurringId));
+        assertEquals(Integer.valueOf(3), report.perDefinition.get(yearlyId));
+        assertTrue(report.total >= 39);
+        assertTrue(report.failed.isEmpty());
+        assertEquals(Integer.valueOf(0), generator.generateAll(LocalDate.of(2023, 12, 31)).perDefinition.get(recurringId));
+    }
+}
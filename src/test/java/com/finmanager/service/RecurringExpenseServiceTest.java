@@ -28,6 +28,7 @@ public class RecurringExpenseServiceTest {
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM recurring_expenses WHERE description LIKE 'Test%' OR description LIKE 'Monthly%'");
             stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Recurring%'");
+            CategoryService.getInstance().reload();
         }
         
         // Create new category with unique name
@@ -43,6 +44,7 @@ public class RecurringExpenseServiceTest {
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate("DELETE FROM recurring_expenses WHERE description LIKE 'Test%' OR description LIKE 'Monthly%'");
             stmt.executeUpdate("DELETE FROM categories WHERE name LIKE 'Recurring%'");
+            CategoryService.getInstance().reload();
         }
     }
 
@@ -0,0 +1,47 @@
+package com.finmanager.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+public class CsvReaderTest {
+
+    @Test
+    public void testQuotedFieldsAndLineEndings() throws IOException {
+        String csv = "\uFEFFDate,Description\r\n2024-01-05,\"Coffee, large\"\n2024-01-06,\"Say \"\"hi\"\"\"\r\n";
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            assertEquals(List.of("Date", "Description"), reader.readRecord());
+            assertEquals(List.of("2024-01-05", "Coffee, large"), reader.readRecord());
+            assertEquals(List.of("2024-01-06", "Say \"hi\""), reader.readRecord());
+            assertNull(reader.readRecord());
+        }
+    }
+
+    @Test
+    public void testEmbeddedNewlineKeepsLineNumbers() throws IOException {
+        String csv = "a,\"two\nlines\"\nb,c";
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            assertEquals(List.of("a", "two\nlines"), reader.readRecord());
+            assertEquals(1, reader.getRecordLine());
+            assertEquals(List.of("b", "c"), reader.readRecord());
+            assertEquals(3, reader.getRecordLine());
+        }
+    }
+
+    @Test
+    public void testEmptyFieldsAndCustomDelimiter() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("x;;z;\n"), ';', 100)) {
+            assertEquals(List.of("x", "", "z", ""), reader.readRecord());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnterminatedQuoteIsBounded() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("\"never closed,".repeat(50)), ',', 100)) {
+            reader.readRecord();
+        }
+    }
+}
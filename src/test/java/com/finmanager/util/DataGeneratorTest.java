@@ -0,0 +1,71 @@
+package com.finmanager.util;
+
+import com.finmanager.model.Expense;
+import com.finmanager.model.InvestmentEntry;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class DataGeneratorTest {
+    private static final List<Long> CATEGORY_IDS = LongStream.rangeClosed(1, 20).boxed().collect(Collectors.toList());
+
+    private static DataGenerator generator(long seed, int expenses) {
+        DataGenerator.Scale scale = DataGenerator.Scale.fromSettings(Map.of(
+            "expenses", String.valueOf(expenses), "endDate", "2024-12-31", "years", "2"));
+        return new DataGenerator(seed, scale);
+    }
+
+    private static List<Expense> expenses(DataGenerator generator) {
+        List<Expense> expenses = new ArrayList<>();
+        for (Iterator<Expense> it = generator.expenses(CATEGORY_IDS); it.hasNext(); ) {
+            expenses.add(it.next());
+        }
+        return expenses;
+    }
+
+    @Test
+    public void testSameSeedGeneratesSameRows() {
+        List<Expense> first = expenses(generator(7, 500));
+        List<Expense> second = expenses(generator(7, 500));
+        List<Expense> other = expenses(generator(8, 500));
+
+        assertEquals(500, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getDate(), second.get(i).getDate());
+            assertEquals(first.get(i).getAmountCents(), second.get(i).getAmountCents());
+            assertEquals(first.get(i).getCategoryId(), second.get(i).getCategoryId());
+        }
+        assertNotEquals(first.get(0).getAmountCents(), other.get(0).getAmountCents());
+    }
+
+    @Test
+    public void testExpensesStayInRangeAndFavourTopCategories() {
+        List<Expense> expenses = expenses(generator(42, 5000));
+
+        long firstCategory = expenses.stream().filter(e -> e.getCategoryId() == 1L).count();
+        long lastCategory = expenses.stream().filter(e -> e.getCategoryId() == 20L).count();
+        assertTrue(firstCategory > 5 * lastCategory);
+        for (Expense expense : expenses) {
+            assertTrue(expense.getAmount() > 0);
+            assertFalse(expense.getDate().isBefore(LocalDate.of(2023, 1, 1)));
+            assertFalse(expense.getDate().isAfter(LocalDate.of(2024, 12, 31)));
+        }
+    }
+
+    @Test
+    public void testInvestmentsIndependentOfExpenseCount() {
+        List<InvestmentEntry> small = generator(42, 10).investments();
+        List<InvestmentEntry> large = generator(42, 100_000).investments();
+
+        assertEquals(small.size(), large.size());
+        assertEquals(small.get(3).getAmountCents(), large.get(3).getAmountCents());
+        assertTrue(small.stream().map(InvestmentEntry::getCurrency).distinct().count() > 1);
+    }
+}
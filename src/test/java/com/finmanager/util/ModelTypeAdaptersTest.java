@@ -0,0 +1,120 @@
+package com.finmanager.util;
+
+import com.finmanager.model.Category;
+import com.finmanager.model.Expense;
+import com.finmanager.model.InvestmentEntry;
+import com.finmanager.model.Money;
+import com.finmanager.model.RecurringExpense;
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ModelTypeAdaptersTest {
+    /** What GsonUtil used to be: reflective models plus a tree-based LocalDate adapter. */
+    private static final Gson REFLECTIVE = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new TreeDateAdapter())
+            .create();
+    private static final Gson STREAMING = GsonUtil.getInstance();
+    private static final Pattern CENTS_FIELD = Pattern.compile("\"amountCents\":(-?\\d+)");
+
+    /** Reflective output with the models' cents field written the way the API writes amounts. */
+    private static String withDecimalAmounts(String reflectiveJson) {
+        Matcher matcher = CENTS_FIELD.matcher(reflectiveJson);
+        StringBuilder sb = new StringBuilder();
+        while (matcher.find()) {
+            matcher.appendReplacement(sb, "\"amount\":" + Money.format(Long.parseLong(matcher.group(1))));
+        }
+        return matcher.appendTail(sb).toString();
+    }
+
+    private static class TreeDateAdapter implements JsonSerializer<LocalDate>, JsonDeserializer<LocalDate> {
+        @Override
+        public JsonElement serialize(LocalDate src, Type typeOfSrc, JsonSerializationContext context) {
+            return new JsonPrimitive(src.toString());
+        }
+
+        @Override
+        public LocalDate deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) {
+            return LocalDate.parse(json.getAsString());
+        }
+    }
+
+    @Test
+    public void testOutputMatchesReflectiveGson() {
+        List<Expense> expenses = new ArrayList<>();
+        expenses.add(new Expense(LocalDate.of(2024, 2, 29), 12.5, 3L, "Café <b>&</b> \"quotes\""));
+        expenses.add(new Expense(LocalDate.of(1969, 12, 31), 1e-7, null, null));
+        Expense full = new Expense(LocalDate.of(2100, 1, 1), 1234567.0, 9L, "Rent");
+        full.setId(42L);
+        full.setRecurringId(7L);
+        full.setRecurringInstance(true);
+        expenses.add(full);
+        expenses.add(new Expense());
+        assertEquals(withDecimalAmounts(REFLECTIVE.toJson(expenses)), STREAMING.toJson(expenses));
+        assertTrue(STREAMING.toJson(expenses).contains("\"amount\":12.50,"));
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Groceries");
+        category.setActive(true);
+        assertEquals(REFLECTIVE.toJson(category), STREAMING.toJson(category));
+
+        RecurringExpense recurring = new RecurringExpense(2L, 99.99, "Gym", RecurringExpense.Frequency.MONTHLY, LocalDate.of(2023, 1, 31));
+        recurring.setLastGeneratedDate(LocalDate.of(2024, 12, 31));
+        assertEquals(withDecimalAmounts(REFLECTIVE.toJson(recurring)), STREAMING.toJson(recurring));
+        assertEquals(withDecimalAmounts(REFLECTIVE.toJson(new RecurringExpense())), STREAMING.toJson(new RecurringExpense()));
+
+        InvestmentEntry entry = new InvestmentEntry();
+        entry.setDate(LocalDate.of(2022, 6, 15));
+        entry.setAmount(500.0);
+        entry.setCurrency("USD");
+        entry.setExchangeRate(0.92);
+        entry.setRecurring(true);
+        assertEquals(withDecimalAmounts(REFLECTIVE.toJson(entry)), STREAMING.toJson(entry));
+
+        Gson withNulls = GsonUtil.getInstance().newBuilder().serializeNulls().create();
+        assertEquals(withDecimalAmounts(REFLECTIVE.newBuilder().serializeNulls().create().toJson(expenses)), withNulls.toJson(expenses));
+    }
+
+    @Test
+    public void testReadsWhatReflectiveGsonReads() {
+        String json = "[{\"id\":\"5\",\"date\":\"2024-03-31\",\"amount\":\"19.90\",\"categoryId\":2,"
+                + "\"description\":true,\"isRecurringInstance\":\"true\",\"extra\":{\"nested\":[1,2]}},"
+                + "{\"date\":null,\"amount\":null,\"isRecurringInstance\":null},{}]";
+        Type listType = new TypeToken<List<Expense>>() {}.getType();
+        List<Expense> expected = REFLECTIVE.fromJson(json, listType);
+        List<Expense> actual = STREAMING.fromJson(json, listType);
+        // Reflective Gson has no "amount" field to fill; the adapter parses it straight to cents
+        assertEquals(1990, actual.get(0).getAmountCents());
+        expected.get(0).setAmountCents(1990);
+        assertEquals(REFLECTIVE.toJson(expected), REFLECTIVE.toJson(actual));
+
+        String recurringJson = "{\"categoryId\":1,\"frequency\":\"WEEKLY\",\"startDate\":\"2024-01-01\",\"active\":true}";
+        assertEquals(REFLECTIVE.toJson(REFLECTIVE.fromJson(recurringJson, RecurringExpense.class)),
+                REFLECTIVE.toJson(STREAMING.fromJson(recurringJson, RecurringExpense.class)));
+        assertNull(STREAMING.fromJson("null", Expense.class));
+    }
+
+    @Test
+    public void testDates() {
+        for (LocalDate date = LocalDate.of(2023, 12, 25); date.isBefore(LocalDate.of(2024, 3, 5)); date = date.plusDays(1)) {
+            String formatted = ModelTypeAdapters.LocalDateAdapter.format(date);
+            assertEquals(date.toString(), formatted);
+            assertSame(formatted, ModelTypeAdapters.LocalDateAdapter.format(date));
+            assertEquals(date, ModelTypeAdapters.LocalDateAdapter.parse(formatted));
+        }
+        assertEquals("+10000-01-01", ModelTypeAdapters.LocalDateAdapter.format(LocalDate.of(10000, 1, 1)));
+        assertEquals("0099-05-06", ModelTypeAdapters.LocalDateAdapter.format(LocalDate.of(99, 5, 6)));
+        assertThrows(DateTimeParseException.class, () -> ModelTypeAdapters.LocalDateAdapter.parse("2023-02-29"));
+        assertThrows(DateTimeParseException.class, () -> ModelTypeAdapters.LocalDateAdapter.parse("2023-1-5"));
+    }
+}